@@ -2,6 +2,9 @@ package com.urlshortener.analytics.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.urlshortener.analytics.kafka.ClickAggregationEngine;
+import com.urlshortener.common.event.BaseEvent;
+import com.urlshortener.common.event.codec.EventDeserializer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,9 +14,12 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,6 +30,15 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
     
+    @Value("${analytics.batch.max-poll-records:1000}")
+    private int batchMaxPollRecords;
+    
+    @Value("${analytics.batch.retry-interval:PT1S}")
+    private Duration batchRetryInterval;
+    
+    @Value("${analytics.aggregation.flush-interval:PT2S}")
+    private Duration aggregationFlushInterval;
+    
     @Bean
     public ObjectMapper objectMapper() {
         ObjectMapper mapper = new ObjectMapper();
@@ -32,36 +47,86 @@ public class KafkaConsumerConfig {
     }
     
     @Bean
-    public ConsumerFactory<String, Object> consumerFactory() {
+    public ConsumerFactory<String, BaseEvent> consumerFactory() {
+        Map<String, Object> config = consumerConfig();
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 100);
+        return new DefaultKafkaConsumerFactory<>(config);
+    }
+    
+    /**
+     * Consumer for batch listeners: a whole poll goes to the listener, and the container commits
+     * its offsets only once the listener has returned (the batch is flushed)
+     */
+    @Bean
+    public ConsumerFactory<String, BaseEvent> batchConsumerFactory() {
+        Map<String, Object> config = consumerConfig();
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchMaxPollRecords);
+        return new DefaultKafkaConsumerFactory<>(config);
+    }
+    
+    private Map<String, Object> consumerConfig() {
         Map<String, Object> config = new HashMap<>();
         config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ConsumerConfig.GROUP_ID_CONFIG, "analytics-service");
         config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
-        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 100);
         
         // Use ErrorHandlingDeserializer as wrapper
         config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
         config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
         
-        // Actual deserializers
+        // Actual deserializers; events decode straight into their typed class (binary, or legacy JSON)
         config.put(ErrorHandlingDeserializer.KEY_DESERIALIZER_CLASS, StringDeserializer.class);
-        config.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
-        
-        // JSON deserializer configuration
-        config.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
-        config.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
-        config.put(JsonDeserializer.VALUE_DEFAULT_TYPE, Object.class);
-        
-        return new DefaultKafkaConsumerFactory<>(config);
+        config.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, EventDeserializer.class);
+        return config;
     }
     
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, Object> factory = 
+    public ConcurrentKafkaListenerContainerFactory<String, BaseEvent> kafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, BaseEvent> factory = 
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
         factory.setConcurrency(3);
+        // A failed click is rolled back and retried until it succeeds (per-event mode)
+        factory.setCommonErrorHandler(new DefaultErrorHandler(
+                new FixedBackOff(batchRetryInterval.toMillis(), FixedBackOff.UNLIMITED_ATTEMPTS)));
+        return factory;
+    }
+    
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, BaseEvent> batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, BaseEvent> factory = 
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(batchConsumerFactory());
+        factory.setConcurrency(3);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        // A failed flush rolls back and the same poll is retried until it succeeds, so an outage
+        // holds the partitions back instead of dropping their clicks
+        factory.setCommonErrorHandler(new DefaultErrorHandler(
+                new FixedBackOff(batchRetryInterval.toMillis(), FixedBackOff.UNLIMITED_ATTEMPTS)));
+        return factory;
+    }
+    
+    /**
+     * Container for ClickAggregationEngine: offsets are stored with each flush and never acked
+     * through the container, idle events let due aggregates flush without new records, and a
+     * failed flush of a full aggregate is retried until it succeeds
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, BaseEvent> aggregationKafkaListenerContainerFactory(
+            ClickAggregationEngine clickAggregationEngine) {
+        ConcurrentKafkaListenerContainerFactory<String, BaseEvent> factory = 
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(batchConsumerFactory());
+        factory.setConcurrency(3);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setIdleEventInterval(aggregationFlushInterval.toMillis());
+        factory.getContainerProperties().setConsumerRebalanceListener(clickAggregationEngine);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(
+                new FixedBackOff(batchRetryInterval.toMillis(), FixedBackOff.UNLIMITED_ATTEMPTS)));
         return factory;
     }
 }
\ No newline at end of file
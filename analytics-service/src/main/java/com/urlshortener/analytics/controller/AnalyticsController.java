@@ -4,12 +4,15 @@ import com.urlshortener.analytics.entity.UrlClick;
 import com.urlshortener.analytics.service.AnalyticsQueryService;
 import com.urlshortener.common.dto.DailyAnalyticsResponse;
 import com.urlshortener.common.dto.GeoAnalyticsResponse;
+import com.urlshortener.common.dto.UniqueVisitorsResponse;
 import com.urlshortener.common.dto.UrlAnalyticsResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -45,6 +48,23 @@ public class AnalyticsController {
         return ResponseEntity.ok(analytics);
     }
     
+    /**
+     * Get estimated unique visitors over a date range (defaults to the last 30 days)
+     * GET /api/analytics/url/{shortCode}/unique?from=2024-01-01&to=2024-01-31
+     */
+    @GetMapping("/url/{shortCode}/unique")
+    public ResponseEntity<UniqueVisitorsResponse> getUniqueVisitors(
+            @PathVariable String shortCode,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        
+        LocalDate endDate = to != null ? to : LocalDate.now();
+        LocalDate startDate = from != null ? from : endDate.minusDays(30);
+        log.info("Getting unique visitors for: {} ({} to {})", shortCode, startDate, endDate);
+        UniqueVisitorsResponse visitors = analyticsQueryService.getUniqueVisitors(shortCode, startDate, endDate);
+        return ResponseEntity.ok(visitors);
+    }
+    
     /**
      * Get geographic distribution of clicks
      * GET /api/analytics/url/{shortCode}/geo
@@ -38,6 +38,10 @@ public class UrlAnalytics {
     @Column(nullable = false, name = "unique_ips")
     private Long uniqueIps = 0L;
     
+    // HyperLogLog.toBytes() of the visitor IPs; uniqueIps is its estimate
+    @Column(name = "ip_sketch")
+    private byte[] ipSketch;
+    
     @Column(name = "last_clicked_at")
     private LocalDateTime lastClickedAt;
     
@@ -43,6 +43,10 @@ public class UrlDailyAnalytics {
     @Column(nullable = false, name = "unique_ips")
     private Long uniqueIps = 0L;
     
+    // HyperLogLog.toBytes() of the visitor IPs; uniqueIps is its estimate
+    @Column(name = "ip_sketch")
+    private byte[] ipSketch;
+    
     @CreatedDate
     @Column(nullable = false, updatable = false, name = "created_at")
     private LocalDateTime createdAt;
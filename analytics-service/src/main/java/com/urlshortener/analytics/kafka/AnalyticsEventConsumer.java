@@ -1,17 +1,17 @@
 package com.urlshortener.analytics.kafka;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.urlshortener.analytics.service.AnalyticsProcessingService;
 import com.urlshortener.common.constants.KafkaTopics;
 import com.urlshortener.common.event.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
@@ -19,25 +19,55 @@ import java.util.Map;
 public class AnalyticsEventConsumer {
     
     private final AnalyticsProcessingService analyticsProcessingService;
-    private final ObjectMapper objectMapper;
     
     /**
-     * Consume URL access events (clicks)
+     * Consume a whole poll of URL access events, applied in one transaction (batch mode)
      */
     @KafkaListener(
         topics = KafkaTopics.URL_ACCESS_EVENTS,
-        groupId = "analytics-service"
+        groupId = "analytics-service",
+        containerFactory = "batchKafkaListenerContainerFactory",
+        autoStartup = "#{${analytics.batch.enabled:true} && !${analytics.aggregation.enabled:true}}"
     )
-    public void consumeUrlAccessEvent(@Payload Map<String, Object> eventMap) {
-        log.debug("Received URL access event: {}", eventMap);
+    public void consumeUrlAccessEvents(List<ConsumerRecord<String, BaseEvent>> records) {
+        List<BaseEvent> events = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, BaseEvent> record : records) {
+            if (record.value() == null) {
+                // Failed to deserialize (see ErrorHandlingDeserializer); nothing to apply
+                log.warn("Skipping undecodable URL access event at {}-{}@{}",
+                        record.topic(), record.partition(), record.offset());
+            } else {
+                events.add(record.value());
+            }
+        }
         
-        try {
-            // Convert Map to UrlAccessedEvent
-            UrlAccessedEvent event = objectMapper.convertValue(eventMap, UrlAccessedEvent.class);
-            analyticsProcessingService.processUrlAccessEvent(event);
-            log.info("Processed URL access event for: {}", event.getShortCode());
-        } catch (Exception e) {
-            log.error("Error processing URL access event: {}", eventMap, e);
+        // Exceptions propagate so the offsets are not committed and the poll is retried
+        int applied = analyticsProcessingService.processClickBatch(events);
+        log.info("Processed batch of {} URL access events", applied);
+    }
+    
+    /**
+     * Consume URL access events one at a time: single clicks, or click rollups pre-aggregated by
+     * url-service (when batch mode is off)
+     */
+    @KafkaListener(
+        topics = KafkaTopics.URL_ACCESS_EVENTS,
+        groupId = "analytics-service",
+        autoStartup = "#{!${analytics.batch.enabled:true} && !${analytics.aggregation.enabled:true}}"
+    )
+    public void consumeUrlAccessEvent(@Payload BaseEvent event) {
+        log.debug("Received URL access event: {}", event);
+        
+        // Exceptions propagate so the event is retried (see kafkaListenerContainerFactory)
+        if (event instanceof UrlAccessedEvent accessedEvent) {
+            analyticsProcessingService.processUrlAccessEvent(accessedEvent);
+            log.info("Processed URL access event for: {}", accessedEvent.getShortCode());
+        } else if (event instanceof UrlClickRollupEvent rollupEvent) {
+            analyticsProcessingService.processUrlClickRollupEvent(rollupEvent);
+            log.info("Processed click rollup for: {} ({} clicks)",
+                    rollupEvent.getShortCode(), rollupEvent.getClickCount());
+        } else {
+            log.warn("Unknown event type: {}", event.getEventType());
         }
     }
     
@@ -48,40 +78,24 @@ public class AnalyticsEventConsumer {
         topics = KafkaTopics.URL_LIFECYCLE_EVENTS,
         groupId = "analytics-service"
     )
-    public void consumeUrlLifecycleEvent(@Payload Map<String, Object> eventMap) {
-        log.debug("Received URL lifecycle event: {}", eventMap);
+    public void consumeUrlLifecycleEvent(@Payload BaseEvent event) {
+        log.debug("Received URL lifecycle event: {}", event);
         
         try {
-            String eventType = (String) eventMap.get("eventType");
-            
-            if (eventType == null) {
-                log.warn("Event type is null, skipping event: {}", eventMap);
+            if (event instanceof UrlCreatedEvent createdEvent) {
+                analyticsProcessingService.processUrlCreatedEvent(createdEvent);
+            } else if (event instanceof UrlDeletedEvent deletedEvent) {
+                analyticsProcessingService.processUrlDeletedEvent(deletedEvent);
+            } else if (event instanceof UrlExpiredEvent expiredEvent) {
+                analyticsProcessingService.processUrlExpiredEvent(expiredEvent);
+            } else {
+                log.warn("Unknown event type: {}", event.getEventType());
                 return;
             }
             
-            switch (eventType) {
-                case "url.created":
-                    UrlCreatedEvent createdEvent = objectMapper.convertValue(eventMap, UrlCreatedEvent.class);
-                    analyticsProcessingService.processUrlCreatedEvent(createdEvent);
-                    break;
-                    
-                case "url.deleted":
-                    UrlDeletedEvent deletedEvent = objectMapper.convertValue(eventMap, UrlDeletedEvent.class);
-                    analyticsProcessingService.processUrlDeletedEvent(deletedEvent);
-                    break;
-                    
-                case "url.expired":
-                    UrlExpiredEvent expiredEvent = objectMapper.convertValue(eventMap, UrlExpiredEvent.class);
-                    analyticsProcessingService.processUrlExpiredEvent(expiredEvent);
-                    break;
-                    
-                default:
-                    log.warn("Unknown event type: {}", eventType);
-            }
-            
-            log.info("Processed URL lifecycle event: {}", eventType);
+            log.info("Processed URL lifecycle event: {}", event.getEventType());
         } catch (Exception e) {
-            log.error("Error processing URL lifecycle event: {}", eventMap, e);
+            log.error("Error processing URL lifecycle event: {}", event, e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,224 @@
+package com.urlshortener.analytics.kafka;
+
+import com.urlshortener.analytics.repository.ConsumerOffsetRepository;
+import com.urlshortener.analytics.service.AnalyticsProcessingService;
+import com.urlshortener.analytics.service.ClickAggregate;
+import com.urlshortener.common.constants.KafkaTopics;
+import com.urlshortener.common.event.BaseEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Partition-affine aggregation of url-access-events.
+ *
+ * url-service keys clicks and rollups by short code, so all events of a short code arrive on one
+ * partition, and a partition is consumed by one listener thread at a time. Each assigned
+ * partition gets its own ClickAggregate, touched only by that thread: events are folded in
+ * memory without locks, and no two threads ever write the same url_analytics rows.
+ *
+ * An aggregate is flushed once flush-interval has passed since its first pending record, or
+ * once it holds max-pending-events, and before its partition is revoked. A flush writes the
+ * deltas, the raw clicks and the partition's next offset in one transaction
+ * (AnalyticsProcessingService.flushClickAggregate). On assignment the consumer seeks to the
+ * stored offset, so after a restart or rebalance nothing is counted twice and nothing is lost.
+ * The offset update is conditional on the offset the aggregate started from, so a consumer
+ * that lost its partition without noticing cannot flush over its successor.
+ *
+ * Kafka offsets are only committed after a flush, for lag monitoring and as the starting point
+ * of partitions that have no stored offset yet. A committed offset ahead of the stored one
+ * means the batch or per-event listener applied those records (aggregation was switched off
+ * for a while): the partition resumes from the committed offset, and its first flush moves the
+ * stored offset up to it.
+ *
+ * Metrics: click.aggregate.flushed (events flushed), click.aggregate.flush (flush time) and
+ * click.aggregate.pending (events folded but not yet flushed).
+ */
+@Component
+@Slf4j
+public class ClickAggregationEngine implements ConsumerAwareRebalanceListener {
+
+    static final String GROUP_ID = "analytics-service";
+
+    private final AnalyticsProcessingService analyticsProcessingService;
+    private final ConsumerOffsetRepository consumerOffsetRepository;
+    private final Counter flushedCounter;
+    private final Timer flushTimer;
+
+    private final long flushIntervalNanos;
+    private final int maxPendingEvents;
+
+    // Each entry is only used by the thread its partition is assigned to; shared for the gauge
+    private final Map<TopicPartition, ClickAggregate> aggregates = new ConcurrentHashMap<>();
+
+    public ClickAggregationEngine(
+            AnalyticsProcessingService analyticsProcessingService,
+            ConsumerOffsetRepository consumerOffsetRepository,
+            MeterRegistry meterRegistry,
+            @Value("${analytics.aggregation.flush-interval:PT2S}") Duration flushInterval,
+            @Value("${analytics.aggregation.max-pending-events:50000}") int maxPendingEvents) {
+        this.analyticsProcessingService = analyticsProcessingService;
+        this.consumerOffsetRepository = consumerOffsetRepository;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.maxPendingEvents = maxPendingEvents;
+
+        this.flushedCounter = Counter.builder("click.aggregate.flushed")
+                .description("Click events flushed from partition aggregates")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("click.aggregate.flush")
+                .description("Time to flush one partition aggregate")
+                .register(meterRegistry);
+        Gauge.builder("click.aggregate.pending", aggregates,
+                        all -> all.values().stream().mapToInt(ClickAggregate::getPendingEvents).sum())
+                .description("Click events folded in memory and not yet flushed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Fold a poll into the aggregates of its partitions, then flush those that are due.
+     * Exceptions propagate so the container retries (see aggregationKafkaListenerContainerFactory);
+     * records before an aggregate's next offset are already folded and are skipped.
+     */
+    @KafkaListener(
+        id = "click-aggregation",
+        topics = KafkaTopics.URL_ACCESS_EVENTS,
+        groupId = GROUP_ID,
+        containerFactory = "aggregationKafkaListenerContainerFactory",
+        autoStartup = "${analytics.aggregation.enabled:true}"
+    )
+    public void consume(List<ConsumerRecord<String, BaseEvent>> records, Consumer<?, ?> consumer) {
+        for (ConsumerRecord<String, BaseEvent> record : records) {
+            ClickAggregate aggregate = aggregates.get(new TopicPartition(record.topic(), record.partition()));
+            if (aggregate == null || record.offset() < aggregate.getNextOffset()) {
+                continue;
+            }
+            if (record.value() == null) {
+                // Failed to deserialize (see ErrorHandlingDeserializer); only its offset counts
+                log.warn("Skipping undecodable URL access event at {}-{}@{}",
+                        record.topic(), record.partition(), record.offset());
+            }
+            if (!aggregate.add(record.offset(), record.value()) && record.value() != null) {
+                log.warn("Unknown event type: {}", record.value().getEventType());
+            }
+        }
+        flushDue(consumer, consumer.assignment(), true);
+    }
+
+    /**
+     * Flush aggregates that became due while no records arrived (published on the consumer thread)
+     */
+    @EventListener(condition = "event.listenerId.startsWith('click-aggregation')")
+    public void onIdle(ListenerContainerIdleEvent event) {
+        flushDue(event.getConsumer(), event.getTopicPartitions(), false);
+    }
+
+    /**
+     * Resume each partition from its stored or Kafka's committed offset, whichever is further
+     */
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Map<Integer, Long> stored = consumerOffsetRepository.findOffsets(GROUP_ID, KafkaTopics.URL_ACCESS_EVENTS);
+        Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(new HashSet<>(partitions));
+        for (TopicPartition partition : partitions) {
+            resume(consumer, partition, stored.get(partition.partition()), committed.get(partition));
+        }
+        log.info("Aggregating url-access-events partitions {}", partitions);
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            ClickAggregate aggregate = aggregates.remove(partition);
+            if (aggregate != null && aggregate.isPending()) {
+                try {
+                    flush(consumer, partition, aggregate);
+                } catch (Exception e) {
+                    // The next owner resumes from the stored offset and folds these events again
+                    log.warn("Could not flush {} before revocation; its next owner re-reads it", partition, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // Already owned by another consumer, which re-reads from the stored offset
+        partitions.forEach(aggregates::remove);
+    }
+
+    private void resume(Consumer<?, ?> consumer, TopicPartition partition, Long storedOffset,
+                        OffsetAndMetadata committed) {
+        if (storedOffset == null) {
+            aggregates.put(partition, new ClickAggregate(-1, consumer.position(partition)));
+            return;
+        }
+        // Records up to a further committed offset were applied by the other listeners; the
+        // aggregate starts pending, so its first flush records that offset even without records
+        long next = committed != null ? Math.max(storedOffset, committed.offset()) : storedOffset;
+        consumer.seek(partition, next);
+        aggregates.put(partition, new ClickAggregate(storedOffset, next));
+    }
+
+    /**
+     * @param rethrow whether a failed flush of an aggregate over max-pending-events propagates,
+     * holding the consumer back until the flush succeeds
+     */
+    private void flushDue(Consumer<?, ?> consumer, Collection<TopicPartition> partitions, boolean rethrow) {
+        long now = System.nanoTime();
+        for (TopicPartition partition : partitions) {
+            ClickAggregate aggregate = aggregates.get(partition);
+            if (aggregate == null || !aggregate.isPending()) {
+                continue;
+            }
+            boolean full = aggregate.getPendingEvents() >= maxPendingEvents;
+            if (!full && now - aggregate.getPendingSince() < flushIntervalNanos) {
+                continue;
+            }
+            try {
+                flush(consumer, partition, aggregate);
+            } catch (OptimisticLockingFailureException e) {
+                log.warn("{} was flushed by another consumer; resuming from its stored offset", partition, e);
+                Map<Integer, Long> stored = consumerOffsetRepository.findOffsets(GROUP_ID, partition.topic());
+                resume(consumer, partition, stored.get(partition.partition()),
+                        consumer.committed(Set.of(partition)).get(partition));
+            } catch (RuntimeException e) {
+                // Kept in memory and retried at the next poll
+                log.error("Failed to flush {} ({} pending events)", partition, aggregate.getPendingEvents(), e);
+                if (full && rethrow) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void flush(Consumer<?, ?> consumer, TopicPartition partition, ClickAggregate aggregate) {
+        Timer.Sample sample = Timer.start();
+        analyticsProcessingService.flushClickAggregate(GROUP_ID, partition.topic(), partition.partition(),
+                aggregate.toBatch(), aggregate.getStoredOffset(), aggregate.getNextOffset());
+        sample.stop(flushTimer);
+        flushedCounter.increment(aggregate.getPendingEvents());
+        aggregate.flushed();
+        consumer.commitAsync(Map.of(partition, new OffsetAndMetadata(aggregate.getNextOffset())), null);
+    }
+}
@@ -0,0 +1,90 @@
+package com.urlshortener.analytics.partition;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Width of the url_clicks range partitions, and how a partition is named after the first day
+ * it holds: url_clicks_p20240302 for a day, url_clicks_p202403 for a month.
+ */
+public enum PartitionInterval {
+
+    DAY("yyyyMMdd") {
+        @Override
+        public LocalDate start(LocalDate date) {
+            return date;
+        }
+
+        @Override
+        public LocalDate next(LocalDate start) {
+            return start.plusDays(1);
+        }
+    },
+
+    MONTH("yyyyMM") {
+        @Override
+        public LocalDate start(LocalDate date) {
+            return date.withDayOfMonth(1);
+        }
+
+        @Override
+        public LocalDate next(LocalDate start) {
+            return start.plusMonths(1);
+        }
+
+        @Override
+        LocalDate parseSuffix(String suffix) {
+            return DAY.parseSuffix(suffix + "01");
+        }
+    };
+
+    public static final String PREFIX = "url_clicks_p";
+
+    private final DateTimeFormatter format;
+    private final int suffixLength;
+
+    PartitionInterval(String pattern) {
+        this.format = DateTimeFormatter.ofPattern(pattern);
+        this.suffixLength = pattern.length();
+    }
+
+    /**
+     * First day of the partition holding the date
+     */
+    public abstract LocalDate start(LocalDate date);
+
+    /**
+     * First day of the partition after the one starting at start
+     */
+    public abstract LocalDate next(LocalDate start);
+
+    public String name(LocalDate start) {
+        return PREFIX + format.format(start);
+    }
+
+    /**
+     * @return the first day of the partition with this name, or null if it is not one of this
+     * interval's partitions (the default partition, or one of another interval)
+     */
+    public LocalDate parse(String name) {
+        if (!name.startsWith(PREFIX)) {
+            return null;
+        }
+        String suffix = name.substring(PREFIX.length());
+        if (suffix.length() != suffixLength) {
+            return null;
+        }
+        try {
+            // Round trip, since parsing quietly fixes days like Feb 30
+            LocalDate start = parseSuffix(suffix);
+            return name.equals(name(start)) ? start : null;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    LocalDate parseSuffix(String suffix) {
+        return LocalDate.parse(suffix, format);
+    }
+}
@@ -0,0 +1,186 @@
+package com.urlshortener.analytics.partition;
+
+import com.urlshortener.analytics.repository.UrlClickPartitionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Keeps url_clicks range partitioned on clicked_at.
+ *
+ * Every maintenance-interval (and at startup) it creates the partitions from today's up to
+ * premake ahead, so clicks land in a partition of their own range rather than the default
+ * partition, and drops the partitions that end on or before today minus retention. Retention
+ * therefore costs a DROP TABLE per partition instead of DELETEs, and queries bounded on
+ * clicked_at only scan the partitions of their range.
+ *
+ * Each partition is created or dropped in a short transaction of its own under an advisory
+ * lock, so one instance changes the partitions at a time and url_clicks is locked for one
+ * partition's DDL rather than a whole round. Those transactions give up after lock-timeout
+ * waiting on a lock (a long query on url_clicks, say) instead of queueing the click COPYs and
+ * queries behind them, and are retried next round. Partitions of an interval used earlier (say daily ones after switching
+ * to monthly) are still recognized by name: new partitions are only created where they do not
+ * overlap them, and they are dropped once expired.
+ */
+@Component
+@Slf4j
+public class UrlClickPartitionManager {
+
+    private final UrlClickPartitionRepository urlClickPartitionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final PartitionInterval interval;
+    private final Period premake;
+    private final Period retention;
+    private final long lockKey;
+    private final Duration lockTimeout;
+
+    public UrlClickPartitionManager(
+            UrlClickPartitionRepository urlClickPartitionRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${analytics.click-partitions.enabled:true}") boolean enabled,
+            @Value("${analytics.click-partitions.interval:DAY}") PartitionInterval interval,
+            @Value("${analytics.click-partitions.premake:P7D}") Period premake,
+            @Value("${analytics.click-partitions.retention:P90D}") Period retention,
+            @Value("${analytics.click-partitions.lock-key:7303}") long lockKey,
+            @Value("${analytics.click-partitions.lock-timeout:PT5S}") Duration lockTimeout) {
+        this.urlClickPartitionRepository = urlClickPartitionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.interval = interval;
+        this.premake = premake;
+        this.retention = retention;
+        this.lockKey = lockKey;
+        this.lockTimeout = lockTimeout;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        maintain();
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.click-partitions.maintenance-interval:PT1H}",
+            initialDelayString = "${analytics.click-partitions.maintenance-interval:PT1H}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            maintain(LocalDate.now());
+        } catch (Exception e) {
+            log.error("url_clicks partition maintenance failed", e);
+        }
+    }
+
+    private void maintain(LocalDate today) {
+        if (!urlClickPartitionRepository.isPartitioned()) {
+            log.warn("url_clicks is not partitioned; skipping partition maintenance");
+            return;
+        }
+
+        int created = 0;
+        LocalDate last = interval.start(today.plus(premake));
+        for (LocalDate start = interval.start(today); !start.isAfter(last); start = interval.next(start)) {
+            String name = interval.name(start);
+            Range range = new Range(start, interval.next(start));
+            Integer count = inLockedTransaction("create partition " + name, () -> {
+                // Re-read under the lock: another instance may have created it since
+                if (existingRanges().stream().anyMatch(range::overlaps)) {
+                    return 0;
+                }
+                urlClickPartitionRepository.createPartition(name, range.start(), range.end());
+                return 1;
+            });
+            if (count == null) {
+                return;
+            }
+            created += count;
+        }
+
+        int dropped = 0;
+        int purged = 0;
+        if (!retention.isZero()) {
+            LocalDate cutoff = today.minus(retention);
+            for (String name : urlClickPartitionRepository.findPartitions()) {
+                Range range = range(name);
+                if (range == null || range.end().isAfter(cutoff)) {
+                    continue;
+                }
+                Integer count = inLockedTransaction("drop partition " + name, () -> {
+                    urlClickPartitionRepository.dropPartition(name);
+                    return 1;
+                });
+                if (count == null) {
+                    return;
+                }
+                dropped += count;
+            }
+            Integer count = inLockedTransaction("purge expired clicks from the default partition",
+                    () -> urlClickPartitionRepository.deleteFromDefaultBefore(cutoff));
+            purged = count != null ? count : 0;
+        }
+        if (created > 0 || dropped > 0 || purged > 0) {
+            log.info("url_clicks partitions: {} created, {} dropped, {} expired clicks purged from the default partition",
+                    created, dropped, purged);
+        }
+    }
+
+    /**
+     * Run one maintenance step in a transaction of its own under the advisory lock
+     * @return what the step changed (0 if it failed, left to the next round), or null if another
+     * instance holds the lock and this round should stop
+     */
+    private Integer inLockedTransaction(String step, Supplier<Integer> work) {
+        try {
+            return transactionTemplate.execute(status -> {
+                if (!urlClickPartitionRepository.tryLock(lockKey)) {
+                    return null;
+                }
+                urlClickPartitionRepository.setLockTimeout(lockTimeout);
+                return work.get();
+            });
+        } catch (Exception e) {
+            log.warn("url_clicks partition maintenance could not {}; retrying next round", step, e);
+            return 0;
+        }
+    }
+
+    private List<Range> existingRanges() {
+        return urlClickPartitionRepository.findPartitions().stream()
+                .map(UrlClickPartitionManager::range).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Days the named partition holds, whatever interval created it; null for the default partition
+     */
+    private static Range range(String name) {
+        for (PartitionInterval candidate : PartitionInterval.values()) {
+            LocalDate start = candidate.parse(name);
+            if (start != null) {
+                return new Range(start, candidate.next(start));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * [start, end)
+     */
+    private record Range(LocalDate start, LocalDate end) {
+        boolean overlaps(Range other) {
+            return start.isBefore(other.end) && other.start.isBefore(end);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.urlshortener.analytics.repository;
+
+import com.urlshortener.analytics.service.ClickBatch.CodeDelta;
+import com.urlshortener.analytics.service.ClickBatch.DayKey;
+import com.urlshortener.analytics.service.ClickBatch.GeoKey;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Multi-row statements that apply a whole ClickBatch in a few round trips. Counters are
+ * upserted with INSERT ... ON CONFLICT DO UPDATE, adding the batch's deltas to existing rows.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AnalyticsBulkRepository {
+
+    // LEAST/GREATEST ignore NULLs, so a row created by a url.created event takes the batch's times
+    private static final String UPSERT_URL_ANALYTICS_SQL =
+            "INSERT INTO url_analytics (short_code, total_clicks, unique_ips, first_clicked_at, last_clicked_at, " +
+            "created_at, updated_at) " +
+            "SELECT d.short_code, d.clicks, 0, d.first_clicked_at, d.last_clicked_at, LOCALTIMESTAMP, LOCALTIMESTAMP " +
+            "FROM unnest(?::text[], ?::bigint[], ?::timestamp[], ?::timestamp[]) " +
+            "AS d(short_code, clicks, first_clicked_at, last_clicked_at) " +
+            "ON CONFLICT (short_code) DO UPDATE SET " +
+            "total_clicks = url_analytics.total_clicks + EXCLUDED.total_clicks, " +
+            "first_clicked_at = LEAST(url_analytics.first_clicked_at, EXCLUDED.first_clicked_at), " +
+            "last_clicked_at = GREATEST(url_analytics.last_clicked_at, EXCLUDED.last_clicked_at), " +
+            "updated_at = LOCALTIMESTAMP";
+
+    // Row locks keep the sketch read-merge-write of concurrent batches from losing updates
+    private static final String LOCK_URL_SKETCHES_SQL =
+            "SELECT short_code, ip_sketch FROM url_analytics " +
+            "WHERE short_code = ANY(?::text[]) ORDER BY short_code FOR UPDATE";
+
+    private static final String UPDATE_URL_SKETCHES_SQL =
+            "UPDATE url_analytics a SET ip_sketch = d.ip_sketch, unique_ips = d.unique_ips " +
+            "FROM unnest(?::text[], ?::bytea[], ?::bigint[]) AS d(short_code, ip_sketch, unique_ips) " +
+            "WHERE a.short_code = d.short_code";
+
+    private static final String LOCK_DAILY_SKETCHES_SQL =
+            "SELECT a.short_code, a.date, a.ip_sketch FROM url_daily_analytics a " +
+            "JOIN unnest(?::text[], ?::date[]) AS d(short_code, date) " +
+            "ON a.short_code = d.short_code AND a.date = d.date " +
+            "ORDER BY a.short_code, a.date FOR UPDATE OF a";
+
+    private static final String UPDATE_DAILY_SKETCHES_SQL =
+            "UPDATE url_daily_analytics a SET ip_sketch = d.ip_sketch, unique_ips = d.unique_ips " +
+            "FROM unnest(?::text[], ?::date[], ?::bytea[], ?::bigint[]) AS d(short_code, date, ip_sketch, unique_ips) " +
+            "WHERE a.short_code = d.short_code AND a.date = d.date";
+
+    private static final String UPSERT_DAILY_ANALYTICS_SQL =
+            "INSERT INTO url_daily_analytics (short_code, date, click_count, unique_ips, created_at) " +
+            "SELECT d.short_code, d.date, d.clicks, 0, LOCALTIMESTAMP " +
+            "FROM unnest(?::text[], ?::date[], ?::bigint[]) AS d(short_code, date, clicks) " +
+            "ON CONFLICT (short_code, date) DO UPDATE SET " +
+            "click_count = url_daily_analytics.click_count + EXCLUDED.click_count";
+
+    private static final String UPSERT_GEO_ANALYTICS_SQL =
+            "INSERT INTO url_geo_analytics (short_code, country, city, click_count, created_at, updated_at) " +
+            "SELECT d.short_code, d.country, d.city, d.clicks, LOCALTIMESTAMP, LOCALTIMESTAMP " +
+            "FROM unnest(?::text[], ?::text[], ?::text[], ?::bigint[]) AS d(short_code, country, city, clicks) " +
+            "ON CONFLICT (short_code, country, city) DO UPDATE SET " +
+            "click_count = url_geo_analytics.click_count + EXCLUDED.click_count, " +
+            "updated_at = LOCALTIMESTAMP";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Add click deltas to url_analytics, creating missing rows
+     */
+    public int upsertUrlAnalytics(Map<String, CodeDelta> deltas) {
+        int size = deltas.size();
+        String[] shortCodes = new String[size];
+        Long[] clicks = new Long[size];
+        Timestamp[] firstClickedAts = new Timestamp[size];
+        Timestamp[] lastClickedAts = new Timestamp[size];
+        int i = 0;
+        for (Map.Entry<String, CodeDelta> entry : deltas.entrySet()) {
+            shortCodes[i] = entry.getKey();
+            clicks[i] = entry.getValue().getClicks();
+            firstClickedAts[i] = timestamp(entry.getValue().getFirstClickedAt());
+            lastClickedAts[i] = timestamp(entry.getValue().getLastClickedAt());
+            i++;
+        }
+
+        return jdbcTemplate.update(UPSERT_URL_ANALYTICS_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("text", shortCodes));
+            ps.setArray(2, connection.createArrayOf("bigint", clicks));
+            ps.setArray(3, connection.createArrayOf("timestamp", firstClickedAts));
+            ps.setArray(4, connection.createArrayOf("timestamp", lastClickedAts));
+        });
+    }
+
+    /**
+     * Lock the url_analytics rows of the short codes (until the transaction ends) and read their
+     * visitor sketches
+     * @return sketches by short code; null for rows without one yet
+     */
+    public Map<String, byte[]> lockUrlSketches(Collection<String> shortCodes) {
+        String[] codes = shortCodes.toArray(new String[0]);
+        Map<String, byte[]> sketches = new HashMap<>();
+        jdbcTemplate.query(LOCK_URL_SKETCHES_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", codes)),
+                rs -> {
+                    sketches.put(rs.getString("short_code"), rs.getBytes("ip_sketch"));
+                });
+        return sketches;
+    }
+
+    /**
+     * Store merged visitor sketches and their estimates in url_analytics
+     */
+    public int updateUrlSketches(Map<String, SketchRow> rows) {
+        int size = rows.size();
+        String[] shortCodes = new String[size];
+        byte[][] sketches = new byte[size][];
+        Long[] uniqueIps = new Long[size];
+        int i = 0;
+        for (Map.Entry<String, SketchRow> entry : rows.entrySet()) {
+            shortCodes[i] = entry.getKey();
+            sketches[i] = entry.getValue().sketch();
+            uniqueIps[i] = entry.getValue().uniqueIps();
+            i++;
+        }
+
+        return jdbcTemplate.update(UPDATE_URL_SKETCHES_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("text", shortCodes));
+            ps.setArray(2, connection.createArrayOf("bytea", sketches));
+            ps.setArray(3, connection.createArrayOf("bigint", uniqueIps));
+        });
+    }
+
+    /**
+     * Lock the url_daily_analytics rows of the days (until the transaction ends) and read their
+     * visitor sketches
+     * @return sketches by short code and day; null for rows without one yet
+     */
+    public Map<DayKey, byte[]> lockDailySketches(Collection<DayKey> days) {
+        String[] shortCodes = new String[days.size()];
+        String[] dates = new String[days.size()];
+        int i = 0;
+        for (DayKey day : days) {
+            shortCodes[i] = day.shortCode();
+            dates[i] = day.date().toString();
+            i++;
+        }
+
+        Map<DayKey, byte[]> sketches = new HashMap<>();
+        jdbcTemplate.query(LOCK_DAILY_SKETCHES_SQL,
+                ps -> {
+                    Connection connection = ps.getConnection();
+                    ps.setArray(1, connection.createArrayOf("text", shortCodes));
+                    ps.setArray(2, connection.createArrayOf("date", dates));
+                },
+                rs -> {
+                    DayKey day = new DayKey(rs.getString("short_code"), rs.getDate("date").toLocalDate());
+                    sketches.put(day, rs.getBytes("ip_sketch"));
+                });
+        return sketches;
+    }
+
+    /**
+     * Store merged visitor sketches and their estimates in url_daily_analytics
+     */
+    public int updateDailySketches(Map<DayKey, SketchRow> rows) {
+        int size = rows.size();
+        String[] shortCodes = new String[size];
+        String[] dates = new String[size];
+        byte[][] sketches = new byte[size][];
+        Long[] uniqueIps = new Long[size];
+        int i = 0;
+        for (Map.Entry<DayKey, SketchRow> entry : rows.entrySet()) {
+            shortCodes[i] = entry.getKey().shortCode();
+            dates[i] = entry.getKey().date().toString();
+            sketches[i] = entry.getValue().sketch();
+            uniqueIps[i] = entry.getValue().uniqueIps();
+            i++;
+        }
+
+        return jdbcTemplate.update(UPDATE_DAILY_SKETCHES_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("text", shortCodes));
+            ps.setArray(2, connection.createArrayOf("date", dates));
+            ps.setArray(3, connection.createArrayOf("bytea", sketches));
+            ps.setArray(4, connection.createArrayOf("bigint", uniqueIps));
+        });
+    }
+
+    /**
+     * Add click deltas to url_daily_analytics, creating missing rows
+     */
+    public int upsertDailyAnalytics(Map<DayKey, Long> deltas) {
+        int size = deltas.size();
+        String[] shortCodes = new String[size];
+        String[] dates = new String[size];
+        Long[] clicks = new Long[size];
+        int i = 0;
+        for (Map.Entry<DayKey, Long> entry : deltas.entrySet()) {
+            shortCodes[i] = entry.getKey().shortCode();
+            dates[i] = entry.getKey().date().toString();
+            clicks[i] = entry.getValue();
+            i++;
+        }
+
+        return jdbcTemplate.update(UPSERT_DAILY_ANALYTICS_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("text", shortCodes));
+            ps.setArray(2, connection.createArrayOf("date", dates));
+            ps.setArray(3, connection.createArrayOf("bigint", clicks));
+        });
+    }
+
+    /**
+     * Add click deltas to url_geo_analytics, creating missing rows
+     */
+    public int upsertGeoAnalytics(Map<GeoKey, Long> deltas) {
+        int size = deltas.size();
+        String[] shortCodes = new String[size];
+        String[] countries = new String[size];
+        String[] cities = new String[size];
+        Long[] clicks = new Long[size];
+        int i = 0;
+        for (Map.Entry<GeoKey, Long> entry : deltas.entrySet()) {
+            shortCodes[i] = entry.getKey().shortCode();
+            countries[i] = entry.getKey().country();
+            cities[i] = entry.getKey().city();
+            clicks[i] = entry.getValue();
+            i++;
+        }
+
+        return jdbcTemplate.update(UPSERT_GEO_ANALYTICS_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("text", shortCodes));
+            ps.setArray(2, connection.createArrayOf("text", countries));
+            ps.setArray(3, connection.createArrayOf("text", cities));
+            ps.setArray(4, connection.createArrayOf("bigint", clicks));
+        });
+    }
+
+    private static Timestamp timestamp(LocalDateTime time) {
+        return time == null ? null : Timestamp.valueOf(time);
+    }
+
+    /**
+     * A visitor sketch (HyperLogLog.toBytes()) and its estimate
+     */
+    public record SketchRow(byte[] sketch, long uniqueIps) {
+    }
+}
@@ -0,0 +1,53 @@
+package com.urlshortener.analytics.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kafka offsets kept in analytics_consumer_offsets, next to the data consumed up to them
+ */
+@Repository
+@RequiredArgsConstructor
+public class ConsumerOffsetRepository {
+
+    private static final String FIND_SQL =
+            "SELECT partition_id, next_offset FROM analytics_consumer_offsets WHERE consumer_group = ? AND topic = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO analytics_consumer_offsets (consumer_group, topic, partition_id, next_offset, updated_at) " +
+            "VALUES (?, ?, ?, ?, LOCALTIMESTAMP) ON CONFLICT (consumer_group, topic, partition_id) DO NOTHING";
+
+    private static final String ADVANCE_SQL =
+            "UPDATE analytics_consumer_offsets SET next_offset = ?, updated_at = LOCALTIMESTAMP " +
+            "WHERE consumer_group = ? AND topic = ? AND partition_id = ? AND next_offset = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return next offset by partition, for the partitions that have one stored
+     */
+    public Map<Integer, Long> findOffsets(String consumerGroup, String topic) {
+        Map<Integer, Long> offsets = new HashMap<>();
+        jdbcTemplate.query(FIND_SQL, rs -> {
+            offsets.put(rs.getInt("partition_id"), rs.getLong("next_offset"));
+        }, consumerGroup, topic);
+        return offsets;
+    }
+
+    /**
+     * Move the partition's offset from expected (-1 for none stored yet) to next. The updated row
+     * stays locked until the transaction ends, so concurrent advances from the same offset are
+     * serialized and only the first succeeds.
+     * @return false if the stored offset is no longer expected
+     */
+    public boolean advance(String consumerGroup, String topic, int partition, long expected, long next) {
+        if (expected < 0) {
+            return jdbcTemplate.update(INSERT_SQL, consumerGroup, topic, partition, next) == 1;
+        }
+        return jdbcTemplate.update(ADVANCE_SQL, next, consumerGroup, topic, partition, expected) == 1;
+    }
+}
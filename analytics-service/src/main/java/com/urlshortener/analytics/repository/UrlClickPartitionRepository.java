@@ -0,0 +1,100 @@
+package com.urlshortener.analytics.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DDL for the range partitions of url_clicks (see UrlClickPartitionManager). Partition names
+ * are generated by PartitionInterval, never taken from input, so they are safe to splice into
+ * statements.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UrlClickPartitionRepository {
+
+    public static final String DEFAULT_PARTITION = "url_clicks_default";
+
+    private static final String IS_PARTITIONED_SQL =
+            "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('url_clicks'))";
+
+    private static final String PARTITIONS_SQL =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'url_clicks'::regclass ORDER BY c.relname";
+
+    // Transaction-scoped, so the lock goes with each maintenance transaction and needs no cleanup
+    private static final String TRY_LOCK_SQL = "SELECT pg_try_advisory_xact_lock(?)";
+
+    private static final String LOCK_TIMEOUT_SQL = "SELECT set_config('lock_timeout', ?, true)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Whether url_clicks is a partitioned table (it is a plain table when created by Hibernate)
+     */
+    public boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_PARTITIONED_SQL, Boolean.class));
+    }
+
+    public List<String> findPartitions() {
+        return jdbcTemplate.queryForList(PARTITIONS_SQL, String.class);
+    }
+
+    public boolean tryLock(long key) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK_SQL, Boolean.class, key));
+    }
+
+    /**
+     * Fail statements of the current transaction that wait longer than this for a lock, rather
+     * than queue every later query on url_clicks behind them
+     */
+    public void setLockTimeout(Duration timeout) {
+        jdbcTemplate.queryForObject(LOCK_TIMEOUT_SQL, String.class, timeout.toMillis() + "ms");
+    }
+
+    /**
+     * Create the partition for [from, to). It is built detached and attached once filled, so
+     * clicks of that range already caught by the default partition move into it, and attaching
+     * only takes a SHARE UPDATE EXCLUSIVE lock on url_clicks, letting COPY and queries carry on.
+     * Must run inside a transaction.
+     */
+    public void createPartition(String name, LocalDate from, LocalDate to) {
+        Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+        Timestamp end = Timestamp.valueOf(to.atStartOfDay());
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE url_clicks INCLUDING DEFAULTS)");
+        jdbcTemplate.update(
+                "WITH moved AS (DELETE FROM " + DEFAULT_PARTITION + " WHERE clicked_at >= ? AND clicked_at < ? " +
+                "RETURNING *) INSERT INTO " + name + " SELECT * FROM moved", start, end);
+        // Lets ATTACH skip scanning the new partition
+        jdbcTemplate.execute("ALTER TABLE " + name + " ADD CONSTRAINT " + name + "_range " +
+                "CHECK (clicked_at >= '" + start + "' AND clicked_at < '" + end + "')");
+        jdbcTemplate.execute("ALTER TABLE url_clicks ATTACH PARTITION " + name +
+                " FOR VALUES FROM ('" + start + "') TO ('" + end + "')");
+        jdbcTemplate.execute("ALTER TABLE " + name + " DROP CONSTRAINT " + name + "_range");
+    }
+
+    /**
+     * Drop a whole partition: its rows go at once, without DELETE, dead tuples or vacuum.
+     * Takes an ACCESS EXCLUSIVE lock on url_clicks until the transaction ends, so run it in a
+     * transaction of its own. (DETACH PARTITION CONCURRENTLY would avoid that lock, but Postgres
+     * does not allow it while url_clicks has a default partition.)
+     */
+    public void dropPartition(String name) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + name);
+    }
+
+    /**
+     * Delete the default partition's clicks from before the cutoff. It only holds clicks outside
+     * the created partitions, so this stays small.
+     * @return number of clicks deleted
+     */
+    public int deleteFromDefaultBefore(LocalDate cutoff) {
+        return jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE clicked_at < ?",
+                Timestamp.valueOf(cutoff.atStartOfDay()));
+    }
+}
@@ -1,23 +1,24 @@
 package com.urlshortener.analytics.repository;
 
 import com.urlshortener.analytics.entity.UrlClick;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * url_clicks is range partitioned on clicked_at, so every query here is bounded on clicked_at
+ * and only scans the partitions of its range
+ */
 @Repository
 public interface UrlClickRepository extends JpaRepository<UrlClick, Long> {
     
-    List<UrlClick> findByShortCodeOrderByClickedAtDesc(String shortCode);
+    List<UrlClick> findByShortCodeAndClickedAtGreaterThanEqualOrderByClickedAtDesc(
+            String shortCode, LocalDateTime since, Limit limit);
     
     List<UrlClick> findByShortCodeAndClickedAtBetween(String shortCode, LocalDateTime start, LocalDateTime end);
     
-    @Query("SELECT COUNT(DISTINCT u.ipAddress) FROM UrlClick u WHERE u.shortCode = :shortCode")
-    Long countUniqueIpsByShortCode(@Param("shortCode") String shortCode);
-    
-    long countByShortCode(String shortCode);
+    long countByShortCodeAndClickedAtBetween(String shortCode, LocalDateTime start, LocalDateTime end);
 }
@@ -1,63 +1,169 @@
 package com.urlshortener.analytics.service;
 
 import com.urlshortener.analytics.entity.UrlAnalytics;
-import com.urlshortener.analytics.entity.UrlClick;
 import com.urlshortener.analytics.entity.UrlDailyAnalytics;
 import com.urlshortener.analytics.entity.UrlGeoAnalytics;
+import com.urlshortener.analytics.repository.AnalyticsBulkRepository;
+import com.urlshortener.analytics.repository.AnalyticsBulkRepository.SketchRow;
+import com.urlshortener.analytics.repository.ConsumerOffsetRepository;
 import com.urlshortener.analytics.repository.UrlAnalyticsRepository;
-import com.urlshortener.analytics.repository.UrlClickRepository;
+import com.urlshortener.analytics.repository.UrlClickCopyRepository;
 import com.urlshortener.analytics.repository.UrlDailyAnalyticsRepository;
 import com.urlshortener.analytics.repository.UrlGeoAnalyticsRepository;
+import com.urlshortener.analytics.service.ClickBatch.DayKey;
 import com.urlshortener.common.event.*;
+import com.urlshortener.common.util.HyperLogLog;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AnalyticsProcessingService {
     
-    private final UrlClickRepository urlClickRepository;
     private final UrlAnalyticsRepository urlAnalyticsRepository;
     private final UrlDailyAnalyticsRepository urlDailyAnalyticsRepository;
     private final UrlGeoAnalyticsRepository urlGeoAnalyticsRepository;
+    private final AnalyticsBulkRepository analyticsBulkRepository;
+    private final UrlClickCopyRepository urlClickCopyRepository;
+    private final ConsumerOffsetRepository consumerOffsetRepository;
     
     /**
-     * Process URL access event (click)
+     * Process a whole poll of click and click rollup events: fold them into per-code, per-day and
+     * per-geo deltas and apply those with a few multi-row upserts in one transaction. Raw clicks
+     * are copied into url_clicks on the transaction's connection, so they commit or roll back with
+     * the counters and a retried poll stores nothing twice.
+     * @return number of events applied
      */
     @Transactional
-    public void processUrlAccessEvent(UrlAccessedEvent event) {
-        String shortCode = event.getShortCode();
+    public int processClickBatch(List<? extends BaseEvent> events) {
+        ClickBatch batch = new ClickBatch();
+        int applied = 0;
+        for (BaseEvent event : events) {
+            if (batch.add(event)) {
+                applied++;
+            } else {
+                log.warn("Unknown event type: {}", event.getEventType());
+            }
+        }
+        if (batch.isEmpty()) {
+            return applied;
+        }
         
-        // 1. Store raw click event
-        UrlClick click = UrlClick.builder()
-                .shortCode(shortCode)
-                .clickedAt(event.getAccessedAt())
-                .ipAddress(event.getIpAddress())
-                .userAgent(event.getUserAgent())
-                .referer(event.getReferer())
-                .country(event.getCountry())
-                .city(event.getCity())
-                .deviceType(event.getDeviceType())
-                .browser(event.getBrowser())
-                .operatingSystem(event.getOperatingSystem())
-                .build();
+        if (!batch.getRawClicks().isEmpty()) {
+            urlClickCopyRepository.copyClicks(batch.getRawClicks());
+        }
+        applyAggregates(batch);
         
-        urlClickRepository.save(click);
-        log.debug("Saved click event for: {}", shortCode);
+        log.debug("Applied batch of {} events ({} raw clicks, {} short codes)",
+                applied, batch.getRawClicks().size(), batch.getCodes().size());
+        return applied;
+    }
+    
+    /**
+     * Apply a partition's aggregated clicks (see ClickAggregationEngine) and move its stored
+     * offset from expectedOffset to nextOffset, in one transaction. Raw clicks are copied in the
+     * same transaction, so a restart resuming from the stored offset applies nothing twice.
+     * @throws OptimisticLockingFailureException if the stored offset is no longer expectedOffset
+     * (the partition has been flushed by its next owner); nothing is applied
+     */
+    @Transactional
+    public void flushClickAggregate(String consumerGroup, String topic, int partition, ClickBatch batch,
+                                    long expectedOffset, long nextOffset) {
+        // First, so the offset row is locked before anything else is written
+        if (!consumerOffsetRepository.advance(consumerGroup, topic, partition, expectedOffset, nextOffset)) {
+            throw new OptimisticLockingFailureException(
+                    "Offset of " + topic + "-" + partition + " is no longer " + expectedOffset);
+        }
+        if (!batch.getRawClicks().isEmpty()) {
+            urlClickCopyRepository.copyClicks(batch.getRawClicks());
+        }
+        applyAggregates(batch);
+        log.debug("Flushed {}-{} up to offset {} ({} raw clicks, {} short codes)",
+                topic, partition, nextOffset, batch.getRawClicks().size(), batch.getCodes().size());
+    }
+    
+    /**
+     * Add a batch's click deltas with multi-row upserts and merge its visitor sketches
+     */
+    private void applyAggregates(ClickBatch batch) {
+        if (!batch.getCodes().isEmpty()) {
+            analyticsBulkRepository.upsertUrlAnalytics(batch.getCodes());
+            analyticsBulkRepository.upsertDailyAnalytics(batch.getDays());
+            analyticsBulkRepository.upsertGeoAnalytics(batch.getGeos());
+        }
+        // After the upserts, so rows created by this batch are locked and merged too. A row missing
+        // here has only had sampled clicks so far, whose IPs also arrive in their rollup's sketch.
+        if (!batch.getCodeVisitors().isEmpty()) {
+            Map<String, SketchRow> codeSketches = new TreeMap<>();
+            analyticsBulkRepository.lockUrlSketches(batch.getCodeVisitors().keySet()).forEach((code, stored) ->
+                    codeSketches.put(code, mergeVisitors(stored, batch.getCodeVisitors().get(code))));
+            analyticsBulkRepository.updateUrlSketches(codeSketches);
+            
+            Map<DayKey, SketchRow> daySketches = new TreeMap<>();
+            analyticsBulkRepository.lockDailySketches(batch.getDayVisitors().keySet()).forEach((day, stored) ->
+                    daySketches.put(day, mergeVisitors(stored, batch.getDayVisitors().get(day))));
+            analyticsBulkRepository.updateDailySketches(daySketches);
+        }
+    }
+    
+    /**
+     * Process URL access event (click).
+     * The raw click is copied on the transaction's connection, so it commits or rolls back with
+     * the counters and a retried event stores nothing twice.
+     */
+    @Transactional
+    public void processUrlAccessEvent(UrlAccessedEvent event) {
+        String shortCode = event.getShortCode();
         
-        // 2. Update aggregated analytics
-        updateUrlAnalytics(shortCode, event);
+        // A sampled click is already counted in a click rollup
+        if (!Boolean.TRUE.equals(event.getSampled())) {
+            HyperLogLog visitors = null;
+            if (event.getIpAddress() != null) {
+                visitors = new HyperLogLog();
+                visitors.add(event.getIpAddress());
+            }
+            
+            // 1. Update aggregated analytics
+            updateUrlAnalytics(shortCode, 1, event.getAccessedAt(), event.getAccessedAt(), visitors);
+            
+            // 2. Update daily analytics
+            updateDailyAnalytics(shortCode, 1, event.getAccessedAt().toLocalDate(), visitors);
+            
+            // 3. Update geo analytics
+            updateGeoAnalytics(shortCode, 1, event.getCountry(), event.getCity());
+        }
         
-        // 3. Update daily analytics
-        updateDailyAnalytics(shortCode, event);
+        // 4. Store raw click event
+        urlClickCopyRepository.copyClicks(List.of(event));
+        log.debug("Stored click event for: {}", shortCode);
+    }
+    
+    /**
+     * Process a click rollup: clicks on one short code in one window, pre-aggregated by url-service
+     */
+    @Transactional
+    public void processUrlClickRollupEvent(UrlClickRollupEvent event) {
+        String shortCode = event.getShortCode();
+        long clicks = event.getClickCount() != null ? event.getClickCount() : 0;
+        if (clicks == 0) {
+            return;
+        }
         
-        // 4. Update geo analytics
-        updateGeoAnalytics(shortCode, event);
+        HyperLogLog visitors = ClickBatch.rollupVisitors(event);
+        updateUrlAnalytics(shortCode, clicks, event.getFirstAccessedAt(), event.getLastAccessedAt(), visitors);
+        updateDailyAnalytics(shortCode, clicks, event.getWindowStart().toLocalDate(), visitors);
+        // Rollups are not broken down by city
+        updateGeoAnalytics(shortCode, clicks, event.getCountry(), null);
     }
     
     /**
@@ -98,8 +204,10 @@ public class AnalyticsProcessingService {
     
     /**
      * Update aggregated URL analytics
+     * @param visitors sketch of the clicks' IPs, or null if there are none
      */
-    private void updateUrlAnalytics(String shortCode, UrlAccessedEvent event) {
+    private void updateUrlAnalytics(String shortCode, long clicks, LocalDateTime firstClickedAt,
+                                    LocalDateTime lastClickedAt, HyperLogLog visitors) {
         UrlAnalytics analytics = urlAnalyticsRepository.findByShortCode(shortCode)
                 .orElseGet(() -> UrlAnalytics.builder()
                         .shortCode(shortCode)
@@ -108,29 +216,32 @@ public class AnalyticsProcessingService {
                         .build());
         
         // Increment total clicks
-        analytics.setTotalClicks(analytics.getTotalClicks() + 1);
+        analytics.setTotalClicks(analytics.getTotalClicks() + clicks);
         
-        // Update timestamps
-        if (analytics.getFirstClickedAt() == null) {
-            analytics.setFirstClickedAt(event.getAccessedAt());
+        // Update timestamps; rollups for a window can arrive after later clicks
+        if (analytics.getFirstClickedAt() == null || firstClickedAt.isBefore(analytics.getFirstClickedAt())) {
+            analytics.setFirstClickedAt(firstClickedAt);
+        }
+        if (analytics.getLastClickedAt() == null || lastClickedAt.isAfter(analytics.getLastClickedAt())) {
+            analytics.setLastClickedAt(lastClickedAt);
         }
-        analytics.setLastClickedAt(event.getAccessedAt());
         
-        // Recalculate unique IPs (could be optimized with a Set in Redis)
-        Long uniqueIps = urlClickRepository.countUniqueIpsByShortCode(shortCode);
-        analytics.setUniqueIps(uniqueIps);
+        // Merge visitors into the sketch rather than recounting distinct IPs over all clicks
+        if (visitors != null) {
+            SketchRow merged = mergeVisitors(analytics.getIpSketch(), visitors);
+            analytics.setIpSketch(merged.sketch());
+            analytics.setUniqueIps(merged.uniqueIps());
+        }
         
         urlAnalyticsRepository.save(analytics);
         log.debug("Updated analytics for: {} (clicks={}, uniqueIps={})", 
-                 shortCode, analytics.getTotalClicks(), uniqueIps);
+                 shortCode, analytics.getTotalClicks(), analytics.getUniqueIps());
     }
     
     /**
      * Update daily analytics
      */
-    private void updateDailyAnalytics(String shortCode, UrlAccessedEvent event) {
-        LocalDate date = event.getAccessedAt().toLocalDate();
-        
+    private void updateDailyAnalytics(String shortCode, long clicks, LocalDate date, HyperLogLog visitors) {
         UrlDailyAnalytics dailyAnalytics = urlDailyAnalyticsRepository
                 .findByShortCodeAndDate(shortCode, date)
                 .orElseGet(() -> UrlDailyAnalytics.builder()
@@ -141,9 +252,14 @@ public class AnalyticsProcessingService {
                         .build());
         
         // Increment daily clicks
-        dailyAnalytics.setClickCount(dailyAnalytics.getClickCount() + 1);
+        dailyAnalytics.setClickCount(dailyAnalytics.getClickCount() + clicks);
         
-        // TODO: simplified approach; more efficient way to track unique IPs per day would be using a bloom filter
+        // Daily sketches are what date-range unique counts are merged from
+        if (visitors != null) {
+            SketchRow merged = mergeVisitors(dailyAnalytics.getIpSketch(), visitors);
+            dailyAnalytics.setIpSketch(merged.sketch());
+            dailyAnalytics.setUniqueIps(merged.uniqueIps());
+        }
         
         urlDailyAnalyticsRepository.save(dailyAnalytics);
         log.debug("Updated daily analytics for: {} on {}", shortCode, date);
@@ -152,23 +268,40 @@ public class AnalyticsProcessingService {
     /**
      * Update geographic analytics
      */
-    private void updateGeoAnalytics(String shortCode, UrlAccessedEvent event) {
-        String country = event.getCountry() != null ? event.getCountry() : "Unknown";
-        String city = event.getCity() != null ? event.getCity() : "Unknown";
+    private void updateGeoAnalytics(String shortCode, long clicks, String country, String city) {
+        String resolvedCountry = country != null ? country : "Unknown";
+        String resolvedCity = city != null ? city : "Unknown";
         
         UrlGeoAnalytics geoAnalytics = urlGeoAnalyticsRepository
-                .findByShortCodeAndCountryAndCity(shortCode, country, city)
+                .findByShortCodeAndCountryAndCity(shortCode, resolvedCountry, resolvedCity)
                 .orElseGet(() -> UrlGeoAnalytics.builder()
                         .shortCode(shortCode)
-                        .country(country)
-                        .city(city)
+                        .country(resolvedCountry)
+                        .city(resolvedCity)
                         .clickCount(0L)
                         .build());
         
         // Increment geographic clicks
-        geoAnalytics.setClickCount(geoAnalytics.getClickCount() + 1);
+        geoAnalytics.setClickCount(geoAnalytics.getClickCount() + clicks);
         
         urlGeoAnalyticsRepository.save(geoAnalytics);
-        log.debug("Updated geo analytics for: {} in {}, {}", shortCode, city, country);
+        log.debug("Updated geo analytics for: {} in {}, {}", shortCode, resolvedCity, resolvedCountry);
+    }
+    
+    /**
+     * Merge visitors into a stored sketch (null for none yet)
+     * @return the merged sketch and its estimate
+     */
+    private static SketchRow mergeVisitors(byte[] stored, HyperLogLog visitors) {
+        HyperLogLog sketch = new HyperLogLog();
+        if (stored != null) {
+            try {
+                sketch = HyperLogLog.fromBytes(stored);
+            } catch (IllegalArgumentException e) {
+                log.warn("Replacing unreadable visitor sketch: {}", e.getMessage());
+            }
+        }
+        sketch.merge(visitors);
+        return new SketchRow(sketch.toBytes(), sketch.cardinality());
     }
 }
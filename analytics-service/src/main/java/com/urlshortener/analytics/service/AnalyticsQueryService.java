@@ -10,13 +10,18 @@ import com.urlshortener.analytics.repository.UrlDailyAnalyticsRepository;
 import com.urlshortener.analytics.repository.UrlGeoAnalyticsRepository;
 import com.urlshortener.common.dto.DailyAnalyticsResponse;
 import com.urlshortener.common.dto.GeoAnalyticsResponse;
+import com.urlshortener.common.dto.UniqueVisitorsResponse;
 import com.urlshortener.common.dto.UrlAnalyticsResponse;
+import com.urlshortener.common.util.HyperLogLog;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -25,6 +30,9 @@ import java.util.stream.Collectors;
 @Slf4j
 public class AnalyticsQueryService {
     
+    private static final List<Duration> RECENT_CLICK_WINDOWS =
+            List.of(Duration.ofDays(1), Duration.ofDays(7), Duration.ofDays(31), Duration.ofDays(366));
+    
     private final UrlAnalyticsRepository urlAnalyticsRepository;
     private final UrlClickRepository urlClickRepository;
     private final UrlDailyAnalyticsRepository urlDailyAnalyticsRepository;
@@ -76,6 +84,26 @@ public class AnalyticsQueryService {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Estimate unique visitor IPs over a date range (inclusive) by merging the daily sketches
+     */
+    @Transactional(readOnly = true)
+    public UniqueVisitorsResponse getUniqueVisitors(String shortCode, LocalDate startDate, LocalDate endDate) {
+        HyperLogLog visitors = new HyperLogLog();
+        for (UrlDailyAnalytics day : urlDailyAnalyticsRepository.findByShortCodeAndDateBetween(shortCode, startDate, endDate)) {
+            if (day.getIpSketch() != null) {
+                visitors.merge(HyperLogLog.fromBytes(day.getIpSketch()));
+            }
+        }
+        
+        return UniqueVisitorsResponse.builder()
+                .shortCode(shortCode)
+                .startDate(startDate.toString())
+                .endDate(endDate.toString())
+                .uniqueIps(visitors.cardinality())
+                .build();
+    }
+    
     /**
      * Get geographic distribution of clicks
      */
@@ -114,15 +142,21 @@ public class AnalyticsQueryService {
     }
     
     /**
-     * Get recent clicks for a URL
+     * Get recent clicks for a URL. Looks back over widening windows, so a URL with enough recent
+     * clicks only touches the newest partitions of url_clicks; clicks older than the widest
+     * window are not returned.
      */
     @Transactional(readOnly = true)
     public List<UrlClick> getRecentClicks(String shortCode, int limit) {
-        List<UrlClick> allClicks = urlClickRepository
-                .findByShortCodeOrderByClickedAtDesc(shortCode);
-        
-        return allClicks.stream()
-                .limit(limit)
-                .collect(Collectors.toList());
+        LocalDateTime now = LocalDateTime.now();
+        List<UrlClick> clicks = List.of();
+        for (Duration window : RECENT_CLICK_WINDOWS) {
+            clicks = urlClickRepository.findByShortCodeAndClickedAtGreaterThanEqualOrderByClickedAtDesc(
+                    shortCode, now.minus(window), Limit.of(limit));
+            if (clicks.size() >= limit) {
+                break;
+            }
+        }
+        return clicks;
     }
 }
@@ -0,0 +1,178 @@
+package com.urlshortener.analytics.service;
+
+import com.urlshortener.analytics.service.ClickBatch.CodeDelta;
+import com.urlshortener.analytics.service.ClickBatch.DayKey;
+import com.urlshortener.analytics.service.ClickBatch.GeoKey;
+import com.urlshortener.common.event.BaseEvent;
+import com.urlshortener.common.event.UrlAccessedEvent;
+import com.urlshortener.common.event.UrlClickRollupEvent;
+import com.urlshortener.common.util.CounterTable;
+import com.urlshortener.common.util.HyperLogLog;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The clicks of one url-access-events partition folded in memory between flushes (see
+ * ClickAggregationEngine), with the offsets they span.
+ *
+ * Folds events the same way as ClickBatch, but counters live in CounterTables so the per-event
+ * path neither boxes nor allocates them; click times are kept as epoch microseconds of the
+ * local date-time, the precision Postgres stores. toBatch() turns the state into a ClickBatch
+ * for the multi-row upserts.
+ *
+ * Not thread-safe; owned by the consumer thread its partition is assigned to. Only
+ * getPendingEvents() may be read from other threads (the click.aggregate.pending gauge).
+ */
+public class ClickAggregate {
+
+    private static final int CLICKS = 0;
+    private static final int FIRST = 1;
+    private static final int LAST = 2;
+
+    private final CounterTable<String> codes = new CounterTable<>(3);
+    private final CounterTable<DayKey> days = new CounterTable<>(1);
+    private final CounterTable<GeoKey> geos = new CounterTable<>(1);
+    private final Map<String, HyperLogLog> codeVisitors = new HashMap<>();
+    private final Map<DayKey, HyperLogLog> dayVisitors = new HashMap<>();
+    private final List<UrlAccessedEvent> rawClicks = new ArrayList<>();
+
+    // Offset stored with the last flush (-1 if none yet), and of the next record to fold
+    @Getter
+    private long storedOffset;
+    @Getter
+    private long nextOffset;
+    // Written only by the owning thread; volatile so the metrics thread sees current values
+    @Getter
+    private volatile int pendingEvents;
+    // System.nanoTime() of the first record folded since the last flush
+    @Getter
+    private long pendingSince;
+
+    public ClickAggregate(long storedOffset, long nextOffset) {
+        this.storedOffset = storedOffset;
+        this.nextOffset = nextOffset;
+        // An offset to record counts as pending from the start
+        this.pendingSince = System.nanoTime();
+    }
+
+    /**
+     * Fold the event of the record at offset (null if it could not be decoded)
+     * @return false if the event is not a click or click rollup; its offset still counts
+     */
+    public boolean add(long offset, BaseEvent event) {
+        if (!isPending()) {
+            pendingSince = System.nanoTime();
+        }
+        nextOffset = offset + 1;
+        if (event instanceof UrlAccessedEvent accessed) {
+            pendingEvents++;
+            rawClicks.add(accessed);
+            if (accessed.getIpAddress() != null) {
+                for (HyperLogLog visitors : visitors(accessed.getShortCode(), accessed.getAccessedAt())) {
+                    visitors.add(accessed.getIpAddress());
+                }
+            }
+            // A sampled click is already counted in a click rollup
+            if (!Boolean.TRUE.equals(accessed.getSampled())) {
+                count(accessed.getShortCode(), 1, accessed.getAccessedAt(), accessed.getAccessedAt(),
+                        accessed.getCountry(), accessed.getCity());
+            }
+            return true;
+        }
+        if (event instanceof UrlClickRollupEvent rollup) {
+            pendingEvents++;
+            long clicks = rollup.getClickCount() != null ? rollup.getClickCount() : 0;
+            if (clicks > 0) {
+                // Rollups are not broken down by city
+                count(rollup.getShortCode(), clicks, rollup.getFirstAccessedAt(), rollup.getLastAccessedAt(),
+                        rollup.getCountry(), null);
+            }
+            HyperLogLog sketch = ClickBatch.rollupVisitors(rollup);
+            if (sketch != null) {
+                for (HyperLogLog visitors : visitors(rollup.getShortCode(), rollup.getFirstAccessedAt())) {
+                    visitors.merge(sketch);
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether there is anything to flush: folded events, or only an offset to record
+     */
+    public boolean isPending() {
+        return nextOffset != storedOffset;
+    }
+
+    /**
+     * The folded state as a batch of deltas, sorted like a ClickBatch
+     */
+    public ClickBatch toBatch() {
+        ClickBatch batch = new ClickBatch();
+        batch.getRawClicks().addAll(rawClicks);
+        codes.forEach((code, row) -> {
+            CodeDelta delta = new CodeDelta();
+            delta.add(codes.get(row + CLICKS), dateTime(codes.get(row + FIRST)), dateTime(codes.get(row + LAST)));
+            batch.getCodes().put(code, delta);
+        });
+        days.forEach((day, row) -> batch.getDays().put(day, days.get(row)));
+        geos.forEach((geo, row) -> batch.getGeos().put(geo, geos.get(row)));
+        batch.getCodeVisitors().putAll(codeVisitors);
+        batch.getDayVisitors().putAll(dayVisitors);
+        return batch;
+    }
+
+    /**
+     * Drop the folded state once it is stored along with nextOffset
+     */
+    public void flushed() {
+        codes.clear();
+        days.clear();
+        geos.clear();
+        codeVisitors.clear();
+        dayVisitors.clear();
+        rawClicks.clear();
+        pendingEvents = 0;
+        storedOffset = nextOffset;
+    }
+
+    private List<HyperLogLog> visitors(String shortCode, LocalDateTime at) {
+        return List.of(
+                codeVisitors.computeIfAbsent(shortCode, code -> new HyperLogLog()),
+                dayVisitors.computeIfAbsent(new DayKey(shortCode, at.toLocalDate()), day -> new HyperLogLog()));
+    }
+
+    private void count(String shortCode, long clicks, LocalDateTime firstClickedAt, LocalDateTime lastClickedAt,
+                       String country, String city) {
+        long first = micros(firstClickedAt);
+        long last = micros(lastClickedAt);
+        int row = codes.row(shortCode);
+        if (codes.get(row + CLICKS) == 0) {
+            codes.set(row + FIRST, first);
+            codes.set(row + LAST, last);
+        } else {
+            codes.set(row + FIRST, Math.min(codes.get(row + FIRST), first));
+            codes.set(row + LAST, Math.max(codes.get(row + LAST), last));
+        }
+        codes.add(row + CLICKS, clicks);
+        days.add(days.row(new DayKey(shortCode, firstClickedAt.toLocalDate())), clicks);
+        geos.add(geos.row(new GeoKey(shortCode, country != null ? country : ClickBatch.UNKNOWN,
+                city != null ? city : ClickBatch.UNKNOWN)), clicks);
+    }
+
+    private static long micros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    private static LocalDateTime dateTime(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+}
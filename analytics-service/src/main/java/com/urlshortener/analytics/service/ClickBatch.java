@@ -0,0 +1,162 @@
+package com.urlshortener.analytics.service;
+
+import com.urlshortener.common.event.BaseEvent;
+import com.urlshortener.common.event.UrlAccessedEvent;
+import com.urlshortener.common.event.UrlClickRollupEvent;
+import com.urlshortener.common.util.HyperLogLog;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A poll of url-access-events folded into click deltas per short code, per short code and day,
+ * and per short code, country and city, plus the raw clicks to store. Visitor IPs are folded
+ * into HyperLogLog sketches per short code and per short code and day, from raw clicks (sampled
+ * ones included; adding an IP twice does not change a sketch) and from rollup sketches. Keys
+ * are kept sorted so concurrent flushes lock rows in the same order.
+ *
+ * Not thread-safe; one instance per poll.
+ */
+@Getter
+@Slf4j
+public class ClickBatch {
+
+    static final String UNKNOWN = "Unknown";
+
+    private final List<UrlAccessedEvent> rawClicks = new ArrayList<>();
+    private final Map<String, CodeDelta> codes = new TreeMap<>();
+    private final Map<DayKey, Long> days = new TreeMap<>();
+    private final Map<GeoKey, Long> geos = new TreeMap<>();
+    private final Map<String, HyperLogLog> codeVisitors = new TreeMap<>();
+    private final Map<DayKey, HyperLogLog> dayVisitors = new TreeMap<>();
+
+    /**
+     * Fold an event into the batch
+     * @return false if the event is not a click or click rollup
+     */
+    public boolean add(BaseEvent event) {
+        if (event instanceof UrlAccessedEvent accessed) {
+            rawClicks.add(accessed);
+            if (accessed.getIpAddress() != null) {
+                for (HyperLogLog visitors : visitors(accessed.getShortCode(), accessed.getAccessedAt())) {
+                    visitors.add(accessed.getIpAddress());
+                }
+            }
+            // A sampled click is already counted in a click rollup
+            if (!Boolean.TRUE.equals(accessed.getSampled())) {
+                count(accessed.getShortCode(), 1, accessed.getAccessedAt(), accessed.getAccessedAt(),
+                        accessed.getCountry(), accessed.getCity());
+            }
+            return true;
+        }
+        if (event instanceof UrlClickRollupEvent rollup) {
+            long clicks = rollup.getClickCount() != null ? rollup.getClickCount() : 0;
+            if (clicks > 0) {
+                // Rollups are not broken down by city
+                count(rollup.getShortCode(), clicks, rollup.getFirstAccessedAt(), rollup.getLastAccessedAt(),
+                        rollup.getCountry(), null);
+            }
+            mergeVisitors(rollup);
+            return true;
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return rawClicks.isEmpty() && codes.isEmpty() && codeVisitors.isEmpty();
+    }
+
+    private void mergeVisitors(UrlClickRollupEvent rollup) {
+        HyperLogLog sketch = rollupVisitors(rollup);
+        if (sketch != null) {
+            for (HyperLogLog visitors : visitors(rollup.getShortCode(), rollup.getFirstAccessedAt())) {
+                visitors.merge(sketch);
+            }
+        }
+    }
+
+    /**
+     * The rollup's visitor sketch, or null if it has none or it cannot be merged into the
+     * stored sketches (unreadable, or of lower precision)
+     */
+    static HyperLogLog rollupVisitors(UrlClickRollupEvent rollup) {
+        if (rollup.getVisitorSketch() == null) {
+            return null;
+        }
+        try {
+            HyperLogLog sketch = HyperLogLog.fromBytes(rollup.getVisitorSketch());
+            if (sketch.getPrecision() >= HyperLogLog.DEFAULT_PRECISION) {
+                return sketch;
+            }
+            log.warn("Ignoring visitor sketch of precision {} in rollup for {}", sketch.getPrecision(), rollup.getShortCode());
+        } catch (IllegalArgumentException e) {
+            // Counts still apply; only the unique visitors of this rollup are lost
+            log.warn("Ignoring unusable visitor sketch in rollup for {}: {}", rollup.getShortCode(), e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * The sketches of the short code's visitors overall and on the day
+     */
+    private List<HyperLogLog> visitors(String shortCode, LocalDateTime at) {
+        return List.of(
+                codeVisitors.computeIfAbsent(shortCode, code -> new HyperLogLog()),
+                dayVisitors.computeIfAbsent(new DayKey(shortCode, at.toLocalDate()), day -> new HyperLogLog()));
+    }
+
+    private void count(String shortCode, long clicks, LocalDateTime firstClickedAt, LocalDateTime lastClickedAt,
+                       String country, String city) {
+        codes.computeIfAbsent(shortCode, code -> new CodeDelta()).add(clicks, firstClickedAt, lastClickedAt);
+        days.merge(new DayKey(shortCode, firstClickedAt.toLocalDate()), clicks, Long::sum);
+        geos.merge(new GeoKey(shortCode, country != null ? country : UNKNOWN, city != null ? city : UNKNOWN),
+                clicks, Long::sum);
+    }
+
+    /**
+     * Clicks on one short code and the time range they span
+     */
+    @Getter
+    public static class CodeDelta {
+        private long clicks;
+        private LocalDateTime firstClickedAt;
+        private LocalDateTime lastClickedAt;
+
+        void add(long clicks, LocalDateTime first, LocalDateTime last) {
+            this.clicks += clicks;
+            if (firstClickedAt == null || first.isBefore(firstClickedAt)) {
+                firstClickedAt = first;
+            }
+            if (lastClickedAt == null || last.isAfter(lastClickedAt)) {
+                lastClickedAt = last;
+            }
+        }
+    }
+
+    public record DayKey(String shortCode, LocalDate date) implements Comparable<DayKey> {
+        private static final Comparator<DayKey> ORDER =
+                Comparator.comparing(DayKey::shortCode).thenComparing(DayKey::date);
+
+        @Override
+        public int compareTo(DayKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    public record GeoKey(String shortCode, String country, String city) implements Comparable<GeoKey> {
+        private static final Comparator<GeoKey> ORDER =
+                Comparator.comparing(GeoKey::shortCode).thenComparing(GeoKey::country).thenComparing(GeoKey::city);
+
+        @Override
+        public int compareTo(GeoKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
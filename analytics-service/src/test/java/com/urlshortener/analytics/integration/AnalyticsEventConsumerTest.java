@@ -41,9 +41,9 @@ class AnalyticsEventConsumerTest {
         registry.add("spring.datasource.password", postgres::getPassword);
         registry.add("spring.kafka.bootstrap-servers", kafka::getBootstrapServers);
 
-        // Configure Kafka producer for tests to use JSON serialization
+        // Configure Kafka producer for tests to use the binary event encoding, as url-service does
         registry.add("spring.kafka.producer.value-serializer",
-            () -> "org.springframework.kafka.support.serializer.JsonSerializer");
+            () -> "com.urlshortener.common.event.codec.EventSerializer");
         registry.add("spring.kafka.producer.key-serializer",
             () -> "org.apache.kafka.common.serialization.StringSerializer");
 
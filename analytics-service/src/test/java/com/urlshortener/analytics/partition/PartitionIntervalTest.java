@@ -0,0 +1,43 @@
+package com.urlshortener.analytics.partition;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionIntervalTest {
+
+    private static final LocalDate LEAP_DAY = LocalDate.of(2024, 2, 29);
+
+    @Test
+    void day_coversOneDay() {
+        assertEquals(LEAP_DAY, PartitionInterval.DAY.start(LEAP_DAY));
+        assertEquals(LocalDate.of(2024, 3, 1), PartitionInterval.DAY.next(LEAP_DAY));
+        assertEquals("url_clicks_p20240229", PartitionInterval.DAY.name(LEAP_DAY));
+    }
+
+    @Test
+    void month_coversCalendarMonth() {
+        LocalDate start = PartitionInterval.MONTH.start(LEAP_DAY);
+
+        assertEquals(LocalDate.of(2024, 2, 1), start);
+        assertEquals(LocalDate.of(2024, 3, 1), PartitionInterval.MONTH.next(start));
+        assertEquals("url_clicks_p202402", PartitionInterval.MONTH.name(start));
+    }
+
+    @Test
+    void parse_roundTripsNames() {
+        assertEquals(LEAP_DAY, PartitionInterval.DAY.parse("url_clicks_p20240229"));
+        assertEquals(LocalDate.of(2024, 2, 1), PartitionInterval.MONTH.parse("url_clicks_p202402"));
+    }
+
+    @Test
+    void parse_rejectsOtherTables() {
+        assertNull(PartitionInterval.DAY.parse("url_clicks_default"));
+        assertNull(PartitionInterval.DAY.parse("url_clicks_p202402"));
+        assertNull(PartitionInterval.MONTH.parse("url_clicks_p20240229"));
+        assertNull(PartitionInterval.DAY.parse("url_clicks_p20240230"));
+        assertNull(PartitionInterval.DAY.parse("url_clicks_pabcdefgh"));
+    }
+}
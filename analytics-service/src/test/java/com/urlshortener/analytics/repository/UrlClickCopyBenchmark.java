@@ -0,0 +1,107 @@
+package com.urlshortener.analytics.repository;
+
+import com.urlshortener.common.event.UrlAccessedEvent;
+import com.urlshortener.common.util.ShortCodeGenerator;
+import com.urlshortener.common.util.UserAgentParser;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sustained rows/sec of raw click storage against a local Postgres: one INSERT per click (what
+ * saving UrlClick entities with IDENTITY keys amounts to) and a single COPY per batch. Rows go
+ * to a temporary url_clicks table that shadows the real one for the benchmark's connection, so
+ * the database is left as it was. Not a unit test; run with
+ *
+ *   docker-compose up -d postgres
+ *   mvn -pl common,analytics-service -am test-compile
+ *   java -cp analytics-service/target/test-classes:analytics-service/target/classes:common/target/classes:$(cat cp.txt) \
+ *        com.urlshortener.analytics.repository.UrlClickCopyBenchmark \
+ *        jdbc:postgresql://localhost:5432/urlshortener urluser urlpass123 1000000
+ *
+ * where cp.txt comes from mvn -pl analytics-service dependency:build-classpath -Dmdep.outputFile=cp.txt.
+ * The single-row INSERT run uses a tenth of the rows.
+ */
+public class UrlClickCopyBenchmark {
+
+    private static final String CREATE_TABLE_SQL =
+            "CREATE TEMP TABLE IF NOT EXISTS url_clicks (id BIGSERIAL PRIMARY KEY, short_code VARCHAR(10) NOT NULL, " +
+            "clicked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, ip_address VARCHAR(45), user_agent TEXT, " +
+            "referer TEXT, country VARCHAR(100), city VARCHAR(100), device_type VARCHAR(50), browser VARCHAR(50), " +
+            "operating_system VARCHAR(50))";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO url_clicks (short_code, clicked_at, ip_address, user_agent, referer, country, city, " +
+            "device_type, browser, operating_system) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) RETURNING id";
+
+    private static final String USER_AGENT =
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0 Safari/537.36";
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "jdbc:postgresql://localhost:5432/urlshortener";
+        String user = args.length > 1 ? args[1] : "urluser";
+        String password = args.length > 2 ? args[2] : "urlpass123";
+        int rows = args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000;
+        int batchSize = args.length > 4 ? Integer.parseInt(args[4]) : 5000;
+
+        // One connection, so the temporary table is visible to every statement
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(url, user, password, true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+        UrlClickCopyRepository repository = new UrlClickCopyRepository(jdbcTemplate);
+        List<UrlAccessedEvent> clicks = clicks(rows);
+        System.out.printf("Rows: %,d  batch size: %,d%n", rows, batchSize);
+
+        int singleRows = rows / 10;
+        report("INSERT per row", singleRows, () -> {
+            for (UrlAccessedEvent click : clicks.subList(0, singleRows)) {
+                jdbcTemplate.queryForObject(INSERT_SQL, Long.class, click.getShortCode(), click.getAccessedAt(),
+                        click.getIpAddress(), click.getUserAgent(), click.getReferer(), click.getCountry(),
+                        click.getCity(), click.getDeviceType(), click.getBrowser(), click.getOperatingSystem());
+            }
+        });
+        jdbcTemplate.execute("TRUNCATE url_clicks");
+
+        report("COPY per batch", rows, () -> {
+            for (int from = 0; from < rows; from += batchSize) {
+                repository.copyClicks(clicks.subList(from, Math.min(rows, from + batchSize)));
+            }
+        });
+        System.out.printf("Rows in url_clicks: %,d%n", jdbcTemplate.queryForObject("SELECT count(*) FROM url_clicks", Long.class));
+        dataSource.destroy();
+    }
+
+    private static void report(String name, int rows, Run run) throws Exception {
+        long start = System.nanoTime();
+        run.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-32s %,12.0f rows/s (%.2f s)%n", name, rows / seconds, seconds);
+    }
+
+    private static List<UrlAccessedEvent> clicks(int rows) {
+        LocalDateTime now = LocalDateTime.now();
+        List<UrlAccessedEvent> clicks = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            clicks.add(UrlAccessedEvent.builder()
+                    .shortCode(ShortCodeGenerator.generateFromId(1L + i % 10_000))
+                    .accessedAt(now.minusNanos(i * 1000L))
+                    .ipAddress("198.51." + (i >>> 8 & 0xFF) + "." + (i & 0xFF))
+                    .userAgent(USER_AGENT)
+                    .referer(i % 2 == 0 ? "https://news.example.com/story/" + i : null)
+                    .country(i % 3 == 0 ? "DE" : null)
+                    .deviceType(UserAgentParser.getDeviceType(USER_AGENT))
+                    .browser(UserAgentParser.getBrowser(USER_AGENT))
+                    .operatingSystem(UserAgentParser.getOperatingSystem(USER_AGENT))
+                    .build());
+        }
+        return clicks;
+    }
+
+    @FunctionalInterface
+    private interface Run {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,99 @@
+package com.urlshortener.analytics.service;
+
+import com.urlshortener.common.event.BaseEvent;
+import com.urlshortener.common.event.EventType;
+import com.urlshortener.common.event.UrlAccessedEvent;
+import com.urlshortener.common.event.UrlClickRollupEvent;
+import com.urlshortener.common.event.UrlExpiredEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClickAggregateTest {
+
+    private static final LocalDateTime MIDNIGHT = LocalDateTime.of(2024, 3, 2, 0, 0);
+
+    @Test
+    void toBatch_matchesClickBatchOfTheSameEvents() {
+        List<BaseEvent> events = List.of(
+                click("abc1234", MIDNIGHT.minusNanos(1_000), "DE", "Berlin"),
+                click("abc1234", MIDNIGHT.plusMinutes(1), "DE", "Berlin"),
+                click("xyz9876", MIDNIGHT, null, null),
+                UrlClickRollupEvent.builder()
+                        .eventType(EventType.URL_CLICK_ROLLUP.getValue())
+                        .shortCode("abc1234")
+                        .windowStart(MIDNIGHT)
+                        .firstAccessedAt(MIDNIGHT.plusSeconds(5))
+                        .lastAccessedAt(MIDNIGHT.plusMinutes(5))
+                        .clickCount(40L)
+                        .country("FR")
+                        .build());
+        ClickAggregate aggregate = new ClickAggregate(-1, 0);
+        ClickBatch expected = new ClickBatch();
+        for (int i = 0; i < events.size(); i++) {
+            aggregate.add(i, events.get(i));
+            expected.add(events.get(i));
+        }
+
+        ClickBatch batch = aggregate.toBatch();
+
+        assertEquals(expected.getRawClicks(), batch.getRawClicks());
+        assertEquals(List.copyOf(expected.getCodes().keySet()), List.copyOf(batch.getCodes().keySet()));
+        expected.getCodes().forEach((code, delta) -> {
+            assertEquals(delta.getClicks(), batch.getCodes().get(code).getClicks());
+            assertEquals(delta.getFirstClickedAt(), batch.getCodes().get(code).getFirstClickedAt());
+            assertEquals(delta.getLastClickedAt(), batch.getCodes().get(code).getLastClickedAt());
+        });
+        assertEquals(expected.getDays(), batch.getDays());
+        assertEquals(expected.getGeos(), batch.getGeos());
+        assertEquals(expected.getCodeVisitors().keySet(), batch.getCodeVisitors().keySet());
+        assertEquals(expected.getDayVisitors().keySet(), batch.getDayVisitors().keySet());
+    }
+
+    @Test
+    void add_advancesOffsetPastUndecodableAndLifecycleEvents() {
+        ClickAggregate aggregate = new ClickAggregate(10, 10);
+        assertFalse(aggregate.isPending());
+
+        assertFalse(aggregate.add(10, null));
+        assertFalse(aggregate.add(11, UrlExpiredEvent.builder().shortCode("abc1234").build()));
+
+        assertTrue(aggregate.isPending());
+        assertEquals(0, aggregate.getPendingEvents());
+        assertEquals(12, aggregate.getNextOffset());
+        assertTrue(aggregate.toBatch().isEmpty());
+    }
+
+    @Test
+    void flushed_clearsStateAndStoresNextOffset() {
+        ClickAggregate aggregate = new ClickAggregate(-1, 5);
+        aggregate.add(5, click("abc1234", MIDNIGHT, null, null));
+        aggregate.add(6, click("abc1234", MIDNIGHT, null, null));
+        assertEquals(2, aggregate.getPendingEvents());
+
+        aggregate.flushed();
+
+        assertFalse(aggregate.isPending());
+        assertEquals(7, aggregate.getStoredOffset());
+        assertEquals(0, aggregate.getPendingEvents());
+        assertTrue(aggregate.toBatch().isEmpty());
+
+        aggregate.add(7, click("abc1234", MIDNIGHT.plusDays(1), null, null));
+        assertEquals(1, aggregate.toBatch().getCodes().get("abc1234").getClicks());
+        assertEquals(MIDNIGHT.plusDays(1), aggregate.toBatch().getCodes().get("abc1234").getFirstClickedAt());
+    }
+
+    private static UrlAccessedEvent click(String shortCode, LocalDateTime at, String country, String city) {
+        return UrlAccessedEvent.builder()
+                .eventType(EventType.URL_ACCESSED.getValue())
+                .shortCode(shortCode)
+                .accessedAt(at)
+                .ipAddress("203.0.113.7")
+                .country(country)
+                .city(city)
+                .build();
+    }
+}
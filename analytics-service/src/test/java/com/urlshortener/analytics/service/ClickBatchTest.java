@@ -0,0 +1,116 @@
+package com.urlshortener.analytics.service;
+
+import com.urlshortener.analytics.service.ClickBatch.DayKey;
+import com.urlshortener.analytics.service.ClickBatch.GeoKey;
+import com.urlshortener.common.event.EventType;
+import com.urlshortener.common.event.UrlAccessedEvent;
+import com.urlshortener.common.event.UrlClickRollupEvent;
+import com.urlshortener.common.event.UrlExpiredEvent;
+import com.urlshortener.common.util.HyperLogLog;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClickBatchTest {
+
+    private static final LocalDateTime MIDNIGHT = LocalDateTime.of(2024, 3, 2, 0, 0);
+
+    @Test
+    void add_foldsClicksPerCodeDayAndGeo() {
+        ClickBatch batch = new ClickBatch();
+
+        batch.add(click("abc1234", MIDNIGHT.minusMinutes(1), "DE", "Berlin", null));
+        batch.add(click("abc1234", MIDNIGHT.plusMinutes(1), "DE", "Berlin", null));
+        batch.add(click("abc1234", MIDNIGHT.plusMinutes(2), null, null, null));
+        batch.add(click("xyz9876", MIDNIGHT, "FR", "Paris", null));
+
+        assertEquals(4, batch.getRawClicks().size());
+        assertEquals(List.of("abc1234", "xyz9876"), List.copyOf(batch.getCodes().keySet()));
+        ClickBatch.CodeDelta abc = batch.getCodes().get("abc1234");
+        assertEquals(3, abc.getClicks());
+        assertEquals(MIDNIGHT.minusMinutes(1), abc.getFirstClickedAt());
+        assertEquals(MIDNIGHT.plusMinutes(2), abc.getLastClickedAt());
+        assertEquals(1L, batch.getDays().get(new DayKey("abc1234", MIDNIGHT.toLocalDate().minusDays(1))));
+        assertEquals(2L, batch.getDays().get(new DayKey("abc1234", MIDNIGHT.toLocalDate())));
+        assertEquals(2L, batch.getGeos().get(new GeoKey("abc1234", "DE", "Berlin")));
+        assertEquals(1L, batch.getGeos().get(new GeoKey("abc1234", ClickBatch.UNKNOWN, ClickBatch.UNKNOWN)));
+    }
+
+    @Test
+    void add_countsRollupsAndStoresSampledClicksWithoutCountingThem() {
+        ClickBatch batch = new ClickBatch();
+
+        batch.add(UrlClickRollupEvent.builder()
+                .eventType(EventType.URL_CLICK_ROLLUP.getValue())
+                .shortCode("abc1234")
+                .windowStart(MIDNIGHT)
+                .firstAccessedAt(MIDNIGHT.plusSeconds(5))
+                .lastAccessedAt(MIDNIGHT.plusSeconds(50))
+                .clickCount(40L)
+                .build());
+        batch.add(click("abc1234", MIDNIGHT.plusSeconds(20), null, null, true));
+
+        assertEquals(1, batch.getRawClicks().size());
+        assertEquals(40, batch.getCodes().get("abc1234").getClicks());
+        assertEquals(40L, batch.getGeos().get(new GeoKey("abc1234", ClickBatch.UNKNOWN, ClickBatch.UNKNOWN)));
+        // The sampled click's IP still goes into the visitor sketches
+        assertEquals(1, batch.getCodeVisitors().get("abc1234").cardinality());
+    }
+
+    @Test
+    void add_mergesVisitorsPerCodeAndDay() {
+        ClickBatch batch = new ClickBatch();
+        HyperLogLog rollupVisitors = new HyperLogLog();
+        rollupVisitors.add("198.51.100.1");
+        rollupVisitors.add("203.0.113.7");
+
+        batch.add(click("abc1234", MIDNIGHT.minusMinutes(1), null, null, null));
+        batch.add(UrlClickRollupEvent.builder()
+                .eventType(EventType.URL_CLICK_ROLLUP.getValue())
+                .shortCode("abc1234")
+                .windowStart(MIDNIGHT)
+                .firstAccessedAt(MIDNIGHT)
+                .lastAccessedAt(MIDNIGHT.plusSeconds(30))
+                .clickCount(2L)
+                .visitorSketch(rollupVisitors.toBytes())
+                .build());
+
+        assertEquals(2, batch.getCodeVisitors().get("abc1234").cardinality());
+        assertEquals(1, batch.getDayVisitors().get(new DayKey("abc1234", MIDNIGHT.toLocalDate().minusDays(1))).cardinality());
+        assertEquals(2, batch.getDayVisitors().get(new DayKey("abc1234", MIDNIGHT.toLocalDate())).cardinality());
+    }
+
+    @Test
+    void rollupVisitors_ignoresSketchesBelowStoredPrecision() {
+        UrlClickRollupEvent rollup = UrlClickRollupEvent.builder()
+                .shortCode("abc1234")
+                .visitorSketch(new HyperLogLog(10).toBytes())
+                .build();
+
+        assertNull(ClickBatch.rollupVisitors(rollup));
+    }
+
+    @Test
+    void add_rejectsLifecycleEvents() {
+        ClickBatch batch = new ClickBatch();
+
+        assertFalse(batch.add(UrlExpiredEvent.builder().shortCode("abc1234").build()));
+        assertTrue(batch.isEmpty());
+    }
+
+    private static UrlAccessedEvent click(String shortCode, LocalDateTime at, String country, String city,
+                                          Boolean sampled) {
+        return UrlAccessedEvent.builder()
+                .eventType(EventType.URL_ACCESSED.getValue())
+                .shortCode(shortCode)
+                .accessedAt(at)
+                .ipAddress("203.0.113.7")
+                .country(country)
+                .city(city)
+                .sampled(sampled)
+                .build();
+    }
+}
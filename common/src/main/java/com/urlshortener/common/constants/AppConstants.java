@@ -7,5 +7,8 @@ public final class AppConstants {
     public static final int SHORT_CODE_LENGTH = 7;
     public static final int BASE62_BASE = 62;
     public static final int MAX_SHORT_CODE_GENERATION_ATTEMPTS = 5;
+    public static final int MAX_BATCH_SHORTEN_SIZE = 1000;
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
     public static final String BASE_URL = "http://localhost:8080"; // configurable
 }
\ No newline at end of file
@@ -4,7 +4,8 @@ public final class CacheConfig {
     private CacheConfig() {}
     
     public static final long URL_CACHE_TTL_SECONDS = 3600; // 1 hr
+    public static final long NON_EXPIRING_URL_CACHE_TTL_SECONDS = 86400; // 24 hr, links without expiresAt
+    public static final long NEGATIVE_CACHE_TTL_SECONDS = 60; // 1 min, for deleted/expired codes
     public static final long RATE_LIMIT_WINDOW_SECONDS = 60; // 1 min
     public static final int MAX_REQUESTS_PER_MINUTE = 100;
-    public static final int MAX_URLS_PER_USER = 1000;
 }
\ No newline at end of file
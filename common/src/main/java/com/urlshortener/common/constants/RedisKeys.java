@@ -4,15 +4,30 @@ public final class RedisKeys {
     private RedisKeys() {}
     
     public static final String URL_CACHE_PREFIX = "url:";
+    public static final String URL_BUCKET_PREFIX = "url:b:";
     public static final String CLICK_COUNTER_PREFIX = "clicks:";
     public static final String RATE_LIMIT_PREFIX = "ratelimit:";
     public static final String USER_RATE_LIMIT_PREFIX = "ratelimit:user:";
     public static final String IP_RATE_LIMIT_PREFIX = "ratelimit:ip:";
     
+    // Pub/sub channels
+    public static final String URL_INVALIDATION_CHANNEL = "url-cache:invalidate";
+    public static final String URL_CREATED_CHANNEL = "url-cache:created";
+    public static final String URL_FILTER_REBUILD_CHANNEL = "url-cache:filter-rebuild";
+    
+    // Short code filter state shared by url-service instances: codes issued recently (sorted set
+    // scored by issue time, epoch millis) and when a rebuild was last requested (epoch millis)
+    public static final String URL_FILTER_RECENT_CODES = "url-filter:recent";
+    public static final String URL_FILTER_REBUILD_REQUESTED_AT = "url-filter:rebuild-requested-at";
+    
     public static String urlCacheKey(String shortCode) {
         return URL_CACHE_PREFIX + shortCode;
     }
     
+    public static String urlBucketKey(int bucket) {
+        return URL_BUCKET_PREFIX + bucket;
+    }
+    
     public static String clickCounterKey(String shortCode) {
         return CLICK_COUNTER_PREFIX + shortCode;
     }
@@ -0,0 +1,25 @@
+package com.urlshortener.common.dto;
+
+import java.util.List;
+
+import com.urlshortener.common.constants.AppConstants;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Items are validated one by one, so an invalid item fails only its own result
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchShortenUrlRequest {
+    @NotEmpty(message = "At least one URL is required")
+    @Size(max = AppConstants.MAX_BATCH_SHORTEN_SIZE, message = "Too many URLs in one batch")
+    private List<ShortenUrlRequest> urls;
+}
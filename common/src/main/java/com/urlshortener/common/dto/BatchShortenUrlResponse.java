@@ -0,0 +1,34 @@
+package com.urlshortener.common.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchShortenUrlResponse {
+    private int created;
+    private int failed;
+    
+    // One result per requested URL, in request order
+    private List<Result> results;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private int index;
+        
+        // HTTP status the item would have had as a single request (201, 400, 403, 409, 500)
+        private int status;
+        
+        private ShortenUrlResponse url;
+        private String error;
+    }
+}
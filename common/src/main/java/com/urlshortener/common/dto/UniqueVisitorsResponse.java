@@ -0,0 +1,21 @@
+package com.urlshortener.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estimated unique visitor IPs of a URL over a date range (inclusive), merged from the daily
+ * HyperLogLog sketches; standard error about 1.6%
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UniqueVisitorsResponse {
+    private String shortCode;
+    private String startDate;
+    private String endDate;
+    private Long uniqueIps;
+}
@@ -0,0 +1,42 @@
+package com.urlshortener.common.event;
+
+/**
+ * Browser family reported by UserAgentParser. The binary event codec writes the ordinal,
+ * so constants may only be appended, never reordered or removed.
+ */
+public enum Browser {
+    UNKNOWN("Unknown"),
+    OTHER("Other"),
+    CHROME("Chrome"),
+    FIREFOX("Firefox"),
+    SAFARI("Safari"),
+    EDGE("Edge"),
+    OPERA("Opera");
+    
+    private final String label;
+    
+    Browser(String label) {
+        this.label = label;
+    }
+    
+    public String getLabel() {
+        return label;
+    }
+    
+    /**
+     * The constant with this label, or null if there is none
+     */
+    public static Browser fromLabel(String label) {
+        for (Browser value : values()) {
+            if (value.label.equals(label)) {
+                return value;
+            }
+        }
+        return null;
+    }
+    
+    @Override
+    public String toString() {
+        return label;
+    }
+}
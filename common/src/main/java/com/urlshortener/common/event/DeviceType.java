@@ -0,0 +1,39 @@
+package com.urlshortener.common.event;
+
+/**
+ * Device class reported by UserAgentParser. The binary event codec writes the ordinal,
+ * so constants may only be appended, never reordered or removed.
+ */
+public enum DeviceType {
+    UNKNOWN("Unknown"),
+    DESKTOP("Desktop"),
+    MOBILE("Mobile"),
+    TABLET("Tablet");
+    
+    private final String label;
+    
+    DeviceType(String label) {
+        this.label = label;
+    }
+    
+    public String getLabel() {
+        return label;
+    }
+    
+    /**
+     * The constant with this label, or null if there is none
+     */
+    public static DeviceType fromLabel(String label) {
+        for (DeviceType value : values()) {
+            if (value.label.equals(label)) {
+                return value;
+            }
+        }
+        return null;
+    }
+    
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -4,7 +4,8 @@ public enum EventType {
     URL_CREATED("url.created"),
     URL_DELETED("url.deleted"),
     URL_EXPIRED("url.expired"),
-    URL_ACCESSED("url.accessed");
+    URL_ACCESSED("url.accessed"),
+    URL_CLICK_ROLLUP("url.click.rollup");
     
     private final String value;
     
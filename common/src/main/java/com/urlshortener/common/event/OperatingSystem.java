@@ -0,0 +1,42 @@
+package com.urlshortener.common.event;
+
+/**
+ * Operating system reported by UserAgentParser. The binary event codec writes the ordinal,
+ * so constants may only be appended, never reordered or removed.
+ */
+public enum OperatingSystem {
+    UNKNOWN("Unknown"),
+    OTHER("Other"),
+    WINDOWS("Windows"),
+    MACOS("macOS"),
+    LINUX("Linux"),
+    ANDROID("Android"),
+    IOS("iOS");
+    
+    private final String label;
+    
+    OperatingSystem(String label) {
+        this.label = label;
+    }
+    
+    public String getLabel() {
+        return label;
+    }
+    
+    /**
+     * The constant with this label, or null if there is none
+     */
+    public static OperatingSystem fromLabel(String label) {
+        for (OperatingSystem value : values()) {
+            if (value.label.equals(label)) {
+                return value;
+            }
+        }
+        return null;
+    }
+    
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -34,6 +34,9 @@ public class UrlAccessedEvent extends BaseEvent {
     private String browser;
     private String operatingSystem;
     
+    // True for a raw sample of a click that is also counted in a UrlClickRollupEvent
+    private Boolean sampled;
+    
     public UrlAccessedEvent(String eventId, LocalDateTime timestamp, String eventType,
                            String shortCode, LocalDateTime accessedAt, String ipAddress,
                            String userAgent, String referer, String country, String city,
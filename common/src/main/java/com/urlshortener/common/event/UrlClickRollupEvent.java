@@ -0,0 +1,48 @@
+package com.urlshortener.common.event;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * Clicks on one short code within one tumbling window, pre-aggregated by url-service per
+ * (short code, window, country, device type, browser, OS). Rollups of the same key may arrive
+ * more than once (late clicks after a window was emitted); their counts and sketches add up.
+ */
+@Getter
+@Setter
+@ToString(callSuper=true)
+@EqualsAndHashCode(callSuper=true)
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UrlClickRollupEvent extends BaseEvent {
+    private String shortCode;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime windowStart;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime firstAccessedAt;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime lastAccessedAt;
+    
+    private String country;
+    private String deviceType;
+    private String browser;
+    private String operatingSystem;
+    private Long clickCount;
+    
+    // HyperLogLog.toBytes() of the visitors' IP addresses
+    @ToString.Exclude
+    private byte[] visitorSketch;
+}
@@ -0,0 +1,407 @@
+package com.urlshortener.common.event.codec;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.urlshortener.common.event.BaseEvent;
+import com.urlshortener.common.event.Browser;
+import com.urlshortener.common.event.DeviceType;
+import com.urlshortener.common.event.EventType;
+import com.urlshortener.common.event.OperatingSystem;
+import com.urlshortener.common.event.UrlAccessedEvent;
+import com.urlshortener.common.event.UrlClickRollupEvent;
+import com.urlshortener.common.event.UrlCreatedEvent;
+import com.urlshortener.common.event.UrlDeletedEvent;
+import com.urlshortener.common.event.UrlExpiredEvent;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Compact binary encoding of the events in com.urlshortener.common.event.
+ * <pre>
+ *   magic (0xB7) | version | event type code | fields...
+ * </pre>
+ * Each field is a varint key {@code (field number << 3 | wire type)} followed by a zigzag varint,
+ * 8 fixed bytes or a length-prefixed byte string, and null fields are left out. Readers skip
+ * fields they do not know and leave missing ones null, so fields can be added (with new
+ * numbers) without a version change; numbers are never reused. The version only changes for
+ * an incompatible layout, which older readers then reject.
+ *
+ * Timestamps are the LocalDateTime's wall-clock value as epoch milliseconds at UTC, so they
+ * read back unchanged whatever the time zones of the writer and reader. Version 1 wrote them in
+ * the writer's system time zone; those are still read in the reader's. The event id
+ * is packed into 16 bytes when it is a UUID. Device, browser and OS are written as the ordinals
+ * of DeviceType, Browser and OperatingSystem, or as text for a label outside those enums.
+ *
+ * decode also accepts the JSON these events were published as before, so consumers can be
+ * upgraded ahead of producers and read the JSON still retained on the topics.
+ */
+public final class EventCodec {
+
+    static final int MAGIC = 0xB7;
+    static final int VERSION = 2;
+    // Last version whose timestamps are in the system time zone
+    private static final int SYSTEM_ZONE_VERSION = 1;
+
+    private static final int CREATED = 1;
+    private static final int DELETED = 2;
+    private static final int EXPIRED = 3;
+    private static final int ACCESSED = 4;
+    private static final int ROLLUP = 5;
+
+    // Fields of every event
+    private static final int EVENT_ID_HIGH = 1;
+    private static final int EVENT_ID_LOW = 2;
+    private static final int EVENT_ID_TEXT = 3;
+    private static final int TIMESTAMP = 4;
+
+    // Event-specific fields start at 16
+    private static final int SHORT_CODE = 16;
+
+    private static final int CREATED_LONG_URL = 17;
+    private static final int CREATED_USER_ID = 18;
+    private static final int CREATED_CREATED_AT = 19;
+    private static final int CREATED_EXPIRES_AT = 20;
+    private static final int CREATED_CUSTOM_ALIAS = 21;
+
+    private static final int DELETED_USER_ID = 17;
+    private static final int DELETED_DELETED_AT = 18;
+
+    private static final int EXPIRED_EXPIRED_AT = 17;
+
+    private static final int ACCESSED_ACCESSED_AT = 17;
+    private static final int ACCESSED_IP_ADDRESS = 18;
+    private static final int ACCESSED_USER_AGENT = 19;
+    private static final int ACCESSED_REFERER = 20;
+    private static final int ACCESSED_COUNTRY = 21;
+    private static final int ACCESSED_CITY = 22;
+    private static final int ACCESSED_DEVICE_TYPE = 23;
+    private static final int ACCESSED_DEVICE_TYPE_TEXT = 24;
+    private static final int ACCESSED_BROWSER = 25;
+    private static final int ACCESSED_BROWSER_TEXT = 26;
+    private static final int ACCESSED_OS = 27;
+    private static final int ACCESSED_OS_TEXT = 28;
+    private static final int ACCESSED_SAMPLED = 29;
+
+    private static final int ROLLUP_WINDOW_START = 17;
+    private static final int ROLLUP_FIRST_ACCESSED_AT = 18;
+    private static final int ROLLUP_LAST_ACCESSED_AT = 19;
+    private static final int ROLLUP_COUNTRY = 20;
+    private static final int ROLLUP_DEVICE_TYPE = 21;
+    private static final int ROLLUP_DEVICE_TYPE_TEXT = 22;
+    private static final int ROLLUP_BROWSER = 23;
+    private static final int ROLLUP_BROWSER_TEXT = 24;
+    private static final int ROLLUP_OS = 25;
+    private static final int ROLLUP_OS_TEXT = 26;
+    private static final int ROLLUP_CLICK_COUNT = 27;
+    private static final int ROLLUP_VISITOR_SKETCH = 28;
+
+    private static final int INITIAL_CAPACITY = 128;
+
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private EventCodec() {
+    }
+
+    public static byte[] encode(BaseEvent event) {
+        EventWriter writer = new EventWriter(INITIAL_CAPACITY);
+        writer.writeByte(MAGIC);
+        writer.writeByte(VERSION);
+        writer.writeByte(typeCode(event));
+
+        writeEventId(writer, event.getEventId());
+        writer.writeLong(TIMESTAMP, epochMillis(event.getTimestamp()));
+
+        if (event instanceof UrlAccessedEvent accessed) {
+            writer.writeString(SHORT_CODE, accessed.getShortCode());
+            writer.writeLong(ACCESSED_ACCESSED_AT, epochMillis(accessed.getAccessedAt()));
+            writer.writeString(ACCESSED_IP_ADDRESS, accessed.getIpAddress());
+            writer.writeString(ACCESSED_USER_AGENT, accessed.getUserAgent());
+            writer.writeString(ACCESSED_REFERER, accessed.getReferer());
+            writer.writeString(ACCESSED_COUNTRY, accessed.getCountry());
+            writer.writeString(ACCESSED_CITY, accessed.getCity());
+            writeLabel(writer, ACCESSED_DEVICE_TYPE, ACCESSED_DEVICE_TYPE_TEXT,
+                    accessed.getDeviceType(), DeviceType.fromLabel(accessed.getDeviceType()));
+            writeLabel(writer, ACCESSED_BROWSER, ACCESSED_BROWSER_TEXT,
+                    accessed.getBrowser(), Browser.fromLabel(accessed.getBrowser()));
+            writeLabel(writer, ACCESSED_OS, ACCESSED_OS_TEXT,
+                    accessed.getOperatingSystem(), OperatingSystem.fromLabel(accessed.getOperatingSystem()));
+            writer.writeLong(ACCESSED_SAMPLED, bool(accessed.getSampled()));
+        } else if (event instanceof UrlClickRollupEvent rollup) {
+            writer.writeString(SHORT_CODE, rollup.getShortCode());
+            writer.writeLong(ROLLUP_WINDOW_START, epochMillis(rollup.getWindowStart()));
+            writer.writeLong(ROLLUP_FIRST_ACCESSED_AT, epochMillis(rollup.getFirstAccessedAt()));
+            writer.writeLong(ROLLUP_LAST_ACCESSED_AT, epochMillis(rollup.getLastAccessedAt()));
+            writer.writeString(ROLLUP_COUNTRY, rollup.getCountry());
+            writeLabel(writer, ROLLUP_DEVICE_TYPE, ROLLUP_DEVICE_TYPE_TEXT,
+                    rollup.getDeviceType(), DeviceType.fromLabel(rollup.getDeviceType()));
+            writeLabel(writer, ROLLUP_BROWSER, ROLLUP_BROWSER_TEXT,
+                    rollup.getBrowser(), Browser.fromLabel(rollup.getBrowser()));
+            writeLabel(writer, ROLLUP_OS, ROLLUP_OS_TEXT,
+                    rollup.getOperatingSystem(), OperatingSystem.fromLabel(rollup.getOperatingSystem()));
+            writer.writeLong(ROLLUP_CLICK_COUNT, rollup.getClickCount());
+            writer.writeBytes(ROLLUP_VISITOR_SKETCH, rollup.getVisitorSketch());
+        } else if (event instanceof UrlCreatedEvent created) {
+            writer.writeString(SHORT_CODE, created.getShortCode());
+            writer.writeString(CREATED_LONG_URL, created.getLongUrl());
+            writer.writeLong(CREATED_USER_ID, created.getUserId());
+            writer.writeLong(CREATED_CREATED_AT, epochMillis(created.getCreatedAt()));
+            writer.writeLong(CREATED_EXPIRES_AT, epochMillis(created.getExpiresAt()));
+            writer.writeLong(CREATED_CUSTOM_ALIAS, bool(created.getCustomAlias()));
+        } else if (event instanceof UrlDeletedEvent deleted) {
+            writer.writeString(SHORT_CODE, deleted.getShortCode());
+            writer.writeLong(DELETED_USER_ID, deleted.getUserId());
+            writer.writeLong(DELETED_DELETED_AT, epochMillis(deleted.getDeletedAt()));
+        } else if (event instanceof UrlExpiredEvent expired) {
+            writer.writeString(SHORT_CODE, expired.getShortCode());
+            writer.writeLong(EXPIRED_EXPIRED_AT, epochMillis(expired.getExpiredAt()));
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Decode a binary event, or a JSON one from before the binary encoding
+     * @throws IllegalArgumentException if the data is neither
+     */
+    public static BaseEvent decode(byte[] data) {
+        if (data.length > 0 && data[0] == '{') {
+            return decodeJson(data);
+        }
+        EventReader reader = new EventReader(data, 0);
+        if (data.length < 3 || reader.readByte() != MAGIC) {
+            throw new IllegalArgumentException("Not an encoded event");
+        }
+        int version = reader.readByte();
+        if (version > VERSION) {
+            throw new IllegalArgumentException("Unsupported event encoding version " + version);
+        }
+        ZoneId zone = version <= SYSTEM_ZONE_VERSION ? ZoneId.systemDefault() : ZoneOffset.UTC;
+
+        int type = reader.readByte();
+        BaseEvent event = switch (type) {
+            case CREATED -> new UrlCreatedEvent();
+            case DELETED -> new UrlDeletedEvent();
+            case EXPIRED -> new UrlExpiredEvent();
+            case ACCESSED -> new UrlAccessedEvent();
+            case ROLLUP -> new UrlClickRollupEvent();
+            default -> throw new IllegalArgumentException("Unknown event type code " + type);
+        };
+        event.setEventType(eventType(type).getValue());
+
+        long idHigh = 0;
+        long idLow = 0;
+        boolean uuid = false;
+        int field;
+        while ((field = reader.nextField()) != 0) {
+            switch (field) {
+                case EVENT_ID_HIGH -> {
+                    idHigh = reader.readFixed64();
+                    uuid = true;
+                }
+                case EVENT_ID_LOW -> idLow = reader.readFixed64();
+                case EVENT_ID_TEXT -> event.setEventId(reader.readString());
+                case TIMESTAMP -> event.setTimestamp(localDateTime(reader.readLong(), zone));
+                default -> {
+                    if (!readField(event, field, reader, zone)) {
+                        reader.skip();
+                    }
+                }
+            }
+        }
+        if (uuid) {
+            event.setEventId(new UUID(idHigh, idLow).toString());
+        }
+        return event;
+    }
+
+    /**
+     * Read an event-specific field into the event
+     * @return false if the field is not known for this event type
+     */
+    private static boolean readField(BaseEvent event, int field, EventReader reader, ZoneId zone) {
+        if (event instanceof UrlAccessedEvent accessed) {
+            switch (field) {
+                case SHORT_CODE -> accessed.setShortCode(reader.readString());
+                case ACCESSED_ACCESSED_AT -> accessed.setAccessedAt(localDateTime(reader.readLong(), zone));
+                case ACCESSED_IP_ADDRESS -> accessed.setIpAddress(reader.readString());
+                case ACCESSED_USER_AGENT -> accessed.setUserAgent(reader.readString());
+                case ACCESSED_REFERER -> accessed.setReferer(reader.readString());
+                case ACCESSED_COUNTRY -> accessed.setCountry(reader.readString());
+                case ACCESSED_CITY -> accessed.setCity(reader.readString());
+                case ACCESSED_DEVICE_TYPE -> accessed.setDeviceType(label(reader.readLong(), DeviceType.values(), DeviceType::getLabel));
+                case ACCESSED_DEVICE_TYPE_TEXT -> accessed.setDeviceType(reader.readString());
+                case ACCESSED_BROWSER -> accessed.setBrowser(label(reader.readLong(), Browser.values(), Browser::getLabel));
+                case ACCESSED_BROWSER_TEXT -> accessed.setBrowser(reader.readString());
+                case ACCESSED_OS -> accessed.setOperatingSystem(label(reader.readLong(), OperatingSystem.values(), OperatingSystem::getLabel));
+                case ACCESSED_OS_TEXT -> accessed.setOperatingSystem(reader.readString());
+                case ACCESSED_SAMPLED -> accessed.setSampled(reader.readLong() != 0);
+                default -> {
+                    return false;
+                }
+            }
+        } else if (event instanceof UrlClickRollupEvent rollup) {
+            switch (field) {
+                case SHORT_CODE -> rollup.setShortCode(reader.readString());
+                case ROLLUP_WINDOW_START -> rollup.setWindowStart(localDateTime(reader.readLong(), zone));
+                case ROLLUP_FIRST_ACCESSED_AT -> rollup.setFirstAccessedAt(localDateTime(reader.readLong(), zone));
+                case ROLLUP_LAST_ACCESSED_AT -> rollup.setLastAccessedAt(localDateTime(reader.readLong(), zone));
+                case ROLLUP_COUNTRY -> rollup.setCountry(reader.readString());
+                case ROLLUP_DEVICE_TYPE -> rollup.setDeviceType(label(reader.readLong(), DeviceType.values(), DeviceType::getLabel));
+                case ROLLUP_DEVICE_TYPE_TEXT -> rollup.setDeviceType(reader.readString());
+                case ROLLUP_BROWSER -> rollup.setBrowser(label(reader.readLong(), Browser.values(), Browser::getLabel));
+                case ROLLUP_BROWSER_TEXT -> rollup.setBrowser(reader.readString());
+                case ROLLUP_OS -> rollup.setOperatingSystem(label(reader.readLong(), OperatingSystem.values(), OperatingSystem::getLabel));
+                case ROLLUP_OS_TEXT -> rollup.setOperatingSystem(reader.readString());
+                case ROLLUP_CLICK_COUNT -> rollup.setClickCount(reader.readLong());
+                case ROLLUP_VISITOR_SKETCH -> rollup.setVisitorSketch(reader.readBytes());
+                default -> {
+                    return false;
+                }
+            }
+        } else if (event instanceof UrlCreatedEvent created) {
+            switch (field) {
+                case SHORT_CODE -> created.setShortCode(reader.readString());
+                case CREATED_LONG_URL -> created.setLongUrl(reader.readString());
+                case CREATED_USER_ID -> created.setUserId(reader.readLong());
+                case CREATED_CREATED_AT -> created.setCreatedAt(localDateTime(reader.readLong(), zone));
+                case CREATED_EXPIRES_AT -> created.setExpiresAt(localDateTime(reader.readLong(), zone));
+                case CREATED_CUSTOM_ALIAS -> created.setCustomAlias(reader.readLong() != 0);
+                default -> {
+                    return false;
+                }
+            }
+        } else if (event instanceof UrlDeletedEvent deleted) {
+            switch (field) {
+                case SHORT_CODE -> deleted.setShortCode(reader.readString());
+                case DELETED_USER_ID -> deleted.setUserId(reader.readLong());
+                case DELETED_DELETED_AT -> deleted.setDeletedAt(localDateTime(reader.readLong(), zone));
+                default -> {
+                    return false;
+                }
+            }
+        } else if (event instanceof UrlExpiredEvent expired) {
+            switch (field) {
+                case SHORT_CODE -> expired.setShortCode(reader.readString());
+                case EXPIRED_EXPIRED_AT -> expired.setExpiredAt(localDateTime(reader.readLong(), zone));
+                default -> {
+                    return false;
+                }
+            }
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static BaseEvent decodeJson(byte[] data) {
+        try {
+            JsonNode node = JSON.readTree(data);
+            String eventType = node.path("eventType").asText();
+            Class<? extends BaseEvent> type;
+            if (EventType.URL_ACCESSED.getValue().equals(eventType)) {
+                type = UrlAccessedEvent.class;
+            } else if (EventType.URL_CREATED.getValue().equals(eventType)) {
+                type = UrlCreatedEvent.class;
+            } else if (EventType.URL_DELETED.getValue().equals(eventType)) {
+                type = UrlDeletedEvent.class;
+            } else if (EventType.URL_EXPIRED.getValue().equals(eventType)) {
+                type = UrlExpiredEvent.class;
+            } else if (EventType.URL_CLICK_ROLLUP.getValue().equals(eventType)) {
+                type = UrlClickRollupEvent.class;
+            } else {
+                throw new IllegalArgumentException("Unknown event type: " + eventType);
+            }
+            return JSON.treeToValue(node, type);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed JSON event", e);
+        }
+    }
+
+    private static int typeCode(BaseEvent event) {
+        if (event instanceof UrlAccessedEvent) {
+            return ACCESSED;
+        } else if (event instanceof UrlClickRollupEvent) {
+            return ROLLUP;
+        } else if (event instanceof UrlCreatedEvent) {
+            return CREATED;
+        } else if (event instanceof UrlDeletedEvent) {
+            return DELETED;
+        } else if (event instanceof UrlExpiredEvent) {
+            return EXPIRED;
+        }
+        throw new IllegalArgumentException("Unsupported event class " + event.getClass().getName());
+    }
+
+    private static EventType eventType(int typeCode) {
+        return switch (typeCode) {
+            case CREATED -> EventType.URL_CREATED;
+            case DELETED -> EventType.URL_DELETED;
+            case EXPIRED -> EventType.URL_EXPIRED;
+            case ROLLUP -> EventType.URL_CLICK_ROLLUP;
+            default -> EventType.URL_ACCESSED;
+        };
+    }
+
+    private static void writeEventId(EventWriter writer, String eventId) {
+        if (eventId == null) {
+            return;
+        }
+        UUID uuid = parseUuid(eventId);
+        if (uuid != null) {
+            writer.writeFixed64(EVENT_ID_HIGH, uuid.getMostSignificantBits());
+            writer.writeFixed64(EVENT_ID_LOW, uuid.getLeastSignificantBits());
+        } else {
+            writer.writeString(EVENT_ID_TEXT, eventId);
+        }
+    }
+
+    /**
+     * The UUID, if the id is one in canonical lower-case form (so it decodes to the same string)
+     */
+    private static UUID parseUuid(String eventId) {
+        if (eventId.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(eventId);
+            return uuid.toString().equals(eventId) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static <E extends Enum<E>> void writeLabel(EventWriter writer, int ordinalField, int textField,
+                                                       String label, E known) {
+        if (known != null) {
+            writer.writeLong(ordinalField, (long) known.ordinal());
+        } else {
+            writer.writeString(textField, label);
+        }
+    }
+
+    private static <E> String label(long ordinal, E[] values, Function<E, String> label) {
+        // null for a constant appended by a newer writer
+        return ordinal >= 0 && ordinal < values.length ? label.apply(values[(int) ordinal]) : null;
+    }
+
+    private static Long bool(Boolean value) {
+        return value == null ? null : value ? 1L : 0L;
+    }
+
+    private static Long epochMillis(LocalDateTime time) {
+        return time == null ? null : time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime localDateTime(long epochMillis, ZoneId zone) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zone);
+    }
+}
@@ -0,0 +1,24 @@
+package com.urlshortener.common.event.codec;
+
+import com.urlshortener.common.event.BaseEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Kafka value deserializer reading events with EventCodec, straight into the typed event
+ * (binary, or JSON written before the binary encoding)
+ */
+public class EventDeserializer implements Deserializer<BaseEvent> {
+
+    @Override
+    public BaseEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return EventCodec.decode(data);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Failed to decode event from " + topic, e);
+        }
+    }
+}
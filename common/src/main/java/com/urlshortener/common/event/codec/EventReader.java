@@ -0,0 +1,122 @@
+package com.urlshortener.common.event.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the fields written by EventWriter. Callers loop over nextField() and read the value
+ * of the fields they know; unknown fields are passed to skip(), which is what lets newer
+ * writers add fields without breaking older readers.
+ */
+final class EventReader {
+
+    private final byte[] data;
+    private int position;
+    private int wireType;
+
+    EventReader(byte[] data, int offset) {
+        this.data = data;
+        this.position = offset;
+    }
+
+    int readByte() {
+        require(1);
+        return data[position++] & 0xFF;
+    }
+
+    /**
+     * Field number of the next field, or 0 at the end of the data
+     */
+    int nextField() {
+        if (position >= data.length) {
+            return 0;
+        }
+        long key = readVarint();
+        wireType = (int) (key & 0x7);
+        int field = (int) (key >>> 3);
+        if (field == 0) {
+            throw new IllegalArgumentException("Invalid field number 0");
+        }
+        return field;
+    }
+
+    long readLong() {
+        expect(EventWriter.VARINT);
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    long readFixed64() {
+        expect(EventWriter.FIXED64);
+        require(Long.BYTES);
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (data[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    String readString() {
+        expect(EventWriter.BYTES);
+        int length = readLength();
+        String value = new String(data, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    byte[] readBytes() {
+        expect(EventWriter.BYTES);
+        int length = readLength();
+        byte[] value = Arrays.copyOfRange(data, position, position + length);
+        position += length;
+        return value;
+    }
+
+    void skip() {
+        switch (wireType) {
+            case EventWriter.VARINT -> readVarint();
+            case EventWriter.FIXED64 -> {
+                require(Long.BYTES);
+                position += Long.BYTES;
+            }
+            case EventWriter.BYTES -> {
+                int length = readLength();
+                position += length;
+            }
+            default -> throw new IllegalArgumentException("Unknown wire type " + wireType);
+        }
+    }
+
+    private int readLength() {
+        long length = readVarint();
+        if (length < 0 || length > data.length - position) {
+            throw new IllegalArgumentException("Field length " + length + " exceeds the data");
+        }
+        return (int) length;
+    }
+
+    private long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            require(1);
+            byte b = data[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private void expect(int expected) {
+        if (wireType != expected) {
+            throw new IllegalArgumentException("Wire type " + wireType + " where " + expected + " was expected");
+        }
+    }
+
+    private void require(int bytes) {
+        if (position + bytes > data.length) {
+            throw new IllegalArgumentException("Truncated event");
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.urlshortener.common.event.codec;
+
+import com.urlshortener.common.event.BaseEvent;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka value serializer writing events with EventCodec
+ */
+public class EventSerializer implements Serializer<BaseEvent> {
+
+    @Override
+    public byte[] serialize(String topic, BaseEvent event) {
+        return event == null ? null : EventCodec.encode(event);
+    }
+}
@@ -0,0 +1,128 @@
+package com.urlshortener.common.util;
+
+import java.util.Arrays;
+
+/**
+ * Hash table from keys to a fixed number of long counters per key.
+ *
+ * Counters are kept in one long[] (a row of columns per key, next to each other) and keys in a
+ * parallel array, with open addressing and linear probing, so updating a counter neither boxes
+ * a Long nor allocates a node the way a HashMap of counters does. row() returns the index of a
+ * key's first counter; column c is at that index + c until the next insert, which may move rows.
+ *
+ * Not thread-safe.
+ */
+public class CounterTable<K> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final int columns;
+    private Object[] keys;
+    private long[] counters;
+    private int size;
+
+    public CounterTable(int columns) {
+        if (columns < 1) {
+            throw new IllegalArgumentException("A counter table needs at least one column");
+        }
+        this.columns = columns;
+        this.keys = new Object[MIN_CAPACITY];
+        this.counters = new long[MIN_CAPACITY * columns];
+    }
+
+    /**
+     * Index of the key's first counter, adding the key with all counters at zero if missing
+     */
+    public int row(K key) {
+        int slot = find(key);
+        if (keys[slot] == null) {
+            if (2 * (size + 1) > keys.length) {
+                grow();
+                slot = find(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        return slot * columns;
+    }
+
+    /**
+     * Whether the key has a row; does not add it
+     */
+    public boolean containsKey(K key) {
+        return keys[find(key)] != null;
+    }
+
+    public long get(int index) {
+        return counters[index];
+    }
+
+    public void set(int index, long value) {
+        counters[index] = value;
+    }
+
+    public void add(int index, long delta) {
+        counters[index] += delta;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Remove every key, keeping the allocated capacity
+     */
+    public void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(counters, 0);
+        size = 0;
+    }
+
+    /**
+     * Visit each key with the index of its first counter, in no particular order
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(RowVisitor<K> visitor) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != null) {
+                visitor.visit((K) keys[slot], slot * columns);
+            }
+        }
+    }
+
+    /**
+     * Slot holding the key, or the empty slot where it would go
+     */
+    private int find(Object key) {
+        int mask = keys.length - 1;
+        int hash = key.hashCode() * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (keys[slot] != null && !keys[slot].equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        Object[] oldKeys = keys;
+        long[] oldCounters = counters;
+        keys = new Object[oldKeys.length * 2];
+        counters = new long[keys.length * columns];
+        for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+            if (oldKeys[oldSlot] != null) {
+                int slot = find(oldKeys[oldSlot]);
+                keys[slot] = oldKeys[oldSlot];
+                System.arraycopy(oldCounters, oldSlot * columns, counters, slot * columns, columns);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface RowVisitor<K> {
+        void visit(K key, int index);
+    }
+}
@@ -0,0 +1,313 @@
+package com.urlshortener.common.util;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog distinct-value sketch for strings (Flajolet et al.), mergeable and serializable.
+ *
+ * A value's 64-bit hash picks one of 2^precision registers with its top bits and keeps the
+ * largest rank (position of the first 1 bit) seen in the rest. The standard error of the
+ * estimate is about 1.04 / sqrt(2^precision): 1.6% at the default precision of 12, for 4 KB,
+ * so about 99.7% of estimates are within 5% of the true count. Below roughly 2.5 * 2^precision
+ * distinct values the estimate uses linear counting and is close to exact for small sets.
+ *
+ * Small sketches are kept sparse (only the non-zero registers, sorted by index) and switch to
+ * the dense register array once that would be smaller, so a sketch of a handful of values
+ * costs a few bytes. Merging takes the register-wise maximum, which gives exactly the sketch
+ * of the union. A sketch of higher precision can be merged into one of lower precision (its
+ * registers are folded down); the other way round is not possible.
+ *
+ * Serialized form: format byte (1 sparse, 2 dense), precision, then either a varint entry count
+ * followed by (varint index delta, rank byte) pairs, or the 2^precision register bytes.
+ *
+ * Not thread-safe.
+ */
+public class HyperLogLog {
+
+    public static final int DEFAULT_PRECISION = 12;
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 16;
+
+    private static final int SPARSE = 1;
+    private static final int DENSE = 2;
+
+    private final int precision;
+    private final int registerCount;
+
+    // Sparse form: index << 8 | rank, sorted by index; null once dense
+    private int[] sparse;
+    private int sparseSize;
+    // Dense form; null while sparse
+    private byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(
+                    "Precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION);
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+        this.sparse = new int[4];
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Add a value to the sketch
+     */
+    public void add(String value) {
+        addHash(ScalableBloomFilter.hash(value));
+    }
+
+    void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Guard bit caps the rank at 64 - precision + 1 when the remaining bits are all zero
+        long rest = (hash << precision) | (1L << (precision - 1));
+        int rank = Long.numberOfLeadingZeros(rest) + 1;
+        update(index, rank);
+    }
+
+    /**
+     * Fold another sketch of the same or a higher precision into this one
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision < precision) {
+            throw new IllegalArgumentException(
+                    "Cannot merge a sketch of precision " + other.precision + " into one of precision " + precision);
+        }
+        if (other.precision > precision) {
+            mergeFolded(other);
+        } else if (other.registers != null) {
+            toDense();
+            for (int i = 0; i < registerCount; i++) {
+                if (other.registers[i] > registers[i]) {
+                    registers[i] = other.registers[i];
+                }
+            }
+        } else {
+            for (int i = 0; i < other.sparseSize; i++) {
+                update(other.sparse[i] >>> 8, other.sparse[i] & 0xFF);
+            }
+        }
+    }
+
+    /**
+     * Merge a higher-precision sketch: its index bits below this precision become the leading
+     * bits of the value whose first 1 bit is ranked
+     */
+    private void mergeFolded(HyperLogLog other) {
+        int shift = other.precision - precision;
+        if (other.registers != null) {
+            for (int i = 0; i < other.registerCount; i++) {
+                if (other.registers[i] != 0) {
+                    fold(i, other.registers[i], shift);
+                }
+            }
+        } else {
+            for (int i = 0; i < other.sparseSize; i++) {
+                fold(other.sparse[i] >>> 8, other.sparse[i] & 0xFF, shift);
+            }
+        }
+    }
+
+    private void fold(int index, int rank, int shift) {
+        int low = index & ((1 << shift) - 1);
+        // Leading zeros of the dropped index bits, or all of them plus the original rank
+        int foldedRank = low != 0 ? Integer.numberOfLeadingZeros(low) - (32 - shift) + 1 : shift + rank;
+        update(index >>> shift, foldedRank);
+    }
+
+    /**
+     * Estimated number of distinct values added
+     */
+    public long cardinality() {
+        double sum = 0;
+        int zeros;
+        if (registers != null) {
+            zeros = 0;
+            for (byte register : registers) {
+                sum += 1.0 / (1L << register);
+                if (register == 0) {
+                    zeros++;
+                }
+            }
+        } else {
+            zeros = registerCount - sparseSize;
+            sum = zeros;
+            for (int i = 0; i < sparseSize; i++) {
+                sum += 1.0 / (1L << (sparse[i] & 0xFF));
+            }
+        }
+
+        double m = registerCount;
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        // Linear counting is more accurate while many registers are still empty
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log(m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public boolean isEmpty() {
+        return registers == null && sparseSize == 0;
+    }
+
+    public byte[] toBytes() {
+        if (registers != null) {
+            byte[] bytes = new byte[2 + registerCount];
+            bytes[0] = DENSE;
+            bytes[1] = (byte) precision;
+            System.arraycopy(registers, 0, bytes, 2, registerCount);
+            return bytes;
+        }
+        // Up to 3 varint bytes for the count and each index delta (precision <= 16), 1 for a rank
+        byte[] bytes = new byte[2 + 3 + sparseSize * 4];
+        bytes[0] = SPARSE;
+        bytes[1] = (byte) precision;
+        int position = writeVarint(bytes, 2, sparseSize);
+        int previous = 0;
+        for (int i = 0; i < sparseSize; i++) {
+            int index = sparse[i] >>> 8;
+            position = writeVarint(bytes, position, index - previous);
+            bytes[position++] = (byte) (sparse[i] & 0xFF);
+            previous = index;
+        }
+        return Arrays.copyOf(bytes, position);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not a serialized sketch
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes.length < 2) {
+            throw new IllegalArgumentException("Truncated sketch");
+        }
+        HyperLogLog sketch = new HyperLogLog(bytes[1]);
+        int maxRank = 64 - sketch.precision + 1;
+        if (bytes[0] == DENSE) {
+            if (bytes.length != 2 + sketch.registerCount) {
+                throw new IllegalArgumentException("Dense sketch has " + (bytes.length - 2) + " registers");
+            }
+            sketch.registers = Arrays.copyOfRange(bytes, 2, bytes.length);
+            for (byte register : sketch.registers) {
+                if (register < 0 || register > maxRank) {
+                    throw new IllegalArgumentException("Invalid register value " + register);
+                }
+            }
+            sketch.sparse = null;
+            return sketch;
+        }
+        if (bytes[0] != SPARSE) {
+            throw new IllegalArgumentException("Unknown sketch format " + bytes[0]);
+        }
+
+        int[] cursor = {2};
+        int count = readVarint(bytes, cursor);
+        int index = 0;
+        for (int i = 0; i < count; i++) {
+            index += readVarint(bytes, cursor);
+            if (cursor[0] >= bytes.length) {
+                throw new IllegalArgumentException("Truncated sketch");
+            }
+            int rank = bytes[cursor[0]++];
+            if (index >= sketch.registerCount || rank < 1 || rank > maxRank) {
+                throw new IllegalArgumentException("Invalid sketch entry " + index + ":" + rank);
+            }
+            sketch.update(index, rank);
+        }
+        return sketch;
+    }
+
+    private void update(int index, int rank) {
+        if (registers != null) {
+            if (rank > registers[index]) {
+                registers[index] = (byte) rank;
+            }
+            return;
+        }
+
+        int position = findSparse(index);
+        if (position >= 0) {
+            if (rank > (sparse[position] & 0xFF)) {
+                sparse[position] = index << 8 | rank;
+            }
+            return;
+        }
+        // Dense takes registerCount bytes; a sparse entry takes about 3 once serialized
+        if (sparseSize >= registerCount / 4) {
+            toDense();
+            update(index, rank);
+            return;
+        }
+        int insertAt = -position - 1;
+        if (sparseSize == sparse.length) {
+            sparse = Arrays.copyOf(sparse, sparse.length * 2);
+        }
+        System.arraycopy(sparse, insertAt, sparse, insertAt + 1, sparseSize - insertAt);
+        sparse[insertAt] = index << 8 | rank;
+        sparseSize++;
+    }
+
+    /**
+     * Position of the entry for index, or (-insertion point - 1) like Arrays.binarySearch
+     */
+    private int findSparse(int index) {
+        int low = 0;
+        int high = sparseSize - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midIndex = sparse[mid] >>> 8;
+            if (midIndex < index) {
+                low = mid + 1;
+            } else if (midIndex > index) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void toDense() {
+        if (registers != null) {
+            return;
+        }
+        registers = new byte[registerCount];
+        for (int i = 0; i < sparseSize; i++) {
+            registers[sparse[i] >>> 8] = (byte) (sparse[i] & 0xFF);
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+
+    private static int writeVarint(byte[] bytes, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+        return position;
+    }
+
+    private static int readVarint(byte[] bytes, int[] cursor) {
+        int value = 0;
+        for (int shift = 0; shift < 28; shift += 7) {
+            if (cursor[0] >= bytes.length) {
+                throw new IllegalArgumentException("Truncated sketch");
+            }
+            byte b = bytes[cursor[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed sketch varint");
+    }
+}
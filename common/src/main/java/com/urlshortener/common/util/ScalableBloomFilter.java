@@ -0,0 +1,189 @@
+package com.urlshortener.common.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe scalable Bloom filter for strings (Almeida et al., "Scalable Bloom Filters").
+ *
+ * Starts with one filter sized for the expected insertions. When a stage fills up, a new stage
+ * with twice the capacity and half the false positive rate is added, so the compound false
+ * positive rate stays below the configured rate no matter how many elements are added.
+ *
+ * Inserts and lookups are lock-free (bits are set with CAS on an AtomicLongArray);
+ * only adding a new stage takes a lock.
+ */
+public class ScalableBloomFilter {
+
+    private static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private volatile Stage[] stages;
+
+    public ScalableBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Expected insertions must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        // Stages use p/2, p/4, p/8... so the compound rate never exceeds p
+        this.stages = new Stage[] { new Stage(expectedInsertions, falsePositiveRate * TIGHTENING_RATIO) };
+    }
+
+    /**
+     * Add a value to the filter. Adding a value that is already present does not count towards
+     * a stage's capacity, so repeated adds of the same codes do not grow the filter.
+     */
+    public void put(String value) {
+        long hash = hash(value);
+        for (Stage stage : stages) {
+            if (stage.mightContain(hash)) {
+                return;
+            }
+        }
+        currentStage().put(hash);
+    }
+
+    /**
+     * Returns false if the value was definitely never added, true if it probably was
+     */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        Stage[] snapshot = stages;
+        // Newest stage first: recently added values are the most likely to be looked up
+        for (int i = snapshot.length - 1; i >= 0; i--) {
+            if (snapshot[i].mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Approximate number of distinct values added
+     */
+    public long size() {
+        long total = 0;
+        for (Stage stage : stages) {
+            total += stage.count.get();
+        }
+        return total;
+    }
+
+    /**
+     * Total size of all bit arrays in bytes
+     */
+    public long sizeInBytes() {
+        long total = 0;
+        for (Stage stage : stages) {
+            total += stage.bits.length() * 8L;
+        }
+        return total;
+    }
+
+    private Stage currentStage() {
+        Stage[] snapshot = stages;
+        Stage last = snapshot[snapshot.length - 1];
+        if (last.count.get() < last.capacity) {
+            return last;
+        }
+        synchronized (this) {
+            snapshot = stages;
+            last = snapshot[snapshot.length - 1];
+            if (last.count.get() < last.capacity) {
+                return last;
+            }
+            Stage next = new Stage(last.capacity * GROWTH_FACTOR, last.falsePositiveRate * TIGHTENING_RATIO);
+            Stage[] grown = new Stage[snapshot.length + 1];
+            System.arraycopy(snapshot, 0, grown, 0, snapshot.length);
+            grown[snapshot.length] = next;
+            stages = grown;
+            return next;
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 fmix64 avalanche step
+     */
+    static long hash(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * One fixed-size Bloom filter; k bit positions derived by double hashing (Kirsch-Mitzenmacher)
+     */
+    private static final class Stage {
+        private final AtomicLongArray bits;
+        private final long numBits;
+        private final int numHashes;
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final AtomicLong count = new AtomicLong();
+
+        Stage(long capacity, double falsePositiveRate) {
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.max(1, (optimalBits + 63) / 64);
+            this.bits = new AtomicLongArray(words);
+            this.numBits = words * 64L;
+            this.numHashes = Math.max(1, (int) Math.round((double) numBits / capacity * Math.log(2)));
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+        }
+
+        void put(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            boolean changed = false;
+            for (int i = 1; i <= numHashes; i++) {
+                long combined = (h1 + (long) i * h2) & Long.MAX_VALUE;
+                changed |= setBit(combined % numBits);
+            }
+            // Only inserts that set a new bit fill the stage
+            if (changed) {
+                count.incrementAndGet();
+            }
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= numHashes; i++) {
+                long combined = (h1 + (long) i * h2) & Long.MAX_VALUE;
+                long index = combined % numBits;
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns false if the bit was already set
+         */
+        private boolean setBit(long index) {
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    return false;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.urlshortener.common.util;
+
+import com.urlshortener.common.constants.AppConstants;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Keyed bijection on the IDs that encode to SHORT_CODE_LENGTH Base62 characters, so that
+ * sequentially allocated IDs turn into codes that look random and cannot be enumerated.
+ *
+ * A balanced Feistel network permutes the smallest even-width bit space covering the domain and
+ * cycle-walks (re-applies the network) until the result falls back inside the domain. Being a
+ * permutation, distinct IDs always give distinct codes, so no collision check is needed. The
+ * round keys are derived from a secret; changing it changes every mapping.
+ */
+public class ShortCodePermutation {
+
+    private static final int ROUNDS = 4;
+
+    private final long domainSize;
+    private final int halfBits;
+    private final long halfMask;
+    private final long[] roundKeys = new long[ROUNDS];
+
+    /**
+     * Permutation of 1..62^SHORT_CODE_LENGTH - 1, the IDs generateFromId encodes without growing the code
+     */
+    public ShortCodePermutation(String secret) {
+        this(secret, (long) Math.pow(AppConstants.BASE62_BASE, AppConstants.SHORT_CODE_LENGTH) - 1);
+    }
+
+    ShortCodePermutation(String secret, long domainSize) {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("Permutation secret must not be empty");
+        }
+        this.domainSize = domainSize;
+        int bits = 64 - Long.numberOfLeadingZeros(domainSize - 1);
+        this.halfBits = Math.max(1, (bits + 1) / 2);
+        this.halfMask = (1L << halfBits) - 1;
+
+        ByteBuffer digest = ByteBuffer.wrap(sha256(secret));
+        for (int i = 0; i < ROUNDS; i++) {
+            roundKeys[i] = digest.getLong();
+        }
+    }
+
+    /**
+     * Map an ID in 1..domainSize to another ID in the same range; IDs outside it are returned unchanged
+     */
+    public long permute(long id) {
+        if (id < 1 || id > domainSize) {
+            return id;
+        }
+        long value = id - 1;
+        do {
+            value = encrypt(value);
+        } while (value >= domainSize);
+        return value + 1;
+    }
+
+    private long encrypt(long value) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        for (long roundKey : roundKeys) {
+            long next = left ^ (round(right, roundKey) & halfMask);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    // SplitMix64 finalizer over the half block and round key
+    private static long round(long half, long roundKey) {
+        long z = half + roundKey;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static byte[] sha256(String secret) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
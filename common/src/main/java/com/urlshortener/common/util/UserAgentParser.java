@@ -1,5 +1,9 @@
 package com.urlshortener.common.util;
 
+import com.urlshortener.common.event.Browser;
+import com.urlshortener.common.event.DeviceType;
+import com.urlshortener.common.event.OperatingSystem;
+
 public class UserAgentParser {
     
     /**
@@ -7,17 +11,17 @@ public class UserAgentParser {
      */
     public static String getDeviceType(String userAgent) {
         if (userAgent == null) {
-            return "Unknown";
+            return DeviceType.UNKNOWN.getLabel();
         }
         
         String ua = userAgent.toLowerCase();
         
         if (ua.contains("mobile") || ua.contains("android") || ua.contains("iphone")) {
-            return "Mobile";
+            return DeviceType.MOBILE.getLabel();
         } else if (ua.contains("tablet") || ua.contains("ipad")) {
-            return "Tablet";
+            return DeviceType.TABLET.getLabel();
         } else {
-            return "Desktop";
+            return DeviceType.DESKTOP.getLabel();
         }
     }
     
@@ -26,23 +30,23 @@ public class UserAgentParser {
      */
     public static String getBrowser(String userAgent) {
         if (userAgent == null) {
-            return "Unknown";
+            return Browser.UNKNOWN.getLabel();
         }
         
         String ua = userAgent.toLowerCase();
         
         if (ua.contains("edg")) {
-            return "Edge";
+            return Browser.EDGE.getLabel();
         } else if (ua.contains("chrome")) {
-            return "Chrome";
+            return Browser.CHROME.getLabel();
         } else if (ua.contains("firefox")) {
-            return "Firefox";
+            return Browser.FIREFOX.getLabel();
         } else if (ua.contains("safari")) {
-            return "Safari";
+            return Browser.SAFARI.getLabel();
         } else if (ua.contains("opera") || ua.contains("opr")) {
-            return "Opera";
+            return Browser.OPERA.getLabel();
         } else {
-            return "Other";
+            return Browser.OTHER.getLabel();
         }
     }
     
@@ -51,23 +55,23 @@ public class UserAgentParser {
      */
     public static String getOperatingSystem(String userAgent) {
         if (userAgent == null) {
-            return "Unknown";
+            return OperatingSystem.UNKNOWN.getLabel();
         }
         
         String ua = userAgent.toLowerCase();
         
         if (ua.contains("windows")) {
-            return "Windows";
+            return OperatingSystem.WINDOWS.getLabel();
         } else if (ua.contains("mac")) {
-            return "macOS";
+            return OperatingSystem.MACOS.getLabel();
         } else if (ua.contains("linux")) {
-            return "Linux";
+            return OperatingSystem.LINUX.getLabel();
         } else if (ua.contains("android")) {
-            return "Android";
+            return OperatingSystem.ANDROID.getLabel();
         } else if (ua.contains("ios") || ua.contains("iphone") || ua.contains("ipad")) {
-            return "iOS";
+            return OperatingSystem.IOS.getLabel();
         } else {
-            return "Other";
+            return OperatingSystem.OTHER.getLabel();
         }
     }
 }
@@ -0,0 +1,106 @@
+package com.urlshortener.common.event.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.urlshortener.common.event.EventType;
+import com.urlshortener.common.event.UrlAccessedEvent;
+import com.urlshortener.common.util.EventIdGenerator;
+import com.urlshortener.common.util.UserAgentParser;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Bytes per event and ns per event of EventCodec against the JSON path it replaces
+ * (JsonSerializer on the producer, JsonDeserializer to a Map plus convertValue on the consumer).
+ * Not a unit test; run with
+ *
+ *   mvn -pl common test-compile
+ *   java -cp common/target/test-classes:common/target/classes:$(cat cp.txt) \
+ *        com.urlshortener.common.event.codec.EventCodecBenchmark 2000000
+ *
+ * where cp.txt comes from mvn -pl common dependency:build-classpath -Dmdep.outputFile=cp.txt.
+ * Each measurement runs after a warm-up pass of the same size.
+ */
+public class EventCodecBenchmark {
+
+    private static final int DISTINCT_EVENTS = 1024;
+
+    private static final String[] USER_AGENTS = {
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0 Safari/537.36",
+            "Mozilla/5.0 (iPhone; CPU iPhone OS 17_1 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Mobile/15E148",
+            "Mozilla/5.0 (X11; Linux x86_64; rv:121.0) Gecko/20100101 Firefox/121.0",
+    };
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+        UrlAccessedEvent[] events = new UrlAccessedEvent[DISTINCT_EVENTS];
+        byte[][] json = new byte[DISTINCT_EVENTS][];
+        byte[][] binary = new byte[DISTINCT_EVENTS][];
+        long jsonBytes = 0;
+        long binaryBytes = 0;
+        for (int i = 0; i < DISTINCT_EVENTS; i++) {
+            events[i] = event(i);
+            json[i] = mapper.writeValueAsBytes(events[i]);
+            binary[i] = EventCodec.encode(events[i]);
+            jsonBytes += json[i].length;
+            binaryBytes += binary[i].length;
+        }
+        System.out.printf("Events: %,d  (UrlAccessedEvent, %d distinct)%n", iterations, DISTINCT_EVENTS);
+        System.out.printf("Bytes/event: json=%.1f binary=%.1f (%.0f%%)%n",
+                jsonBytes / (double) DISTINCT_EVENTS, binaryBytes / (double) DISTINCT_EVENTS,
+                100.0 * binaryBytes / jsonBytes);
+
+        report("encode json", iterations, i -> mapper.writeValueAsBytes(events[i]).length);
+        report("encode binary", iterations, i -> EventCodec.encode(events[i]).length);
+        report("decode json (Map + convertValue)", iterations, i -> {
+            Map<?, ?> map = mapper.readValue(json[i], Map.class);
+            return mapper.convertValue(map, UrlAccessedEvent.class).getShortCode().length();
+        });
+        report("decode json (typed)", iterations,
+                i -> mapper.readValue(json[i], UrlAccessedEvent.class).getShortCode().length());
+        report("decode binary", iterations,
+                i -> ((UrlAccessedEvent) EventCodec.decode(binary[i])).getShortCode().length());
+    }
+
+    private static void report(String name, int iterations, Step step) throws Exception {
+        run(iterations, step);
+        long start = System.nanoTime();
+        long checksum = run(iterations, step);
+        long nanos = System.nanoTime() - start;
+        System.out.printf("%-34s %8.1f ns/event (checksum %d)%n", name, nanos / (double) iterations, checksum);
+    }
+
+    private static long run(int iterations, Step step) throws Exception {
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            checksum += step.apply(i & (DISTINCT_EVENTS - 1));
+        }
+        return checksum;
+    }
+
+    private static UrlAccessedEvent event(int i) {
+        String userAgent = USER_AGENTS[i % USER_AGENTS.length];
+        LocalDateTime now = LocalDateTime.now();
+        return UrlAccessedEvent.builder()
+                .eventId(EventIdGenerator.generate())
+                .timestamp(now)
+                .eventType(EventType.URL_ACCESSED.getValue())
+                .shortCode(String.format("%07d", i))
+                .accessedAt(now)
+                .ipAddress("203.0.113." + (i % 256))
+                .userAgent(userAgent)
+                .referer(i % 2 == 0 ? "https://news.example.com/story/" + i : null)
+                .deviceType(UserAgentParser.getDeviceType(userAgent))
+                .browser(UserAgentParser.getBrowser(userAgent))
+                .operatingSystem(UserAgentParser.getOperatingSystem(userAgent))
+                .build();
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        int apply(int index) throws Exception;
+    }
+}
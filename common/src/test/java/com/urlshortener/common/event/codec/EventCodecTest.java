@@ -0,0 +1,153 @@
+package com.urlshortener.common.event.codec;
+
+import com.urlshortener.common.event.BaseEvent;
+import com.urlshortener.common.event.EventType;
+import com.urlshortener.common.event.UrlAccessedEvent;
+import com.urlshortener.common.event.UrlClickRollupEvent;
+import com.urlshortener.common.event.UrlCreatedEvent;
+import com.urlshortener.common.event.UrlExpiredEvent;
+import com.urlshortener.common.util.HyperLogLog;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventCodecTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 30, 15, 250_000_000);
+
+    @Test
+    void accessedEvent_roundTripsWithEnumAndTextLabels() {
+        UrlAccessedEvent event = UrlAccessedEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .timestamp(NOW)
+                .eventType(EventType.URL_ACCESSED.getValue())
+                .shortCode("abc1234")
+                .accessedAt(NOW.minusSeconds(1))
+                .ipAddress("203.0.113.7")
+                .userAgent("Mozilla/5.0 (Windows NT 10.0) Chrome/120.0")
+                .deviceType("Desktop")
+                .browser("Chrome")
+                .operatingSystem("Plan 9")
+                .build();
+
+        byte[] encoded = EventCodec.encode(event);
+        BaseEvent decoded = EventCodec.decode(encoded);
+
+        assertEquals(event, decoded);
+        assertNull(((UrlAccessedEvent) decoded).getReferer());
+    }
+
+    @Test
+    void createdEvent_roundTripsNullFieldsAndNonUuidIds() {
+        UrlCreatedEvent event = UrlCreatedEvent.builder()
+                .eventId("import-42")
+                .timestamp(NOW)
+                .eventType(EventType.URL_CREATED.getValue())
+                .shortCode("abc1234")
+                .longUrl("https://example.com/é")
+                .userId(7L)
+                .createdAt(NOW)
+                .customAlias(false)
+                .build();
+
+        assertEquals(event, EventCodec.decode(EventCodec.encode(event)));
+    }
+
+    @Test
+    void rollupEvent_roundTripsCountsAndSketch() {
+        HyperLogLog visitors = new HyperLogLog();
+        visitors.add("203.0.113.7");
+        visitors.add("203.0.113.8");
+        UrlClickRollupEvent event = UrlClickRollupEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .timestamp(NOW)
+                .eventType(EventType.URL_CLICK_ROLLUP.getValue())
+                .shortCode("abc1234")
+                .windowStart(NOW.withSecond(0).withNano(0))
+                .firstAccessedAt(NOW.minusSeconds(10))
+                .lastAccessedAt(NOW)
+                .deviceType("Mobile")
+                .browser("Safari")
+                .operatingSystem("iOS")
+                .clickCount(42L)
+                .visitorSketch(visitors.toBytes())
+                .build();
+
+        UrlClickRollupEvent decoded = (UrlClickRollupEvent) EventCodec.decode(EventCodec.encode(event));
+
+        assertEquals(event, decoded);
+        assertEquals(2, HyperLogLog.fromBytes(decoded.getVisitorSketch()).cardinality());
+    }
+
+    @Test
+    void decode_skipsFieldsAddedByNewerWriters() {
+        UrlExpiredEvent event = UrlExpiredEvent.builder()
+                .eventType(EventType.URL_EXPIRED.getValue())
+                .shortCode("abc1234")
+                .expiredAt(NOW)
+                .build();
+        EventWriter extra = new EventWriter(16);
+        extra.writeString(99, "from the future");
+        extra.writeLong(100, 12345L);
+        extra.writeFixed64(101, -1L);
+        byte[] encoded = EventCodec.encode(event);
+        byte[] extraFields = extra.toByteArray();
+        byte[] withExtra = Arrays.copyOf(encoded, encoded.length + extraFields.length);
+        System.arraycopy(extraFields, 0, withExtra, encoded.length, extraFields.length);
+
+        assertEquals(event, EventCodec.decode(withExtra));
+    }
+
+    @Test
+    void timestamps_keepWallClockAcrossTimeZones() {
+        // Does not exist in New York: clocks jumped from 02:00 to 03:00
+        LocalDateTime inDstGap = LocalDateTime.of(2024, 3, 10, 2, 30);
+        UrlExpiredEvent event = UrlExpiredEvent.builder()
+                .timestamp(inDstGap)
+                .shortCode("abc1234")
+                .expiredAt(NOW)
+                .build();
+
+        TimeZone original = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+            byte[] encoded = EventCodec.encode(event);
+            TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+            BaseEvent decoded = EventCodec.decode(encoded);
+
+            assertEquals(inDstGap, decoded.getTimestamp());
+            assertEquals(NOW, ((UrlExpiredEvent) decoded).getExpiredAt());
+        } finally {
+            TimeZone.setDefault(original);
+        }
+    }
+
+    @Test
+    void decode_readsLegacyJson() {
+        String json = "{\"eventId\":\"e1\",\"timestamp\":\"2024-03-01T12:30:15\",\"eventType\":\"url.expired\"," +
+                "\"shortCode\":\"abc1234\",\"expiredAt\":\"2024-03-01T12:00:00\",\"unknown\":1}";
+
+        BaseEvent decoded = EventCodec.decode(json.getBytes(StandardCharsets.UTF_8));
+
+        UrlExpiredEvent expired = assertInstanceOf(UrlExpiredEvent.class, decoded);
+        assertEquals("abc1234", expired.getShortCode());
+        assertEquals(LocalDateTime.of(2024, 3, 1, 12, 0), expired.getExpiredAt());
+    }
+
+    @Test
+    void decode_rejectsTruncatedAndUnknownData() {
+        byte[] encoded = EventCodec.encode(UrlExpiredEvent.builder().shortCode("abc1234").build());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> EventCodec.decode(Arrays.copyOf(encoded, encoded.length - 2)));
+        assertThrows(IllegalArgumentException.class, () -> EventCodec.decode(new byte[] {1, 2, 3}));
+        assertThrows(IllegalArgumentException.class,
+                () -> EventCodec.decode(new byte[] {(byte) EventCodec.MAGIC, (byte) (EventCodec.VERSION + 1), 1}));
+    }
+}
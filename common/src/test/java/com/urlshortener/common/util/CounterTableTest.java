@@ -0,0 +1,59 @@
+package com.urlshortener.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CounterTableTest {
+
+    @Test
+    void row_keepsCountersPerKeyAndColumn() {
+        CounterTable<String> table = new CounterTable<>(2);
+
+        table.add(table.row("a"), 3);
+        table.add(table.row("a") + 1, 7);
+        table.add(table.row("b"), 1);
+        table.add(table.row("a"), 2);
+
+        assertEquals(2, table.size());
+        assertEquals(5, table.get(table.row("a")));
+        assertEquals(7, table.get(table.row("a") + 1));
+        assertEquals(1, table.get(table.row("b")));
+        assertEquals(0, table.get(table.row("b") + 1));
+    }
+
+    @Test
+    void growing_keepsEveryCounter() {
+        CounterTable<String> table = new CounterTable<>(3);
+
+        for (int i = 0; i < 10_000; i++) {
+            int row = table.row("code-" + (i % 2_500));
+            table.add(row, 1);
+            table.set(row + 2, i);
+        }
+
+        Map<String, Long> counts = new HashMap<>();
+        table.forEach((key, row) -> {
+            counts.put(key, table.get(row));
+            assertEquals(0, table.get(row + 1));
+        });
+        assertEquals(2_500, counts.size());
+        assertTrue(counts.values().stream().allMatch(count -> count == 4));
+        assertEquals(9_999, table.get(table.row("code-2499") + 2));
+    }
+
+    @Test
+    void clear_removesKeys() {
+        CounterTable<String> table = new CounterTable<>(1);
+        table.add(table.row("a"), 1);
+
+        table.clear();
+
+        assertTrue(table.isEmpty());
+        assertFalse(table.containsKey("a"));
+        assertEquals(0, table.get(table.row("a")));
+    }
+}
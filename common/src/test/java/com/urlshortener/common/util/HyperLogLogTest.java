@@ -0,0 +1,104 @@
+package com.urlshortener.common.util;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    @Test
+    void cardinality_withFewValues_isExact() {
+        HyperLogLog sketch = new HyperLogLog();
+
+        for (int i = 0; i < 100; i++) {
+            sketch.add("10.0.0." + (i % 20));
+        }
+
+        assertEquals(20, sketch.cardinality());
+    }
+
+    @Test
+    void cardinality_withManyValues_isWithinExpectedError() {
+        HyperLogLog sketch = new HyperLogLog();
+
+        for (int i = 0; i < 200_000; i++) {
+            sketch.add("visitor-" + i);
+        }
+
+        // Standard error at precision 12 is about 1.6%; allow three of them
+        assertEquals(200_000, sketch.cardinality(), 200_000 * 0.05);
+    }
+
+    @Test
+    void merge_equalsSketchOfUnion() {
+        HyperLogLog left = new HyperLogLog();
+        HyperLogLog right = new HyperLogLog();
+        HyperLogLog union = new HyperLogLog();
+
+        for (int i = 0; i < 50_000; i++) {
+            left.add("ip-" + i);
+            union.add("ip-" + i);
+        }
+        for (int i = 40_000; i < 90_000; i++) {
+            right.add("ip-" + i);
+            union.add("ip-" + i);
+        }
+        left.merge(right);
+
+        assertArrayEquals(union.toBytes(), left.toBytes());
+    }
+
+    @Test
+    void toBytes_roundTripsSparseAndDense() {
+        HyperLogLog small = new HyperLogLog();
+        small.add("203.0.113.7");
+        small.add("203.0.113.8");
+        HyperLogLog large = new HyperLogLog();
+        for (int i = 0; i < 10_000; i++) {
+            large.add("ip-" + i);
+        }
+
+        byte[] smallBytes = small.toBytes();
+        byte[] largeBytes = large.toBytes();
+
+        assertTrue(smallBytes.length < 16);
+        assertEquals(2 + 4096, largeBytes.length);
+        assertArrayEquals(smallBytes, HyperLogLog.fromBytes(smallBytes).toBytes());
+        assertArrayEquals(largeBytes, HyperLogLog.fromBytes(largeBytes).toBytes());
+        assertEquals(large.cardinality(), HyperLogLog.fromBytes(largeBytes).cardinality());
+    }
+
+    @Test
+    void cardinality_staysWithinThreeStandardErrorsAcrossSizes() {
+        // 1.04 / sqrt(4096) = 1.625% standard error at the default precision
+        double bound = 3 * 1.04 / Math.sqrt(1 << HyperLogLog.DEFAULT_PRECISION);
+        for (int size : new int[] {1_000, 10_000, 100_000, 1_000_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int i = 0; i < size; i++) {
+                sketch.add("198.51." + (i >>> 8) + "." + (i & 0xFF) + "#" + size);
+            }
+
+            double error = Math.abs(sketch.cardinality() - size) / (double) size;
+            assertTrue(error <= bound, "error " + error + " at " + size);
+        }
+    }
+
+    @Test
+    void merge_foldsHigherPrecisionIntoLower() {
+        HyperLogLog fine = new HyperLogLog(14);
+        HyperLogLog coarse = new HyperLogLog(12);
+        for (int i = 0; i < 30_000; i++) {
+            fine.add("ip-" + i);
+            coarse.add("ip-" + i);
+        }
+        HyperLogLog folded = new HyperLogLog(12);
+
+        folded.merge(fine);
+
+        assertArrayEquals(coarse.toBytes(), folded.toBytes());
+    }
+
+    @Test
+    void merge_withLowerPrecision_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(14).merge(new HyperLogLog(12)));
+    }
+}
@@ -0,0 +1,88 @@
+package com.urlshortener.common.util;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void mightContain_withAddedValues_returnsTrue() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.01);
+
+        for (int i = 0; i < 1000; i++) {
+            filter.put("code" + i);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("code" + i));
+        }
+    }
+
+    @Test
+    void mightContain_withEmptyFilter_returnsFalse() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.01);
+
+        assertFalse(filter.mightContain("abc123"));
+    }
+
+    @Test
+    void put_beyondExpectedInsertions_growsWithoutFalseNegatives() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+        long initialBytes = filter.sizeInBytes();
+
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(ShortCodeGenerator.generateFromId((long) i + 1));
+        }
+
+        assertTrue(filter.sizeInBytes() > initialBytes);
+        // Values that collide with earlier ones are not counted
+        assertEquals(10_000, filter.size(), 10_000 * 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(ShortCodeGenerator.generateFromId((long) i + 1)));
+        }
+    }
+
+    @Test
+    void put_withRepeatedValues_doesNotGrow() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+        long initialBytes = filter.sizeInBytes();
+
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 100; i++) {
+                filter.put("code" + i);
+            }
+        }
+
+        assertEquals(initialBytes, filter.sizeInBytes());
+        assertTrue(filter.size() <= 100);
+    }
+
+    @Test
+    void mightContain_afterGrowth_keepsFalsePositiveRateBounded() {
+        double targetRate = 0.01;
+        ScalableBloomFilter filter = new ScalableBloomFilter(1000, targetRate);
+
+        for (int i = 0; i < 20_000; i++) {
+            filter.put("issued-" + i);
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("missing-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Compound rate is bounded by 2 * (target / 2) = target
+        assertTrue((double) falsePositives / probes < targetRate,
+                "False positive rate too high: " + falsePositives + "/" + probes);
+    }
+
+    @Test
+    void constructor_withInvalidArguments_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(100, 1.5));
+    }
+}
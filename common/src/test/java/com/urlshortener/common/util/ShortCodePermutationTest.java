@@ -0,0 +1,50 @@
+package com.urlshortener.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShortCodePermutationTest {
+
+    @Test
+    void permute_isBijectionOnDomain() {
+        ShortCodePermutation permutation = new ShortCodePermutation("secret", 1000);
+
+        Set<Long> seen = new HashSet<>();
+        for (long id = 1; id <= 1000; id++) {
+            long permuted = permutation.permute(id);
+            assertTrue(permuted >= 1 && permuted <= 1000);
+            assertTrue(seen.add(permuted));
+        }
+    }
+
+    @Test
+    void permute_keepsCodesAtShortCodeLength() {
+        ShortCodePermutation permutation = new ShortCodePermutation("secret");
+
+        Set<String> codes = new HashSet<>();
+        for (long id = 1; id <= 10_000; id++) {
+            String code = ShortCodeGenerator.generateFromId(permutation.permute(id));
+            assertEquals(7, code.length());
+            assertTrue(codes.add(code));
+        }
+    }
+
+    @Test
+    void permute_dependsOnSecret() {
+        ShortCodePermutation first = new ShortCodePermutation("first");
+        ShortCodePermutation second = new ShortCodePermutation("second");
+
+        assertEquals(first.permute(42), new ShortCodePermutation("first").permute(42));
+        assertNotEquals(first.permute(42), second.permute(42));
+        assertNotEquals(43, first.permute(43));
+    }
+
+    @Test
+    void constructor_withEmptySecret_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new ShortCodePermutation(""));
+    }
+}
@@ -33,17 +33,55 @@ CREATE TABLE IF NOT EXISTS urls (
 CREATE INDEX IF NOT EXISTS idx_urls_user_id ON urls(user_id);
 CREATE INDEX IF NOT EXISTS idx_urls_short_code ON urls(short_code);
 CREATE INDEX IF NOT EXISTS idx_urls_created_at ON urls(created_at DESC);
-CREATE INDEX IF NOT EXISTS idx_urls_expires_at ON urls(expires_at) WHERE expires_at IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_urls_expires_at ON urls(expires_at) WHERE expires_at IS NOT NULL AND is_active = TRUE;
+-- Keyset pagination of a user's active URLs, newest first (UrlRepository.findUserUrls*)
+CREATE INDEX IF NOT EXISTS idx_urls_user_created ON urls(user_id, created_at DESC, id DESC) WHERE is_active = TRUE;
 CREATE INDEX IF NOT EXISTS idx_users_username ON users(username);
 CREATE INDEX IF NOT EXISTS idx_users_email ON users(email);
 
+-- Short code IDs, leased by url-service in blocks of INCREMENT BY (see ShortCodeAllocator)
+CREATE SEQUENCE IF NOT EXISTS short_code_seq INCREMENT BY 1000;
+
+-- Per-user URL counters, kept in step with urls by url-service (see UserQuotaService).
+-- tier selects the limit from user-quota.tiers; NULL means user-quota.default-tier.
+CREATE TABLE IF NOT EXISTS user_quota (
+    user_id BIGINT PRIMARY KEY,
+    url_count BIGINT NOT NULL DEFAULT 0,
+    tier VARCHAR(50),
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_user_quota_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Progress of bulk imports of existing short codes, one row per import name (see UrlImporter)
+CREATE TABLE IF NOT EXISTS url_import_checkpoints (
+    name VARCHAR(255) PRIMARY KEY,
+    lines_read BIGINT NOT NULL DEFAULT 0,
+    imported BIGINT NOT NULL DEFAULT 0,
+    duplicates BIGINT NOT NULL DEFAULT 0,
+    invalid BIGINT NOT NULL DEFAULT 0,
+    completed BOOLEAN NOT NULL DEFAULT FALSE,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Transactional outbox: URL lifecycle events written with the change they describe and
+-- relayed to Kafka in id order by url-service (see UrlOutboxRelay)
+CREATE TABLE IF NOT EXISTS url_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    topic VARCHAR(100) NOT NULL,
+    event_key VARCHAR(50) NOT NULL,
+    payload BYTEA NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
 -- ============================================
 -- ANALYTICS SERVICE SCHEMA
 -- ============================================
 
--- Raw click events table
+-- Raw click events table, range partitioned on clicked_at. analytics-service creates the
+-- partitions ahead of time and drops them once past retention (see UrlClickPartitionManager);
+-- the default partition only catches clicks outside the created ranges.
 CREATE TABLE IF NOT EXISTS url_clicks (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGSERIAL,
     short_code VARCHAR(10) NOT NULL,
     clicked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     ip_address VARCHAR(45),
@@ -53,8 +91,12 @@ CREATE TABLE IF NOT EXISTS url_clicks (
     city VARCHAR(100),
     device_type VARCHAR(50),
     browser VARCHAR(50),
-    operating_system VARCHAR(50)
-);
+    operating_system VARCHAR(50),
+    -- A partitioned table's primary key must include the partition key
+    PRIMARY KEY (id, clicked_at)
+) PARTITION BY RANGE (clicked_at);
+
+CREATE TABLE IF NOT EXISTS url_clicks_default PARTITION OF url_clicks DEFAULT;
 
 -- Aggregated analytics table
 CREATE TABLE IF NOT EXISTS url_analytics (
@@ -62,6 +104,8 @@ CREATE TABLE IF NOT EXISTS url_analytics (
     short_code VARCHAR(10) UNIQUE NOT NULL,
     total_clicks BIGINT NOT NULL DEFAULT 0,
     unique_ips BIGINT NOT NULL DEFAULT 0,
+    -- HyperLogLog sketch of visitor IPs; unique_ips is its estimate
+    ip_sketch BYTEA,
     last_clicked_at TIMESTAMP,
     first_clicked_at TIMESTAMP,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
@@ -75,6 +119,8 @@ CREATE TABLE IF NOT EXISTS url_daily_analytics (
     date DATE NOT NULL,
     click_count BIGINT NOT NULL DEFAULT 0,
     unique_ips BIGINT NOT NULL DEFAULT 0,
+    -- Mergeable: the union of a date range's sketches counts its unique visitors
+    ip_sketch BYTEA,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     UNIQUE(short_code, date)
 );
@@ -91,10 +137,24 @@ CREATE TABLE IF NOT EXISTS url_geo_analytics (
     UNIQUE(short_code, country, city)
 );
 
+-- Next offset of each url-access-events partition, stored in the same transaction as the
+-- aggregates flushed up to it (see ClickAggregationEngine)
+CREATE TABLE IF NOT EXISTS analytics_consumer_offsets (
+    id BIGSERIAL PRIMARY KEY,
+    consumer_group VARCHAR(255) NOT NULL,
+    topic VARCHAR(255) NOT NULL,
+    partition_id INT NOT NULL,
+    next_offset BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE(consumer_group, topic, partition_id)
+);
+
 -- Indexes for Analytics Service
-CREATE INDEX IF NOT EXISTS idx_url_clicks_short_code ON url_clicks(short_code);
-CREATE INDEX IF NOT EXISTS idx_url_clicks_clicked_at ON url_clicks(clicked_at DESC);
-CREATE INDEX IF NOT EXISTS idx_url_clicks_ip_address ON url_clicks(ip_address);
+-- Recent clicks of a short code (UrlClickRepository), within the partitions of the time range
+CREATE INDEX IF NOT EXISTS idx_url_clicks_short_code_clicked_at ON url_clicks(short_code, clicked_at DESC);
+-- Clicks are appended in roughly clicked_at order, so a BRIN index covers time range scans
+-- for a few pages per partition
+CREATE INDEX IF NOT EXISTS idx_url_clicks_clicked_at ON url_clicks USING BRIN (clicked_at);
 CREATE INDEX IF NOT EXISTS idx_url_analytics_short_code ON url_analytics(short_code);
 CREATE INDEX IF NOT EXISTS idx_url_daily_analytics_short_code_date ON url_daily_analytics(short_code, date DESC);
 CREATE INDEX IF NOT EXISTS idx_url_geo_analytics_short_code ON url_geo_analytics(short_code);
@@ -1,5 +1,5 @@
 import apiClient from './client';
-import type { Url, ShortenUrlRequest, ShortenUrlResponse } from '../types';
+import type { Url, UrlPage, ShortenUrlRequest, ShortenUrlResponse } from '../types';
 
 export const urlsApi = {
   shorten: async (data: ShortenUrlRequest): Promise<ShortenUrlResponse> => {
@@ -12,9 +12,15 @@ export const urlsApi = {
     return response.data;
   },
 
-  getUserUrls: async (userId: number): Promise<Url[]> => {
-    const response = await apiClient.get<Url[]>(`/api/urls/user/${userId}`);
-    return response.data;
+  // Newest first; pass nextCursor back to get the following page
+  getUserUrls: async (userId: number, cursor?: string): Promise<UrlPage> => {
+    const response = await apiClient.get<Url[]>(`/api/urls/user/${userId}`, {
+      params: cursor ? { cursor } : undefined,
+    });
+    return {
+      urls: response.data,
+      nextCursor: (response.headers['x-next-cursor'] as string | undefined) ?? null,
+    };
   },
 
   deleteUrl: async (shortCode: string): Promise<void> => {
@@ -7,7 +7,9 @@ import '../styles/Dashboard.css';
 
 const Dashboard = () => {
   const [urls, setUrls] = useState<Url[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [error, setError] = useState('');
   const [copied, setCopied] = useState<string | null>(null);
   const user = useAuthStore((state) => state.user);
@@ -17,8 +19,9 @@ const Dashboard = () => {
       if (!user) return;
 
       try {
-        const data = await urlsApi.getUserUrls(user.id);
-        setUrls(data);
+        const page = await urlsApi.getUserUrls(user.id);
+        setUrls(page.urls);
+        setNextCursor(page.nextCursor);
       } catch (err: any) {
         setError(err.response?.data?.message || 'Failed to fetch URLs');
       } finally {
@@ -28,11 +31,15 @@ const Dashboard = () => {
 
     fetchUrls();
 
-    // Poll for updates every 5 seconds to show real-time click counts
+    // Poll the first page every 5 seconds to show real-time click counts,
+    // keeping any further pages already loaded
     const interval = setInterval(() => {
       if (user) {
         urlsApi.getUserUrls(user.id)
-          .then((data) => setUrls(data))
+          .then((page) => {
+            const refreshed = new Set(page.urls.map((url) => url.id));
+            setUrls((current) => [...page.urls, ...current.filter((url) => !refreshed.has(url.id))]);
+          })
           .catch(() => {}); // Silently fail on polling errors
       }
     }, 5000);
@@ -40,6 +47,22 @@ const Dashboard = () => {
     return () => clearInterval(interval);
   }, [user]);
 
+  const handleLoadMore = async () => {
+    if (!user || !nextCursor) return;
+
+    setLoadingMore(true);
+    try {
+      const page = await urlsApi.getUserUrls(user.id, nextCursor);
+      const loaded = new Set(urls.map((url) => url.id));
+      setUrls([...urls, ...page.urls.filter((url) => !loaded.has(url.id))]);
+      setNextCursor(page.nextCursor);
+    } catch (err: any) {
+      setError(err.response?.data?.message || 'Failed to fetch URLs');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const handleDelete = async (shortCode: string) => {
     if (!window.confirm('Are you sure you want to delete this URL?')) {
       return;
@@ -134,6 +157,14 @@ const Dashboard = () => {
           ))}
         </div>
       )}
+
+      {nextCursor && (
+        <div className="load-more">
+          <button onClick={handleLoadMore} className="btn btn-secondary" disabled={loadingMore}>
+            {loadingMore ? 'Loading...' : 'Load more'}
+          </button>
+        </div>
+      )}
     </div>
   );
 };
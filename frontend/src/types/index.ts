@@ -34,6 +34,11 @@ export interface Url {
   customAlias: string | null;
 }
 
+export interface UrlPage {
+  urls: Url[];
+  nextCursor: string | null;
+}
+
 export interface ShortenUrlRequest {
   longUrl: string;
   customAlias?: string;
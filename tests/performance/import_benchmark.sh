@@ -0,0 +1,103 @@
+#!/bin/bash
+
+##############################################################################
+# URL Shortener - Bulk Import Benchmark
+#
+# Generates NUM_ROWS synthetic short code mappings as CSV and imports them
+# into Postgres with the url-service bulk importer (COPY into a staging table,
+# then INSERT ... ON CONFLICT DO NOTHING), reporting rows per second.
+#
+# Needs the url-service jar (mvn -pl common,url-service -am package -DskipTests)
+# and the local Postgres from docker-compose. Imported rows are owned by
+# IMPORT_USER_ID, which must exist, and are deleted again afterwards.
+##############################################################################
+
+set -e
+
+# Colors for output
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+RED='\033[0;31m'
+NC='\033[0m' # No Color
+
+# Configuration
+NUM_ROWS="${NUM_ROWS:-1000000}"
+CHUNK_SIZE="${CHUNK_SIZE:-50000}"
+IMPORT_USER_ID="${IMPORT_USER_ID:-1}"
+DB_URL="${DB_URL:-jdbc:postgresql://localhost:5432/urlshortener}"
+PSQL="${PSQL:-docker-compose exec -T postgres psql -U urluser -d urlshortener -tA}"
+JAR="${JAR:-url-service/target/url-service-1.0.0-SNAPSHOT.jar}"
+WORK_DIR="${WORK_DIR:-/tmp/url-import-benchmark}"
+
+echo -e "${GREEN}========================================${NC}"
+echo -e "${GREEN}URL Shortener - Bulk Import Benchmark${NC}"
+echo -e "${GREEN}========================================${NC}"
+echo ""
+
+if [ ! -f "$JAR" ]; then
+    echo -e "${RED}Error: $JAR not found, build url-service first${NC}"
+    exit 1
+fi
+
+if ! $PSQL -c "SELECT 1" > /dev/null 2>&1; then
+    echo -e "${RED}Error: Postgres is not reachable (PSQL=$PSQL)${NC}"
+    exit 1
+fi
+
+mkdir -p "$WORK_DIR"
+FILE="$WORK_DIR/import-$NUM_ROWS.csv"
+NAME="benchmark-$(date +%s)"
+
+echo "Configuration:"
+echo "  Rows:       $NUM_ROWS"
+echo "  Chunk size: $CHUNK_SIZE"
+echo "  File:       $FILE"
+echo ""
+
+# 10-character ZZZ-prefixed codes cannot clash with generated (7-character) ones, so cleanup
+# only touches imported rows
+echo "Generating $NUM_ROWS rows..."
+awk -v n="$NUM_ROWS" '
+    BEGIN {
+        chars = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789"
+        print "short_code,long_url,user_id,created_at,expires_at,click_count"
+        for (i = 1; i <= n; i++) {
+            code = ""
+            x = i
+            for (j = 0; j < 7; j++) { code = substr(chars, x % 62 + 1, 1) code; x = int(x / 62) }
+            printf "ZZZ%s,https://www.example.com/articles/%d/some-typical-slug?utm_source=newsletter,,2024-01-15 10:30:00,,%d\n", code, i, i % 1000
+        }
+    }' > "$FILE"
+echo "  $(du -h "$FILE" | cut -f1) written"
+echo ""
+
+echo "Importing..."
+START=$(date +%s.%N)
+java -jar "$JAR" \
+    --spring.main.web-application-type=none \
+    --spring.datasource.url="$DB_URL" \
+    --url-cache.warmup.enabled=false \
+    --url-import.file="$FILE" \
+    --url-import.name="$NAME" \
+    --url-import.chunk-size="$CHUNK_SIZE" \
+    --url-import.user-id="$IMPORT_USER_ID" \
+    --logging.level.com.urlshortener.url=INFO \
+    --logging.level.org.hibernate.SQL=INFO > "$WORK_DIR/import.log" 2>&1 || {
+        echo -e "${RED}Import failed, see $WORK_DIR/import.log${NC}"
+        exit 1
+    }
+END=$(date +%s.%N)
+
+IMPORTED=$($PSQL -c "SELECT imported FROM url_import_checkpoints WHERE name = '$NAME'")
+SECONDS_TAKEN=$(echo "$END - $START" | bc)
+
+echo ""
+echo -e "${GREEN}Results${NC}"
+echo "  Imported:      $IMPORTED rows"
+echo "  Wall time:     ${SECONDS_TAKEN}s (including application startup)"
+echo "  Throughput:    $(echo "$IMPORTED / $SECONDS_TAKEN" | bc) rows/s"
+echo -e "  ${YELLOW}Per-chunk rates:${NC} grep 'lines/s' $WORK_DIR/import.log"
+
+$PSQL -c "DELETE FROM urls WHERE short_code LIKE 'ZZZ%'" > /dev/null
+$PSQL -c "DELETE FROM url_import_checkpoints WHERE name = '$NAME'" > /dev/null
+rm -f "$FILE"
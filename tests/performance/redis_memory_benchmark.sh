@@ -0,0 +1,110 @@
+#!/bin/bash
+
+##############################################################################
+# URL Shortener - Redis Cache Memory Benchmark
+#
+# Compares Redis memory per cached URL for the two url-cache.redis.layout
+# options: one string key per short code ("string") and short codes grouped
+# into hash buckets ("hash", see HashBucketUrlCacheStore).
+#
+# Uses a scratch database (REDIS_DB, default 15) and flushes it between runs.
+##############################################################################
+
+set -e
+
+# Colors for output
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+RED='\033[0;31m'
+NC='\033[0m' # No Color
+
+# Configuration
+REDIS_HOST="${REDIS_HOST:-localhost}"
+REDIS_PORT="${REDIS_PORT:-6379}"
+REDIS_DB="${REDIS_DB:-15}"
+NUM_URLS="${NUM_URLS:-1000000}"
+HASH_BUCKETS="${HASH_BUCKETS:-65536}"
+TTL_SECONDS=86400
+
+echo -e "${GREEN}========================================${NC}"
+echo -e "${GREEN}URL Shortener - Redis Memory Benchmark${NC}"
+echo -e "${GREEN}========================================${NC}"
+echo ""
+
+# Prerequisites check
+if ! command -v redis-cli &> /dev/null; then
+    echo -e "${RED}Error: redis-cli is required${NC}"
+    exit 1
+fi
+
+redis() {
+    redis-cli -h "$REDIS_HOST" -p "$REDIS_PORT" -n "$REDIS_DB" "$@"
+}
+
+if ! redis PING > /dev/null 2>&1; then
+    echo -e "${RED}Error: Redis is not reachable at $REDIS_HOST:$REDIS_PORT${NC}"
+    exit 1
+fi
+
+echo "Configuration:"
+echo "  Redis:        $REDIS_HOST:$REDIS_PORT (db $REDIS_DB)"
+echo "  URLs:         $NUM_URLS"
+echo "  Hash buckets: $HASH_BUCKETS"
+echo "  hash-max-listpack-entries: $(redis CONFIG GET hash-max-listpack-entries | tail -1)"
+echo "  hash-max-listpack-value:   $(redis CONFIG GET hash-max-listpack-value | tail -1)"
+echo ""
+
+used_memory() {
+    redis INFO memory | awk -F: '/^used_memory:/ { gsub(/\r/, "", $2); print $2 }'
+}
+
+# Emit one Redis command per URL in the given layout, using the same value
+# encoding as the application (expiry prefix + CachedUrl encoding)
+generate() {
+    awk -v layout="$1" -v n="$NUM_URLS" -v buckets="$HASH_BUCKETS" -v ttl="$TTL_SECONDS" '
+        BEGIN {
+            chars = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ"
+            for (i = 1; i <= n; i++) {
+                code = ""
+                x = i * 7919 + 100000000
+                for (j = 0; j < 7; j++) { code = substr(chars, x % 62 + 1, 1) code; x = int(x / 62) }
+                url = "https://www.example.com/articles/" i "/some-typical-slug?utm_source=newsletter"
+                if (layout == "string") {
+                    printf "SET url:%s \"+|%s\" EX %d\n", code, url, ttl
+                } else {
+                    bucket = i % buckets
+                    printf "HSET url:b:%d %s \"m1a2b3c4d:+|%s\"\n", bucket, code, url
+                    if (i <= buckets) printf "EXPIRE url:b:%d %d\n", bucket, ttl * 2
+                }
+            }
+        }'
+}
+
+run_layout() {
+    local layout=$1
+    redis FLUSHDB > /dev/null
+    local before=$(used_memory)
+    local start=$(date +%s)
+    generate "$layout" | redis --pipe > /dev/null
+    local end=$(date +%s)
+    local after=$(used_memory)
+    local bytes=$((after - before))
+    echo "$bytes"
+    echo -e "  ${YELLOW}$layout${NC}: $((bytes / 1024 / 1024)) MB total, $((bytes / NUM_URLS)) bytes/URL, $((end - start))s to load" >&2
+}
+
+echo "Loading $NUM_URLS URLs per layout..."
+STRING_BYTES=$(run_layout string)
+HASH_BYTES=$(run_layout hash)
+redis FLUSHDB > /dev/null
+
+echo ""
+echo -e "${GREEN}Results${NC}"
+echo "  string layout: $((STRING_BYTES / NUM_URLS)) bytes/URL"
+echo "  hash layout:   $((HASH_BYTES / NUM_URLS)) bytes/URL"
+if [ "$STRING_BYTES" -gt 0 ]; then
+    echo "  hash / string: $((HASH_BYTES * 100 / STRING_BYTES))%"
+fi
+echo ""
+echo "Buckets are only compact while every field stays in listpack encoding; check with"
+echo "  redis-cli OBJECT ENCODING url:b:0"
@@ -5,6 +5,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = {
     "com.urlshortener.url",
@@ -13,6 +14,7 @@ import org.springframework.kafka.annotation.EnableKafka;
 @EnableJpaAuditing
 @EnableCaching
 @EnableKafka
+@EnableScheduling
 public class UrlServiceApplication {
 
     public static void main(String[] args) {
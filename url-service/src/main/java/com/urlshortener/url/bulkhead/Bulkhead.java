@@ -0,0 +1,82 @@
+package com.urlshortener.url.bulkhead;
+
+import com.urlshortener.url.exception.BulkheadFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Concurrency limit for calls to one downstream resource.
+ *
+ * With virtual threads the number of threads no longer bounds how many requests hit
+ * Postgres, Redis or Kafka at once, so each resource gets an explicit semaphore instead.
+ * Callers wait up to the acquire timeout for a permit and then fail fast with
+ * BulkheadFullException rather than queueing without bound.
+ *
+ * Metrics: bulkhead.available (free permits) and bulkhead.rejected, tagged by name.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+    private final Counter rejectedCounter;
+
+    public Bulkhead(String name, int maxConcurrent, Duration acquireTimeout, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+
+        Gauge.builder("bulkhead.available", permits, Semaphore::availablePermits)
+                .description("Free permits for calls to a downstream resource")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("bulkhead.rejected")
+                .description("Calls rejected because no permit became free in time")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run an action holding a permit
+     */
+    public <T> T call(Supplier<T> action) {
+        acquire();
+        try {
+            return action.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Run an action holding a permit
+     */
+    public void run(Runnable action) {
+        acquire();
+        try {
+            action.run();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void acquire() {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BulkheadFullException("Interrupted waiting for " + name + " bulkhead");
+        }
+        if (!acquired) {
+            rejectedCounter.increment();
+            throw new BulkheadFullException(name + " bulkhead is full");
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.urlshortener.url.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A Redis cache hit: the entry plus how long it has left, for early-refresh decisions
+ */
+@Getter
+@AllArgsConstructor
+public class CacheLookup {
+    private final CachedUrl entry;
+    // Remaining TTL in milliseconds, or -1 if unknown
+    private final long ttlMillis;
+}
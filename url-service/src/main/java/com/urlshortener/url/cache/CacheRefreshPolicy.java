@@ -0,0 +1,73 @@
+package com.urlshortener.url.cache;
+
+import com.urlshortener.common.constants.CacheConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * TTLs, TTL jitter and probabilistic early refresh for Redis URL entries.
+ *
+ * Jitter spreads the expiry of entries written together (e.g. after a deploy) so they do not
+ * all miss at the same instant. Early refresh follows the XFetch rule from "Optimal
+ * Probabilistic Cache Stampede Prevention" (Vattani et al.): a read refreshes the entry in
+ * the background when  -delta * beta * ln(U) >= remaining TTL,  U uniform in (0, 1].
+ * The chance of refreshing rises as expiry approaches and every read is a separate draw,
+ * so hot keys are almost certainly refreshed before they expire while cold keys rarely are.
+ */
+@Component
+public class CacheRefreshPolicy {
+
+    private final double ttlJitter;
+    private final long earlyRefreshDeltaMillis;
+    private final double earlyRefreshBeta;
+
+    public CacheRefreshPolicy(
+            @Value("${url-cache.redis.ttl-jitter:0.1}") double ttlJitter,
+            @Value("${url-cache.redis.early-refresh-delta:30s}") Duration earlyRefreshDelta,
+            @Value("${url-cache.redis.early-refresh-beta:1.0}") double earlyRefreshBeta) {
+        this.ttlJitter = ttlJitter;
+        this.earlyRefreshDeltaMillis = earlyRefreshDelta.toMillis();
+        this.earlyRefreshBeta = earlyRefreshBeta;
+    }
+
+    /**
+     * Redis TTL for an active entry: the (jittered) default TTL, capped at the link's own expiry.
+     * Links without an expiry are cached for the longer non-expiring TTL.
+     */
+    public long redisTtlSeconds(CachedUrl entry) {
+        if (!entry.hasExpiry()) {
+            return jitteredTtlSeconds(CacheConfig.NON_EXPIRING_URL_CACHE_TTL_SECONDS);
+        }
+        return Math.min(
+            jitteredTtlSeconds(CacheConfig.URL_CACHE_TTL_SECONDS),
+            entry.secondsUntilExpiry(Instant.now())
+        );
+    }
+
+    /**
+     * Base TTL scaled by a random factor in [1 - jitter, 1 + jitter]
+     */
+    public long jitteredTtlSeconds(long baseTtlSeconds) {
+        if (ttlJitter <= 0) {
+            return baseTtlSeconds;
+        }
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-ttlJitter, ttlJitter);
+        return Math.max(1, Math.round(baseTtlSeconds * factor));
+    }
+
+    /**
+     * Whether a read that saw this remaining TTL should trigger a background refresh
+     */
+    public boolean shouldRefreshEarly(long remainingTtlMillis) {
+        if (earlyRefreshDeltaMillis <= 0 || remainingTtlMillis < 0) {
+            // Refresh disabled, or key has no TTL / does not exist
+            return false;
+        }
+        double u = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return -earlyRefreshDeltaMillis * earlyRefreshBeta * Math.log(u) >= remainingTtlMillis;
+    }
+}
@@ -0,0 +1,30 @@
+package com.urlshortener.url.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the startup cache warm-up as "cacheWarmup" in /actuator/health.
+ * Included in the readiness group, so the pod receives traffic only once UrlCacheWarmer is ready.
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheWarmupHealthIndicator implements HealthIndicator {
+
+    private final UrlCacheWarmer warmer;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = warmer.isReady() ? Health.up() : Health.outOfService();
+        return builder
+                .withDetail("finished", warmer.isFinished())
+                .withDetail("warmed", warmer.getWarmed())
+                .withDetail("target", warmer.getTarget())
+                .withDetail("coverage", Math.round(warmer.coverage() * 1000) / 1000.0)
+                .withDetail("minCoverage", warmer.getMinCoverage())
+                .withDetail("durationMs", warmer.getDurationMillis())
+                .build();
+    }
+}
@@ -0,0 +1,129 @@
+package com.urlshortener.url.cache;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Cached state of a short code: the long URL plus its expiry, or a tombstone.
+ *
+ * Stored in Redis in a compact text form so a cache hit alone decides whether to redirect:
+ * <pre>
+ *   +&lt;expiresAt epoch seconds, base 36&gt;|&lt;long URL&gt;   active link (expiry empty if none)
+ *   -N                                          unknown or deleted code
+ *   -E                                          expired link
+ * </pre>
+ * Values written before this format (a bare long URL) decode as active with no expiry.
+ * Prefixes cannot clash with a stored URL, which always starts with http(s).
+ */
+public final class CachedUrl {
+
+    public enum State { ACTIVE, NOT_FOUND, EXPIRED }
+
+    private static final char ACTIVE_PREFIX = '+';
+    private static final char TOMBSTONE_PREFIX = '-';
+    private static final char SEPARATOR = '|';
+    // Short-lived "!404" / "!410" negative entries from the previous format
+    private static final char LEGACY_MARKER_PREFIX = '!';
+    private static final long NO_EXPIRY = 0;
+
+    private static final CachedUrl NOT_FOUND = new CachedUrl(State.NOT_FOUND, null, NO_EXPIRY);
+    private static final CachedUrl EXPIRED = new CachedUrl(State.EXPIRED, null, NO_EXPIRY);
+
+    private final State state;
+    private final String longUrl;
+    private final long expiresAtEpochSecond;
+
+    private CachedUrl(State state, String longUrl, long expiresAtEpochSecond) {
+        this.state = state;
+        this.longUrl = longUrl;
+        this.expiresAtEpochSecond = expiresAtEpochSecond;
+    }
+
+    public static CachedUrl active(String longUrl, LocalDateTime expiresAt) {
+        long expiry = expiresAt == null
+                ? NO_EXPIRY
+                : expiresAt.atZone(ZoneId.systemDefault()).toEpochSecond();
+        return new CachedUrl(State.ACTIVE, longUrl, expiry);
+    }
+
+    public static CachedUrl notFound() {
+        return NOT_FOUND;
+    }
+
+    public static CachedUrl expired() {
+        return EXPIRED;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getLongUrl() {
+        return longUrl;
+    }
+
+    public boolean isActive() {
+        return state == State.ACTIVE;
+    }
+
+    public boolean hasExpiry() {
+        return expiresAtEpochSecond != NO_EXPIRY;
+    }
+
+    /**
+     * Whether an active link's expiry has passed at the given instant
+     */
+    public boolean isExpiredAt(Instant now) {
+        return hasExpiry() && now.getEpochSecond() >= expiresAtEpochSecond;
+    }
+
+    /**
+     * Seconds from now until the link expires (Long.MAX_VALUE if it never does, 0 if already expired)
+     */
+    public long secondsUntilExpiry(Instant now) {
+        if (!hasExpiry()) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, expiresAtEpochSecond - now.getEpochSecond());
+    }
+
+    public String encode() {
+        switch (state) {
+            case NOT_FOUND:
+                return TOMBSTONE_PREFIX + "N";
+            case EXPIRED:
+                return TOMBSTONE_PREFIX + "E";
+            default:
+                String expiry = hasExpiry() ? Long.toString(expiresAtEpochSecond, Character.MAX_RADIX) : "";
+                return ACTIVE_PREFIX + expiry + SEPARATOR + longUrl;
+        }
+    }
+
+    /**
+     * Decode a Redis value, or null if there is none
+     */
+    public static CachedUrl decode(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        char prefix = value.charAt(0);
+        if (prefix == TOMBSTONE_PREFIX) {
+            return value.length() > 1 && value.charAt(1) == 'E' ? EXPIRED : NOT_FOUND;
+        }
+        if (prefix == LEGACY_MARKER_PREFIX) {
+            return value.equals("!410") ? EXPIRED : NOT_FOUND;
+        }
+        if (prefix == ACTIVE_PREFIX) {
+            int separator = value.indexOf(SEPARATOR);
+            if (separator > 0) {
+                long expiry = separator == 1
+                        ? NO_EXPIRY
+                        : Long.parseLong(value.substring(1, separator), Character.MAX_RADIX);
+                return new CachedUrl(State.ACTIVE, value.substring(separator + 1), expiry);
+            }
+        }
+        // Legacy entry holding just the long URL
+        return new CachedUrl(State.ACTIVE, value, NO_EXPIRY);
+    }
+}
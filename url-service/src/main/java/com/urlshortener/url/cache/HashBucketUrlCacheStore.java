@@ -0,0 +1,125 @@
+package com.urlshortener.url.cache;
+
+import com.urlshortener.common.constants.CacheConfig;
+import com.urlshortener.common.constants.RedisKeys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Short codes grouped into Redis hashes (url:b:&lt;bucket&gt;, field = short code).
+ *
+ * Small hashes are stored as a single listpack, so an entry costs roughly its field and
+ * value bytes instead of a full top-level key with its own dict and expire entries. Redis
+ * only keeps that encoding while a hash has at most hash-max-listpack-entries fields, each
+ * at most hash-max-listpack-value bytes. Size hash-buckets to about (cached entries / 100)
+ * and raise hash-max-listpack-value above typical URL length (the Redis configs in this
+ * repo use 512).
+ *
+ * Hash fields cannot expire on their own, so each value is prefixed with its own deadline
+ * ("&lt;epoch millis, base 36&gt;:&lt;CachedUrl&gt;") and a read past the deadline is a miss. The bucket
+ * key itself expires BUCKET_TTL_SECONDS after its last write, which outlives any entry, so
+ * entries that are never read again are reclaimed along with their bucket.
+ */
+@Component
+@ConditionalOnProperty(name = "url-cache.redis.layout", havingValue = "hash")
+@Slf4j
+public class HashBucketUrlCacheStore implements UrlCacheStore {
+
+    // Longer than any (jittered) entry TTL
+    private static final long BUCKET_TTL_SECONDS = 2 * CacheConfig.NON_EXPIRING_URL_CACHE_TTL_SECONDS;
+    private static final char DEADLINE_SEPARATOR = ':';
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final int buckets;
+
+    public HashBucketUrlCacheStore(
+            RedisTemplate<String, String> redisTemplate,
+            @Value("${url-cache.redis.hash-buckets:65536}") int buckets) {
+        this.redisTemplate = redisTemplate;
+        this.buckets = buckets;
+        log.info("URL cache using hash-bucket layout with {} buckets", buckets);
+    }
+
+    @Override
+    public CacheLookup get(String shortCode) {
+        Object value = redisTemplate.opsForHash().get(bucketKey(shortCode), shortCode);
+        if (value == null) {
+            return null;
+        }
+        String stored = (String) value;
+        int separator = stored.indexOf(DEADLINE_SEPARATOR);
+        if (separator <= 0) {
+            return null;
+        }
+        long deadlineMillis = Long.parseLong(stored.substring(0, separator), Character.MAX_RADIX);
+        long ttlMillis = deadlineMillis - System.currentTimeMillis();
+        if (ttlMillis <= 0) {
+            // Logically expired; the next put overwrites it
+            return null;
+        }
+        return new CacheLookup(CachedUrl.decode(stored.substring(separator + 1)), ttlMillis);
+    }
+
+    @Override
+    public void put(String shortCode, CachedUrl entry, long ttlSeconds) {
+        byte[] key = bucketKey(shortCode).getBytes(StandardCharsets.UTF_8);
+        byte[] field = shortCode.getBytes(StandardCharsets.UTF_8);
+        byte[] value = encode(entry, ttlSeconds).getBytes(StandardCharsets.UTF_8);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.hashCommands().hSet(key, field, value);
+            connection.keyCommands().expire(key, BUCKET_TTL_SECONDS);
+            return null;
+        });
+    }
+
+    @Override
+    public void putAll(Map<String, CachedUrl> entries, ToLongFunction<CachedUrl> ttlSeconds) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            Set<String> touchedBuckets = new HashSet<>();
+            for (Map.Entry<String, CachedUrl> entry : entries.entrySet()) {
+                long ttl = ttlSeconds.applyAsLong(entry.getValue());
+                if (ttl <= 0) {
+                    continue;
+                }
+                String key = bucketKey(entry.getKey());
+                connection.hashCommands().hSet(
+                        key.getBytes(StandardCharsets.UTF_8),
+                        entry.getKey().getBytes(StandardCharsets.UTF_8),
+                        encode(entry.getValue(), ttl).getBytes(StandardCharsets.UTF_8));
+                touchedBuckets.add(key);
+            }
+            for (String key : touchedBuckets) {
+                connection.keyCommands().expire(key.getBytes(StandardCharsets.UTF_8), BUCKET_TTL_SECONDS);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(String shortCode) {
+        redisTemplate.opsForHash().delete(bucketKey(shortCode), shortCode);
+    }
+
+    private String bucketKey(String shortCode) {
+        int hash = shortCode.hashCode();
+        // Spread the high bits into the low ones before taking the modulus
+        hash ^= hash >>> 16;
+        return RedisKeys.urlBucketKey(Math.floorMod(hash, buckets));
+    }
+
+    private static String encode(CachedUrl entry, long ttlSeconds) {
+        long deadlineMillis = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds);
+        return Long.toString(deadlineMillis, Character.MAX_RADIX) + DEADLINE_SEPARATOR + entry.encode();
+    }
+}
@@ -0,0 +1,119 @@
+package com.urlshortener.url.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process (L1) cache of short code -> active CachedUrl, sitting in front of Redis.
+ *
+ * Backed by Caffeine, whose eviction policy is W-TinyLFU: a small admission window plus a
+ * frequency sketch, so a burst of one-off codes cannot push viral codes out of the cache.
+ * The cache is bounded by an estimate of retained heap bytes rather than by entry count.
+ * Each entry lives for expire-after-write or until its link expires, whichever comes first.
+ *
+ * Hit/miss/eviction counters are registered with Micrometer under the "url.local" cache name
+ * and are visible through /actuator/metrics/cache.gets, cache.evictions, cache.size.
+ */
+@Component
+@Slf4j
+public class LocalUrlCache {
+
+    static final String CACHE_NAME = "url.local";
+
+    // Rough per-entry overhead: two String headers + backing arrays + CachedUrl + Caffeine node
+    private static final int ENTRY_OVERHEAD_BYTES = 168;
+
+    private final boolean enabled;
+    private final Cache<String, CachedUrl> cache;
+
+    public LocalUrlCache(
+            MeterRegistry meterRegistry,
+            @Value("${url-cache.local.enabled:true}") boolean enabled,
+            @Value("${url-cache.local.max-size-bytes:67108864}") long maxSizeBytes,
+            @Value("${url-cache.local.expire-after-write:5m}") Duration expireAfterWrite) {
+
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSizeBytes)
+                .weigher((String shortCode, CachedUrl cachedUrl) -> estimateBytes(shortCode, cachedUrl))
+                .expireAfter(new LifetimeExpiry(expireAfterWrite))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        log.info("Local URL cache enabled={} (maxSizeBytes={}, expireAfterWrite={})",
+                enabled, maxSizeBytes, expireAfterWrite);
+    }
+
+    /**
+     * Get the cached entry for a short code, or null if not cached locally
+     */
+    public CachedUrl get(String shortCode) {
+        if (!enabled) {
+            return null;
+        }
+        return cache.getIfPresent(shortCode);
+    }
+
+    /**
+     * Cache an active entry for a short code
+     */
+    public void put(String shortCode, CachedUrl cachedUrl) {
+        if (!enabled) {
+            return;
+        }
+        cache.put(shortCode, cachedUrl);
+    }
+
+    /**
+     * Drop a short code from this instance only.
+     * Use UrlCacheInvalidationBus to invalidate on every url-service instance.
+     */
+    public void invalidate(String shortCode) {
+        cache.invalidate(shortCode);
+    }
+
+    private static int estimateBytes(String shortCode, CachedUrl cachedUrl) {
+        return ENTRY_OVERHEAD_BYTES + shortCode.length() + cachedUrl.getLongUrl().length();
+    }
+
+    /**
+     * Expire-after-write, capped by the link's own expiry
+     */
+    private static final class LifetimeExpiry implements Expiry<String, CachedUrl> {
+        private final long expireAfterWriteNanos;
+
+        LifetimeExpiry(Duration expireAfterWrite) {
+            this.expireAfterWriteNanos = expireAfterWrite.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String shortCode, CachedUrl cachedUrl, long currentTime) {
+            long untilExpiry = cachedUrl.secondsUntilExpiry(Instant.now());
+            if (untilExpiry < TimeUnit.NANOSECONDS.toSeconds(expireAfterWriteNanos)) {
+                return TimeUnit.SECONDS.toNanos(untilExpiry);
+            }
+            return expireAfterWriteNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String shortCode, CachedUrl cachedUrl, long currentTime, long currentDuration) {
+            return expireAfterCreate(shortCode, cachedUrl, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String shortCode, CachedUrl cachedUrl, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.urlshortener.url.cache;
+
+import com.urlshortener.common.constants.RedisKeys;
+import com.urlshortener.common.util.ScalableBloomFilter;
+import com.urlshortener.url.repository.ShortCodeView;
+import com.urlshortener.url.repository.UrlRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Membership filter over all issued short codes, consulted before any cache or DB lookup
+ * so that scanner and typo traffic for nonexistent codes never reaches the database.
+ *
+ * The filter is rebuilt from the urls table at startup and periodically afterwards, and new
+ * codes are added by shortenUrl on the issuing instance and broadcast to the others over
+ * RedisKeys.URL_CREATED_CHANNEL. Codes written without going through shortenUrl (bulk imports)
+ * reach the filters through a rebuild requested on RedisKeys.URL_FILTER_REBUILD_CHANNEL.
+ * Until the first build completes the filter answers "might contain" for everything,
+ * so a cold instance falls back to the normal lookup path.
+ *
+ * Pub/sub drops messages for instances that are disconnected, so codes issued within two rebuild
+ * intervals are also kept in RedisKeys.URL_FILTER_RECENT_CODES and the time of the latest rebuild
+ * request in RedisKeys.URL_FILTER_REBUILD_REQUESTED_AT. Every sync-interval the filter pulls both
+ * from Redis. Negatives are answered in-process: they are trusted unless a rebuild requested
+ * since this instance's last one is outstanding, or the last successful sync is more than
+ * STALE_SYNCS intervals old, in which case lookups fall back to the normal path rather than risk
+ * a 404 for an existing code.
+ */
+@Component
+@Slf4j
+public class ShortCodeFilter implements MessageListener {
+
+    private static final int REBUILD_PAGE_SIZE = 10_000;
+    private static final int STALE_SYNCS = 3;
+    // Recent codes are scored with the issuing instance's clock; re-read this far back to absorb skew
+    private static final long SYNC_OVERLAP_MILLIS = 60_000;
+
+    private static final byte[] CREATED_CHANNEL = bytes(RedisKeys.URL_CREATED_CHANNEL);
+    private static final byte[] RECENT_CODES = bytes(RedisKeys.URL_FILTER_RECENT_CODES);
+
+    private final UrlRepository urlRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final Duration rebuildInterval;
+    private final long staleSyncMillis;
+
+    // Rebuilds scan the whole table; keep them off the shared scheduler and listener threads
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("short-code-filter-rebuild").daemon().factory());
+    // Requests arriving while a rebuild runs coalesce into one follow-up rebuild
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+
+    private volatile ScalableBloomFilter filter;
+    private volatile ScalableBloomFilter rebuilding;
+    // When the scan behind the current filter, and the latest scan, started (epoch millis)
+    private volatile long builtFrom;
+    private volatile long rebuildStartedAt;
+    // Latest rebuild request heard of over pub/sub or the sync (epoch millis)
+    private volatile long rebuildRequestedAt;
+    // When the last successful sync started (epoch millis)
+    private volatile long syncedAt;
+
+    public ShortCodeFilter(
+            UrlRepository urlRepository,
+            RedisTemplate<String, String> redisTemplate,
+            @Value("${url-filter.expected-insertions:1000000}") long expectedInsertions,
+            @Value("${url-filter.false-positive-rate:0.001}") double falsePositiveRate,
+            @Value("${url-filter.rebuild-interval:PT6H}") Duration rebuildInterval,
+            @Value("${url-filter.sync-interval:PT5S}") Duration syncInterval) {
+        this.urlRepository = urlRepository;
+        this.redisTemplate = redisTemplate;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildInterval = rebuildInterval;
+        this.staleSyncMillis = STALE_SYNCS * syncInterval.toMillis();
+    }
+
+    /**
+     * Returns false only if the code was definitely never issued. Never touches Redis.
+     */
+    public boolean mightContain(String shortCode) {
+        ScalableBloomFilter current = filter;
+        if (current == null || current.mightContain(shortCode)) {
+            return true;
+        }
+        // The code may have been imported since our last rebuild, or issued during a Redis outage
+        return rebuildRequestedAt >= builtFrom || System.currentTimeMillis() - syncedAt > staleSyncMillis;
+    }
+
+    /**
+     * Record a newly issued code here and on every other instance
+     */
+    public void add(String shortCode) {
+        addAll(List.of(shortCode));
+    }
+
+    /**
+     * Record many newly issued codes, recording and broadcasting them in one pipelined round trip
+     */
+    public void addAll(Collection<String> shortCodes) {
+        shortCodes.forEach(this::addLocal);
+        double now = System.currentTimeMillis();
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String shortCode : shortCodes) {
+                    byte[] code = bytes(shortCode);
+                    connection.zSetCommands().zAdd(RECENT_CODES, now, code);
+                    connection.publish(CREATED_CHANNEL, code);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            // The next rebuild on the other instances will pick the codes up
+            log.error("Failed to broadcast {} new short codes", shortCodes.size(), e);
+        }
+    }
+
+    /**
+     * Ask every instance, this one included, to rebuild its filter from the urls table
+     */
+    public void requestRebuild() {
+        String requestedAt = String.valueOf(System.currentTimeMillis());
+        try {
+            // Recorded first, so instances that miss the message pick it up at their next sync
+            redisTemplate.opsForValue().set(RedisKeys.URL_FILTER_REBUILD_REQUESTED_AT, requestedAt);
+            redisTemplate.convertAndSend(RedisKeys.URL_FILTER_REBUILD_CHANNEL, requestedAt);
+        } catch (Exception e) {
+            // Instances pick the codes up at their next scheduled rebuild
+            log.error("Failed to request short code filter rebuild", e);
+        }
+    }
+
+    /**
+     * New code issued by another instance, or a rebuild request
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (RedisKeys.URL_FILTER_REBUILD_CHANNEL.equals(channel)) {
+            rebuildRequested(body.isEmpty() ? System.currentTimeMillis() : Long.parseLong(body));
+            return;
+        }
+        // Our own broadcasts come back too; adding a code twice leaves the filter unchanged
+        addLocal(body);
+    }
+
+    /**
+     * Pull the codes issued and the rebuilds requested since the last sync from Redis, in case
+     * their pub/sub messages were missed
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${url-filter.sync-interval:PT5S}")
+    public void sync() {
+        long startTime = System.currentTimeMillis();
+        long since = syncedAt == 0 ? 0 : syncedAt - SYNC_OVERLAP_MILLIS;
+        try {
+            Set<String> codes = redisTemplate.opsForZSet().rangeByScore(
+                    RedisKeys.URL_FILTER_RECENT_CODES, since, Double.POSITIVE_INFINITY);
+            if (codes != null) {
+                codes.forEach(this::addLocal);
+            }
+            String requestedAt = redisTemplate.opsForValue().get(RedisKeys.URL_FILTER_REBUILD_REQUESTED_AT);
+            if (requestedAt != null) {
+                rebuildRequested(Long.parseLong(requestedAt));
+            }
+            syncedAt = startTime;
+        } catch (Exception e) {
+            log.warn("Failed to sync short code filter with Redis", e);
+        }
+    }
+
+    /**
+     * Rebuild the filter at startup and then periodically, to shed deleted codes and recover
+     * missed broadcasts. Returns at once; the rebuild runs on the rebuild thread.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${url-filter.rebuild-interval:PT6H}")
+    public void scheduleRebuild() {
+        if (!rebuildRequested.getAndSet(true)) {
+            rebuildExecutor.execute(this::runRequestedRebuilds);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Rebuild the filter on the calling thread. If a rebuild is already running this returns at
+     * once, and that rebuild runs once more when it finishes.
+     */
+    public void rebuild() {
+        rebuildRequested.set(true);
+        runRequestedRebuilds();
+    }
+
+    private void runRequestedRebuilds() {
+        // Re-checked after unlocking, so a request made while the lock was held is not lost
+        while (rebuildRequested.get() && rebuildLock.tryLock()) {
+            try {
+                if (rebuildRequested.getAndSet(false)) {
+                    rebuildFromTable();
+                }
+            } finally {
+                rebuildLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Rebuild the filter from all codes that still resolve (to a URL or to 410 Gone)
+     */
+    private void rebuildFromTable() {
+        long startTime = System.currentTimeMillis();
+        rebuildStartedAt = startTime;
+        ScalableBloomFilter next = new ScalableBloomFilter(expectedInsertions, falsePositiveRate);
+        // Codes issued while we scan go into both filters
+        rebuilding = next;
+
+        try {
+            long lastId = 0;
+            List<ShortCodeView> page;
+            do {
+                page = urlRepository.findResolvableShortCodesAfter(lastId, PageRequest.ofSize(REBUILD_PAGE_SIZE));
+                for (ShortCodeView view : page) {
+                    next.put(view.getShortCode());
+                    lastId = view.getId();
+                }
+            } while (page.size() == REBUILD_PAGE_SIZE);
+
+            builtFrom = startTime;
+            filter = next;
+            log.info("Short code filter rebuilt with {} codes ({} KB) in {}ms",
+                    next.size(), next.sizeInBytes() / 1024, System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            log.error("Failed to rebuild short code filter, keeping previous filter", e);
+        } finally {
+            rebuilding = null;
+        }
+        trimRecentCodes(startTime);
+    }
+
+    /**
+     * Record a rebuild request, and start a rebuild unless one started after it was made
+     */
+    private void rebuildRequested(long requestedAt) {
+        if (requestedAt <= rebuildRequestedAt) {
+            return;
+        }
+        rebuildRequestedAt = requestedAt;
+        if (requestedAt >= rebuildStartedAt) {
+            scheduleRebuild();
+        }
+    }
+
+    /**
+     * Forget recent codes that every instance's filter has had a full rebuild interval to pick up
+     */
+    private void trimRecentCodes(long now) {
+        try {
+            redisTemplate.opsForZSet().removeRangeByScore(RedisKeys.URL_FILTER_RECENT_CODES,
+                    0, now - 2 * rebuildInterval.toMillis());
+        } catch (Exception e) {
+            log.error("Failed to trim recently issued short codes", e);
+        }
+    }
+
+    private void addLocal(String shortCode) {
+        ScalableBloomFilter current = filter;
+        if (current != null) {
+            current.put(shortCode);
+        }
+        ScalableBloomFilter next = rebuilding;
+        if (next != null) {
+            next.put(shortCode);
+        }
+        // A rebuild may have swapped its filter in and cleared rebuilding between the two reads
+        ScalableBloomFilter latest = filter;
+        if (latest != current && latest != null) {
+            latest.put(shortCode);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,79 @@
+package com.urlshortener.url.cache;
+
+import com.urlshortener.common.constants.RedisKeys;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * One Redis string per short code (url:&lt;code&gt;), expired by Redis itself.
+ * Simple and exact, but every key carries its own dict entry, key object and expire entry.
+ */
+@Component
+@ConditionalOnProperty(name = "url-cache.redis.layout", havingValue = "string", matchIfMissing = true)
+@RequiredArgsConstructor
+public class StringUrlCacheStore implements UrlCacheStore {
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    @Override
+    public CacheLookup get(String shortCode) {
+        // Value and remaining TTL in one round trip
+        byte[] key = RedisKeys.urlCacheKey(shortCode).getBytes(StandardCharsets.UTF_8);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.stringCommands().get(key);
+            connection.keyCommands().pTtl(key);
+            return null;
+        });
+
+        CachedUrl entry = CachedUrl.decode((String) results.get(0));
+        if (entry == null) {
+            return null;
+        }
+        Long ttlMillis = (Long) results.get(1);
+        return new CacheLookup(entry, ttlMillis != null ? ttlMillis : -1);
+    }
+
+    @Override
+    public void put(String shortCode, CachedUrl entry, long ttlSeconds) {
+        redisTemplate.opsForValue().set(
+            RedisKeys.urlCacheKey(shortCode),
+            entry.encode(),
+            ttlSeconds,
+            TimeUnit.SECONDS
+        );
+    }
+
+    @Override
+    public void putAll(Map<String, CachedUrl> entries, ToLongFunction<CachedUrl> ttlSeconds) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<String, CachedUrl> entry : entries.entrySet()) {
+                long ttl = ttlSeconds.applyAsLong(entry.getValue());
+                if (ttl <= 0) {
+                    continue;
+                }
+                connection.stringCommands().set(
+                        RedisKeys.urlCacheKey(entry.getKey()).getBytes(StandardCharsets.UTF_8),
+                        entry.getValue().encode().getBytes(StandardCharsets.UTF_8),
+                        Expiration.seconds(ttl),
+                        RedisStringCommands.SetOption.upsert());
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(String shortCode) {
+        redisTemplate.delete(RedisKeys.urlCacheKey(shortCode));
+    }
+}
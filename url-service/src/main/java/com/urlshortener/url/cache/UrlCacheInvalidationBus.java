@@ -0,0 +1,69 @@
+package com.urlshortener.url.cache;
+
+import com.urlshortener.common.constants.RedisKeys;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * Broadcasts local cache invalidations to every url-service instance over Redis pub/sub.
+ *
+ * Each instance subscribes to RedisKeys.URL_INVALIDATION_CHANNEL (see RedisConfig) and drops
+ * the received short code from its LocalUrlCache. Pub/sub is fire-and-forget, so the local
+ * cache's expire-after-write still bounds staleness if an instance misses a message.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UrlCacheInvalidationBus implements MessageListener {
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final LocalUrlCache localUrlCache;
+
+    /**
+     * Invalidate a short code locally and on all other instances
+     */
+    public void invalidate(String shortCode) {
+        localUrlCache.invalidate(shortCode);
+        try {
+            redisTemplate.convertAndSend(RedisKeys.URL_INVALIDATION_CHANNEL, shortCode);
+        } catch (Exception e) {
+            log.error("Failed to broadcast cache invalidation for {}", shortCode, e);
+        }
+    }
+
+    /**
+     * Invalidate many short codes locally and broadcast them in one pipelined round trip
+     */
+    public void invalidateAll(Collection<String> shortCodes) {
+        shortCodes.forEach(localUrlCache::invalidate);
+        byte[] channel = RedisKeys.URL_INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8);
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String shortCode : shortCodes) {
+                    connection.publish(channel, shortCode.getBytes(StandardCharsets.UTF_8));
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Failed to broadcast cache invalidation for {} codes", shortCodes.size(), e);
+        }
+    }
+
+    /**
+     * Invalidation received from another instance (or echoed back from this one)
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String shortCode = new String(message.getBody(), StandardCharsets.UTF_8);
+        localUrlCache.invalidate(shortCode);
+        log.debug("Invalidated local cache entry: {}", shortCode);
+    }
+}
@@ -0,0 +1,32 @@
+package com.urlshortener.url.cache;
+
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Redis layout for cached URL entries, selected by url-cache.redis.layout:
+ * "string" (one key per short code, StringUrlCacheStore) or
+ * "hash" (codes grouped into hash buckets, HashBucketUrlCacheStore).
+ */
+public interface UrlCacheStore {
+
+    /**
+     * Cached entry for a short code, or null on a miss
+     */
+    CacheLookup get(String shortCode);
+
+    /**
+     * Cache an entry for ttlSeconds
+     */
+    void put(String shortCode, CachedUrl entry, long ttlSeconds);
+
+    /**
+     * Cache many entries in one pipelined round trip; entries with a TTL <= 0 are skipped
+     */
+    void putAll(Map<String, CachedUrl> entries, ToLongFunction<CachedUrl> ttlSeconds);
+
+    /**
+     * Remove a short code from the cache
+     */
+    void delete(String shortCode);
+}
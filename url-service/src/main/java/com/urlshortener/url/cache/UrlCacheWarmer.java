@@ -0,0 +1,170 @@
+package com.urlshortener.url.cache;
+
+import com.urlshortener.url.repository.TopUrlView;
+import com.urlshortener.url.repository.UrlRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the most-clicked URLs into the local cache and Redis when the instance starts,
+ * so a new pod does not take full redirect traffic with cold caches.
+ *
+ * Runs in the background once the application is up. CacheWarmupHealthIndicator keeps the
+ * readiness probe out of service until min-coverage of the hottest top-n codes is cached in
+ * both tiers, or until warm-up finishes or runs past max-duration, so a Redis or DB problem
+ * delays readiness but never blocks it. Redis writes are pipelined, batch-size per round trip.
+ *
+ * Metrics: url.cache.warmup.coverage and url.cache.warmup.duration.
+ */
+@Component
+@Slf4j
+public class UrlCacheWarmer {
+
+    private final UrlRepository urlRepository;
+    private final UrlCacheStore urlCacheStore;
+    private final LocalUrlCache localUrlCache;
+    private final CacheRefreshPolicy cacheRefreshPolicy;
+    private final Timer durationTimer;
+
+    private final boolean enabled;
+    private final int topN;
+    private final int batchSize;
+    private final double minCoverage;
+    private final Duration maxDuration;
+
+    private volatile int target;
+    private volatile int warmed;
+    private volatile boolean finished;
+    private volatile long durationMillis;
+
+    public UrlCacheWarmer(
+            UrlRepository urlRepository,
+            UrlCacheStore urlCacheStore,
+            LocalUrlCache localUrlCache,
+            CacheRefreshPolicy cacheRefreshPolicy,
+            MeterRegistry meterRegistry,
+            @Value("${url-cache.warmup.enabled:true}") boolean enabled,
+            @Value("${url-cache.warmup.top-n:10000}") int topN,
+            @Value("${url-cache.warmup.batch-size:500}") int batchSize,
+            @Value("${url-cache.warmup.min-coverage:0.9}") double minCoverage,
+            @Value("${url-cache.warmup.max-duration:30s}") Duration maxDuration) {
+        this.urlRepository = urlRepository;
+        this.urlCacheStore = urlCacheStore;
+        this.localUrlCache = localUrlCache;
+        this.cacheRefreshPolicy = cacheRefreshPolicy;
+        this.enabled = enabled;
+        this.topN = topN;
+        this.batchSize = batchSize;
+        this.minCoverage = minCoverage;
+        this.maxDuration = maxDuration;
+        this.finished = !enabled;
+
+        Gauge.builder("url.cache.warmup.coverage", this, UrlCacheWarmer::coverage)
+                .description("Fraction of the hottest URLs loaded into the caches at startup")
+                .register(meterRegistry);
+        this.durationTimer = Timer.builder("url.cache.warmup.duration")
+                .description("Time taken by the startup cache warm-up")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Thread.ofPlatform().name("cache-warmup").daemon().start(this::warmUp);
+    }
+
+    /**
+     * Whether enough of the hot set is cached (or warm-up is over) to take traffic
+     */
+    public boolean isReady() {
+        return finished || coverage() >= minCoverage;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public int getTarget() {
+        return target;
+    }
+
+    public int getWarmed() {
+        return warmed;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public double getMinCoverage() {
+        return minCoverage;
+    }
+
+    /**
+     * Fraction of the target loaded so far (1.0 when there is nothing to load)
+     */
+    public double coverage() {
+        int currentTarget = target;
+        return currentTarget == 0 ? (finished ? 1.0 : 0.0) : (double) warmed / currentTarget;
+    }
+
+    private void warmUp() {
+        long startTime = System.currentTimeMillis();
+        long deadline = startTime + maxDuration.toMillis();
+        try {
+            List<TopUrlView> topUrls = urlRepository.findTopUrls(LocalDateTime.now(), PageRequest.ofSize(topN));
+            target = topUrls.size();
+
+            for (int from = 0; from < topUrls.size(); from += batchSize) {
+                if (System.currentTimeMillis() > deadline) {
+                    log.warn("Cache warm-up stopped after {}: {}/{} URLs loaded", maxDuration, warmed, target);
+                    break;
+                }
+                List<TopUrlView> batch = topUrls.subList(from, Math.min(from + batchSize, topUrls.size()));
+                try {
+                    writeBatch(batch);
+                    warmed += batch.size();
+                } catch (Exception e) {
+                    log.error("Failed to warm cache batch of {} URLs", batch.size(), e);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Cache warm-up failed, continuing with cold caches", e);
+        } finally {
+            durationMillis = System.currentTimeMillis() - startTime;
+            durationTimer.record(durationMillis, TimeUnit.MILLISECONDS);
+            finished = true;
+            log.info("Cache warm-up finished in {}ms: {}/{} URLs ({}% coverage)",
+                    durationMillis, warmed, target, Math.round(coverage() * 100));
+        }
+    }
+
+    /**
+     * Write one batch to Redis (one pipelined round trip in either layout), then to the local cache
+     */
+    private void writeBatch(List<TopUrlView> batch) {
+        Map<String, CachedUrl> entries = new LinkedHashMap<>();
+        for (TopUrlView url : batch) {
+            entries.put(url.getShortCode(), CachedUrl.active(url.getLongUrl(), url.getExpiresAt()));
+        }
+
+        urlCacheStore.putAll(entries, cacheRefreshPolicy::redisTtlSeconds);
+        entries.forEach(localUrlCache::put);
+    }
+}
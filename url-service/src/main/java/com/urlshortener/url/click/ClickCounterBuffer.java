@@ -0,0 +1,95 @@
+package com.urlshortener.url.click;
+
+import com.urlshortener.url.repository.UrlBulkRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind click counters for urls.click_count.
+ *
+ * Clicks are merged into a ConcurrentHashMap keyed by short code (merge locks only the
+ * entry's hash bin, so unrelated codes never contend) and flushed on a fixed interval as one
+ * multi-row UPDATE. A flush takes each entry out with remove(), which is atomic with respect
+ * to merge: an increment lands either in the removed value or in a fresh entry for the next
+ * flush, never in between. A failed flush (including a deadlock abort) merges its deltas
+ * back, so they are retried on the next interval. The counters are flushed once more on
+ * shutdown.
+ */
+@Component
+@Slf4j
+public class ClickCounterBuffer {
+
+    private final UrlBulkRepository urlBulkRepository;
+    private final ConcurrentHashMap<String, Long> pending = new ConcurrentHashMap<>();
+    // Scheduled and shutdown flushes must not interleave
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public ClickCounterBuffer(UrlBulkRepository urlBulkRepository, MeterRegistry meterRegistry) {
+        this.urlBulkRepository = urlBulkRepository;
+        Gauge.builder("click.counter.pending", pending, Map::size)
+                .description("Short codes with click counts not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record clicks for a short code
+     */
+    public void add(String shortCode, long clicks) {
+        pending.merge(shortCode, clicks, Long::sum);
+    }
+
+    /**
+     * Clicks counted on this instance but not yet flushed
+     */
+    public long pendingClicks(String shortCode) {
+        return pending.getOrDefault(shortCode, 0L);
+    }
+
+    @Scheduled(fixedDelayString = "${click-counter.flush-interval:PT5S}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            // Sorted for a deterministic statement; a deadlock with another instance's flush
+            // is retried like any other failure
+            Map<String, Long> deltas = new TreeMap<>();
+            for (String shortCode : pending.keySet()) {
+                Long clicks = pending.remove(shortCode);
+                if (clicks != null) {
+                    deltas.put(shortCode, clicks);
+                }
+            }
+
+            try {
+                int updated = urlBulkRepository.addClickCounts(deltas);
+                log.debug("Flushed click counts for {} short codes ({} rows updated)", deltas.size(), updated);
+            } catch (Exception e) {
+                log.error("Failed to flush click counts for {} short codes, will retry", deltas.size(), e);
+                deltas.forEach(this::add);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (!pending.isEmpty()) {
+            log.warn("Click counts for {} short codes were not flushed before shutdown", pending.size());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.urlshortener.url.click;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One redirect to be tracked, as captured on the request thread
+ */
+@Getter
+@AllArgsConstructor
+public class ClickEvent {
+    private final String shortCode;
+    private final String ipAddress;
+    private final String userAgent;
+    private final String referer;
+    // Wall-clock time of the redirect (epoch millis)
+    private final long accessedAtMillis;
+    // System.nanoTime() when the click entered the pipeline, for lag measurement
+    private final long enqueuedNanos;
+}
@@ -0,0 +1,204 @@
+package com.urlshortener.url.click;
+
+import com.urlshortener.url.service.AsyncClickTrackerService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Click ingest pipeline between the redirect path and click tracking.
+ *
+ * Redirect threads offer clicks into a pre-allocated lock-free ring buffer and return
+ * immediately; a full buffer is handled by the configured OverflowPolicy, never by blocking
+ * or throwing on the request thread. A fixed set of consumer threads drain the buffer in
+ * batches and hand each batch to AsyncClickTrackerService.
+ *
+ * Metrics: click.pipeline.depth (queued clicks), click.pipeline.dropped,
+ * click.pipeline.spilled, click.pipeline.spill.bytes and click.pipeline.lag
+ * (time from redirect to consumption).
+ */
+@Component
+@Slf4j
+public class ClickPipeline {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int DROP_OLDEST_ATTEMPTS = 3;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000;
+
+    private final AsyncClickTrackerService clickTracker;
+    private final ClickRingBuffer ringBuffer;
+    private final ClickSpillFile spillFile;
+    private final OverflowPolicy overflowPolicy;
+    private final int consumerCount;
+    private final int batchSize;
+    private final boolean virtualThreads;
+
+    private final Counter droppedCounter;
+    private final Counter spilledCounter;
+    private final Timer lagTimer;
+
+    private final List<Thread> consumers = new ArrayList<>();
+    private volatile boolean running;
+
+    public ClickPipeline(
+            AsyncClickTrackerService clickTracker,
+            MeterRegistry meterRegistry,
+            @Value("${click-pipeline.capacity:65536}") int capacity,
+            @Value("${click-pipeline.consumers:2}") int consumerCount,
+            @Value("${click-pipeline.batch-size:500}") int batchSize,
+            @Value("${click-pipeline.overflow-policy:DROP_OLDEST}") OverflowPolicy overflowPolicy,
+            @Value("${click-pipeline.spill-file:${java.io.tmpdir}/url-service/clicks.spill}") Path spillPath,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads)
+            throws IOException {
+
+        this.clickTracker = clickTracker;
+        this.ringBuffer = new ClickRingBuffer(capacity);
+        this.spillFile = overflowPolicy == OverflowPolicy.SPILL_TO_DISK ? new ClickSpillFile(spillPath) : null;
+        this.overflowPolicy = overflowPolicy;
+        this.consumerCount = consumerCount;
+        this.batchSize = batchSize;
+        this.virtualThreads = virtualThreads;
+
+        Gauge.builder("click.pipeline.depth", ringBuffer, ClickRingBuffer::size)
+                .description("Clicks queued in the ring buffer")
+                .register(meterRegistry);
+        if (spillFile != null) {
+            Gauge.builder("click.pipeline.spill.bytes", spillFile, ClickSpillFile::pendingBytes)
+                    .description("Spilled clicks waiting to be replayed")
+                    .register(meterRegistry);
+        }
+        this.droppedCounter = Counter.builder("click.pipeline.dropped")
+                .description("Clicks discarded because the ring buffer was full")
+                .tag("policy", overflowPolicy.name())
+                .register(meterRegistry);
+        this.spilledCounter = Counter.builder("click.pipeline.spilled")
+                .description("Clicks written to the spill file because the ring buffer was full")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("click.pipeline.lag")
+                .description("Time from redirect until a consumer picks the click up")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        Thread.Builder threads = virtualThreads
+                ? Thread.ofVirtual().name("click-consumer-", 0)
+                : Thread.ofPlatform().name("click-consumer-", 0);
+        for (int i = 0; i < consumerCount; i++) {
+            consumers.add(threads.start(this::consume));
+        }
+        log.info("Click pipeline started (capacity={}, consumers={}, batchSize={}, overflowPolicy={}, virtualThreads={})",
+                ringBuffer.capacity(), consumerCount, batchSize, overflowPolicy, virtualThreads);
+    }
+
+    /**
+     * Queue a click for tracking. Never blocks and never throws.
+     */
+    public void offer(String shortCode, String ipAddress, String userAgent, String referer) {
+        long accessedAtMillis = System.currentTimeMillis();
+        long enqueuedNanos = System.nanoTime();
+        if (ringBuffer.offer(shortCode, ipAddress, userAgent, referer, accessedAtMillis, enqueuedNanos)) {
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                for (int attempt = 0; attempt < DROP_OLDEST_ATTEMPTS; attempt++) {
+                    if (ringBuffer.poll() != null) {
+                        droppedCounter.increment();
+                    }
+                    if (ringBuffer.offer(shortCode, ipAddress, userAgent, referer, accessedAtMillis, enqueuedNanos)) {
+                        return;
+                    }
+                }
+                // Other producers kept taking the freed slots
+                droppedCounter.increment();
+                break;
+            case SPILL_TO_DISK:
+                try {
+                    spillFile.append(shortCode, ipAddress, userAgent, referer, accessedAtMillis);
+                    spilledCounter.increment();
+                } catch (UncheckedIOException e) {
+                    log.error("Failed to spill click for {}", shortCode, e);
+                    droppedCounter.increment();
+                }
+                break;
+            default:
+                droppedCounter.increment();
+        }
+    }
+
+    /**
+     * Stop accepting work once the buffer is drained and wait for in-flight batches
+     */
+    @PreDestroy
+    public void stop() throws IOException {
+        running = false;
+        long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MILLIS;
+        for (Thread consumer : consumers) {
+            try {
+                consumer.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (spillFile != null) {
+            // Keep whatever the consumers did not get to for the next run
+            ClickEvent click;
+            while ((click = ringBuffer.poll()) != null) {
+                spillFile.append(click.getShortCode(), click.getIpAddress(), click.getUserAgent(),
+                        click.getReferer(), click.getAccessedAtMillis());
+            }
+            spillFile.close();
+        } else if (ringBuffer.size() > 0) {
+            log.warn("Click pipeline stopped with {} clicks still queued", ringBuffer.size());
+        }
+    }
+
+    private void consume() {
+        List<ClickEvent> batch = new ArrayList<>(batchSize);
+        while (running || ringBuffer.size() > 0) {
+            int drained = ringBuffer.drainTo(batch, batchSize);
+            if (drained < batchSize && spillFile != null && running) {
+                // Replay spilled clicks whenever the buffer has caught up
+                spillFile.drainTo(batch, batchSize - drained);
+            }
+
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            process(batch);
+            batch.clear();
+        }
+    }
+
+    private void process(List<ClickEvent> batch) {
+        long now = System.nanoTime();
+        for (ClickEvent click : batch) {
+            lagTimer.record(now - click.getEnqueuedNanos(), TimeUnit.NANOSECONDS);
+        }
+        try {
+            clickTracker.trackClicks(batch);
+        } catch (Exception e) {
+            log.error("Failed to track batch of {} clicks", batch.size(), e);
+        }
+    }
+}
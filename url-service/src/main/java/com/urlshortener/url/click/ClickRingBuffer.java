@@ -0,0 +1,146 @@
+package com.urlshortener.url.click;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free multi-producer / multi-consumer ring buffer of clicks
+ * (D. Vyukov's bounded MPMC queue).
+ *
+ * All slots are allocated up front and click fields are written into them in place, so
+ * offering a click allocates nothing. Each slot carries a sequence number that tells
+ * producers and consumers whose turn it is: a producer claims position p with a CAS on the
+ * enqueue cursor when slot p has sequence p, writes the fields and publishes sequence p + 1;
+ * a consumer claims p when the slot has sequence p + 1, reads the fields and hands the slot
+ * back to producers by publishing p + capacity. Slot fields are plain and made visible by the
+ * release/acquire on the sequence.
+ */
+public class ClickRingBuffer {
+
+    private final int mask;
+    private final Slot[] slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong enqueuePosition = new AtomicLong();
+    private final AtomicLong dequeuePosition = new AtomicLong();
+
+    public ClickRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two >= 2");
+        }
+        this.mask = capacity - 1;
+        this.slots = new Slot[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Add a click, or return false without blocking if the buffer is full
+     */
+    public boolean offer(String shortCode, String ipAddress, String userAgent, String referer,
+                         long accessedAtMillis, long enqueuedNanos) {
+        long position = enqueuePosition.get();
+        int index;
+        while (true) {
+            index = (int) (position & mask);
+            long difference = sequences.getAcquire(index) - position;
+            if (difference == 0) {
+                if (enqueuePosition.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = enqueuePosition.get();
+            } else if (difference < 0) {
+                // Slot still holds the click from one lap ago
+                return false;
+            } else {
+                // Another producer claimed this position
+                position = enqueuePosition.get();
+            }
+        }
+
+        Slot slot = slots[index];
+        slot.shortCode = shortCode;
+        slot.ipAddress = ipAddress;
+        slot.userAgent = userAgent;
+        slot.referer = referer;
+        slot.accessedAtMillis = accessedAtMillis;
+        slot.enqueuedNanos = enqueuedNanos;
+        sequences.setRelease(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Remove the oldest click, or return null if the buffer is empty
+     */
+    public ClickEvent poll() {
+        long position = dequeuePosition.get();
+        int index;
+        while (true) {
+            index = (int) (position & mask);
+            long difference = sequences.getAcquire(index) - (position + 1);
+            if (difference == 0) {
+                if (dequeuePosition.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = dequeuePosition.get();
+            } else if (difference < 0) {
+                // Nothing published at this position yet
+                return null;
+            } else {
+                // Another consumer took this position
+                position = dequeuePosition.get();
+            }
+        }
+
+        Slot slot = slots[index];
+        ClickEvent click = new ClickEvent(slot.shortCode, slot.ipAddress, slot.userAgent, slot.referer,
+                slot.accessedAtMillis, slot.enqueuedNanos);
+        // Drop references so the slot does not keep request strings alive for a whole lap
+        slot.shortCode = null;
+        slot.ipAddress = null;
+        slot.userAgent = null;
+        slot.referer = null;
+        sequences.setRelease(index, position + mask + 1);
+        return click;
+    }
+
+    /**
+     * Move up to maxClicks clicks into the sink, returning how many were moved
+     */
+    public int drainTo(List<ClickEvent> sink, int maxClicks) {
+        int drained = 0;
+        while (drained < maxClicks) {
+            ClickEvent click = poll();
+            if (click == null) {
+                break;
+            }
+            sink.add(click);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Approximate number of queued clicks
+     */
+    public int size() {
+        long size = enqueuePosition.get() - dequeuePosition.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    private static final class Slot {
+        String shortCode;
+        String ipAddress;
+        String userAgent;
+        String referer;
+        long accessedAtMillis;
+        long enqueuedNanos;
+    }
+}
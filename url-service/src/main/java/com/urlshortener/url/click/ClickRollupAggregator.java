@@ -0,0 +1,210 @@
+package com.urlshortener.url.click;
+
+import com.urlshortener.common.constants.KafkaTopics;
+import com.urlshortener.common.event.BaseEvent;
+import com.urlshortener.common.event.EventType;
+import com.urlshortener.common.event.UrlClickRollupEvent;
+import com.urlshortener.common.util.EventIdGenerator;
+import com.urlshortener.common.util.HyperLogLog;
+import com.urlshortener.url.bulkhead.Bulkhead;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Edge pre-aggregation of clicks into UrlClickRollupEvents.
+ *
+ * Clicks are counted in tumbling windows (by redirect time) per short code, country, device
+ * type, browser and OS, together with a HyperLogLog sketch of the visitors' IP addresses. A
+ * window is published as one rollup event once it has been closed for allowed-lateness; a click
+ * arriving after that starts a new window for the same key, which is published as a second
+ * rollup that analytics adds to the first. Windows are updated inside ConcurrentHashMap.compute
+ * and taken out with remove(), so a click lands either in the published window or in the next.
+ *
+ * Raw UrlAccessedEvents are still published for raw-sample-rate of the clicks, flagged as
+ * sampled so analytics stores them without counting them twice.
+ */
+@Component
+@Slf4j
+public class ClickRollupAggregator {
+
+    private final KafkaTemplate<String, BaseEvent> kafkaTemplate;
+    private final Bulkhead kafkaBulkhead;
+    private final Counter rollupCounter;
+
+    private final boolean enabled;
+    private final long windowMillis;
+    private final long allowedLatenessMillis;
+    private final double rawSampleRate;
+    private final int sketchPrecision;
+
+    private final ConcurrentHashMap<RollupKey, Window> windows = new ConcurrentHashMap<>();
+    // Scheduled and shutdown flushes must not interleave
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public ClickRollupAggregator(
+            KafkaTemplate<String, BaseEvent> kafkaTemplate,
+            Bulkhead kafkaBulkhead,
+            MeterRegistry meterRegistry,
+            @Value("${click-rollup.enabled:false}") boolean enabled,
+            @Value("${click-rollup.window:PT1M}") Duration window,
+            @Value("${click-rollup.allowed-lateness:PT10S}") Duration allowedLateness,
+            @Value("${click-rollup.raw-sample-rate:0.01}") double rawSampleRate,
+            @Value("${click-rollup.sketch-precision:" + HyperLogLog.DEFAULT_PRECISION + "}") int sketchPrecision) {
+        if (rawSampleRate < 0 || rawSampleRate > 1) {
+            throw new IllegalArgumentException("click-rollup.raw-sample-rate must be between 0 and 1");
+        }
+        this.kafkaTemplate = kafkaTemplate;
+        this.kafkaBulkhead = kafkaBulkhead;
+        this.enabled = enabled;
+        this.windowMillis = window.toMillis();
+        this.allowedLatenessMillis = allowedLateness.toMillis();
+        this.rawSampleRate = rawSampleRate;
+        this.sketchPrecision = sketchPrecision;
+
+        this.rollupCounter = Counter.builder("click.rollup.published")
+                .description("Click rollup events published to Kafka")
+                .register(meterRegistry);
+        Gauge.builder("click.rollup.windows", windows, Map::size)
+                .description("Click rollup windows not yet published")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether to also publish this click as a raw (sampled) event
+     */
+    public boolean sampleRaw() {
+        return rawSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < rawSampleRate;
+    }
+
+    /**
+     * Count a click in its window
+     */
+    public void add(ClickEvent click, String deviceType, String browser, String os) {
+        long millis = click.getAccessedAtMillis();
+        RollupKey key = new RollupKey(click.getShortCode(), millis - Math.floorMod(millis, windowMillis),
+                null, deviceType, browser, os);
+        windows.compute(key, (k, window) -> {
+            if (window == null) {
+                window = new Window(new HyperLogLog(sketchPrecision), millis);
+            }
+            window.add(millis, click.getIpAddress());
+            return window;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${click-rollup.flush-interval:PT5S}")
+    public void flush() {
+        if (enabled) {
+            publish(System.currentTimeMillis() - windowMillis - allowedLatenessMillis);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publish(Long.MAX_VALUE);
+    }
+
+    /**
+     * Publish and drop the windows that started at or before the given time
+     */
+    private void publish(long startedBy) {
+        flushLock.lock();
+        try {
+            int published = 0;
+            for (RollupKey key : windows.keySet()) {
+                if (key.windowStart() > startedBy) {
+                    continue;
+                }
+                Window window = windows.remove(key);
+                if (window != null) {
+                    send(key, window);
+                    published++;
+                }
+            }
+            if (published > 0) {
+                rollupCounter.increment(published);
+                log.debug("Published {} click rollups", published);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void send(RollupKey key, Window window) {
+        try {
+            UrlClickRollupEvent event = UrlClickRollupEvent.builder()
+                    .eventId(EventIdGenerator.generate())
+                    .timestamp(LocalDateTime.now())
+                    .eventType(EventType.URL_CLICK_ROLLUP.getValue())
+                    .shortCode(key.shortCode())
+                    .windowStart(localDateTime(key.windowStart()))
+                    .firstAccessedAt(localDateTime(window.firstMillis))
+                    .lastAccessedAt(localDateTime(window.lastMillis))
+                    .country(key.country())
+                    .deviceType(key.deviceType())
+                    .browser(key.browser())
+                    .operatingSystem(key.operatingSystem())
+                    .clickCount(window.clicks)
+                    .visitorSketch(window.visitors.toBytes())
+                    .build();
+
+            kafkaBulkhead.run(() -> kafkaTemplate.send(KafkaTopics.URL_ACCESS_EVENTS, key.shortCode(), event));
+        } catch (Exception e) {
+            log.error("Failed to publish {} rolled-up clicks for {}", window.clicks, key.shortCode(), e);
+        }
+    }
+
+    private static LocalDateTime localDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    // Country is not resolved on the redirect path yet, so it is always null for now
+    private record RollupKey(String shortCode, long windowStart, String country,
+                             String deviceType, String browser, String operatingSystem) {
+    }
+
+    /**
+     * One open window; only touched inside ConcurrentHashMap.compute, or after remove()
+     */
+    private static final class Window {
+        private final HyperLogLog visitors;
+        private long clicks;
+        private long firstMillis;
+        private long lastMillis;
+
+        Window(HyperLogLog visitors, long millis) {
+            this.visitors = visitors;
+            this.firstMillis = millis;
+            this.lastMillis = millis;
+        }
+
+        void add(long millis, String ipAddress) {
+            clicks++;
+            firstMillis = Math.min(firstMillis, millis);
+            lastMillis = Math.max(lastMillis, millis);
+            if (ipAddress != null) {
+                visitors.add(ipAddress);
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.urlshortener.url.click;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only overflow file for clicks that did not fit in the ring buffer.
+ *
+ * Records are length-prefixed so consumers can replay them from a read offset. Once every
+ * record has been replayed the file is truncated. Clicks left over from a previous run are
+ * replayed after restart. Only used on the overflow path, so a single lock is enough.
+ */
+@Slf4j
+public class ClickSpillFile implements Closeable {
+
+    private final Path path;
+    private final RandomAccessFile file;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long readOffset;
+
+    public ClickSpillFile(Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+        this.path = path;
+        this.file = new RandomAccessFile(path.toFile(), "rw");
+        if (file.length() > 0) {
+            log.info("Found {} bytes of spilled clicks to replay in {}", file.length(), path);
+        }
+    }
+
+    /**
+     * Append a click to the end of the file
+     */
+    public void append(String shortCode, String ipAddress, String userAgent, String referer,
+                       long accessedAtMillis) {
+        byte[] record = encode(shortCode, ipAddress, userAgent, referer, accessedAtMillis);
+        byte[] framed = ByteBuffer.allocate(Integer.BYTES + record.length)
+                .putInt(record.length)
+                .put(record)
+                .array();
+        lock.lock();
+        try {
+            file.seek(file.length());
+            file.write(framed);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spill click to " + path, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replay up to maxClicks spilled clicks into the sink, returning how many were replayed
+     */
+    public int drainTo(List<ClickEvent> sink, int maxClicks) {
+        if (!lock.tryLock()) {
+            // Another consumer is replaying
+            return 0;
+        }
+        try {
+            long length = file.length();
+            int drained = 0;
+            byte[] header = new byte[Integer.BYTES];
+            file.seek(readOffset);
+            while (drained < maxClicks && readOffset < length) {
+                file.readFully(header);
+                int recordLength = ByteBuffer.wrap(header).getInt();
+                if (recordLength < 0 || readOffset + Integer.BYTES + recordLength > length) {
+                    throw new IOException("Invalid record length " + recordLength + " at offset " + readOffset);
+                }
+                byte[] record = new byte[recordLength];
+                file.readFully(record);
+                readOffset += Integer.BYTES + record.length;
+                sink.add(decode(record));
+                drained++;
+            }
+            if (readOffset >= length && length > 0) {
+                file.setLength(0);
+                readOffset = 0;
+            }
+            return drained;
+        } catch (IOException e) {
+            // A torn record at the tail (crash mid-append) cannot be recovered; start over
+            log.error("Corrupt click spill file {}, discarding remaining records", path, e);
+            truncate();
+            return 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Bytes not yet replayed
+     */
+    public long pendingBytes() {
+        lock.lock();
+        try {
+            return file.length() - readOffset;
+        } catch (IOException e) {
+            return 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            file.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void truncate() {
+        try {
+            file.setLength(0);
+        } catch (IOException e) {
+            log.error("Failed to truncate click spill file {}", path, e);
+        }
+        readOffset = 0;
+    }
+
+    private static byte[] encode(String shortCode, String ipAddress, String userAgent, String referer,
+                                 long accessedAtMillis) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            writeString(out, shortCode);
+            writeString(out, ipAddress);
+            writeString(out, userAgent);
+            writeString(out, referer);
+            out.writeLong(accessedAtMillis);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ClickEvent decode(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        String shortCode = readString(in);
+        String ipAddress = readString(in);
+        String userAgent = readString(in);
+        String referer = readString(in);
+        long accessedAtMillis = in.readLong();
+        // Lag is measured from replay: the time spent on disk is already counted as a spill
+        return new ClickEvent(shortCode, ipAddress, userAgent, referer, accessedAtMillis, System.nanoTime());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
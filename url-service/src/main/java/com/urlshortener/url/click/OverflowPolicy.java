@@ -0,0 +1,13 @@
+package com.urlshortener.url.click;
+
+/**
+ * What the click pipeline does with a click when the ring buffer is full
+ */
+public enum OverflowPolicy {
+    /** Discard the oldest queued click to make room (favours fresh data) */
+    DROP_OLDEST,
+    /** Discard the incoming click (cheapest, keeps the queued backlog intact) */
+    DROP_NEWEST,
+    /** Append the click to a local spill file that consumers replay once they catch up */
+    SPILL_TO_DISK
+}
@@ -1,24 +1,40 @@
 package com.urlshortener.url.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.annotation.AsyncConfigurer;
-import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
-import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
+/**
+ * Background executors. Click tracking runs on its own pipeline (see ClickPipeline).
+ */
 @Configuration
-@EnableAsync
-public class AsyncConfig implements AsyncConfigurer {
+public class AsyncConfig {
     
-    @Override
-    public Executor getAsyncExecutor() {
+    /**
+     * Background refresh of hot cache entries before they expire.
+     * Refreshes are best-effort, so work beyond the queue is dropped rather than run on the caller.
+     * In virtual-thread mode each refresh gets its own virtual thread; the database bulkhead
+     * bounds how many of them reach Postgres.
+     */
+    @Bean
+    public TaskExecutor cacheRefreshExecutor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("cache-refresh-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(5);
-        executor.setMaxPoolSize(10);
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
         executor.setQueueCapacity(100);
-        executor.setThreadNamePrefix("async-");
-        executor.initialize();
+        executor.setThreadNamePrefix("cache-refresh-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
         return executor;
     }
 }
@@ -0,0 +1,44 @@
+package com.urlshortener.url.config;
+
+import com.urlshortener.url.bulkhead.Bulkhead;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Per-resource concurrency limits (see Bulkhead).
+ * The database limit defaults to the Hikari pool size so callers queue on the semaphore,
+ * with a short timeout, instead of on the pool's connection-timeout. HikariCP and the JDBC
+ * path still use synchronized, so a virtual thread can pin its carrier while it borrows or uses
+ * a connection; bounding those callers to the pool size bounds how many carriers can be pinned.
+ */
+@Configuration
+public class BulkheadConfig {
+    
+    @Bean
+    public Bulkhead databaseBulkhead(
+            MeterRegistry meterRegistry,
+            @Value("${bulkhead.database.max-concurrent:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrent,
+            @Value("${bulkhead.database.acquire-timeout:2s}") Duration acquireTimeout) {
+        return new Bulkhead("database", maxConcurrent, acquireTimeout, meterRegistry);
+    }
+    
+    @Bean
+    public Bulkhead redisBulkhead(
+            MeterRegistry meterRegistry,
+            @Value("${bulkhead.redis.max-concurrent:256}") int maxConcurrent,
+            @Value("${bulkhead.redis.acquire-timeout:100ms}") Duration acquireTimeout) {
+        return new Bulkhead("redis", maxConcurrent, acquireTimeout, meterRegistry);
+    }
+    
+    @Bean
+    public Bulkhead kafkaBulkhead(
+            MeterRegistry meterRegistry,
+            @Value("${bulkhead.kafka.max-concurrent:64}") int maxConcurrent,
+            @Value("${bulkhead.kafka.acquire-timeout:1s}") Duration acquireTimeout) {
+        return new Bulkhead("kafka", maxConcurrent, acquireTimeout, meterRegistry);
+    }
+}
@@ -1,10 +1,15 @@
 package com.urlshortener.url.config;
 
+import com.urlshortener.common.constants.RedisKeys;
+import com.urlshortener.url.cache.ShortCodeFilter;
+import com.urlshortener.url.cache.UrlCacheInvalidationBus;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 @Configuration
@@ -26,4 +31,21 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
+    
+    /**
+     * Subscribes this instance to cluster-wide cache invalidations, newly issued short codes
+     * and short code filter rebuild requests
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            UrlCacheInvalidationBus invalidationBus,
+            ShortCodeFilter shortCodeFilter) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(invalidationBus, new ChannelTopic(RedisKeys.URL_INVALIDATION_CHANNEL));
+        container.addMessageListener(shortCodeFilter, new ChannelTopic(RedisKeys.URL_CREATED_CHANNEL));
+        container.addMessageListener(shortCodeFilter, new ChannelTopic(RedisKeys.URL_FILTER_REBUILD_CHANNEL));
+        return container;
+    }
 }
@@ -1,6 +1,12 @@
 package com.urlshortener.url.config;
 
+import com.urlshortener.url.controller.RedirectFilter;
+import com.urlshortener.url.service.RedirectService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
@@ -13,10 +19,29 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
  *
  * Direct Access:
  * - If this service needs to be accessed directly (without Gateway), uncomment CORS configuration below
+ *
+ * Redirects:
+ * - GET /{shortCode} is answered by RedirectFilter ahead of Spring MVC (redirect.fast-path.enabled)
  */
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    /**
+     * Redirect fast path. Runs right after the request observation filter, so redirects
+     * still show up in http.server.requests, and ahead of everything else.
+     */
+    @Bean
+    public FilterRegistrationBean<RedirectFilter> redirectFilter(
+            RedirectService redirectService,
+            @Value("${redirect.fast-path.enabled:true}") boolean enabled) {
+        FilterRegistrationBean<RedirectFilter> registration =
+                new FilterRegistrationBean<>(new RedirectFilter(redirectService));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        registration.addUrlPatterns("/*");
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
     // CORS disabled - handled by API Gateway
     // Uncomment if service needs direct access (bypassing Gateway)
     /*
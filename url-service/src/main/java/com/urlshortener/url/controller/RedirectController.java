@@ -1,5 +1,8 @@
 package com.urlshortener.url.controller;
 
+import com.urlshortener.url.exception.BulkheadFullException;
+import com.urlshortener.url.exception.UrlExpiredException;
+import com.urlshortener.url.exception.UrlNotFoundException;
 import com.urlshortener.url.service.RedirectService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -23,7 +26,8 @@ public class RedirectController {
      * Redirect short URL to long URL
      * GET /{shortCode}
      * 
-     * This is the HOT PATH - optimized for < 50ms response time
+     * Normally answered by RedirectFilter before reaching MVC; this handler serves
+     * redirects when the fast path is disabled (redirect.fast-path.enabled=false)
      */
     @GetMapping("/{shortCode}")
     public void redirect(
@@ -49,6 +53,15 @@ public class RedirectController {
                 log.warn("Slow redirect detected: {}ms for {}", duration, shortCode);
             }
             
+        } catch (UrlNotFoundException | UrlExpiredException e) {
+            // Expected for scanner/typo traffic - keep it cheap, no stack trace logging
+            log.debug("Redirect miss for {}: {}", shortCode, e.getMessage());
+            response.sendError(HttpStatus.NOT_FOUND.value(), "URL not found");
+        } catch (BulkheadFullException e) {
+            // Overloaded downstream - ask the client to retry rather than report a missing URL
+            log.warn("Redirect shed for {}: {}", shortCode, e.getMessage());
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Service busy");
         } catch (Exception e) {
             log.error("Redirect failed for {}", shortCode, e);
             response.sendError(HttpStatus.NOT_FOUND.value(), "URL not found");
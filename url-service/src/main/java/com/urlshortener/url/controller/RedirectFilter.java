@@ -0,0 +1,92 @@
+package com.urlshortener.url.controller;
+
+import com.urlshortener.common.util.ShortCodeGenerator;
+import com.urlshortener.url.exception.BulkheadFullException;
+import com.urlshortener.url.exception.UrlExpiredException;
+import com.urlshortener.url.exception.UrlNotFoundException;
+import com.urlshortener.url.service.RedirectService;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Redirect fast path: answers GET /{shortCode} straight from the servlet filter chain.
+ *
+ * A redirect is just a status and a Location header, so it does not need DispatcherServlet
+ * handler lookup, path-variable binding or exception translation. Any request that is not a
+ * single-segment GET of a well-formed short code continues down the chain to Spring MVC.
+ * Registered with high precedence in WebConfig; RedirectController remains as the MVC
+ * fallback when the fast path is disabled.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class RedirectFilter implements Filter {
+
+    // Single-segment paths served by Spring itself
+    private static final Set<String> RESERVED_PATHS = Set.of("error", "actuator");
+
+    private final RedirectService redirectService;
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        String shortCode = redirectShortCode(request);
+        if (shortCode == null) {
+            chain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+        try {
+            String longUrl = redirectService.redirect(shortCode, request);
+
+            // Send 301 redirect (permanent redirect for SEO)
+            response.setStatus(HttpStatus.MOVED_PERMANENTLY.value());
+            response.setHeader("Location", longUrl);
+            response.setHeader("Cache-Control", "no-cache");
+
+        } catch (UrlNotFoundException | UrlExpiredException e) {
+            // Expected for scanner/typo traffic - keep it cheap, no stack trace logging
+            log.debug("Redirect miss for {}: {}", shortCode, e.getMessage());
+            response.sendError(HttpStatus.NOT_FOUND.value(), "URL not found");
+        } catch (BulkheadFullException e) {
+            // Overloaded downstream - ask the client to retry rather than report a missing URL
+            log.warn("Redirect shed for {}: {}", shortCode, e.getMessage());
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Service busy");
+        } catch (Exception e) {
+            log.error("Redirect failed for {}", shortCode, e);
+            response.sendError(HttpStatus.NOT_FOUND.value(), "URL not found");
+        }
+    }
+
+    /**
+     * The short code if this is a redirect request, otherwise null
+     */
+    private static String redirectShortCode(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod())) {
+            return null;
+        }
+        String uri = request.getRequestURI();
+        int start = request.getContextPath().length() + 1;
+        if (uri.length() <= start || uri.charAt(start - 1) != '/' || uri.indexOf('/', start) >= 0) {
+            return null;
+        }
+        String shortCode = uri.substring(start);
+        if (!ShortCodeGenerator.isValidShortCode(shortCode) || RESERVED_PATHS.contains(shortCode)) {
+            return null;
+        }
+        return shortCode;
+    }
+}
@@ -1,9 +1,13 @@
 package com.urlshortener.url.controller;
 
+import com.urlshortener.common.constants.AppConstants;
+import com.urlshortener.common.dto.BatchShortenUrlRequest;
+import com.urlshortener.common.dto.BatchShortenUrlResponse;
 import com.urlshortener.common.dto.ShortenUrlRequest;
 import com.urlshortener.common.dto.ShortenUrlResponse;
 import com.urlshortener.common.dto.UrlDetailsResponse;
 import com.urlshortener.url.service.UrlService;
+import com.urlshortener.url.service.UserUrlPage;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,6 +23,8 @@ import java.util.List;
 @Slf4j
 public class UrlController {
     
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    
     private final UrlService urlService;
     
     /**
@@ -35,6 +41,22 @@ public class UrlController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
     
+    /**
+     * Shorten up to MAX_BATCH_SHORTEN_SIZE URLs in one request
+     * POST /api/urls/shorten/batch
+     * 201 if every item was created, otherwise 207 with per-item results
+     */
+    @PostMapping("/shorten/batch")
+    public ResponseEntity<BatchShortenUrlResponse> shortenUrls(
+            @Valid @RequestBody BatchShortenUrlRequest request,
+            @RequestHeader("X-User-Id") Long userId) {
+        
+        log.info("Batch shortening {} URLs for user {}", request.getUrls().size(), userId);
+        BatchShortenUrlResponse response = urlService.shortenUrls(request.getUrls(), userId);
+        HttpStatus status = response.getFailed() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return ResponseEntity.status(status).body(response);
+    }
+    
     /**
      * Get URL details
      * GET /api/urls/{shortCode}
@@ -49,21 +71,28 @@ public class UrlController {
     }
     
     /**
-     * Get all URLs for a user
-     * GET /api/urls/user/{userId}
+     * Get a page of a user's URLs, newest first
+     * GET /api/urls/user/{userId}?limit=50&cursor=...
+     * The X-Next-Cursor response header, when present, is the cursor for the next page.
      */
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<UrlDetailsResponse>> getUserUrls(
             @PathVariable Long userId,
-            @RequestHeader("X-User-Id") Long requestUserId) {
+            @RequestHeader("X-User-Id") Long requestUserId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + AppConstants.DEFAULT_PAGE_SIZE) int limit) {
         
         // Verify the requesting user matches the path userId
         if (!userId.equals(requestUserId)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
         
-        List<UrlDetailsResponse> urls = urlService.getUserUrls(userId);
-        return ResponseEntity.ok(urls);
+        UserUrlPage page = urlService.getUserUrls(userId, cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.urls());
     }
     
     /**
@@ -12,6 +12,7 @@ import java.time.LocalDateTime;
 @Table(name = "urls", indexes = {
     @Index(name = "idx_urls_short_code", columnList = "short_code"),
     @Index(name = "idx_urls_user_id", columnList = "user_id"),
+    @Index(name = "idx_urls_user_created", columnList = "user_id, created_at DESC, id DESC"),
     @Index(name = "idx_urls_created_at", columnList = "created_at"),
     @Index(name = "idx_urls_expires_at", columnList = "expires_at")
 })
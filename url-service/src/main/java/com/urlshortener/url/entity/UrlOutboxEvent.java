@@ -0,0 +1,37 @@
+package com.urlshortener.url.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * An event waiting in the transactional outbox. Written and drained with single statements by
+ * UrlOutboxRepository; mapped here so the schema is validated and created with the rest.
+ */
+@Entity
+@Table(name = "url_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UrlOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String topic;
+
+    @Column(nullable = false, name = "event_key", length = 50)
+    private String eventKey;
+
+    // EventCodec encoding
+    @Column(nullable = false)
+    private byte[] payload;
+
+    @Column(nullable = false, name = "created_at")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,40 @@
+package com.urlshortener.url.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
+
+/**
+ * Maintained count of a user's URLs and their quota tier. Read and written with single
+ * statements by UserQuotaRepository; mapped here so the schema is validated and created with the rest.
+ */
+@Entity
+@Table(name = "user_quota")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserQuota {
+    
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false, name = "url_count")
+    private Long urlCount = 0L;
+    
+    @Column(length = 50)
+    private String tier;
+    
+    @Column(nullable = false, name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", insertable = false, updatable = false)
+    private User user;
+}
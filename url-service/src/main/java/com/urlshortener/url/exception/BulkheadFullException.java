@@ -0,0 +1,7 @@
+package com.urlshortener.url.exception;
+
+public class BulkheadFullException extends RuntimeException {
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
@@ -44,6 +44,20 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.GONE);
     }
     
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<ApiErrorResponse> handleBulkheadFullException(
+            BulkheadFullException ex, WebRequest request) {
+        
+        ApiErrorResponse error = ApiErrorResponse.builder()
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .message(ex.getMessage())
+                .path(request.getDescription(false).replace("uri=", ""))
+                .timestamp(LocalDateTime.now())
+                .build();
+        
+        return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+    
     @ExceptionHandler(DuplicateShortCodeException.class)
     public ResponseEntity<ApiErrorResponse> handleDuplicateShortCodeException(
             DuplicateShortCodeException ex, WebRequest request) {
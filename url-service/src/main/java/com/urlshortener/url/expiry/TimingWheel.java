@@ -0,0 +1,140 @@
+package com.urlshortener.url.expiry;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel holding short codes until their expiry.
+ *
+ * Level 0 has wheel-size buckets of one tick each; every higher level has the same number of
+ * buckets, each as wide as a full turn of the level below. An item is filed at the lowest level
+ * whose range covers its deadline, and when the clock reaches the start of its bucket it cascades
+ * down a level, so scheduling and firing are O(1) however many items are held. Deadlines are
+ * rounded up to the next tick, so an item never fires early.
+ *
+ * Not thread-safe: owned by the thread that calls advance.
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    private final ArrayDeque<Timer<T>>[][] buckets;
+
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param wheelSize buckets per level, a power of two
+     * @param levels    number of levels; the wheel covers tick * wheelSize^levels
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int wheelSize, int levels, long nowMillis) {
+        if (tickMillis <= 0 || Integer.bitCount(wheelSize) != 1 || wheelSize < 2 || levels < 1
+                || Integer.numberOfTrailingZeros(wheelSize) * levels >= Long.SIZE - 1) {
+            throw new IllegalArgumentException("Invalid timing wheel dimensions");
+        }
+        this.tickMillis = tickMillis;
+        this.bits = Integer.numberOfTrailingZeros(wheelSize);
+        this.mask = wheelSize - 1;
+        this.levels = levels;
+        this.buckets = new ArrayDeque[levels][wheelSize];
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Schedule an item
+     * @return false if the deadline has already passed or lies beyond the wheel's range,
+     *         in which case the item is not held
+     */
+    public boolean schedule(T item, long deadlineMillis) {
+        long deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        if (deadlineTick <= currentTick || deadlineTick - currentTick >= 1L << (bits * levels)) {
+            return false;
+        }
+        file(new Timer<>(item, deadlineTick));
+        size++;
+        return true;
+    }
+
+    /**
+     * Move the clock forward to now, handing every item whose deadline has been reached to the consumer
+     */
+    public void advance(long nowMillis, Consumer<T> due) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Higher levels first, so items cascading all the way down fire on this tick
+            for (int level = levels - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (bits * level)) - 1)) == 0) {
+                    ArrayDeque<Timer<T>> bucket = take(level, currentTick);
+                    if (bucket != null) {
+                        for (Timer<T> timer : bucket) {
+                            if (timer.deadlineTick() <= currentTick) {
+                                fire(timer, due);
+                            } else {
+                                file(timer);
+                            }
+                        }
+                    }
+                }
+            }
+            ArrayDeque<Timer<T>> bucket = take(0, currentTick);
+            if (bucket != null) {
+                for (Timer<T> timer : bucket) {
+                    fire(timer, due);
+                }
+            }
+            if (size == 0) {
+                // Nothing left to cascade, so skip the idle ticks
+                currentTick = targetTick;
+            }
+        }
+    }
+
+    /**
+     * Drop every held item
+     */
+    public void clear() {
+        for (ArrayDeque<Timer<T>>[] level : buckets) {
+            Arrays.fill(level, null);
+        }
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void file(Timer<T> timer) {
+        long delta = timer.deadlineTick() - currentTick;
+        int level = 0;
+        while (delta >= 1L << (bits * (level + 1))) {
+            level++;
+        }
+        int slot = (int) ((timer.deadlineTick() >>> (bits * level)) & mask);
+        ArrayDeque<Timer<T>> bucket = buckets[level][slot];
+        if (bucket == null) {
+            bucket = new ArrayDeque<>();
+            buckets[level][slot] = bucket;
+        }
+        bucket.add(timer);
+    }
+
+    private ArrayDeque<Timer<T>> take(int level, long tick) {
+        int slot = (int) ((tick >>> (bits * level)) & mask);
+        ArrayDeque<Timer<T>> bucket = buckets[level][slot];
+        buckets[level][slot] = null;
+        return bucket;
+    }
+
+    private void fire(Timer<T> timer, Consumer<T> due) {
+        size--;
+        due.accept(timer.item());
+    }
+
+    private record Timer<T>(T item, long deadlineTick) {
+    }
+}
@@ -0,0 +1,400 @@
+package com.urlshortener.url.expiry;
+
+import com.urlshortener.common.constants.CacheConfig;
+import com.urlshortener.common.constants.KafkaTopics;
+import com.urlshortener.common.event.EventType;
+import com.urlshortener.common.event.UrlExpiredEvent;
+import com.urlshortener.common.util.EventIdGenerator;
+import com.urlshortener.url.bulkhead.Bulkhead;
+import com.urlshortener.url.cache.CachedUrl;
+import com.urlshortener.url.cache.UrlCacheInvalidationBus;
+import com.urlshortener.url.cache.UrlCacheStore;
+import com.urlshortener.url.outbox.UrlEventOutbox;
+import com.urlshortener.url.repository.UrlBulkRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deactivates expired URLs, evicts them from every cache tier and publishes UrlExpiredEvents.
+ *
+ * One instance in the cluster does the work: the one holding a session-level Postgres advisory
+ * lock on a connection it keeps out of the pool. The lock goes with the session, so if that
+ * instance or its connection dies another one takes over on its next attempt.
+ *
+ * The leader sweeps every sweep-interval, deactivating overdue rows chunk-size at a time along
+ * the expires_at partial index, then loads the URLs expiring within the next horizon into a
+ * TimingWheel and deactivates each as its deadline passes, so links go out on time without
+ * polling the table every tick. Codes that expire within the horizon of their creation are not
+ * in the wheel and are caught by the next sweep.
+ *
+ * Each chunk is deactivated in one transaction with its UrlExpiredEvents written to the outbox.
+ * Evicted codes then get an expired tombstone in Redis (pipelined) and are dropped from every
+ * local cache (one pipelined pub/sub round trip); UrlReplica drops them on the URL_EXPIRED event.
+ *
+ * Metrics: url.expiry.deactivated (tagged source=sweep|wheel) and url.expiry.wheel.size.
+ */
+@Component
+@Slf4j
+public class UrlExpirySweeper {
+
+    private static final String TRY_LOCK_SQL = "SELECT pg_try_advisory_lock(?)";
+    private static final String UNLOCK_SQL = "SELECT pg_advisory_unlock(?)";
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final int WHEEL_SIZE = 64;
+
+    private final DataSource dataSource;
+    private final UrlBulkRepository urlBulkRepository;
+    private final UrlCacheStore urlCacheStore;
+    private final UrlCacheInvalidationBus cacheInvalidationBus;
+    private final UrlEventOutbox urlEventOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final Bulkhead redisBulkhead;
+    private final Counter sweptCounter;
+    private final Counter wheelCounter;
+
+    private final boolean enabled;
+    private final long lockKey;
+    private final Duration sweepInterval;
+    private final int chunkSize;
+    private final int maxChunksPerSweep;
+    private final Duration tick;
+    private final Duration horizon;
+    private final int maxWheelEntries;
+
+    private final TimingWheel<String> wheel;
+    private Connection lockConnection;
+    private LocalDateTime loadedUntil;
+    private volatile boolean running;
+    private Thread thread;
+
+    public UrlExpirySweeper(
+            DataSource dataSource,
+            UrlBulkRepository urlBulkRepository,
+            UrlCacheStore urlCacheStore,
+            UrlCacheInvalidationBus cacheInvalidationBus,
+            UrlEventOutbox urlEventOutbox,
+            TransactionTemplate transactionTemplate,
+            @Qualifier("redisBulkhead") Bulkhead redisBulkhead,
+            MeterRegistry meterRegistry,
+            @Value("${url-expiry.enabled:true}") boolean enabled,
+            @Value("${url-expiry.lock-key:7301}") long lockKey,
+            @Value("${url-expiry.sweep-interval:PT1M}") Duration sweepInterval,
+            @Value("${url-expiry.chunk-size:1000}") int chunkSize,
+            @Value("${url-expiry.max-chunks-per-sweep:100}") int maxChunksPerSweep,
+            @Value("${url-expiry.wheel.tick:PT1S}") Duration tick,
+            @Value("${url-expiry.wheel.horizon:PT10M}") Duration horizon,
+            @Value("${url-expiry.wheel.max-entries:100000}") int maxWheelEntries) {
+        this.dataSource = dataSource;
+        this.urlBulkRepository = urlBulkRepository;
+        this.urlCacheStore = urlCacheStore;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.urlEventOutbox = urlEventOutbox;
+        this.transactionTemplate = transactionTemplate;
+        this.redisBulkhead = redisBulkhead;
+        this.enabled = enabled;
+        this.lockKey = lockKey;
+        this.sweepInterval = sweepInterval;
+        this.chunkSize = chunkSize;
+        this.maxChunksPerSweep = maxChunksPerSweep;
+        this.tick = tick;
+        this.horizon = horizon;
+        this.maxWheelEntries = maxWheelEntries;
+
+        // Enough levels that the wheel spans the horizon plus one sweep interval
+        long spanTicks = (horizon.toMillis() + sweepInterval.toMillis()) / tick.toMillis() + 1;
+        int levels = 1;
+        for (long range = WHEEL_SIZE; range <= spanTicks; range *= WHEEL_SIZE) {
+            levels++;
+        }
+        this.wheel = new TimingWheel<>(tick.toMillis(), WHEEL_SIZE, levels, System.currentTimeMillis());
+
+        this.sweptCounter = Counter.builder("url.expiry.deactivated")
+                .description("Expired URLs deactivated")
+                .tag("source", "sweep")
+                .register(meterRegistry);
+        this.wheelCounter = Counter.builder("url.expiry.deactivated")
+                .description("Expired URLs deactivated")
+                .tag("source", "wheel")
+                .register(meterRegistry);
+        Gauge.builder("url.expiry.wheel.size", wheel, TimingWheel::size)
+                .description("URLs held in the expiry timing wheel")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        thread = Thread.ofPlatform().name("url-expiry").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(sweepInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        releaseLeadership();
+    }
+
+    private void run() {
+        long nextSweep = 0;
+        List<String> due = new ArrayList<>();
+        while (running) {
+            try {
+                long now = System.currentTimeMillis();
+                if (now >= nextSweep) {
+                    nextSweep = now + sweepInterval.toMillis();
+                    if (holdLeadership()) {
+                        sweep();
+                        loadWheel(due);
+                    }
+                }
+                if (lockConnection != null) {
+                    wheel.advance(System.currentTimeMillis(), due::add);
+                    if (!due.isEmpty()) {
+                        deactivateDue(due);
+                        due.clear();
+                    }
+                }
+                Thread.sleep(tick.toMillis());
+            } catch (InterruptedException e) {
+                break;
+            } catch (Exception e) {
+                log.error("URL expiry sweep failed", e);
+                due.clear();
+            }
+        }
+    }
+
+    /**
+     * Keep or try to take the advisory lock
+     * @return whether this instance is the leader
+     */
+    private boolean holdLeadership() {
+        if (lockConnection != null) {
+            if (isValid(lockConnection)) {
+                return true;
+            }
+            log.warn("Lost URL expiry leadership: lock connection is no longer valid");
+            // isValid may only have timed out, leaving the session and its lock alive
+            discard(lockConnection);
+            lockConnection = null;
+            wheel.clear();
+            loadedUntil = null;
+        }
+
+        try {
+            Connection connection = dataSource.getConnection();
+            boolean locked = false;
+            try {
+                locked = queryBoolean(connection, TRY_LOCK_SQL);
+            } finally {
+                if (!locked) {
+                    closeQuietly(connection);
+                }
+            }
+            if (locked) {
+                lockConnection = connection;
+                log.info("Became URL expiry leader (advisory lock {})", lockKey);
+                return true;
+            }
+        } catch (SQLException e) {
+            log.error("Failed to acquire URL expiry lock", e);
+        }
+        return false;
+    }
+
+    private void releaseLeadership() {
+        if (lockConnection == null) {
+            return;
+        }
+        discard(lockConnection);
+        lockConnection = null;
+    }
+
+    /**
+     * Hand the lock connection back without the lock. The pooled connection, and so the session,
+     * outlives close(): unlock explicitly, or if that fails have the pool close the session, or no
+     * instance could lead again until the pool retired the connection.
+     */
+    private void discard(Connection connection) {
+        try {
+            queryBoolean(connection, UNLOCK_SQL);
+        } catch (SQLException e) {
+            log.warn("Failed to release URL expiry lock; evicting its connection", e);
+            evict(connection);
+        }
+        closeQuietly(connection);
+    }
+
+    private void evict(Connection connection) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                // Closes the physical connection, ending the session and its lock
+                dataSource.unwrap(HikariDataSource.class).evictConnection(connection);
+            } else {
+                connection.abort(Runnable::run);
+            }
+        } catch (SQLException e) {
+            log.debug("Failed to evict URL expiry lock connection", e);
+        }
+    }
+
+    /**
+     * Deactivate everything already overdue, a bounded chunk per statement
+     */
+    private void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int chunk = 0; chunk < maxChunksPerSweep; chunk++) {
+            Map<String, LocalDateTime> expired = transactionTemplate.execute(
+                    status -> recordExpired(urlBulkRepository.deactivateExpired(now, chunkSize)));
+            if (!expired.isEmpty()) {
+                evict(expired);
+                sweptCounter.increment(expired.size());
+                log.info("Deactivated {} expired URLs", expired.size());
+            }
+            if (expired.size() < chunkSize) {
+                return;
+            }
+        }
+        log.warn("Expiry sweep stopped after {} chunks; the rest is left to the next sweep", maxChunksPerSweep);
+    }
+
+    /**
+     * Hold URLs expiring between the last load and the horizon in the wheel
+     */
+    private void loadWheel(List<String> due) {
+        int room = maxWheelEntries - wheel.size();
+        if (room <= 0) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime from = loadedUntil == null || loadedUntil.isBefore(now) ? now : loadedUntil;
+        LocalDateTime until = now.plus(horizon);
+
+        Map<String, LocalDateTime> upcoming = urlBulkRepository.findExpiringBetween(from, until, room);
+        LocalDateTime last = from;
+        for (Map.Entry<String, LocalDateTime> entry : upcoming.entrySet()) {
+            if (!wheel.schedule(entry.getKey(), toEpochMillis(entry.getValue()))) {
+                due.add(entry.getKey());
+            }
+            last = entry.getValue();
+        }
+        // A full page resumes after its last expiry; rows sharing that expiry beyond the page are swept
+        loadedUntil = upcoming.size() < room ? until : last;
+    }
+
+    /**
+     * Deactivate codes whose deadline passed in the wheel, chunk-size at a time
+     */
+    private void deactivateDue(List<String> due) {
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < due.size(); from += chunkSize) {
+            List<String> chunk = due.subList(from, Math.min(from + chunkSize, due.size()));
+            Map<String, LocalDateTime> expired = transactionTemplate.execute(
+                    status -> recordExpired(urlBulkRepository.deactivateExpired(chunk, now)));
+            if (!expired.isEmpty()) {
+                evict(expired);
+                wheelCounter.increment(expired.size());
+                log.debug("Deactivated {} URLs at expiry", expired.size());
+            }
+        }
+    }
+
+    /**
+     * Write a UrlExpiredEvent per deactivated code to the outbox, in the deactivating transaction
+     */
+    private Map<String, LocalDateTime> recordExpired(Map<String, LocalDateTime> expired) {
+        List<String> shortCodes = new ArrayList<>(expired.size());
+        List<UrlExpiredEvent> events = new ArrayList<>(expired.size());
+        expired.forEach((shortCode, expiredAt) -> {
+            shortCodes.add(shortCode);
+            events.add(UrlExpiredEvent.builder()
+                    .eventId(EventIdGenerator.generate())
+                    .timestamp(LocalDateTime.now())
+                    .eventType(EventType.URL_EXPIRED.getValue())
+                    .shortCode(shortCode)
+                    .expiredAt(expiredAt)
+                    .build());
+        });
+        urlEventOutbox.appendAll(KafkaTopics.URL_LIFECYCLE_EVENTS, shortCodes, events);
+        return expired;
+    }
+
+    /**
+     * Tombstone the codes in Redis and drop them from every local cache
+     */
+    private void evict(Map<String, LocalDateTime> expired) {
+        Map<String, CachedUrl> tombstones = new LinkedHashMap<>();
+        expired.keySet().forEach(shortCode -> tombstones.put(shortCode, CachedUrl.expired()));
+        try {
+            redisBulkhead.run(() -> urlCacheStore.putAll(tombstones, entry -> CacheConfig.NEGATIVE_CACHE_TTL_SECONDS));
+        } catch (Exception e) {
+            // Redis entries carry their expiry, so a missed tombstone still stops the redirect
+            log.error("Failed to write expired tombstones for {} URLs", expired.size(), e);
+        }
+        cacheInvalidationBus.invalidateAll(expired.keySet());
+    }
+
+    private boolean queryBoolean(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            // Neither lock call waits on other sessions, so only a broken connection runs this long
+            statement.setQueryTimeout(VALIDATION_TIMEOUT_SECONDS);
+            statement.setLong(1, lockKey);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Failed to close URL expiry lock connection", e);
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,28 @@
+package com.urlshortener.url.importer;
+
+/**
+ * Progress of a named import, committed together with each chunk so a rerun resumes after
+ * the last committed line
+ *
+ * @param linesRead   source lines consumed, including the header and invalid lines
+ * @param imported    rows inserted into urls
+ * @param duplicates  valid rows skipped because the short code already existed
+ * @param invalid     lines that could not be parsed or failed validation
+ */
+public record ImportCheckpoint(
+        String name,
+        long linesRead,
+        long imported,
+        long duplicates,
+        long invalid,
+        boolean completed) {
+
+    public static ImportCheckpoint start(String name) {
+        return new ImportCheckpoint(name, 0, 0, 0, 0, false);
+    }
+
+    public ImportCheckpoint advance(long lines, long imported, long duplicates, long invalid, boolean completed) {
+        return new ImportCheckpoint(name, linesRead + lines, this.imported + imported,
+                this.duplicates + duplicates, this.invalid + invalid, completed);
+    }
+}
@@ -0,0 +1,163 @@
+package com.urlshortener.url.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Line formats accepted by UrlImporter. Both are read one line at a time, so files of any size
+ * are imported in constant memory.
+ *
+ * CSV: short_code,long_url[,user_id[,created_at[,expires_at[,click_count]]]] with RFC 4180 quoting
+ * and an optional header line. NDJSON: one object per line with shortCode, longUrl and optional
+ * userId, createdAt, expiresAt and clickCount. Timestamps are ISO-8601, with or without an offset.
+ */
+public enum ImportFormat {
+
+    CSV {
+        @Override
+        public boolean isHeader(String line) {
+            return line.toLowerCase(Locale.ROOT).startsWith("short_code");
+        }
+
+        @Override
+        ImportRecord parseLine(String line) {
+            List<String> fields = splitCsv(line);
+            if (fields.size() < 2) {
+                throw new IllegalArgumentException("expected at least short_code and long_url");
+            }
+            return new ImportRecord(
+                    fields.get(0),
+                    fields.get(1),
+                    parseLong(field(fields, 2)),
+                    parseTimestamp(field(fields, 3)),
+                    parseTimestamp(field(fields, 4)),
+                    parseLong(field(fields, 5)));
+        }
+    },
+
+    NDJSON {
+        @Override
+        public boolean isHeader(String line) {
+            return false;
+        }
+
+        @Override
+        ImportRecord parseLine(String line) throws IOException {
+            JsonNode node = JSON.readTree(line);
+            if (node == null || !node.isObject()) {
+                throw new IllegalArgumentException("expected a JSON object");
+            }
+            return new ImportRecord(
+                    text(node, "shortCode"),
+                    text(node, "longUrl"),
+                    parseLong(text(node, "userId")),
+                    parseTimestamp(text(node, "createdAt")),
+                    parseTimestamp(text(node, "expiresAt")),
+                    parseLong(text(node, "clickCount")));
+        }
+    };
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    /**
+     * Whether the first line of a file is a column header rather than data
+     */
+    public abstract boolean isHeader(String line);
+
+    abstract ImportRecord parseLine(String line) throws IOException;
+
+    /**
+     * Parse one line
+     * @throws IllegalArgumentException if the line is malformed
+     */
+    public ImportRecord parse(String line) {
+        try {
+            return parseLine(line);
+        } catch (IOException | DateTimeException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Format implied by a file name (.csv, or .ndjson/.jsonl/.json)
+     */
+    public static ImportFormat fromFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || name.endsWith(".json")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Cannot infer import format of " + fileName + ", set url-import.format");
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() ? fields.get(index) : null;
+    }
+
+    private static String text(JsonNode node, String name) {
+        JsonNode value = node.get(name);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static Long parseLong(String value) {
+        return value == null || value.isBlank() ? null : Long.valueOf(value.trim());
+    }
+
+    private static LocalDateTime parseTimestamp(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        // Accept the "2024-01-15 10:30:00" form of database exports as well as ISO-8601
+        String iso = value.trim();
+        if (iso.length() > 10 && iso.charAt(10) == ' ') {
+            iso = iso.substring(0, 10) + 'T' + iso.substring(11);
+        }
+        try {
+            return LocalDateTime.parse(iso);
+        } catch (DateTimeException e) {
+            return OffsetDateTime.parse(iso).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.urlshortener.url.importer;
+
+import com.urlshortener.common.util.ShortCodeGenerator;
+
+import java.time.LocalDateTime;
+
+/**
+ * One existing short code mapping to import. Optional fields are null when the source omits them.
+ */
+public record ImportRecord(
+        String shortCode,
+        String longUrl,
+        Long userId,
+        LocalDateTime createdAt,
+        LocalDateTime expiresAt,
+        Long clickCount) {
+
+    private static final int MAX_URL_LENGTH = 2048;
+
+    /**
+     * Why the record cannot be imported, or null if it is valid.
+     * Applies the same rules as ShortenUrlRequest to the long URL.
+     */
+    public String validationError() {
+        if (!ShortCodeGenerator.isValidShortCode(shortCode)) {
+            return "invalid short code";
+        }
+        if (longUrl == null || longUrl.isBlank()) {
+            return "long URL is required";
+        }
+        if (longUrl.length() > MAX_URL_LENGTH) {
+            return "URL too long";
+        }
+        if (!longUrl.startsWith("http://") && !longUrl.startsWith("https://")) {
+            return "URL must start with http:// or https://";
+        }
+        if (clickCount != null && clickCount < 0) {
+            return "negative click count";
+        }
+        return null;
+    }
+}
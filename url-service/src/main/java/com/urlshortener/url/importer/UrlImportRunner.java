@@ -0,0 +1,62 @@
+package com.urlshortener.url.importer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Runs a one-off import when started with url-import.file, then exits, e.g.
+ *
+ *   java -jar url-service.jar --spring.main.web-application-type=none \
+ *        --url-import.file=/data/legacy-urls.csv
+ *
+ * The import name (for resuming) defaults to the file name, and the format to the one
+ * implied by its extension.
+ */
+@Component
+@ConditionalOnProperty(name = "url-import.file")
+public class UrlImportRunner implements ApplicationRunner {
+
+    private final UrlImporter urlImporter;
+    private final ConfigurableApplicationContext applicationContext;
+    private final String file;
+    private final String format;
+    private final String name;
+
+    public UrlImportRunner(
+            UrlImporter urlImporter,
+            ConfigurableApplicationContext applicationContext,
+            @Value("${url-import.file}") String file,
+            @Value("${url-import.format:}") String format,
+            @Value("${url-import.name:}") String name) {
+        this.urlImporter = urlImporter;
+        this.applicationContext = applicationContext;
+        this.file = file;
+        this.format = format;
+        this.name = name;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Path path = Path.of(file);
+        if (!Files.isReadable(path)) {
+            throw new IllegalArgumentException("Import file " + path + " is not readable");
+        }
+        String fileName = path.getFileName().toString();
+        ImportFormat importFormat = format.isBlank()
+                ? ImportFormat.fromFileName(fileName)
+                : ImportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        String importName = name.isBlank() ? fileName : name;
+
+        urlImporter.importFile(path, importFormat, importName);
+        System.exit(SpringApplication.exit(applicationContext, () -> 0));
+    }
+}
@@ -0,0 +1,160 @@
+package com.urlshortener.url.importer;
+
+import com.urlshortener.url.cache.ShortCodeFilter;
+import com.urlshortener.url.repository.UrlImportRepository;
+import com.urlshortener.url.repository.UrlImportRepository.ImportRecordSink;
+import com.urlshortener.url.repository.UrlImportRepository.ImportRecordSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Streams existing short code mappings from a CSV or NDJSON file into the urls table.
+ *
+ * The file is read line by line and written to Postgres over COPY in chunks of chunk-size lines.
+ * Each chunk is one transaction that also records the import's checkpoint, so a failed or
+ * interrupted import rerun under the same name skips the committed lines and continues.
+ * Short codes that already exist are counted as duplicates and left untouched.
+ *
+ * Caches are not written during the import: URLs are read through into Redis and the local
+ * cache on first access, and UrlCacheWarmer picks up the most-clicked ones (imported click
+ * counts included) on the next start. Once the import completes every instance is asked to
+ * rebuild its short code filter, which would otherwise reject the imported codes.
+ */
+@Service
+@Slf4j
+public class UrlImporter {
+
+    // Per chunk, so a file of mostly bad lines does not flood the log
+    private static final int MAX_LOGGED_INVALID_LINES = 100;
+
+    private final UrlImportRepository urlImportRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ShortCodeFilter shortCodeFilter;
+    private final int chunkSize;
+    private final long defaultUserId;
+
+    public UrlImporter(
+            UrlImportRepository urlImportRepository,
+            TransactionTemplate transactionTemplate,
+            ShortCodeFilter shortCodeFilter,
+            @Value("${url-import.chunk-size:50000}") int chunkSize,
+            @Value("${url-import.user-id:1}") long defaultUserId) {
+        this.urlImportRepository = urlImportRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.shortCodeFilter = shortCodeFilter;
+        this.chunkSize = chunkSize;
+        this.defaultUserId = defaultUserId;
+    }
+
+    /**
+     * Import the file, resuming the named import if it was started before
+     * @return the final checkpoint
+     */
+    public ImportCheckpoint importFile(Path file, ImportFormat format, String name) throws IOException {
+        ImportCheckpoint saved = urlImportRepository.findCheckpoint(name);
+        if (saved != null && saved.completed()) {
+            log.info("Import {} already completed: {}", name, saved);
+            return saved;
+        }
+        ImportCheckpoint checkpoint = saved != null ? saved : ImportCheckpoint.start(name);
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            for (long i = 0; i < checkpoint.linesRead(); i++) {
+                if (reader.readLine() == null) {
+                    throw new IllegalStateException("Import " + name + " checkpoint is past the end of " + file);
+                }
+            }
+            if (checkpoint.linesRead() > 0) {
+                log.info("Resuming import {} from {} after line {}", name, file, checkpoint.linesRead());
+            } else {
+                log.info("Starting import {} from {} ({})", name, file, format);
+            }
+
+            long startTime = System.currentTimeMillis();
+            long startLines = checkpoint.linesRead();
+            while (!checkpoint.completed()) {
+                Chunk chunk = new Chunk(reader, format, checkpoint.linesRead());
+                ImportCheckpoint previous = checkpoint;
+                checkpoint = transactionTemplate.execute(status -> {
+                    int inserted = urlImportRepository.copyIntoUrls(chunk, defaultUserId);
+                    ImportCheckpoint next = previous.advance(
+                            chunk.lines, inserted, chunk.copied - inserted, chunk.invalid, chunk.endOfFile);
+                    urlImportRepository.saveCheckpoint(next);
+                    return next;
+                });
+
+                double seconds = Math.max(1, System.currentTimeMillis() - startTime) / 1000.0;
+                log.info("Import {}: {} lines read, {} imported, {} duplicates, {} invalid ({} lines/s)",
+                        name, checkpoint.linesRead(), checkpoint.imported(), checkpoint.duplicates(),
+                        checkpoint.invalid(), Math.round((checkpoint.linesRead() - startLines) / seconds));
+            }
+        }
+
+        shortCodeFilter.requestRebuild();
+        log.info("Import {} completed: {}", name, checkpoint);
+        return checkpoint;
+    }
+
+    /**
+     * Emits up to chunk-size lines of the file into one COPY
+     */
+    private final class Chunk implements ImportRecordSource {
+
+        private final BufferedReader reader;
+        private final ImportFormat format;
+        private final long firstLine;
+
+        private long lines;
+        private long copied;
+        private long invalid;
+        private boolean endOfFile;
+
+        private Chunk(BufferedReader reader, ImportFormat format, long linesBefore) {
+            this.reader = reader;
+            this.format = format;
+            this.firstLine = linesBefore + 1;
+        }
+
+        @Override
+        public void emit(ImportRecordSink sink) throws IOException {
+            while (lines < chunkSize) {
+                String line = reader.readLine();
+                if (line == null) {
+                    endOfFile = true;
+                    return;
+                }
+                long lineNumber = firstLine + lines++;
+                if (line.isBlank() || (lineNumber == 1 && format.isHeader(line))) {
+                    continue;
+                }
+
+                ImportRecord record;
+                String error;
+                try {
+                    record = format.parse(line);
+                    error = record.validationError();
+                } catch (IllegalArgumentException e) {
+                    record = null;
+                    error = e.getMessage();
+                }
+                if (error != null) {
+                    invalid++;
+                    if (invalid <= MAX_LOGGED_INVALID_LINES) {
+                        log.warn("Skipping line {}: {}", lineNumber, error);
+                    }
+                    continue;
+                }
+                sink.accept(record);
+                copied++;
+            }
+        }
+    }
+}
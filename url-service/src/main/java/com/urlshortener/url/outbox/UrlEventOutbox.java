@@ -0,0 +1,57 @@
+package com.urlshortener.url.outbox;
+
+import com.urlshortener.common.event.BaseEvent;
+import com.urlshortener.common.event.codec.EventCodec;
+import com.urlshortener.url.repository.UrlOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Records events in the url_outbox table inside the caller's transaction, so an event exists
+ * exactly when the change it describes commits. UrlOutboxRelay publishes them to Kafka.
+ */
+@Component
+@RequiredArgsConstructor
+public class UrlEventOutbox {
+
+    private final UrlOutboxRepository urlOutboxRepository;
+    private final UrlOutboxRelay urlOutboxRelay;
+
+    /**
+     * Record one event under its Kafka key
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String topic, String key, BaseEvent event) {
+        appendAll(topic, List.of(key), List.of(event));
+    }
+
+    /**
+     * Record events with one statement, keys.get(i) being the Kafka key of events.get(i);
+     * they are published in this order
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(String topic, List<String> keys, List<? extends BaseEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        byte[][] payloads = new byte[events.size()][];
+        for (int i = 0; i < payloads.length; i++) {
+            payloads[i] = EventCodec.encode(events.get(i));
+        }
+        urlOutboxRepository.append(topic, keys.toArray(new String[0]), payloads);
+
+        // Relay right away instead of at its next poll
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                urlOutboxRelay.wakeUp();
+            }
+        });
+    }
+}
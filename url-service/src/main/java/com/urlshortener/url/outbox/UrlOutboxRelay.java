@@ -0,0 +1,193 @@
+package com.urlshortener.url.outbox;
+
+import com.urlshortener.url.repository.UrlOutboxRepository;
+import com.urlshortener.url.repository.UrlOutboxRepository.OutboxRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes url_outbox rows to Kafka and deletes them once acknowledged.
+ *
+ * Each round is one transaction: take a transaction-scoped advisory lock (so one instance relays
+ * at a time and ids go out in order), read the oldest batch-size rows, send them all without
+ * waiting, wait for every ack, then delete the rows. A failed or timed-out send rolls the round
+ * back and the whole batch is retried, so delivery is at-least-once; consumers already treat
+ * lifecycle events as idempotent. Rows committed out of id order are simply picked up by the
+ * next round, since the relay always starts from the oldest row left.
+ *
+ * The relay polls every poll-interval and is woken right after a local commit that appended
+ * events, so it keeps draining back to back while a backlog lasts.
+ *
+ * Metrics: url.outbox.relayed (events published), url.outbox.relay.batch (round time) and
+ * url.outbox.lag (age in seconds of the oldest unsent event, on the relaying instance).
+ */
+@Component
+@Slf4j
+public class UrlOutboxRelay {
+
+    private final UrlOutboxRepository urlOutboxRepository;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter relayedCounter;
+    private final Timer batchTimer;
+
+    private final boolean enabled;
+    private final long lockKey;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration sendTimeout;
+
+    private final Semaphore wakeUps = new Semaphore(0);
+    private volatile double lagSeconds;
+    private volatile boolean running;
+    private Thread thread;
+
+    public UrlOutboxRelay(
+            UrlOutboxRepository urlOutboxRepository,
+            @Qualifier("outboxKafkaTemplate") KafkaTemplate<String, byte[]> kafkaTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${url-outbox.relay.enabled:true}") boolean enabled,
+            @Value("${url-outbox.relay.lock-key:7302}") long lockKey,
+            @Value("${url-outbox.relay.batch-size:1000}") int batchSize,
+            @Value("${url-outbox.relay.poll-interval:PT0.5S}") Duration pollInterval,
+            @Value("${url-outbox.relay.send-timeout:PT30S}") Duration sendTimeout) {
+        this.urlOutboxRepository = urlOutboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.lockKey = lockKey;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.sendTimeout = sendTimeout;
+
+        this.relayedCounter = Counter.builder("url.outbox.relayed")
+                .description("Outbox events published to Kafka")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("url.outbox.relay.batch")
+                .description("Time to publish and delete one outbox batch")
+                .register(meterRegistry);
+        Gauge.builder("url.outbox.lag", this, relay -> relay.lagSeconds)
+                .description("Age of the oldest unsent outbox event")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        thread = Thread.ofPlatform().name("outbox-relay").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Run the next round now rather than at the next poll
+     */
+    public void wakeUp() {
+        if (wakeUps.availablePermits() == 0) {
+            wakeUps.release();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                int relayed = relayBatch();
+                if (relayed < batchSize) {
+                    wakeUps.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                    wakeUps.drainPermits();
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                log.error("Outbox relay round failed, retrying", e);
+                try {
+                    Thread.sleep(pollInterval.toMillis());
+                } catch (InterruptedException ie) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Publish and delete the oldest batch
+     * @return number of events published (0 if the outbox is empty or another instance is relaying)
+     */
+    private int relayBatch() {
+        Timer.Sample sample = Timer.start();
+        Integer relayed = transactionTemplate.execute(status -> {
+            if (!urlOutboxRepository.tryLock(lockKey)) {
+                lagSeconds = 0;
+                return 0;
+            }
+            List<OutboxRow> rows = urlOutboxRepository.findOldest(batchSize);
+            if (rows.isEmpty()) {
+                lagSeconds = 0;
+                return 0;
+            }
+            long oldest = rows.get(0).createdAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            lagSeconds = Math.max(0, System.currentTimeMillis() - oldest) / 1000.0;
+
+            CompletableFuture<?>[] sends = new CompletableFuture<?>[rows.size()];
+            Long[] ids = new Long[rows.size()];
+            for (int i = 0; i < sends.length; i++) {
+                OutboxRow row = rows.get(i);
+                sends[i] = kafkaTemplate.send(row.topic(), row.key(), row.payload());
+                ids[i] = row.id();
+            }
+            awaitAcks(sends);
+
+            urlOutboxRepository.delete(ids);
+            return rows.size();
+        });
+        if (relayed != null && relayed > 0) {
+            sample.stop(batchTimer);
+            relayedCounter.increment(relayed);
+            log.debug("Relayed {} outbox events", relayed);
+        }
+        return relayed == null ? 0 : relayed;
+    }
+
+    private void awaitAcks(CompletableFuture<?>[] sends) {
+        try {
+            CompletableFuture.allOf(sends).get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for outbox acks", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Outbox batch of " + sends.length + " events not acknowledged", e);
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package com.urlshortener.url.replica;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * Open-addressing hash map from packed short codes (ShortCodeKey) to long URLs, held entirely
+ * in direct ByteBuffers so that tens of millions of entries add nothing to the heap or to GC work.
+ *
+ * The map is split into segments, each with its own index, data chunks and StampedLock. An index
+ * slot is 16 bytes: the key (0 = empty, -1 = deleted) and a reference to the record in the
+ * segment's data chunks. A record is the link expiry (unsigned epoch seconds, 0 = none), the URL
+ * length and the UTF-8 URL bytes. Overwritten and removed records stay in their chunk as garbage
+ * until garbage outweighs live data, at which point the segment is compacted.
+ *
+ * Lookups read optimistically without taking the lock and retry under the read lock only if a
+ * writer got in the way. Replaced buffers are never freed explicitly, so a racing reader can see
+ * stale bytes but never touch released memory.
+ */
+public class OffHeapUrlMap {
+
+    private static final long EMPTY = 0;
+    private static final long DELETED = -1;
+    private static final int SLOT_BYTES = 16;
+    private static final int RECORD_HEADER_BYTES = Integer.BYTES + Short.BYTES;
+    private static final int MAX_URL_BYTES = 0xFFFF;
+    private static final long MAX_EXPIRY = 0xFFFFFFFFL;
+    private static final int MIN_CHUNK_BYTES = 64 * 1024;
+    private static final int MAX_CHUNK_BYTES = 16 * 1024 * 1024;
+    private static final int MAX_SLOTS_PER_SEGMENT = 1 << 26;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    public OffHeapUrlMap(long expectedEntries, int segmentCount) {
+        if (segmentCount < 1 || segmentCount > 1 << 16 || Integer.bitCount(segmentCount) != 1) {
+            throw new IllegalArgumentException("Segment count must be a power of two <= 65536");
+        }
+        long slotsPerSegment = (long) Math.ceil(expectedEntries / (double) segmentCount / MAX_LOAD_FACTOR);
+        int slots = (int) Math.min(MAX_SLOTS_PER_SEGMENT, Math.max(16, Long.highestOneBit(slotsPerSegment - 1) << 1));
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(slots);
+        }
+        this.segmentMask = segmentCount - 1;
+    }
+
+    /**
+     * Long URL for the key, or null if absent or expired at the given time
+     */
+    public String get(long key, long nowEpochSecond) {
+        long hash = hash(key);
+        byte[] url = segmentFor(hash).read(key, (int) hash, nowEpochSecond);
+        return url == null ? null : new String(url, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Insert or replace an entry
+     * @param expiresAtEpochSecond link expiry, 0 if the link does not expire
+     */
+    public void put(long key, String longUrl, long expiresAtEpochSecond) {
+        byte[] url = longUrl.getBytes(StandardCharsets.UTF_8);
+        put(key, url, url.length, expiresAtEpochSecond);
+    }
+
+    public void put(long key, byte[] url, int length, long expiresAtEpochSecond) {
+        checkKey(key);
+        if (length > MAX_URL_BYTES) {
+            throw new IllegalArgumentException("URL too long: " + length + " bytes");
+        }
+        long hash = hash(key);
+        segmentFor(hash).put(key, (int) hash, url, length, Math.min(Math.max(0, expiresAtEpochSecond), MAX_EXPIRY));
+    }
+
+    /**
+     * Remove an entry, returning whether it was present
+     */
+    public boolean remove(long key) {
+        checkKey(key);
+        long hash = hash(key);
+        return segmentFor(hash).remove(key, (int) hash);
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.stat(s -> s.size);
+        }
+        return size;
+    }
+
+    /**
+     * Direct memory held by index slots and data chunks
+     */
+    public long offHeapBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.stat(s -> (long) (s.mask + 1) * SLOT_BYTES + s.chunkBytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * Bytes of overwritten or removed records not yet reclaimed by compaction
+     */
+    public long garbageBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.stat(s -> s.garbageBytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * Visit every entry, one segment at a time under its read lock.
+     * The url array is reused between calls; only its first length bytes are valid.
+     */
+    public void forEach(EntryVisitor visitor) throws IOException {
+        byte[] buffer = new byte[MAX_URL_BYTES];
+        for (Segment segment : segments) {
+            segment.forEach(visitor, buffer);
+        }
+    }
+
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void visit(long key, long expiresAtEpochSecond, byte[] url, int length) throws IOException;
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> 32) & segmentMask];
+    }
+
+    private static void checkKey(long key) {
+        if (key == EMPTY || key == DELETED) {
+            throw new IllegalArgumentException("Reserved key " + key);
+        }
+    }
+
+    // MurmurHash3 finalizer: packed codes differ mostly in their high bits
+    private static long hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    private static int recordBytes(ByteBuffer chunk, int offset) {
+        return RECORD_HEADER_BYTES + Short.toUnsignedInt(chunk.getShort(offset + Integer.BYTES));
+    }
+
+    private static final class Segment {
+
+        private final StampedLock lock = new StampedLock();
+
+        // Written under the write lock, read optimistically
+        private ByteBuffer index;
+        private int mask;
+        private ByteBuffer[] chunks = new ByteBuffer[0];
+
+        private int writeOffset;
+        private int nextChunkBytes = MIN_CHUNK_BYTES;
+        private int size;
+        private int deleted;
+        private long chunkBytes;
+        private long liveBytes;
+        private long garbageBytes;
+
+        Segment(int slots) {
+            this.index = allocate(slots * SLOT_BYTES);
+            this.mask = slots - 1;
+        }
+
+        byte[] read(long key, int hash, long nowEpochSecond) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    byte[] url = lookup(key, hash, nowEpochSecond);
+                    if (lock.validate(stamp)) {
+                        return url;
+                    }
+                } catch (RuntimeException e) {
+                    // Torn read while a writer resized or compacted; retry under the lock
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return lookup(key, hash, nowEpochSecond);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void put(long key, int hash, byte[] url, int length, long expiresAtEpochSecond) {
+            long stamp = lock.writeLock();
+            try {
+                int recordBytes = RECORD_HEADER_BYTES + length;
+                long ref = reserve(recordBytes);
+                ByteBuffer chunk = chunks[(int) (ref >>> 32)];
+                int offset = (int) ref;
+                chunk.putInt(offset, (int) expiresAtEpochSecond);
+                chunk.putShort(offset + Integer.BYTES, (short) length);
+                chunk.put(offset + RECORD_HEADER_BYTES, url, 0, length);
+                liveBytes += recordBytes;
+
+                int slot = hash & mask;
+                int firstDeleted = -1;
+                while (true) {
+                    long current = index.getLong(slot * SLOT_BYTES);
+                    if (current == key) {
+                        release(index.getLong(slot * SLOT_BYTES + Long.BYTES));
+                        index.putLong(slot * SLOT_BYTES + Long.BYTES, ref);
+                        break;
+                    }
+                    if (current == EMPTY) {
+                        int target = slot;
+                        if (firstDeleted >= 0) {
+                            target = firstDeleted;
+                            deleted--;
+                        }
+                        // Reference first, so a reader that sees the key finds a complete slot
+                        index.putLong(target * SLOT_BYTES + Long.BYTES, ref);
+                        index.putLong(target * SLOT_BYTES, key);
+                        size++;
+                        break;
+                    }
+                    if (current == DELETED && firstDeleted < 0) {
+                        firstDeleted = slot;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+
+                if (size + deleted > (mask + 1) * MAX_LOAD_FACTOR) {
+                    rehash();
+                }
+                compactIfNeeded();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        boolean remove(long key, int hash) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = findSlot(key, hash);
+                if (slot < 0) {
+                    return false;
+                }
+                release(index.getLong(slot * SLOT_BYTES + Long.BYTES));
+                index.putLong(slot * SLOT_BYTES, DELETED);
+                size--;
+                deleted++;
+                compactIfNeeded();
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        long stat(ToLongFunction<Segment> statistic) {
+            long stamp = lock.readLock();
+            try {
+                return statistic.applyAsLong(this);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void forEach(EntryVisitor visitor, byte[] buffer) throws IOException {
+            long stamp = lock.readLock();
+            try {
+                for (int slot = 0; slot <= mask; slot++) {
+                    long key = index.getLong(slot * SLOT_BYTES);
+                    if (key == EMPTY || key == DELETED) {
+                        continue;
+                    }
+                    long ref = index.getLong(slot * SLOT_BYTES + Long.BYTES);
+                    ByteBuffer chunk = chunks[(int) (ref >>> 32)];
+                    int offset = (int) ref;
+                    int length = Short.toUnsignedInt(chunk.getShort(offset + Integer.BYTES));
+                    chunk.get(offset + RECORD_HEADER_BYTES, buffer, 0, length);
+                    visitor.visit(key, Integer.toUnsignedLong(chunk.getInt(offset)), buffer, length);
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private byte[] lookup(long key, int hash, long nowEpochSecond) {
+            int slot = findSlot(key, hash);
+            if (slot < 0) {
+                return null;
+            }
+            long ref = index.getLong(slot * SLOT_BYTES + Long.BYTES);
+            ByteBuffer chunk = chunks[(int) (ref >>> 32)];
+            int offset = (int) ref;
+            long expiresAt = Integer.toUnsignedLong(chunk.getInt(offset));
+            if (expiresAt != 0 && nowEpochSecond >= expiresAt) {
+                return null;
+            }
+            byte[] url = new byte[Short.toUnsignedInt(chunk.getShort(offset + Integer.BYTES))];
+            chunk.get(offset + RECORD_HEADER_BYTES, url);
+            return url;
+        }
+
+        private int findSlot(long key, int hash) {
+            ByteBuffer slots = index;
+            int slotMask = mask;
+            int slot = hash & slotMask;
+            for (int probes = 0; probes <= slotMask; probes++) {
+                long current = slots.getLong(slot * SLOT_BYTES);
+                if (current == key) {
+                    return slot;
+                }
+                if (current == EMPTY) {
+                    return -1;
+                }
+                slot = (slot + 1) & slotMask;
+            }
+            return -1;
+        }
+
+        /**
+         * Make room for a record at the end of the last chunk, returning its reference
+         */
+        private long reserve(int recordBytes) {
+            ByteBuffer chunk = chunks.length == 0 ? null : chunks[chunks.length - 1];
+            if (chunk == null || writeOffset + recordBytes > chunk.capacity()) {
+                int capacity = Math.max(nextChunkBytes, recordBytes);
+                ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+                grown[chunks.length] = allocate(capacity);
+                chunks = grown;
+                chunkBytes += capacity;
+                writeOffset = 0;
+                nextChunkBytes = Math.min(nextChunkBytes * 2, MAX_CHUNK_BYTES);
+            }
+            long ref = ((long) (chunks.length - 1) << 32) | writeOffset;
+            writeOffset += recordBytes;
+            return ref;
+        }
+
+        private void release(long ref) {
+            int recordBytes = recordBytes(chunks[(int) (ref >>> 32)], (int) ref);
+            liveBytes -= recordBytes;
+            garbageBytes += recordBytes;
+        }
+
+        /**
+         * Rebuild the index without deleted slots, doubling it if live entries alone fill half of it
+         */
+        private void rehash() {
+            int slots = mask + 1;
+            if (size > slots * MAX_LOAD_FACTOR / 2) {
+                if (slots >= MAX_SLOTS_PER_SEGMENT) {
+                    throw new IllegalStateException("Replica segment full at " + size + " entries");
+                }
+                slots *= 2;
+            }
+            ByteBuffer rebuilt = allocate(slots * SLOT_BYTES);
+            int rebuiltMask = slots - 1;
+            for (int slot = 0; slot <= mask; slot++) {
+                long key = index.getLong(slot * SLOT_BYTES);
+                if (key == EMPTY || key == DELETED) {
+                    continue;
+                }
+                int target = (int) hash(key) & rebuiltMask;
+                while (rebuilt.getLong(target * SLOT_BYTES) != EMPTY) {
+                    target = (target + 1) & rebuiltMask;
+                }
+                rebuilt.putLong(target * SLOT_BYTES + Long.BYTES, index.getLong(slot * SLOT_BYTES + Long.BYTES));
+                rebuilt.putLong(target * SLOT_BYTES, key);
+            }
+            index = rebuilt;
+            mask = rebuiltMask;
+            deleted = 0;
+        }
+
+        /**
+         * Copy live records into fresh chunks once more than half the data bytes are garbage
+         */
+        private void compactIfNeeded() {
+            if (garbageBytes < MIN_CHUNK_BYTES || garbageBytes < liveBytes) {
+                return;
+            }
+            ByteBuffer[] oldChunks = chunks;
+            chunks = new ByteBuffer[0];
+            chunkBytes = 0;
+            writeOffset = 0;
+            nextChunkBytes = (int) Math.min(MAX_CHUNK_BYTES, Math.max(MIN_CHUNK_BYTES, liveBytes));
+            for (int slot = 0; slot <= mask; slot++) {
+                long key = index.getLong(slot * SLOT_BYTES);
+                if (key == EMPTY || key == DELETED) {
+                    continue;
+                }
+                long oldRef = index.getLong(slot * SLOT_BYTES + Long.BYTES);
+                ByteBuffer oldChunk = oldChunks[(int) (oldRef >>> 32)];
+                int recordBytes = recordBytes(oldChunk, (int) oldRef);
+                long ref = reserve(recordBytes);
+                chunks[(int) (ref >>> 32)].put((int) ref, oldChunk, (int) oldRef, recordBytes);
+                index.putLong(slot * SLOT_BYTES + Long.BYTES, ref);
+            }
+            garbageBytes = 0;
+        }
+    }
+}
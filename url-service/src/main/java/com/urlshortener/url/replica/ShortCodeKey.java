@@ -0,0 +1,51 @@
+package com.urlshortener.url.replica;
+
+import com.urlshortener.common.constants.AppConstants;
+
+import java.util.Arrays;
+
+/**
+ * Packs a short code into a single long so it can be used as a primitive map key.
+ *
+ * Each character takes 6 bits (the Base62 alphabet plus '-' and '_' for custom aliases) and
+ * the length takes the low 4 bits, so any code of up to 10 characters packs losslessly;
+ * a generated 7 character code uses 46 bits. A packed key is never 0 or -1, which
+ * OffHeapUrlMap reserves for empty and deleted slots.
+ */
+public final class ShortCodeKey {
+
+    public static final long NONE = 0;
+
+    private static final int MAX_LENGTH = 10;
+    private static final String ALPHABET = AppConstants.SHORT_CODE_CHARACTERS + "-_";
+    private static final byte[] CHAR_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(CHAR_VALUES, (byte) -1);
+        for (int i = 0; i < ALPHABET.length(); i++) {
+            CHAR_VALUES[ALPHABET.charAt(i)] = (byte) i;
+        }
+    }
+
+    private ShortCodeKey() {}
+
+    /**
+     * Packed key for the code, or NONE if it cannot be a short code
+     */
+    public static long pack(String shortCode) {
+        int length = shortCode.length();
+        if (length == 0 || length > MAX_LENGTH) {
+            return NONE;
+        }
+        long key = 0;
+        for (int i = 0; i < length; i++) {
+            char c = shortCode.charAt(i);
+            int value = c < 128 ? CHAR_VALUES[c] : -1;
+            if (value < 0) {
+                return NONE;
+            }
+            key = (key << 6) | value;
+        }
+        return (key << 4) | length;
+    }
+}
@@ -0,0 +1,335 @@
+package com.urlshortener.url.replica;
+
+import com.urlshortener.common.constants.KafkaTopics;
+import com.urlshortener.common.event.BaseEvent;
+import com.urlshortener.common.event.UrlCreatedEvent;
+import com.urlshortener.common.event.UrlDeletedEvent;
+import com.urlshortener.common.event.UrlExpiredEvent;
+import com.urlshortener.common.event.codec.EventCodec;
+import com.urlshortener.url.repository.UrlBulkRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetOutOfRangeException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Optional full in-process replica of the active urls table, so redirects never leave the process.
+ *
+ * Entries live off-heap in an OffHeapUrlMap keyed by the packed short code. At startup the
+ * replica is loaded from the local snapshot file if a recent one exists, otherwise from the urls
+ * table, and then kept current by reading every partition of url-lifecycle-events from the
+ * offsets captured before the load. It only answers lookups once it has caught up with the topic.
+ *
+ * A miss is not authoritative: the code may have been created moments ago on another instance,
+ * so UrlService falls through to the caches and the database as before. Expired entries are
+ * treated as misses for the same reason.
+ *
+ * Metrics: url.replica.entries, url.replica.offheap.bytes, url.replica.garbage.bytes and
+ * url.replica.lookups (tagged hit/miss).
+ */
+@Component
+@Slf4j
+public class UrlReplica {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000;
+
+    private final UrlBulkRepository urlBulkRepository;
+    private final String bootstrapServers;
+    private final boolean enabled;
+    private final long expectedEntries;
+    private final int segments;
+    private final int bootstrapPageSize;
+    private final UrlReplicaSnapshot snapshot;
+    private final Duration snapshotInterval;
+    private final Duration snapshotMaxAge;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    private volatile OffHeapUrlMap map;
+    private volatile boolean ready;
+    private volatile boolean running;
+    private volatile KafkaConsumer<String, byte[]> consumer;
+    private Thread replicator;
+
+    public UrlReplica(
+            UrlBulkRepository urlBulkRepository,
+            MeterRegistry meterRegistry,
+            @Value("${spring.kafka.bootstrap-servers}") String bootstrapServers,
+            @Value("${url-replica.enabled:false}") boolean enabled,
+            @Value("${url-replica.expected-entries:1000000}") long expectedEntries,
+            @Value("${url-replica.segments:64}") int segments,
+            @Value("${url-replica.bootstrap-page-size:10000}") int bootstrapPageSize,
+            @Value("${url-replica.snapshot.file:}") String snapshotFile,
+            @Value("${url-replica.snapshot.interval:15m}") Duration snapshotInterval,
+            @Value("${url-replica.snapshot.max-age:24h}") Duration snapshotMaxAge) {
+        this.urlBulkRepository = urlBulkRepository;
+        this.bootstrapServers = bootstrapServers;
+        this.enabled = enabled;
+        this.expectedEntries = expectedEntries;
+        this.segments = segments;
+        this.bootstrapPageSize = bootstrapPageSize;
+        this.snapshot = snapshotFile.isBlank() ? null : new UrlReplicaSnapshot(Path.of(snapshotFile));
+        this.snapshotInterval = snapshotInterval;
+        this.snapshotMaxAge = snapshotMaxAge;
+
+        Gauge.builder("url.replica.entries", this, replica -> replica.stat(OffHeapUrlMap::size))
+                .description("URLs held in the in-process replica")
+                .register(meterRegistry);
+        Gauge.builder("url.replica.offheap.bytes", this, replica -> replica.stat(OffHeapUrlMap::offHeapBytes))
+                .description("Direct memory used by the replica")
+                .register(meterRegistry);
+        Gauge.builder("url.replica.garbage.bytes", this, replica -> replica.stat(OffHeapUrlMap::garbageBytes))
+                .description("Replica bytes held by replaced or removed entries")
+                .register(meterRegistry);
+        this.hitCounter = Counter.builder("url.replica.lookups").tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder("url.replica.lookups").tag("result", "miss").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        replicator = Thread.ofPlatform().name("url-replica").daemon().start(this::replicate);
+    }
+
+    /**
+     * Long URL if the replica is loaded and holds a live entry for the code, otherwise null
+     */
+    public String get(String shortCode) {
+        if (!ready) {
+            return null;
+        }
+        long key = ShortCodeKey.pack(shortCode);
+        if (key == ShortCodeKey.NONE) {
+            return null;
+        }
+        String longUrl = map.get(key, System.currentTimeMillis() / 1000);
+        (longUrl != null ? hitCounter : missCounter).increment();
+        return longUrl;
+    }
+
+    /**
+     * Apply a change made on this instance without waiting for its lifecycle event
+     */
+    public void put(String shortCode, String longUrl, LocalDateTime expiresAt) {
+        OffHeapUrlMap current = map;
+        long key = ShortCodeKey.pack(shortCode);
+        if (current != null && key != ShortCodeKey.NONE) {
+            current.put(key, longUrl, epochSecond(expiresAt));
+        }
+    }
+
+    public void remove(String shortCode) {
+        OffHeapUrlMap current = map;
+        long key = ShortCodeKey.pack(shortCode);
+        if (current != null && key != ShortCodeKey.NONE) {
+            current.remove(key);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        KafkaConsumer<String, byte[]> current = consumer;
+        if (current != null) {
+            current.wakeup();
+        }
+        if (replicator != null) {
+            try {
+                // Lets the replicator write its final snapshot
+                replicator.join(SHUTDOWN_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void replicate() {
+        try (KafkaConsumer<String, byte[]> kafkaConsumer = createConsumer()) {
+            consumer = kafkaConsumer;
+            List<TopicPartition> partitions = kafkaConsumer.partitionsFor(KafkaTopics.URL_LIFECYCLE_EVENTS).stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            kafkaConsumer.assign(partitions);
+
+            Map<TopicPartition, Long> catchUpOffsets = load(kafkaConsumer, partitions, true);
+            long nextSnapshot = System.currentTimeMillis() + snapshotInterval.toMillis();
+            while (running) {
+                try {
+                    for (ConsumerRecord<String, byte[]> record : kafkaConsumer.poll(POLL_TIMEOUT)) {
+                        apply(record.value());
+                    }
+                } catch (OffsetOutOfRangeException e) {
+                    log.warn("URL replica fell behind url-lifecycle-events retention, reloading from the database");
+                    ready = false;
+                    catchUpOffsets = load(kafkaConsumer, partitions, false);
+                    continue;
+                } catch (WakeupException e) {
+                    break;
+                }
+
+                if (!ready && caughtUp(kafkaConsumer, catchUpOffsets)) {
+                    ready = true;
+                    log.info("URL replica ready with {} entries ({} MB off-heap)",
+                            map.size(), map.offHeapBytes() / (1024 * 1024));
+                }
+                if (ready && snapshot != null && System.currentTimeMillis() >= nextSnapshot) {
+                    writeSnapshot(kafkaConsumer, partitions);
+                    nextSnapshot = System.currentTimeMillis() + snapshotInterval.toMillis();
+                }
+            }
+
+            if (ready && snapshot != null) {
+                writeSnapshot(kafkaConsumer, partitions);
+            }
+        } catch (WakeupException e) {
+            // Shut down while loading
+        } catch (Exception e) {
+            log.error("URL replica stopped, redirects fall back to the caches", e);
+        } finally {
+            ready = false;
+            consumer = null;
+        }
+    }
+
+    /**
+     * Fill a new map from the snapshot file or the database, swap it in and position the
+     * consumer where that state left off
+     * @return end offsets at the time of loading, which the consumer must reach to be caught up
+     */
+    private Map<TopicPartition, Long> load(KafkaConsumer<String, byte[]> kafkaConsumer,
+                                           List<TopicPartition> partitions, boolean allowSnapshot) {
+        long startTime = System.currentTimeMillis();
+        OffHeapUrlMap loaded = new OffHeapUrlMap(expectedEntries, segments);
+        Map<Integer, Long> offsets = allowSnapshot && snapshot != null ? snapshot.read(loaded, snapshotMaxAge) : null;
+        String source = "snapshot";
+        if (!coversPartitions(offsets, partitions)) {
+            loaded = new OffHeapUrlMap(expectedEntries, segments);
+            offsets = loadFromDatabase(kafkaConsumer, partitions, loaded);
+            source = "database";
+        }
+
+        map = loaded;
+        for (TopicPartition partition : partitions) {
+            kafkaConsumer.seek(partition, offsets.get(partition.partition()));
+        }
+        log.info("URL replica loaded {} entries from {} in {}ms, catching up on lifecycle events",
+                loaded.size(), source, System.currentTimeMillis() - startTime);
+        return kafkaConsumer.endOffsets(partitions);
+    }
+
+    private Map<Integer, Long> loadFromDatabase(KafkaConsumer<String, byte[]> kafkaConsumer,
+                                                List<TopicPartition> partitions, OffHeapUrlMap target) {
+        // Captured before the scan: every change the scan might miss is at or after these offsets
+        Map<Integer, Long> offsets = new HashMap<>();
+        kafkaConsumer.endOffsets(partitions).forEach((partition, offset) -> offsets.put(partition.partition(), offset));
+
+        long lastId = 0;
+        while (lastId >= 0) {
+            lastId = urlBulkRepository.forEachActiveUrlAfter(lastId, bootstrapPageSize, (shortCode, longUrl, expiresAt) -> {
+                long key = ShortCodeKey.pack(shortCode);
+                if (key != ShortCodeKey.NONE) {
+                    target.put(key, longUrl, epochSecond(expiresAt));
+                }
+            });
+        }
+        return offsets;
+    }
+
+    private static boolean coversPartitions(Map<Integer, Long> offsets, List<TopicPartition> partitions) {
+        if (offsets == null || offsets.size() != partitions.size()) {
+            return false;
+        }
+        return partitions.stream().allMatch(partition -> offsets.containsKey(partition.partition()));
+    }
+
+    private void apply(byte[] value) {
+        try {
+            BaseEvent event = EventCodec.decode(value);
+            if (event instanceof UrlCreatedEvent created) {
+                long key = ShortCodeKey.pack(created.getShortCode());
+                if (key != ShortCodeKey.NONE) {
+                    map.put(key, created.getLongUrl(), epochSecond(created.getExpiresAt()));
+                }
+            } else if (event instanceof UrlDeletedEvent deleted) {
+                remove(deleted.getShortCode());
+            } else if (event instanceof UrlExpiredEvent expired) {
+                remove(expired.getShortCode());
+            }
+        } catch (Exception e) {
+            log.error("Failed to apply URL lifecycle event to replica ({} bytes)", value.length, e);
+        }
+    }
+
+    private boolean caughtUp(KafkaConsumer<String, byte[]> kafkaConsumer, Map<TopicPartition, Long> targets) {
+        for (Map.Entry<TopicPartition, Long> target : targets.entrySet()) {
+            if (kafkaConsumer.position(target.getKey()) < target.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeSnapshot(KafkaConsumer<String, byte[]> kafkaConsumer, List<TopicPartition> partitions) {
+        long startTime = System.currentTimeMillis();
+        try {
+            // Taken before writing: entries applied meanwhile are replayed again after a restart
+            Map<Integer, Long> offsets = new HashMap<>();
+            for (TopicPartition partition : partitions) {
+                offsets.put(partition.partition(), kafkaConsumer.position(partition));
+            }
+            snapshot.write(map, offsets);
+            log.info("URL replica snapshot written in {}ms", System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            log.error("Failed to write URL replica snapshot", e);
+        }
+    }
+
+    private KafkaConsumer<String, byte[]> createConsumer() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        // Partitions are assigned and positioned manually, so no group and no committed offsets
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "none");
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 1000);
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        // Decoded in apply(), so one bad record is logged and skipped rather than stopping the consumer
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        return new KafkaConsumer<>(config);
+    }
+
+    private long stat(ToLongFunction<OffHeapUrlMap> statistic) {
+        OffHeapUrlMap current = map;
+        return current == null ? 0 : statistic.applyAsLong(current);
+    }
+
+    private static long epochSecond(LocalDateTime expiresAt) {
+        return expiresAt == null ? 0 : expiresAt.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+}
@@ -0,0 +1,105 @@
+package com.urlshortener.url.replica;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Local snapshot file of the replica, so a restart does not have to re-read the whole urls table.
+ *
+ * The file records the url-lifecycle-events offset of every partition at the time it was written,
+ * followed by the entries. On load the replica is filled from the file and the consumer resumes
+ * from those offsets; events are idempotent, so replaying ones already reflected in the file is
+ * harmless. Written to a temporary file and moved into place, so a crash never leaves a torn file.
+ */
+@Slf4j
+public class UrlReplicaSnapshot {
+
+    private static final int MAGIC = 0x55524C52; // "URLR"
+    private static final int VERSION = 1;
+    private static final long END_OF_ENTRIES = 0;
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private final Path path;
+
+    public UrlReplicaSnapshot(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Write the map and the partition offsets it reflects
+     */
+    public void write(OffHeapUrlMap map, Map<Integer, Long> offsets) throws IOException {
+        Files.createDirectories(path.getParent());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_BYTES))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(offsets.size());
+            for (Map.Entry<Integer, Long> offset : offsets.entrySet()) {
+                out.writeInt(offset.getKey());
+                out.writeLong(offset.getValue());
+            }
+            map.forEach((key, expiresAt, url, length) -> {
+                out.writeLong(key);
+                out.writeInt((int) expiresAt);
+                out.writeShort(length);
+                out.write(url, 0, length);
+            });
+            out.writeLong(END_OF_ENTRIES);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Load the snapshot into an empty map and return its partition offsets,
+     * or null if there is no usable snapshot (missing, older than maxAge, or unreadable)
+     */
+    public Map<Integer, Long> read(OffHeapUrlMap map, Duration maxAge) {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path), BUFFER_BYTES))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.warn("Ignoring replica snapshot {} with unknown format", path);
+                return null;
+            }
+            long writtenAt = in.readLong();
+            if (System.currentTimeMillis() - writtenAt > maxAge.toMillis()) {
+                // The events since then may no longer be retained by Kafka
+                log.info("Ignoring replica snapshot {} older than {}", path, maxAge);
+                return null;
+            }
+            int partitions = in.readInt();
+            Map<Integer, Long> offsets = new HashMap<>();
+            for (int i = 0; i < partitions; i++) {
+                offsets.put(in.readInt(), in.readLong());
+            }
+            byte[] url = new byte[0xFFFF];
+            long key;
+            while ((key = in.readLong()) != END_OF_ENTRIES) {
+                long expiresAt = Integer.toUnsignedLong(in.readInt());
+                int length = in.readUnsignedShort();
+                in.readFully(url, 0, length);
+                map.put(key, url, length, expiresAt);
+            }
+            return offsets;
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to read replica snapshot {}", path, e);
+            return null;
+        }
+    }
+}
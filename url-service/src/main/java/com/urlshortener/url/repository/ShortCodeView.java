@@ -0,0 +1,11 @@
+package com.urlshortener.url.repository;
+
+/**
+ * Projection of a URL row down to its id and short code (used for keyset scans)
+ */
+public interface ShortCodeView {
+
+    Long getId();
+
+    String getShortCode();
+}
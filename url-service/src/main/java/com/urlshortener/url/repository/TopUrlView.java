@@ -0,0 +1,15 @@
+package com.urlshortener.url.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of a URL row down to what the redirect cache needs (used for cache warm-up)
+ */
+public interface TopUrlView {
+
+    String getShortCode();
+
+    String getLongUrl();
+
+    LocalDateTime getExpiresAt();
+}
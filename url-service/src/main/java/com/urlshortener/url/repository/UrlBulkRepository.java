@@ -0,0 +1,218 @@
+package com.urlshortener.url.repository;
+
+import com.urlshortener.url.entity.Url;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based statements that JPA cannot express as a single round trip
+ */
+@Repository
+@RequiredArgsConstructor
+public class UrlBulkRepository {
+
+    private static final String ADD_CLICK_COUNTS_SQL =
+            "UPDATE urls u SET click_count = u.click_count + d.delta " +
+            "FROM unnest(?::text[], ?::bigint[]) AS d(short_code, delta) " +
+            "WHERE u.short_code = d.short_code";
+
+    private static final String ACTIVE_URLS_AFTER_SQL =
+            "SELECT id, short_code, long_url, expires_at FROM urls " +
+            "WHERE is_active = true AND id > ? ORDER BY id LIMIT ?";
+
+    private static final String INSERT_URL_SQL =
+            "INSERT INTO urls (short_code, long_url, user_id, created_at, expires_at, click_count, is_active, custom_alias) " +
+            "VALUES (?, ?, ?, ?, ?, 0, true, ?) " +
+            "ON CONFLICT (short_code) DO NOTHING RETURNING id";
+
+    private static final String INSERT_URLS_SQL =
+            "INSERT INTO urls (short_code, long_url, user_id, created_at, expires_at, click_count, is_active, custom_alias) " +
+            "SELECT d.short_code, d.long_url, d.user_id, d.created_at, d.expires_at, 0, true, d.custom_alias " +
+            "FROM unnest(?::text[], ?::text[], ?::bigint[], ?::timestamp[], ?::timestamp[], ?::boolean[]) " +
+            "AS d(short_code, long_url, user_id, created_at, expires_at, custom_alias) " +
+            "ON CONFLICT (short_code) DO NOTHING RETURNING id, short_code";
+
+    // Walks the expires_at partial index; SKIP LOCKED leaves rows being changed by a request alone
+    private static final String DEACTIVATE_EXPIRED_SQL =
+            "WITH expired AS (" +
+            "SELECT id FROM urls WHERE expires_at <= ? AND is_active = true " +
+            "ORDER BY expires_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "UPDATE urls u SET is_active = false FROM expired e WHERE u.id = e.id " +
+            "RETURNING u.short_code, u.expires_at";
+
+    private static final String DEACTIVATE_EXPIRED_CODES_SQL =
+            "UPDATE urls SET is_active = false " +
+            "WHERE short_code = ANY(?::text[]) AND is_active = true AND expires_at <= ? " +
+            "RETURNING short_code, expires_at";
+
+    private static final String EXPIRING_BETWEEN_SQL =
+            "SELECT short_code, expires_at FROM urls " +
+            "WHERE expires_at > ? AND expires_at <= ? AND is_active = true ORDER BY expires_at LIMIT ?";
+
+    private static final String SHORT_CODE_SEQUENCE = "short_code_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Add click deltas to many URLs in one UPDATE statement
+     * @return number of rows updated
+     */
+    public int addClickCounts(Map<String, Long> deltas) {
+        String[] shortCodes = new String[deltas.size()];
+        Long[] clicks = new Long[deltas.size()];
+        int i = 0;
+        for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+            shortCodes[i] = entry.getKey();
+            clicks[i] = entry.getValue();
+            i++;
+        }
+
+        return jdbcTemplate.update(ADD_CLICK_COUNTS_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("text", shortCodes));
+            ps.setArray(2, connection.createArrayOf("bigint", clicks));
+        });
+    }
+
+    /**
+     * Insert a URL unless its short code is taken, relying on the unique constraint
+     * rather than a separate existence check
+     * @return the new row id, or null if the short code already exists
+     */
+    public Long insertIfAbsent(String shortCode, String longUrl, Long userId, LocalDateTime createdAt,
+                               LocalDateTime expiresAt, boolean customAlias) {
+        List<Long> ids = jdbcTemplate.queryForList(INSERT_URL_SQL, Long.class,
+                shortCode, longUrl, userId, Timestamp.valueOf(createdAt),
+                expiresAt == null ? null : Timestamp.valueOf(expiresAt), customAlias);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    /**
+     * Insert many URLs in one statement, skipping any whose short code is taken
+     * (including by an earlier row of the same batch)
+     * @return ids of the inserted rows by short code
+     */
+    public Map<String, Long> insertAllIfAbsent(List<Url> urls) {
+        int size = urls.size();
+        String[] shortCodes = new String[size];
+        String[] longUrls = new String[size];
+        Long[] userIds = new Long[size];
+        Timestamp[] createdAts = new Timestamp[size];
+        Timestamp[] expiresAts = new Timestamp[size];
+        Boolean[] customAliases = new Boolean[size];
+        for (int i = 0; i < size; i++) {
+            Url url = urls.get(i);
+            shortCodes[i] = url.getShortCode();
+            longUrls[i] = url.getLongUrl();
+            userIds[i] = url.getUserId();
+            createdAts[i] = Timestamp.valueOf(url.getCreatedAt());
+            expiresAts[i] = url.getExpiresAt() == null ? null : Timestamp.valueOf(url.getExpiresAt());
+            customAliases[i] = url.getCustomAlias();
+        }
+
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query(INSERT_URLS_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("text", shortCodes));
+            ps.setArray(2, connection.createArrayOf("text", longUrls));
+            ps.setArray(3, connection.createArrayOf("bigint", userIds));
+            ps.setArray(4, connection.createArrayOf("timestamp", createdAts));
+            ps.setArray(5, connection.createArrayOf("timestamp", expiresAts));
+            ps.setArray(6, connection.createArrayOf("boolean", customAliases));
+        }, rs -> {
+            ids.put(rs.getString("short_code"), rs.getLong("id"));
+        });
+        return ids;
+    }
+
+    /**
+     * Increment of the short code sequence, which is the size of each leased block.
+     * Creates the sequence with the given increment if it does not exist yet.
+     */
+    public int shortCodeBlockSize(int defaultBlockSize) {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SHORT_CODE_SEQUENCE + " INCREMENT BY " + defaultBlockSize);
+        return jdbcTemplate.queryForObject(
+                "SELECT increment_by FROM pg_sequences WHERE schemaname = current_schema() AND sequencename = ?",
+                Integer.class, SHORT_CODE_SEQUENCE);
+    }
+
+    /**
+     * Lease the next block of short code IDs; the block is [start, start + block size)
+     */
+    public long nextShortCodeBlock() {
+        return jdbcTemplate.queryForObject("SELECT nextval('" + SHORT_CODE_SEQUENCE + "')", Long.class);
+    }
+
+    /**
+     * Stream one keyset page of active URLs, in id order, to the handler
+     * @return the last id in the page, or -1 if the page was empty
+     */
+    public long forEachActiveUrlAfter(long afterId, int pageSize, ActiveUrlHandler handler) {
+        long[] lastId = {-1};
+        jdbcTemplate.query(ACTIVE_URLS_AFTER_SQL, rs -> {
+            Timestamp expiresAt = rs.getTimestamp("expires_at");
+            handler.handle(rs.getString("short_code"), rs.getString("long_url"),
+                    expiresAt == null ? null : expiresAt.toLocalDateTime());
+            lastId[0] = rs.getLong("id");
+        }, afterId, pageSize);
+        return lastId[0];
+    }
+
+    /**
+     * Deactivate up to limit URLs that expired by now, oldest expiry first
+     * @return expiry time of each deactivated URL by short code
+     */
+    public Map<String, LocalDateTime> deactivateExpired(LocalDateTime now, int limit) {
+        return queryExpiries(DEACTIVATE_EXPIRED_SQL, ps -> {
+            ps.setTimestamp(1, Timestamp.valueOf(now));
+            ps.setInt(2, limit);
+        });
+    }
+
+    /**
+     * Deactivate those of the given URLs that are still active and have expired by now
+     * @return expiry time of each deactivated URL by short code
+     */
+    public Map<String, LocalDateTime> deactivateExpired(Collection<String> shortCodes, LocalDateTime now) {
+        return queryExpiries(DEACTIVATE_EXPIRED_CODES_SQL, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("text", shortCodes.toArray()));
+            ps.setTimestamp(2, Timestamp.valueOf(now));
+        });
+    }
+
+    /**
+     * Active URLs expiring in (after, until], soonest first
+     * @return expiry time by short code, in expiry order
+     */
+    public Map<String, LocalDateTime> findExpiringBetween(LocalDateTime after, LocalDateTime until, int limit) {
+        return queryExpiries(EXPIRING_BETWEEN_SQL, ps -> {
+            ps.setTimestamp(1, Timestamp.valueOf(after));
+            ps.setTimestamp(2, Timestamp.valueOf(until));
+            ps.setInt(3, limit);
+        });
+    }
+
+    private Map<String, LocalDateTime> queryExpiries(String sql, PreparedStatementSetter setter) {
+        Map<String, LocalDateTime> expiries = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, setter, rs -> {
+            expiries.put(rs.getString("short_code"), rs.getTimestamp("expires_at").toLocalDateTime());
+        });
+        return expiries;
+    }
+
+    @FunctionalInterface
+    public interface ActiveUrlHandler {
+        void handle(String shortCode, String longUrl, LocalDateTime expiresAt);
+    }
+}
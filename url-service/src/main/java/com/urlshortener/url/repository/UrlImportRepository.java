@@ -0,0 +1,145 @@
+package com.urlshortener.url.repository;
+
+import com.urlshortener.url.importer.ImportCheckpoint;
+import com.urlshortener.url.importer.ImportRecord;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Bulk loading of existing short code mappings over the Postgres COPY protocol (see UrlImporter)
+ */
+@Repository
+@RequiredArgsConstructor
+public class UrlImportRepository {
+
+    private static final int COPY_BUFFER_BYTES = 1 << 16;
+
+    // Session-local and emptied at commit, so each chunk starts with an empty staging table
+    private static final String CREATE_STAGING_SQL =
+            "CREATE TEMP TABLE IF NOT EXISTS url_import_staging (" +
+            "short_code TEXT, long_url TEXT, user_id BIGINT, created_at TIMESTAMP, " +
+            "expires_at TIMESTAMP, click_count BIGINT) ON COMMIT DELETE ROWS";
+
+    private static final String COPY_STAGING_SQL =
+            "COPY url_import_staging (short_code, long_url, user_id, created_at, expires_at, click_count) " +
+            "FROM STDIN WITH (FORMAT csv)";
+
+    private static final String MERGE_STAGING_SQL =
+            "INSERT INTO urls (short_code, long_url, user_id, created_at, expires_at, click_count, is_active, custom_alias) " +
+            "SELECT short_code, long_url, COALESCE(user_id, ?), COALESCE(created_at, LOCALTIMESTAMP), " +
+            "expires_at, COALESCE(click_count, 0), true, false " +
+            "FROM url_import_staging " +
+            "ON CONFLICT (short_code) DO NOTHING";
+
+    private static final String FIND_CHECKPOINT_SQL =
+            "SELECT name, lines_read, imported, duplicates, invalid, completed " +
+            "FROM url_import_checkpoints WHERE name = ?";
+
+    private static final String SAVE_CHECKPOINT_SQL =
+            "INSERT INTO url_import_checkpoints (name, lines_read, imported, duplicates, invalid, completed, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, LOCALTIMESTAMP) " +
+            "ON CONFLICT (name) DO UPDATE SET lines_read = EXCLUDED.lines_read, imported = EXCLUDED.imported, " +
+            "duplicates = EXCLUDED.duplicates, invalid = EXCLUDED.invalid, completed = EXCLUDED.completed, " +
+            "updated_at = EXCLUDED.updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * COPY the records emitted by the source into the staging table, then move them into urls
+     * in one INSERT ... SELECT, skipping short codes that already exist. COPY itself would abort
+     * on the first duplicate, hence the staging table. Must run inside a transaction.
+     * @return number of rows inserted into urls
+     */
+    public int copyIntoUrls(ImportRecordSource source, long defaultUserId) {
+        jdbcTemplate.execute(CREATE_STAGING_SQL);
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                    new PGCopyOutputStream(pgConnection, COPY_STAGING_SQL, COPY_BUFFER_BYTES),
+                    StandardCharsets.UTF_8), COPY_BUFFER_BYTES)) {
+                source.emit(record -> writeRow(out, record));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        });
+        return jdbcTemplate.update(MERGE_STAGING_SQL, defaultUserId);
+    }
+
+    /**
+     * @return the saved progress of the named import, or null if it has not started
+     */
+    public ImportCheckpoint findCheckpoint(String name) {
+        List<ImportCheckpoint> checkpoints = jdbcTemplate.query(FIND_CHECKPOINT_SQL, (rs, rowNum) ->
+                new ImportCheckpoint(rs.getString("name"), rs.getLong("lines_read"), rs.getLong("imported"),
+                        rs.getLong("duplicates"), rs.getLong("invalid"), rs.getBoolean("completed")), name);
+        return checkpoints.isEmpty() ? null : checkpoints.get(0);
+    }
+
+    public void saveCheckpoint(ImportCheckpoint checkpoint) {
+        jdbcTemplate.update(SAVE_CHECKPOINT_SQL, checkpoint.name(), checkpoint.linesRead(), checkpoint.imported(),
+                checkpoint.duplicates(), checkpoint.invalid(), checkpoint.completed());
+    }
+
+    /**
+     * One row in COPY csv format: strings always quoted, nulls as empty unquoted fields
+     */
+    private static void writeRow(Writer out, ImportRecord record) throws IOException {
+        writeQuoted(out, record.shortCode());
+        out.write(',');
+        writeQuoted(out, record.longUrl());
+        out.write(',');
+        writeValue(out, record.userId());
+        out.write(',');
+        writeValue(out, record.createdAt());
+        out.write(',');
+        writeValue(out, record.expiresAt());
+        out.write(',');
+        writeValue(out, record.clickCount());
+        out.write('\n');
+    }
+
+    private static void writeQuoted(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private static void writeValue(Writer out, Object value) throws IOException {
+        // LocalDateTime.toString() is ISO-8601, which Postgres accepts as a timestamp
+        if (value != null) {
+            out.write(value.toString());
+        }
+    }
+
+    /**
+     * Produces the records of one chunk while the COPY is open
+     */
+    @FunctionalInterface
+    public interface ImportRecordSource {
+        void emit(ImportRecordSink sink) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface ImportRecordSink {
+        void accept(ImportRecord record) throws IOException;
+    }
+}
@@ -0,0 +1,70 @@
+package com.urlshortener.url.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Rows of the url_outbox table: appended in the caller's transaction, drained by UrlOutboxRelay
+ */
+@Repository
+@RequiredArgsConstructor
+public class UrlOutboxRepository {
+
+    private static final String APPEND_SQL =
+            "INSERT INTO url_outbox (topic, event_key, payload, created_at) " +
+            "SELECT ?, d.event_key, d.payload, LOCALTIMESTAMP " +
+            "FROM unnest(?::text[], ?::bytea[]) WITH ORDINALITY AS d(event_key, payload, n) ORDER BY d.n";
+
+    private static final String OLDEST_SQL =
+            "SELECT id, topic, event_key, payload, created_at FROM url_outbox ORDER BY id LIMIT ?";
+
+    private static final String DELETE_SQL = "DELETE FROM url_outbox WHERE id = ANY(?::bigint[])";
+
+    // Transaction-scoped, so the lock goes with the relay's transaction and needs no cleanup
+    private static final String TRY_LOCK_SQL = "SELECT pg_try_advisory_xact_lock(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Append events for one topic, keeping their order
+     */
+    public void append(String topic, String[] keys, byte[][] payloads) {
+        jdbcTemplate.update(APPEND_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setString(1, topic);
+            ps.setArray(2, connection.createArrayOf("text", keys));
+            ps.setArray(3, connection.createArrayOf("bytea", payloads));
+        });
+    }
+
+    /**
+     * The oldest events, in id order
+     */
+    public List<OutboxRow> findOldest(int limit) {
+        return jdbcTemplate.query(OLDEST_SQL, (rs, rowNum) -> new OutboxRow(
+                rs.getLong("id"),
+                rs.getString("topic"),
+                rs.getString("event_key"),
+                rs.getBytes("payload"),
+                rs.getTimestamp("created_at").toLocalDateTime()), limit);
+    }
+
+    public void delete(Long[] ids) {
+        jdbcTemplate.update(DELETE_SQL, ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)));
+    }
+
+    /**
+     * Take the relay lock for the current transaction, unless another instance holds it
+     */
+    public boolean tryLock(long key) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK_SQL, Boolean.class, key));
+    }
+
+    public record OutboxRow(long id, String topic, String key, byte[] payload, LocalDateTime createdAt) {
+    }
+}
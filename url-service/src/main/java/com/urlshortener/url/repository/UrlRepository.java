@@ -1,8 +1,8 @@
 package com.urlshortener.url.repository;
 
 import com.urlshortener.url.entity.Url;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -20,20 +20,30 @@ public interface UrlRepository extends JpaRepository<Url, Long> {
     
     List<Url> findByUserIdOrderByCreatedAtDesc(Long userId);
     
-    List<Url> findByUserIdAndIsActiveTrueOrderByCreatedAtDesc(Long userId);
-    
-    boolean existsByShortCode(String shortCode);
-    
-    long countByUserId(Long userId);
-    
-    @Modifying
-    @Query("UPDATE Url u SET u.isActive = false WHERE u.expiresAt < :now AND u.isActive = true")
-    int deactivateExpiredUrls(@Param("now") LocalDateTime now);
-    
-    @Query("SELECT u FROM Url u WHERE u.expiresAt < :now AND u.isActive = true")
-    List<Url> findExpiredUrls(@Param("now") LocalDateTime now);
-    
-    @Modifying(clearAutomatically = true)
-    @Query("UPDATE Url u SET u.clickCount = u.clickCount + 1 WHERE u.shortCode = :shortCode")
-    int incrementClickCount(@Param("shortCode") String shortCode);
+    // First page of a user's active URLs, newest first (served by idx_urls_user_created)
+    @Query("SELECT u.id AS id, u.shortCode AS shortCode, u.longUrl AS longUrl, u.clickCount AS clickCount, " +
+           "u.createdAt AS createdAt, u.expiresAt AS expiresAt, u.customAlias AS customAlias FROM Url u " +
+           "WHERE u.userId = :userId AND u.isActive = true ORDER BY u.createdAt DESC, u.id DESC")
+    List<UserUrlView> findUserUrls(@Param("userId") Long userId, Pageable pageable);
+    
+    // Next page after the (createdAt, id) cursor. HQL has no row-value comparison with parameters, so it is
+    // spelled out; the redundant createdAt <= :createdAt bound lets the index seek straight to the cursor.
+    @Query("SELECT u.id AS id, u.shortCode AS shortCode, u.longUrl AS longUrl, u.clickCount AS clickCount, " +
+           "u.createdAt AS createdAt, u.expiresAt AS expiresAt, u.customAlias AS customAlias FROM Url u " +
+           "WHERE u.userId = :userId AND u.isActive = true AND u.createdAt <= :createdAt " +
+           "AND (u.createdAt < :createdAt OR u.id < :id) " +
+           "ORDER BY u.createdAt DESC, u.id DESC")
+    List<UserUrlView> findUserUrlsBefore(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                         @Param("id") Long id, Pageable pageable);
+    
+    // Active codes plus deactivated ones with an expiry, which resolve to 410 rather than 404
+    @Query("SELECT u.id AS id, u.shortCode AS shortCode FROM Url u " +
+           "WHERE u.id > :afterId AND (u.isActive = true OR u.expiresAt IS NOT NULL) ORDER BY u.id")
+    List<ShortCodeView> findResolvableShortCodesAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Same rows and order as the top_urls view, minus links that have already expired
+    @Query("SELECT u.shortCode AS shortCode, u.longUrl AS longUrl, u.expiresAt AS expiresAt FROM Url u " +
+           "WHERE u.isActive = true AND (u.expiresAt IS NULL OR u.expiresAt > :now) ORDER BY u.clickCount DESC")
+    List<TopUrlView> findTopUrls(@Param("now") LocalDateTime now, Pageable pageable);
+
 }
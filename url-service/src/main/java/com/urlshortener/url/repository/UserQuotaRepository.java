@@ -0,0 +1,99 @@
+package com.urlshortener.url.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.util.List;
+
+/**
+ * Per-user URL counters in user_quota, maintained in the same transaction as the urls rows
+ * they count (see UserQuotaService)
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserQuotaRepository {
+
+    // Locks the user's row, then takes as much of the requested count as the tier limit allows.
+    // Rows without a tier, or with one that is not configured, get the default tier's limit.
+    private static final String RESERVE_SQL =
+            "WITH quota AS (" +
+            "  SELECT q.user_id, q.url_count, COALESCE(t.url_limit, ?) AS url_limit FROM user_quota q " +
+            "  LEFT JOIN unnest(?::text[], ?::bigint[]) AS t(tier, url_limit) ON t.tier = q.tier " +
+            "  WHERE q.user_id = ? FOR UPDATE OF q) " +
+            "UPDATE user_quota q SET url_count = c.url_count + LEAST(?, GREATEST(c.url_limit - c.url_count, 0)), " +
+            "updated_at = LOCALTIMESTAMP " +
+            "FROM quota c WHERE q.user_id = c.user_id " +
+            "RETURNING LEAST(?, GREATEST(c.url_limit - c.url_count, 0)) AS granted";
+
+    private static final String INITIALIZE_SQL =
+            "INSERT INTO user_quota (user_id, url_count, updated_at) " +
+            "SELECT ?, count(*), LOCALTIMESTAMP FROM urls WHERE user_id = ? " +
+            "ON CONFLICT (user_id) DO NOTHING";
+
+    private static final String RELEASE_SQL =
+            "UPDATE user_quota SET url_count = GREATEST(url_count - ?, 0), updated_at = LOCALTIMESTAMP WHERE user_id = ?";
+
+    private static final String USER_IDS_AFTER_SQL =
+            "SELECT user_id FROM user_quota WHERE user_id > ? ORDER BY user_id LIMIT ?";
+
+    // Rows changed within the grace period may belong to transactions the count cannot see yet
+    private static final String RECONCILE_SQL =
+            "UPDATE user_quota q SET url_count = c.url_count, updated_at = LOCALTIMESTAMP " +
+            "FROM (SELECT id AS user_id, (SELECT count(*) FROM urls u WHERE u.user_id = id) AS url_count " +
+            "      FROM unnest(?::bigint[]) AS id) c " +
+            "WHERE q.user_id = c.user_id AND q.url_count <> c.url_count " +
+            "AND q.updated_at < LOCALTIMESTAMP - make_interval(secs => ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Atomically add up to count to the user's counter without passing the limit of their tier
+     * @return how many were granted (0 when the user is at the limit), or -1 if the user has no counter yet
+     */
+    public int reserve(Long userId, int count, String[] tiers, Long[] limits, long defaultLimit) {
+        List<Integer> granted = jdbcTemplate.query(RESERVE_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setLong(1, defaultLimit);
+            ps.setArray(2, connection.createArrayOf("text", tiers));
+            ps.setArray(3, connection.createArrayOf("bigint", limits));
+            ps.setLong(4, userId);
+            ps.setInt(5, count);
+            ps.setInt(6, count);
+        }, (rs, rowNum) -> rs.getInt("granted"));
+        return granted.isEmpty() ? -1 : granted.get(0);
+    }
+
+    /**
+     * Create the user's counter from a count of their URLs, unless it already exists
+     */
+    public void initialize(Long userId) {
+        jdbcTemplate.update(INITIALIZE_SQL, userId, userId);
+    }
+
+    /**
+     * Give back reserved units that were not used
+     */
+    public void release(Long userId, int count) {
+        jdbcTemplate.update(RELEASE_SQL, count, userId);
+    }
+
+    /**
+     * Next keyset page of user ids that have a counter
+     */
+    public List<Long> findUserIdsAfter(long afterUserId, int limit) {
+        return jdbcTemplate.queryForList(USER_IDS_AFTER_SQL, Long.class, afterUserId, limit);
+    }
+
+    /**
+     * Reset the given users' counters to their real URL count, skipping rows changed in the last graceSeconds
+     * @return number of counters corrected
+     */
+    public int reconcile(List<Long> userIds, long graceSeconds) {
+        return jdbcTemplate.update(RECONCILE_SQL, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", userIds.toArray()));
+            ps.setLong(2, graceSeconds);
+        });
+    }
+}
@@ -0,0 +1,23 @@
+package com.urlshortener.url.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of a URL row for the user's URL listing, read without loading the entity or its User
+ */
+public interface UserUrlView {
+
+    Long getId();
+
+    String getShortCode();
+
+    String getLongUrl();
+
+    Long getClickCount();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getExpiresAt();
+
+    Boolean getCustomAlias();
+}
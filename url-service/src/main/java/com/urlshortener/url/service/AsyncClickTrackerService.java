@@ -1,109 +1,107 @@
 package com.urlshortener.url.service;
 
 import com.urlshortener.common.constants.KafkaTopics;
+import com.urlshortener.common.event.BaseEvent;
 import com.urlshortener.common.event.EventType;
 import com.urlshortener.common.event.UrlAccessedEvent;
 import com.urlshortener.common.util.EventIdGenerator;
 import com.urlshortener.common.util.UserAgentParser;
-import com.urlshortener.url.repository.UrlRepository;
+import com.urlshortener.url.bulkhead.Bulkhead;
+import com.urlshortener.url.click.ClickCounterBuffer;
+import com.urlshortener.url.click.ClickRollupAggregator;
+import com.urlshortener.url.click.ClickEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
- * Separate service for async click tracking to avoid Spring proxy self-invocation issues.
- * When @Async methods are called from the same class, Spring's proxy is bypassed.
- * By moving async logic to a separate service, we ensure proper async execution.
+ * Tracks batches of clicks handed over by the ClickPipeline consumers, off the redirect path.
+ * Each click is published to Kafka for analytics, or counted in a ClickRollupAggregator window
+ * (plus a sampled raw event) when click rollups are enabled; DB click counters are accumulated
+ * in ClickCounterBuffer and written behind in bulk.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AsyncClickTrackerService {
 
-    private final UrlRepository urlRepository;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ClickCounterBuffer clickCounterBuffer;
+    private final ClickRollupAggregator clickRollupAggregator;
+    private final KafkaTemplate<String, BaseEvent> kafkaTemplate;
+    private final Bulkhead kafkaBulkhead;
 
     /**
-     * Track click asynchronously - does not block redirect
-     * This method is called from RedirectService through Spring proxy, ensuring @Async works
-     * @Transactional ensures the DB update is committed (must be on this method, not on incrementClickCount due to self-invocation)
+     * Track a batch of clicks
      *
-     * @param shortCode The short code of the URL
-     * @param ipAddress Client IP address (pre-extracted from request)
-     * @param userAgent User-Agent header (pre-extracted from request)
-     * @param referer Referer header (pre-extracted from request)
+     * @param clicks Clicks captured on the redirect path
      */
-    @Async
-    @Transactional
-    public void trackClickAsync(String shortCode, String ipAddress, String userAgent, String referer) {
-        try {
-            // Parse user agent
-            String deviceType = UserAgentParser.getDeviceType(userAgent);
-            String browser = UserAgentParser.getBrowser(userAgent);
-            String os = UserAgentParser.getOperatingSystem(userAgent);
-
-            // Publish access event to Kafka for analytics processing
-            publishUrlAccessedEvent(shortCode, ipAddress, userAgent, referer,
-                                   deviceType, browser, os);
+    public void trackClicks(List<ClickEvent> clicks) {
+        Map<String, Long> clicksPerCode = new HashMap<>();
+        for (ClickEvent click : clicks) {
+            try {
+                // Parse user agent
+                String userAgent = click.getUserAgent();
+                String deviceType = UserAgentParser.getDeviceType(userAgent);
+                String browser = UserAgentParser.getBrowser(userAgent);
+                String os = UserAgentParser.getOperatingSystem(userAgent);
 
-            // Increment DB click counter
-            incrementClickCount(shortCode);
-
-        } catch (Exception e) {
-            log.error("Failed to track click for {}", shortCode, e);
-            // Don't fail the redirect even if tracking fails
+                if (clickRollupAggregator.isEnabled()) {
+                    // Counted in a rollup; only a sample goes out as raw events
+                    clickRollupAggregator.add(click, deviceType, browser, os);
+                    if (clickRollupAggregator.sampleRaw()) {
+                        publishUrlAccessedEvent(click, deviceType, browser, os, true);
+                    }
+                } else {
+                    // Publish access event to Kafka for analytics processing
+                    publishUrlAccessedEvent(click, deviceType, browser, os, null);
+                }
+            } catch (Exception e) {
+                log.error("Failed to track click for {}", click.getShortCode(), e);
+                // A bad click must not hold up the rest of the batch
+            }
+            clicksPerCode.merge(click.getShortCode(), 1L, Long::sum);
         }
+
+        // Count clicks; ClickCounterBuffer writes them to the DB in bulk
+        clicksPerCode.forEach(clickCounterBuffer::add);
     }
 
     /**
      * Publish URL accessed event to Kafka
      */
-    private void publishUrlAccessedEvent(String shortCode, String ipAddress,
-                                        String userAgent, String referer,
-                                        String deviceType, String browser, String os) {
+    private void publishUrlAccessedEvent(ClickEvent click, String deviceType, String browser, String os,
+                                         Boolean sampled) {
         try {
+            LocalDateTime accessedAt = LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(click.getAccessedAtMillis()), ZoneId.systemDefault());
             UrlAccessedEvent event = UrlAccessedEvent.builder()
                     .eventId(EventIdGenerator.generate())
                     .timestamp(LocalDateTime.now())
                     .eventType(EventType.URL_ACCESSED.getValue())
-                    .shortCode(shortCode)
-                    .accessedAt(LocalDateTime.now())
-                    .ipAddress(ipAddress)
-                    .userAgent(userAgent)
-                    .referer(referer)
+                    .shortCode(click.getShortCode())
+                    .accessedAt(accessedAt)
+                    .ipAddress(click.getIpAddress())
+                    .userAgent(click.getUserAgent())
+                    .referer(click.getReferer())
                     .deviceType(deviceType)
                     .browser(browser)
                     .operatingSystem(os)
+                    .sampled(sampled)
                     .build();
 
-            kafkaTemplate.send(KafkaTopics.URL_ACCESS_EVENTS, shortCode, event);
-            log.debug("Published URL accessed event for: {}", shortCode);
-
-        } catch (Exception e) {
-            log.error("Failed to publish URL accessed event for {}", shortCode, e);
-        }
-    }
+            kafkaBulkhead.run(() -> kafkaTemplate.send(KafkaTopics.URL_ACCESS_EVENTS, click.getShortCode(), event));
+            log.debug("Published URL accessed event for: {}", click.getShortCode());
 
-    /**
-     * Increment click count in database
-     * Note: Called from trackClickAsync (self-invocation), so relies on trackClickAsync's @Transactional
-     */
-    public void incrementClickCount(String shortCode) {
-        try {
-            int updated = urlRepository.incrementClickCount(shortCode);
-            if (updated > 0) {
-                log.info("Successfully incremented click count for {}: {} rows updated", shortCode, updated);
-            } else {
-                log.warn("Click count not incremented for {}: no rows matched (shortCode might not exist)", shortCode);
-            }
         } catch (Exception e) {
-            log.error("Failed to increment click count for {}", shortCode, e);
-            throw e; // Re-throw to trigger transaction rollback
+            log.error("Failed to publish URL accessed event for {}", click.getShortCode(), e);
         }
     }
 
@@ -1,5 +1,6 @@
 package com.urlshortener.url.service;
 
+import com.urlshortener.url.click.ClickPipeline;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,8 +11,24 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class RedirectService {
 
+    // Checked in order; the first usable value wins
+    private static final String[] CLIENT_IP_HEADERS = {
+        "X-Forwarded-For",
+        "X-Real-IP",
+        "Proxy-Client-IP",
+        "WL-Proxy-Client-IP",
+        "HTTP_X_FORWARDED_FOR",
+        "HTTP_X_FORWARDED",
+        "HTTP_X_CLUSTER_CLIENT_IP",
+        "HTTP_CLIENT_IP",
+        "HTTP_FORWARDED_FOR",
+        "HTTP_FORWARDED",
+        "HTTP_VIA",
+        "REMOTE_ADDR"
+    };
+
     private final UrlService urlService;
-    private final AsyncClickTrackerService asyncClickTrackerService;
+    private final ClickPipeline clickPipeline;
 
     /**
      * Handle redirect - optimized for performance
@@ -22,14 +39,14 @@ public class RedirectService {
         String longUrl = urlService.getLongUrl(shortCode);
 
         // Extract request data SYNCHRONOUSLY before going async
-        // HttpServletRequest gets recycled after response is sent, so we can't pass it to @Async methods
+        // HttpServletRequest gets recycled after response is sent, so we can't hand it to another thread
         String ipAddress = getClientIp(request);
         String userAgent = request.getHeader("User-Agent");
         String referer = request.getHeader("Referer");
 
-        // Delegate to separate service for async click tracking
+        // Queue for async click tracking - never blocks or fails the redirect
         // Pass extracted data (not the request object) to avoid recycled request issues
-        asyncClickTrackerService.trackClickAsync(shortCode, ipAddress, userAgent, referer);
+        clickPipeline.offer(shortCode, ipAddress, userAgent, referer);
 
         return longUrl;
     }
@@ -39,27 +56,13 @@ public class RedirectService {
      * Must be called synchronously before request is recycled
      */
     private String getClientIp(HttpServletRequest request) {
-        String[] headers = {
-            "X-Forwarded-For",
-            "X-Real-IP",
-            "Proxy-Client-IP",
-            "WL-Proxy-Client-IP",
-            "HTTP_X_FORWARDED_FOR",
-            "HTTP_X_FORWARDED",
-            "HTTP_X_CLUSTER_CLIENT_IP",
-            "HTTP_CLIENT_IP",
-            "HTTP_FORWARDED_FOR",
-            "HTTP_FORWARDED",
-            "HTTP_VIA",
-            "REMOTE_ADDR"
-        };
-
-        for (String header : headers) {
+        for (String header : CLIENT_IP_HEADERS) {
             String ip = request.getHeader(header);
             if (ip != null && !ip.isEmpty() && !"unknown".equalsIgnoreCase(ip)) {
                 // X-Forwarded-For can contain multiple IPs, take the first one
-                if (ip.contains(",")) {
-                    ip = ip.split(",")[0].trim();
+                int comma = ip.indexOf(',');
+                if (comma >= 0) {
+                    ip = ip.substring(0, comma).trim();
                 }
                 return ip;
             }
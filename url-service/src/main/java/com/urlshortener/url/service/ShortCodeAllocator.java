@@ -0,0 +1,101 @@
+package com.urlshortener.url.service;
+
+import com.urlshortener.common.util.ShortCodeGenerator;
+import com.urlshortener.common.util.ShortCodePermutation;
+import com.urlshortener.url.repository.UrlBulkRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Issues short codes from blocks of numeric IDs leased from the short_code_seq database sequence.
+ *
+ * Each nextval hands this instance a whole block (the sequence increment, block-size IDs), so
+ * codes are issued from memory and the database is only touched once per block. Blocks never
+ * overlap between instances, so generated codes cannot collide with each other. IDs are encoded
+ * with ShortCodeGenerator.generateFromId, optionally after a keyed ShortCodePermutation so that
+ * consecutive codes are not guessable. IDs left in a block when the instance stops are skipped.
+ */
+@Component
+@Slf4j
+public class ShortCodeAllocator {
+
+    private final UrlBulkRepository urlBulkRepository;
+    private final ShortCodePermutation permutation;
+    private final int defaultBlockSize;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private int blockSize;
+    private long nextId;
+    private long blockEnd;
+
+    public ShortCodeAllocator(
+            UrlBulkRepository urlBulkRepository,
+            @Value("${short-code.block-size:1000}") int defaultBlockSize,
+            @Value("${short-code.permutation.enabled:true}") boolean permute,
+            @Value("${short-code.permutation.secret:}") String secret) {
+        this.urlBulkRepository = urlBulkRepository;
+        this.defaultBlockSize = defaultBlockSize;
+        if (permute && secret.isEmpty()) {
+            throw new IllegalStateException("short-code.permutation.secret must be set when permutation is enabled");
+        }
+        this.permutation = permute ? new ShortCodePermutation(secret) : null;
+    }
+
+    /**
+     * Next code from the current block, leasing a new block when it runs out
+     */
+    public String nextShortCode() {
+        long id;
+        lock.lock();
+        try {
+            if (nextId >= blockEnd) {
+                leaseBlock();
+            }
+            id = nextId++;
+        } finally {
+            lock.unlock();
+        }
+        return encode(id);
+    }
+
+    /**
+     * Next count codes, taken under a single lock acquisition
+     */
+    public List<String> nextShortCodes(int count) {
+        long[] ids = new long[count];
+        lock.lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                if (nextId >= blockEnd) {
+                    leaseBlock();
+                }
+                ids[i] = nextId++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        List<String> codes = new ArrayList<>(count);
+        for (long id : ids) {
+            codes.add(encode(id));
+        }
+        return codes;
+    }
+
+    private String encode(long id) {
+        return ShortCodeGenerator.generateFromId(permutation != null ? permutation.permute(id) : id);
+    }
+
+    private void leaseBlock() {
+        if (blockSize == 0) {
+            blockSize = urlBulkRepository.shortCodeBlockSize(defaultBlockSize);
+        }
+        nextId = urlBulkRepository.nextShortCodeBlock();
+        blockEnd = nextId + blockSize;
+        log.debug("Leased short code block [{}, {})", nextId, blockEnd);
+    }
+}
@@ -3,7 +3,7 @@ package com.urlshortener.url.service;
 import com.urlshortener.common.constants.AppConstants;
 import com.urlshortener.common.constants.CacheConfig;
 import com.urlshortener.common.constants.KafkaTopics;
-import com.urlshortener.common.constants.RedisKeys;
+import com.urlshortener.common.dto.BatchShortenUrlResponse;
 import com.urlshortener.common.dto.ShortenUrlRequest;
 import com.urlshortener.common.dto.ShortenUrlResponse;
 import com.urlshortener.common.dto.UrlDetailsResponse;
@@ -12,23 +12,48 @@ import com.urlshortener.common.event.UrlCreatedEvent;
 import com.urlshortener.common.event.UrlDeletedEvent;
 import com.urlshortener.common.util.EventIdGenerator;
 import com.urlshortener.common.util.ShortCodeGenerator;
+import com.urlshortener.url.bulkhead.Bulkhead;
+import com.urlshortener.url.cache.CacheLookup;
+import com.urlshortener.url.cache.CacheRefreshPolicy;
+import com.urlshortener.url.cache.CachedUrl;
+import com.urlshortener.url.cache.LocalUrlCache;
+import com.urlshortener.url.cache.ShortCodeFilter;
+import com.urlshortener.url.cache.SingleFlight;
+import com.urlshortener.url.cache.UrlCacheInvalidationBus;
+import com.urlshortener.url.cache.UrlCacheStore;
+import com.urlshortener.url.click.ClickCounterBuffer;
 import com.urlshortener.url.entity.Url;
+import com.urlshortener.url.exception.BulkheadFullException;
 import com.urlshortener.url.exception.UrlNotFoundException;
 import com.urlshortener.url.exception.UrlExpiredException;
 import com.urlshortener.url.exception.DuplicateShortCodeException;
 import com.urlshortener.url.exception.UserLimitExceededException;
+import com.urlshortener.url.outbox.UrlEventOutbox;
+import com.urlshortener.url.replica.UrlReplica;
+import com.urlshortener.url.repository.UrlBulkRepository;
 import com.urlshortener.url.repository.UrlRepository;
+import com.urlshortener.url.repository.UserUrlView;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 @Service
 @RequiredArgsConstructor
@@ -36,69 +61,188 @@ import java.util.stream.Collectors;
 public class UrlService {
     
     private final UrlRepository urlRepository;
-    private final RedisTemplate<String, String> redisTemplate;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final UrlCacheStore urlCacheStore;
+    private final UrlEventOutbox urlEventOutbox;
+    private final LocalUrlCache localUrlCache;
+    private final UrlCacheInvalidationBus cacheInvalidationBus;
+    private final ShortCodeFilter shortCodeFilter;
+    private final UrlReplica urlReplica;
+    private final ShortCodeAllocator shortCodeAllocator;
+    private final UrlBulkRepository urlBulkRepository;
+    private final UserQuotaService userQuotaService;
+    private final Validator validator;
+    private final CacheRefreshPolicy cacheRefreshPolicy;
+    private final Executor cacheRefreshExecutor;
+    private final ClickCounterBuffer clickCounterBuffer;
+    private final Bulkhead databaseBulkhead;
+    private final Bulkhead redisBulkhead;
+    
+    // Add clicks this instance has counted but not yet written to the DB
+    @Value("${click-counter.include-pending-in-details:true}")
+    private boolean includePendingClicks;
+    
+    // Coalesces concurrent cache misses so only one DB load per short code runs at a time
+    private final SingleFlight<String, String> urlLoads = new SingleFlight<>();
     
     /**
      * Shorten a URL
      */
     @Transactional
     public ShortenUrlResponse shortenUrl(ShortenUrlRequest request, Long userId) {
-        // Check user URL limit
-        long userUrlCount = urlRepository.countByUserId(userId);
-        if (userUrlCount >= CacheConfig.MAX_URLS_PER_USER) {
+        // Take one URL of the user's quota; a failure below rolls the reservation back
+        if (userQuotaService.reserve(userId, 1) == 0) {
             throw new UserLimitExceededException("User has reached maximum URL limit");
         }
         
-        // Generate or use custom short code
-        String shortCode;
-        if (request.getCustomAlias() != null && !request.getCustomAlias().isEmpty()) {
-            shortCode = request.getCustomAlias();
-            
-            // Validate custom alias
-            if (!ShortCodeGenerator.isValidShortCode(shortCode)) {
-                throw new IllegalArgumentException("Invalid custom alias format");
-            }
-            
-            // Check if already exists
-            if (urlRepository.existsByShortCode(shortCode)) {
-                throw new DuplicateShortCodeException("Custom alias already exists");
-            }
-        } else {
-            shortCode = generateUniqueShortCode();
+        boolean customAlias = request.getCustomAlias() != null && !request.getCustomAlias().isEmpty();
+        if (customAlias && !ShortCodeGenerator.isValidShortCode(request.getCustomAlias())) {
+            throw new IllegalArgumentException("Invalid custom alias format");
         }
         
         // Calculate expiration
+        LocalDateTime createdAt = LocalDateTime.now();
         LocalDateTime expiresAt = null;
         if (request.getExpirationDays() != null && request.getExpirationDays() > 0) {
-            expiresAt = LocalDateTime.now().plusDays(request.getExpirationDays());
+            expiresAt = createdAt.plusDays(request.getExpirationDays());
         }
         
         // Create URL entity
         Url url = Url.builder()
-                .shortCode(shortCode)
                 .longUrl(request.getLongUrl())
                 .userId(userId)
+                .createdAt(createdAt)
                 .expiresAt(expiresAt)
-                .customAlias(request.getCustomAlias() != null && !request.getCustomAlias().isEmpty())
+                .customAlias(customAlias)
                 .build();
         
-        url = urlRepository.save(url);
+        // Insert under a custom or generated short code; the unique constraint decides if it is free
+        if (customAlias) {
+            url.setShortCode(request.getCustomAlias());
+            if (!insertUrl(url)) {
+                throw new DuplicateShortCodeException("Custom alias already exists");
+            }
+        } else {
+            insertWithGeneratedShortCode(url);
+        }
+        String shortCode = url.getShortCode();
         
         // Cache in Redis
-        cacheUrl(shortCode, request.getLongUrl());
+        cacheUrl(shortCode, CachedUrl.active(url.getLongUrl(), url.getExpiresAt()));
+        
+        // Make the code visible to every instance's negative lookup filter, and to this
+        // instance's replica, once committed
+        runAfterCommit(() -> {
+            shortCodeFilter.add(shortCode);
+            urlReplica.put(shortCode, url.getLongUrl(), url.getExpiresAt());
+        });
         
-        // Publish Kafka event
-        publishUrlCreatedEvent(url);
+        // Record the event with the insert; the outbox relay publishes it after commit
+        urlEventOutbox.append(KafkaTopics.URL_LIFECYCLE_EVENTS, shortCode, urlCreatedEvent(url));
         
         log.info("URL shortened: {} -> {}", request.getLongUrl(), shortCode);
         
-        return ShortenUrlResponse.builder()
-                .shortCode(shortCode)
-                .shortUrl(AppConstants.BASE_URL + "/" + shortCode)
-                .longUrl(request.getLongUrl())
-                .createdAt(url.getCreatedAt())
-                .expiresAt(url.getExpiresAt())
+        return mapToShortenResponse(url);
+    }
+    
+    /**
+     * Shorten many URLs for one user with a single quota reservation, one multi-row insert,
+     * one pipelined Redis write and one outbox insert. Each item succeeds or fails
+     * on its own; failures are reported in its result rather than failing the batch.
+     */
+    @Transactional
+    public BatchShortenUrlResponse shortenUrls(List<ShortenUrlRequest> requests, Long userId) {
+        BatchShortenUrlResponse.Result[] results = new BatchShortenUrlResponse.Result[requests.size()];
+        List<PendingUrl> pending = new ArrayList<>();
+        Set<String> aliases = new HashSet<>();
+        LocalDateTime createdAt = LocalDateTime.now();
+        
+        for (int i = 0; i < requests.size(); i++) {
+            ShortenUrlRequest request = requests.get(i);
+            Set<ConstraintViolation<ShortenUrlRequest>> violations = request == null ? Set.of() : validator.validate(request);
+            boolean customAlias = request != null && request.getCustomAlias() != null && !request.getCustomAlias().isEmpty();
+            if (request == null || !violations.isEmpty()) {
+                results[i] = failedResult(i, HttpStatus.BAD_REQUEST, request == null
+                        ? "URL request is required" : violations.iterator().next().getMessage());
+            } else if (customAlias && !ShortCodeGenerator.isValidShortCode(request.getCustomAlias())) {
+                results[i] = failedResult(i, HttpStatus.BAD_REQUEST, "Invalid custom alias format");
+            } else if (customAlias && !aliases.add(request.getCustomAlias())) {
+                results[i] = failedResult(i, HttpStatus.CONFLICT, "Custom alias repeated in batch");
+            } else {
+                Url url = Url.builder()
+                        .shortCode(customAlias ? request.getCustomAlias() : null)
+                        .longUrl(request.getLongUrl())
+                        .userId(userId)
+                        .createdAt(createdAt)
+                        .expiresAt(request.getExpirationDays() != null && request.getExpirationDays() > 0
+                                ? createdAt.plusDays(request.getExpirationDays()) : null)
+                        .customAlias(customAlias)
+                        .build();
+                pending.add(new PendingUrl(i, url));
+            }
+        }
+        
+        // Reserve quota for the valid items in one statement; items past the user's limit fail
+        int reserved = pending.isEmpty() ? 0 : userQuotaService.reserve(userId, pending.size());
+        for (PendingUrl item : pending.subList(reserved, pending.size())) {
+            results[item.index()] = failedResult(item.index(), HttpStatus.FORBIDDEN, "User has reached maximum URL limit");
+        }
+        pending = new ArrayList<>(pending.subList(0, reserved));
+        
+        // Insert, then retry generated codes that hit a taken code with fresh ones
+        List<Url> created = new ArrayList<>();
+        for (int attempt = 0; attempt < AppConstants.MAX_SHORT_CODE_GENERATION_ATTEMPTS && !pending.isEmpty(); attempt++) {
+            List<PendingUrl> generated = pending.stream().filter(p -> !p.url().getCustomAlias()).toList();
+            List<String> codes = shortCodeAllocator.nextShortCodes(generated.size());
+            for (int i = 0; i < generated.size(); i++) {
+                generated.get(i).url().setShortCode(codes.get(i));
+            }
+            
+            Map<String, Long> ids = urlBulkRepository.insertAllIfAbsent(pending.stream().map(PendingUrl::url).toList());
+            List<PendingUrl> retry = new ArrayList<>();
+            for (PendingUrl item : pending) {
+                Url url = item.url();
+                Long id = ids.get(url.getShortCode());
+                if (id != null) {
+                    url.setId(id);
+                    created.add(url);
+                    results[item.index()] = BatchShortenUrlResponse.Result.builder()
+                            .index(item.index())
+                            .status(HttpStatus.CREATED.value())
+                            .url(mapToShortenResponse(url))
+                            .build();
+                } else if (url.getCustomAlias()) {
+                    results[item.index()] = failedResult(item.index(), HttpStatus.CONFLICT, "Custom alias already exists");
+                } else {
+                    log.warn("Allocated short code {} already taken, skipping", url.getShortCode());
+                    retry.add(item);
+                }
+            }
+            pending = retry;
+        }
+        for (PendingUrl item : pending) {
+            results[item.index()] = failedResult(item.index(), HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Failed to generate unique short code");
+        }
+        // Quota reserved for items that were not created (taken aliases, exhausted retries)
+        userQuotaService.release(userId, reserved - created.size());
+        
+        if (!created.isEmpty()) {
+            cacheUrls(created);
+            List<String> shortCodes = created.stream().map(Url::getShortCode).toList();
+            runAfterCommit(() -> {
+                shortCodeFilter.addAll(shortCodes);
+                created.forEach(url -> urlReplica.put(url.getShortCode(), url.getLongUrl(), url.getExpiresAt()));
+            });
+            urlEventOutbox.appendAll(KafkaTopics.URL_LIFECYCLE_EVENTS, shortCodes,
+                    created.stream().map(this::urlCreatedEvent).toList());
+        }
+        
+        log.info("Batch shortened {} of {} URLs for user {}", created.size(), requests.size(), userId);
+        
+        return BatchShortenUrlResponse.builder()
+                .created(created.size())
+                .failed(requests.size() - created.size())
+                .results(List.of(results))
                 .build();
     }
     
@@ -106,27 +250,35 @@ public class UrlService {
      * Get long URL from short code (for redirect)
      */
     public String getLongUrl(String shortCode) {
-        // Try Redis cache first
-        String cachedUrl = getCachedUrl(shortCode);
-        if (cachedUrl != null) {
-            log.debug("Cache hit for short code: {}", shortCode);
-            return cachedUrl;
+        // Reject malformed and never-issued codes before the caches and the DB
+        if (!ShortCodeGenerator.isValidShortCode(shortCode) || !shortCodeFilter.mightContain(shortCode)) {
+            throw new UrlNotFoundException("URL not found: " + shortCode);
         }
         
-        // Cache miss - query database
-        log.debug("Cache miss for short code: {}", shortCode);
-        Url url = urlRepository.findByShortCodeAndIsActiveTrue(shortCode)
-                .orElseThrow(() -> new UrlNotFoundException("URL not found: " + shortCode));
+        // Full replica when enabled; a miss may just be a code it has not heard about yet
+        String replicated = urlReplica.get(shortCode);
+        if (replicated != null) {
+            return replicated;
+        }
         
-        // Check expiration
-        if (url.isExpired()) {
-            throw new UrlExpiredException("URL has expired: " + shortCode);
+        // Try in-process cache first
+        CachedUrl localEntry = localUrlCache.get(shortCode);
+        if (localEntry != null) {
+            return resolve(shortCode, localEntry);
         }
         
-        // Cache for future requests
-        cacheUrl(shortCode, url.getLongUrl());
+        // Then Redis cache - entries carry their own expiry, so expired links stop here
+        CachedUrl cachedEntry = getCachedUrl(shortCode);
+        if (cachedEntry != null) {
+            log.debug("Cache hit for short code: {}", shortCode);
+            String longUrl = resolve(shortCode, cachedEntry);
+            localUrlCache.put(shortCode, cachedEntry);
+            return longUrl;
+        }
         
-        return url.getLongUrl();
+        // Cache miss - one caller loads from the database, concurrent callers wait for it
+        log.debug("Cache miss for short code: {}", shortCode);
+        return urlLoads.execute(shortCode, () -> loadLongUrl(shortCode));
     }
     
     /**
@@ -146,14 +298,38 @@ public class UrlService {
     }
     
     /**
-     * Get all URLs for a user
+     * Get one page of a user's active URLs, newest first, starting after the cursor (null for the first page).
+     * Reads projections with a keyset query, so the cost of a page does not grow with the user's URL count.
      */
     @Transactional(readOnly = true)
-    public List<UrlDetailsResponse> getUserUrls(Long userId) {
-        List<Url> urls = urlRepository.findByUserIdAndIsActiveTrueOrderByCreatedAtDesc(userId);
-        return urls.stream()
-                .map(this::mapToDetailsResponse)
-                .collect(Collectors.toList());
+    public UserUrlPage getUserUrls(Long userId, String cursor, int limit) {
+        if (limit < 1 || limit > AppConstants.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + AppConstants.MAX_PAGE_SIZE);
+        }
+
+        // One extra row tells us whether there is a next page
+        PageRequest page = PageRequest.ofSize(limit + 1);
+        List<UserUrlView> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = urlRepository.findUserUrls(userId, page);
+        } else {
+            UrlCursor after = UrlCursor.decode(cursor);
+            rows = urlRepository.findUserUrlsBefore(userId, after.createdAt(), after.id(), page);
+        }
+
+        boolean hasMore = rows.size() > limit;
+        List<UserUrlView> pageRows = hasMore ? rows.subList(0, limit) : rows;
+        List<UrlDetailsResponse> urls = new ArrayList<>(pageRows.size());
+        for (UserUrlView row : pageRows) {
+            urls.add(mapToDetailsResponse(row));
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            UserUrlView last = pageRows.get(limit - 1);
+            nextCursor = new UrlCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new UserUrlPage(urls, nextCursor);
     }
     
     /**
@@ -173,128 +349,298 @@ public class UrlService {
         url.setIsActive(false);
         urlRepository.save(url);
         
-        // Remove from cache
-        removeCachedUrl(shortCode);
+        // Replace the Redis entry with a short-lived negative entry and drop every instance's
+        // local copy once the delete is visible, so no instance can re-populate from the old row
+        runAfterCommit(() -> {
+            cacheUrl(shortCode, CachedUrl.notFound());
+            cacheInvalidationBus.invalidate(shortCode);
+            urlReplica.remove(shortCode);
+        });
         
-        // Publish deletion event
-        publishUrlDeletedEvent(url, userId);
+        // Record deletion event
+        urlEventOutbox.append(KafkaTopics.URL_LIFECYCLE_EVENTS, shortCode, urlDeletedEvent(url, userId));
         
         log.info("URL deleted: {}", shortCode);
     }
     
     /**
-     * Generate unique short code
+     * Load path for a cache miss, run by a single caller per short code
+     */
+    private String loadLongUrl(String shortCode) {
+        // A load that finished just before this one started has already filled the local cache
+        CachedUrl localEntry = localUrlCache.get(shortCode);
+        if (localEntry != null) {
+            return resolve(shortCode, localEntry);
+        }
+        return loadFromDatabase(shortCode);
+    }
+    
+    /**
+     * Query the database and repopulate both cache tiers (or cache a negative entry)
+     */
+    private String loadFromDatabase(String shortCode) {
+        Url url = databaseBulkhead.call(() -> urlRepository.findByShortCode(shortCode))
+                .orElse(null);
+        // Expired links stay 410 after the expiry sweeper deactivates them; other inactive rows were deleted
+        if (url == null || (!url.getIsActive() && !url.isExpired())) {
+            cacheUrl(shortCode, CachedUrl.notFound());
+            throw new UrlNotFoundException("URL not found: " + shortCode);
+        }
+        
+        // Check expiration
+        if (url.isExpired()) {
+            cacheUrl(shortCode, CachedUrl.expired());
+            // Other instances may still hold it in their local cache
+            cacheInvalidationBus.invalidate(shortCode);
+            throw new UrlExpiredException("URL has expired: " + shortCode);
+        }
+        
+        // Cache for future requests
+        CachedUrl entry = CachedUrl.active(url.getLongUrl(), url.getExpiresAt());
+        cacheUrl(shortCode, entry);
+        localUrlCache.put(shortCode, entry);
+        
+        return url.getLongUrl();
+    }
+    
+    /**
+     * Turn a cached entry into the redirect target, or throw for a tombstone or a lapsed expiry
+     */
+    private String resolve(String shortCode, CachedUrl entry) {
+        switch (entry.getState()) {
+            case NOT_FOUND:
+                throw new UrlNotFoundException("URL not found: " + shortCode);
+            case EXPIRED:
+                throw new UrlExpiredException("URL has expired: " + shortCode);
+            default:
+                if (entry.isExpiredAt(Instant.now())) {
+                    throw new UrlExpiredException("URL has expired: " + shortCode);
+                }
+                return entry.getLongUrl();
+        }
+    }
+    
+    /**
+     * Reload a hot entry from the database before its Redis TTL runs out
+     */
+    private void refreshInBackground(String shortCode) {
+        if (urlLoads.isInFlight(shortCode)) {
+            return;
+        }
+        cacheRefreshExecutor.execute(() -> {
+            try {
+                urlLoads.execute(shortCode, () -> loadFromDatabase(shortCode));
+                log.debug("Refreshed cache entry ahead of expiry: {}", shortCode);
+            } catch (UrlNotFoundException | UrlExpiredException e) {
+                log.debug("Cache entry gone on refresh: {}", shortCode);
+            } catch (BulkheadFullException e) {
+                // Best-effort: the entry is still served until it expires
+                log.debug("Skipped cache refresh for {}: {}", shortCode, e.getMessage());
+            } catch (Exception e) {
+                log.error("Failed to refresh cache entry: {}", shortCode, e);
+            }
+        });
+    }
+    
+    /**
+     * Insert the URL under the next allocated short code. Allocated codes never collide with
+     * each other, only (rarely) with a custom alias or a legacy random code, so a taken code
+     * is simply skipped.
      */
-    private String generateUniqueShortCode() {
-        int attempts = 0;
-        while (attempts < AppConstants.MAX_SHORT_CODE_GENERATION_ATTEMPTS) {
-            String shortCode = ShortCodeGenerator.generateRandom();
-            if (!urlRepository.existsByShortCode(shortCode)) {
-                return shortCode;
+    private void insertWithGeneratedShortCode(Url url) {
+        for (int attempt = 0; attempt < AppConstants.MAX_SHORT_CODE_GENERATION_ATTEMPTS; attempt++) {
+            url.setShortCode(shortCodeAllocator.nextShortCode());
+            if (insertUrl(url)) {
+                return;
             }
-            attempts++;
+            log.warn("Allocated short code {} already taken, skipping", url.getShortCode());
         }
         throw new IllegalStateException("Failed to generate unique short code");
     }
     
     /**
-     * Cache URL in Redis
+     * Insert the URL row, returning false without failing the transaction if the code is taken
+     */
+    private boolean insertUrl(Url url) {
+        Long id = urlBulkRepository.insertIfAbsent(url.getShortCode(), url.getLongUrl(), url.getUserId(),
+                url.getCreatedAt(), url.getExpiresAt(), url.getCustomAlias());
+        url.setId(id);
+        return id != null;
+    }
+    
+    /**
+     * Cache newly created URLs in one pipelined Redis round trip
      */
-    private void cacheUrl(String shortCode, String longUrl) {
+    private void cacheUrls(List<Url> urls) {
+        Map<String, CachedUrl> entries = new LinkedHashMap<>();
+        for (Url url : urls) {
+            entries.put(url.getShortCode(), CachedUrl.active(url.getLongUrl(), url.getExpiresAt()));
+        }
         try {
-            String key = RedisKeys.urlCacheKey(shortCode);
-            redisTemplate.opsForValue().set(
-                key, 
-                longUrl, 
-                CacheConfig.URL_CACHE_TTL_SECONDS, 
-                TimeUnit.SECONDS
-            );
+            redisBulkhead.run(() -> urlCacheStore.putAll(entries, cacheRefreshPolicy::redisTtlSeconds));
         } catch (Exception e) {
-            log.error("Failed to cache URL: {}", shortCode, e);
+            log.error("Failed to cache {} URLs", entries.size(), e);
             // Don't fail the request if caching fails
         }
     }
     
     /**
-     * Get cached URL from Redis
+     * Cache an entry in Redis.
+     * Active links live until the default TTL or their own expiry, whichever is sooner;
+     * tombstones live for the short negative TTL.
      */
-    private String getCachedUrl(String shortCode) {
+    private void cacheUrl(String shortCode, CachedUrl entry) {
+        long ttlSeconds = entry.isActive()
+                ? cacheRefreshPolicy.redisTtlSeconds(entry)
+                : CacheConfig.NEGATIVE_CACHE_TTL_SECONDS;
+        if (ttlSeconds <= 0) {
+            // Expires within the second; the next read goes to the DB and caches a tombstone
+            return;
+        }
         try {
-            String key = RedisKeys.urlCacheKey(shortCode);
-            return redisTemplate.opsForValue().get(key);
+            redisBulkhead.run(() -> urlCacheStore.put(shortCode, entry, ttlSeconds));
         } catch (Exception e) {
-            log.error("Failed to get cached URL: {}", shortCode, e);
-            return null;
+            log.error("Failed to cache URL: {}", shortCode, e);
+            // Don't fail the request if caching fails
         }
     }
     
     /**
-     * Remove URL from cache
+     * Get cached entry from Redis.
+     * The store returns the remaining TTL with the entry to decide on an early background refresh.
      */
-    private void removeCachedUrl(String shortCode) {
+    private CachedUrl getCachedUrl(String shortCode) {
         try {
-            String key = RedisKeys.urlCacheKey(shortCode);
-            redisTemplate.delete(key);
+            CacheLookup lookup = redisBulkhead.call(() -> urlCacheStore.get(shortCode));
+            if (lookup == null) {
+                return null;
+            }
+            
+            CachedUrl entry = lookup.getEntry();
+            long ttlMillis = lookup.getTtlMillis();
+            if (isRefreshable(entry, ttlMillis) && cacheRefreshPolicy.shouldRefreshEarly(ttlMillis)) {
+                refreshInBackground(shortCode);
+            }
+            return entry;
         } catch (Exception e) {
-            log.error("Failed to remove cached URL: {}", shortCode, e);
+            log.error("Failed to get cached URL: {}", shortCode, e);
+            return null;
         }
     }
     
     /**
-     * Publish URL created event to Kafka
+     * An entry whose TTL was capped by the link's own expiry cannot be extended by reloading it
      */
-    private void publishUrlCreatedEvent(Url url) {
-        try {
-            UrlCreatedEvent event = UrlCreatedEvent.builder()
-                    .eventId(EventIdGenerator.generate())
-                    .timestamp(LocalDateTime.now())
-                    .eventType(EventType.URL_CREATED.getValue())
-                    .shortCode(url.getShortCode())
-                    .longUrl(url.getLongUrl())
-                    .userId(url.getUserId())
-                    .createdAt(url.getCreatedAt())
-                    .expiresAt(url.getExpiresAt())
-                    .customAlias(url.getCustomAlias())
-                    .build();
-            
-            kafkaTemplate.send(KafkaTopics.URL_LIFECYCLE_EVENTS, url.getShortCode(), event);
-            log.debug("Published URL created event: {}", url.getShortCode());
-        } catch (Exception e) {
-            log.error("Failed to publish URL created event", e);
-            // Don't fail the request if Kafka fails
+    private static boolean isRefreshable(CachedUrl entry, long ttlMillis) {
+        return entry.isActive() && entry.secondsUntilExpiry(Instant.now()) > ttlMillis / 1000 + 1;
+    }
+    
+    /**
+     * Run an action after the current transaction commits (immediately if there is none)
+     */
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
     
     /**
-     * Publish URL deleted event to Kafka
+     * URL created event for the outbox
      */
-    private void publishUrlDeletedEvent(Url url, Long userId) {
-        try {
-            UrlDeletedEvent event = UrlDeletedEvent.builder()
-                    .eventId(EventIdGenerator.generate())
-                    .timestamp(LocalDateTime.now())
-                    .eventType(EventType.URL_DELETED.getValue())
-                    .shortCode(url.getShortCode())
-                    .userId(userId)
-                    .deletedAt(LocalDateTime.now())
-                    .build();
-            
-            kafkaTemplate.send(KafkaTopics.URL_LIFECYCLE_EVENTS, url.getShortCode(), event);
-            log.debug("Published URL deleted event: {}", url.getShortCode());
-        } catch (Exception e) {
-            log.error("Failed to publish URL deleted event", e);
+    private UrlCreatedEvent urlCreatedEvent(Url url) {
+        return UrlCreatedEvent.builder()
+                .eventId(EventIdGenerator.generate())
+                .timestamp(LocalDateTime.now())
+                .eventType(EventType.URL_CREATED.getValue())
+                .shortCode(url.getShortCode())
+                .longUrl(url.getLongUrl())
+                .userId(url.getUserId())
+                .createdAt(url.getCreatedAt())
+                .expiresAt(url.getExpiresAt())
+                .customAlias(url.getCustomAlias())
+                .build();
+    }
+    
+    /**
+     * URL deleted event for the outbox
+     */
+    private UrlDeletedEvent urlDeletedEvent(Url url, Long userId) {
+        return UrlDeletedEvent.builder()
+                .eventId(EventIdGenerator.generate())
+                .timestamp(LocalDateTime.now())
+                .eventType(EventType.URL_DELETED.getValue())
+                .shortCode(url.getShortCode())
+                .userId(userId)
+                .deletedAt(LocalDateTime.now())
+                .build();
+    }
+    
+    /**
+     * Map a newly created URL to the shorten response
+     */
+    private ShortenUrlResponse mapToShortenResponse(Url url) {
+        return ShortenUrlResponse.builder()
+                .shortCode(url.getShortCode())
+                .shortUrl(AppConstants.BASE_URL + "/" + url.getShortCode())
+                .longUrl(url.getLongUrl())
+                .createdAt(url.getCreatedAt())
+                .expiresAt(url.getExpiresAt())
+                .build();
+    }
+    
+    private static BatchShortenUrlResponse.Result failedResult(int index, HttpStatus status, String error) {
+        return BatchShortenUrlResponse.Result.builder()
+                .index(index)
+                .status(status.value())
+                .error(error)
+                .build();
+    }
+    
+    /**
+     * Batch item waiting to be inserted, with its position in the request
+     */
+    private record PendingUrl(int index, Url url) {}
+    
+    /**
+     * Map a listing projection to details response
+     */
+    private UrlDetailsResponse mapToDetailsResponse(UserUrlView url) {
+        long clickCount = url.getClickCount();
+        if (includePendingClicks) {
+            clickCount += clickCounterBuffer.pendingClicks(url.getShortCode());
         }
+        return UrlDetailsResponse.builder()
+                .id(url.getId())
+                .shortCode(url.getShortCode())
+                .longUrl(url.getLongUrl())
+                .clickCount(clickCount)
+                .createdAt(url.getCreatedAt())
+                .expiresAt(url.getExpiresAt())
+                .isActive(true)
+                .customAlias(url.getCustomAlias())
+                .build();
     }
     
     /**
      * Map URL entity to details response
      */
     private UrlDetailsResponse mapToDetailsResponse(Url url) {
+        long clickCount = url.getClickCount();
+        if (includePendingClicks) {
+            clickCount += clickCounterBuffer.pendingClicks(url.getShortCode());
+        }
         return UrlDetailsResponse.builder()
                 .id(url.getId())
                 .shortCode(url.getShortCode())
                 .longUrl(url.getLongUrl())
-                .clickCount(url.getClickCount())
+                .clickCount(clickCount)
                 .createdAt(url.getCreatedAt())
                 .expiresAt(url.getExpiresAt())
                 .isActive(url.getIsActive())
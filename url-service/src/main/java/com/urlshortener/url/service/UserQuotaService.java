@@ -0,0 +1,122 @@
+package com.urlshortener.url.service;
+
+import com.urlshortener.url.repository.UserQuotaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-user URL limits, enforced against a counter row per user (user_quota) rather than by
+ * counting the user's URLs on every shorten.
+ *
+ * Reservations run in the caller's transaction: the counter is checked and incremented in one
+ * statement that locks the user's row until the URLs are committed, and a rollback gives the
+ * reservation back. Each user's limit comes from their tier (user_quota.tier, or default-tier
+ * when unset); tiers are configured as name:limit pairs. Counters are created from a real count
+ * on a user's first shorten, and a periodic reconciliation corrects any drift, e.g. after a bulk import.
+ */
+@Service
+@Slf4j
+public class UserQuotaService {
+
+    private static final int RECONCILE_BATCH_SIZE = 1000;
+
+    private final UserQuotaRepository userQuotaRepository;
+    private final String[] tierNames;
+    private final Long[] tierLimits;
+    private final long defaultLimit;
+    private final Duration reconcileGrace;
+
+    public UserQuotaService(
+            UserQuotaRepository userQuotaRepository,
+            @Value("${user-quota.tiers:free:1000,standard:100000,enterprise:1000000}") String tiers,
+            @Value("${user-quota.default-tier:standard}") String defaultTier,
+            @Value("${user-quota.reconcile.grace:60s}") Duration reconcileGrace) {
+        this.userQuotaRepository = userQuotaRepository;
+        this.reconcileGrace = reconcileGrace;
+
+        Map<String, Long> limits = parseTiers(tiers);
+        if (!limits.containsKey(defaultTier)) {
+            throw new IllegalStateException("user-quota.default-tier " + defaultTier + " is not one of " + limits.keySet());
+        }
+        this.tierNames = limits.keySet().toArray(new String[0]);
+        this.tierLimits = limits.values().toArray(new Long[0]);
+        this.defaultLimit = limits.get(defaultTier);
+        log.info("User quota tiers {}, default {}", limits, defaultTier);
+    }
+
+    /**
+     * Reserve up to count URLs of the user's quota in the current transaction,
+     * which must be the one that inserts them
+     * @return number reserved, from 0 (user at their limit) to count
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int reserve(Long userId, int count) {
+        int granted = userQuotaRepository.reserve(userId, count, tierNames, tierLimits, defaultLimit);
+        if (granted < 0) {
+            // No counter yet: seed it from the user's URLs and try again
+            userQuotaRepository.initialize(userId);
+            granted = userQuotaRepository.reserve(userId, count, tierNames, tierLimits, defaultLimit);
+        }
+        return Math.max(granted, 0);
+    }
+
+    /**
+     * Return reserved units that did not become URLs
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Long userId, int count) {
+        if (count > 0) {
+            userQuotaRepository.release(userId, count);
+        }
+    }
+
+    /**
+     * Reset counters that drifted from the real URL counts, a batch of users at a time
+     */
+    @Scheduled(initialDelayString = "${user-quota.reconcile.interval:PT6H}",
+            fixedDelayString = "${user-quota.reconcile.interval:PT6H}")
+    public void reconcile() {
+        long startTime = System.currentTimeMillis();
+        long lastUserId = 0;
+        int users = 0;
+        int corrected = 0;
+        try {
+            List<Long> userIds;
+            do {
+                userIds = userQuotaRepository.findUserIdsAfter(lastUserId, RECONCILE_BATCH_SIZE);
+                if (userIds.isEmpty()) {
+                    break;
+                }
+                corrected += userQuotaRepository.reconcile(userIds, reconcileGrace.toSeconds());
+                users += userIds.size();
+                lastUserId = userIds.get(userIds.size() - 1);
+            } while (userIds.size() == RECONCILE_BATCH_SIZE);
+
+            log.info("Reconciled URL quota counters of {} users ({} corrected) in {}ms",
+                    users, corrected, System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            log.error("Failed to reconcile URL quota counters after user {}", lastUserId, e);
+        }
+    }
+
+    private static Map<String, Long> parseTiers(String tiers) {
+        Map<String, Long> limits = new LinkedHashMap<>();
+        for (String tier : tiers.split(",")) {
+            String[] parts = tier.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalStateException("Invalid user-quota.tiers entry '" + tier + "', expected name:limit");
+            }
+            limits.put(parts[0].trim(), Long.parseLong(parts[1].trim()));
+        }
+        return limits;
+    }
+}
@@ -0,0 +1,12 @@
+package com.urlshortener.url.service;
+
+import com.urlshortener.common.dto.UrlDetailsResponse;
+
+import java.util.List;
+
+/**
+ * One page of a user's URLs, newest first
+ * @param nextCursor token for the following page, or null if this is the last page
+ */
+public record UserUrlPage(List<UrlDetailsResponse> urls, String nextCursor) {
+}
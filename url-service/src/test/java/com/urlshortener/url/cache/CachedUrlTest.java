@@ -0,0 +1,59 @@
+package com.urlshortener.url.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedUrlTest {
+
+    @Test
+    void encode_withExpiry_roundTrips() {
+        LocalDateTime expiresAt = LocalDateTime.now().plusDays(7).withNano(0);
+        CachedUrl entry = CachedUrl.active("https://example.com/a|b", expiresAt);
+
+        CachedUrl decoded = CachedUrl.decode(entry.encode());
+
+        assertTrue(decoded.isActive());
+        assertTrue(decoded.hasExpiry());
+        assertEquals("https://example.com/a|b", decoded.getLongUrl());
+        assertFalse(decoded.isExpiredAt(Instant.now()));
+        assertTrue(decoded.isExpiredAt(Instant.now().plusSeconds(8 * 86400)));
+    }
+
+    @Test
+    void encode_withoutExpiry_roundTrips() {
+        CachedUrl decoded = CachedUrl.decode(CachedUrl.active("https://example.com", null).encode());
+
+        assertTrue(decoded.isActive());
+        assertFalse(decoded.hasExpiry());
+        assertEquals(Long.MAX_VALUE, decoded.secondsUntilExpiry(Instant.now()));
+    }
+
+    @Test
+    void decode_withTombstones_returnsState() {
+        assertEquals(CachedUrl.State.NOT_FOUND, CachedUrl.decode(CachedUrl.notFound().encode()).getState());
+        assertEquals(CachedUrl.State.EXPIRED, CachedUrl.decode(CachedUrl.expired().encode()).getState());
+    }
+
+    @Test
+    void decode_withLegacyValues_returnsCompatibleEntries() {
+        CachedUrl plain = CachedUrl.decode("https://example.com");
+        assertTrue(plain.isActive());
+        assertEquals("https://example.com", plain.getLongUrl());
+
+        assertEquals(CachedUrl.State.NOT_FOUND, CachedUrl.decode("!404").getState());
+        assertEquals(CachedUrl.State.EXPIRED, CachedUrl.decode("!410").getState());
+        assertNull(CachedUrl.decode(null));
+    }
+
+    @Test
+    void secondsUntilExpiry_withPastExpiry_returnsZero() {
+        CachedUrl entry = CachedUrl.active("https://example.com", LocalDateTime.now().minusHours(1));
+
+        assertEquals(0, entry.secondsUntilExpiry(Instant.now()));
+        assertTrue(entry.isExpiredAt(Instant.now()));
+    }
+}
@@ -0,0 +1,104 @@
+package com.urlshortener.url.click;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClickRingBufferTest {
+
+    @Test
+    void poll_returnsClicksInOfferOrder() {
+        ClickRingBuffer buffer = new ClickRingBuffer(8);
+
+        buffer.offer("a", "1.1.1.1", "ua", null, 1L, 10L);
+        buffer.offer("b", "2.2.2.2", null, "ref", 2L, 20L);
+
+        ClickEvent first = buffer.poll();
+        ClickEvent second = buffer.poll();
+        assertEquals("a", first.getShortCode());
+        assertEquals("1.1.1.1", first.getIpAddress());
+        assertEquals("ua", first.getUserAgent());
+        assertEquals(1L, first.getAccessedAtMillis());
+        assertEquals("b", second.getShortCode());
+        assertEquals("ref", second.getReferer());
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    void offer_whenFull_returnsFalseUntilSlotFreed() {
+        ClickRingBuffer buffer = new ClickRingBuffer(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer("c" + i, null, null, null, i, i));
+        }
+        assertFalse(buffer.offer("overflow", null, null, null, 0, 0));
+        assertEquals(4, buffer.size());
+
+        assertEquals("c0", buffer.poll().getShortCode());
+        assertTrue(buffer.offer("c4", null, null, null, 4, 4));
+    }
+
+    @Test
+    void drainTo_respectsMaxClicks() {
+        ClickRingBuffer buffer = new ClickRingBuffer(16);
+        for (int i = 0; i < 10; i++) {
+            buffer.offer("c" + i, null, null, null, i, i);
+        }
+
+        List<ClickEvent> batch = new ArrayList<>();
+        assertEquals(6, buffer.drainTo(batch, 6));
+        assertEquals(6, batch.size());
+        assertEquals(4, buffer.size());
+    }
+
+    @Test
+    void concurrentProducersAndConsumers_deliverEveryClickOnce() throws InterruptedException {
+        ClickRingBuffer buffer = new ClickRingBuffer(64);
+        int producers = 4;
+        int clicksPerProducer = 20_000;
+        int total = producers * clicksPerProducer;
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger consumed = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(producers + 2);
+
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            new Thread(() -> {
+                for (int i = 0; i < clicksPerProducer; i++) {
+                    while (!buffer.offer(producer + "-" + i, null, null, null, i, i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        for (int c = 0; c < 2; c++) {
+            new Thread(() -> {
+                while (consumed.get() < total) {
+                    ClickEvent click = buffer.poll();
+                    if (click != null) {
+                        assertTrue(seen.add(click.getShortCode()), "Duplicate " + click.getShortCode());
+                        consumed.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+
+        done.await();
+        assertEquals(total, seen.size());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void constructor_withNonPowerOfTwo_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new ClickRingBuffer(100));
+    }
+}
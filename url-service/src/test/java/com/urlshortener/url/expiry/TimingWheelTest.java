@@ -0,0 +1,60 @@
+package com.urlshortener.url.expiry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    void advance_firesItemsOnTheTickTheyAreDue() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 3, 0);
+        assertTrue(wheel.schedule("soon", 2500));
+        assertTrue(wheel.schedule("later", 5000));
+        List<String> due = new ArrayList<>();
+
+        wheel.advance(2999, due::add);
+        assertEquals(List.of(), due);
+        wheel.advance(3000, due::add);
+        assertEquals(List.of("soon"), due);
+        wheel.advance(10_000, due::add);
+        assertEquals(List.of("soon", "later"), due);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_cascadesItemsFromHigherLevels() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, 4, 4, 3);
+        for (int deadline = 4; deadline < 200; deadline += 7) {
+            assertTrue(wheel.schedule(deadline, deadline));
+        }
+        List<Integer> due = new ArrayList<>();
+
+        for (long now = 4; now < 200; now++) {
+            int before = due.size();
+            wheel.advance(now, due::add);
+            for (int i = before; i < due.size(); i++) {
+                assertEquals(now, (long) due.get(i));
+            }
+        }
+        assertEquals(28, due.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void schedule_rejectsPastDeadlinesAndDeadlinesBeyondRange() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 2, 10_000);
+
+        assertFalse(wheel.schedule("past", 9_000));
+        assertFalse(wheel.schedule("now", 10_000));
+        assertFalse(wheel.schedule("beyond", 10_000 + 64_000));
+        assertTrue(wheel.schedule("edge", 10_000 + 63_000));
+        assertEquals(1, wheel.size());
+
+        wheel.clear();
+        assertEquals(0, wheel.size());
+    }
+}
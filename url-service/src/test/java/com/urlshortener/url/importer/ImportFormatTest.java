@@ -0,0 +1,62 @@
+package com.urlshortener.url.importer;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportFormatTest {
+
+    @Test
+    void parseCsv_withQuotedFieldsAndOptionalColumns_parsesRecord() {
+        ImportRecord record = ImportFormat.CSV.parse(
+                "abc123,\"https://example.com/?q=a,b&t=\"\"x\"\"\",42,2024-01-15 10:30:00,,7");
+
+        assertEquals("abc123", record.shortCode());
+        assertEquals("https://example.com/?q=a,b&t=\"x\"", record.longUrl());
+        assertEquals(42L, record.userId());
+        assertEquals(LocalDateTime.of(2024, 1, 15, 10, 30), record.createdAt());
+        assertNull(record.expiresAt());
+        assertEquals(7L, record.clickCount());
+        assertNull(record.validationError());
+    }
+
+    @Test
+    void parseNdjson_withMissingOptionalFields_parsesRecord() {
+        ImportRecord record = ImportFormat.NDJSON.parse(
+                "{\"shortCode\":\"Xy9\",\"longUrl\":\"https://example.com\",\"expiresAt\":\"2030-01-01T00:00:00\"}");
+
+        assertEquals("Xy9", record.shortCode());
+        assertEquals("https://example.com", record.longUrl());
+        assertNull(record.userId());
+        assertNull(record.clickCount());
+        assertEquals(LocalDateTime.of(2030, 1, 1, 0, 0), record.expiresAt());
+    }
+
+    @Test
+    void parse_withMalformedLine_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> ImportFormat.CSV.parse("abc123"));
+        assertThrows(IllegalArgumentException.class, () -> ImportFormat.CSV.parse("abc,\"https://example.com"));
+        assertThrows(IllegalArgumentException.class, () -> ImportFormat.CSV.parse("abc,https://example.com,x"));
+        assertThrows(IllegalArgumentException.class, () -> ImportFormat.CSV.parse("abc,https://example.com,,yesterday"));
+        assertThrows(IllegalArgumentException.class, () -> ImportFormat.NDJSON.parse("{\"shortCode\":"));
+    }
+
+    @Test
+    void validationError_withInvalidCodeOrUrl_reportsReason() {
+        assertNotNull(ImportFormat.CSV.parse("bad-code,https://example.com").validationError());
+        assertNotNull(ImportFormat.CSV.parse("abcdefghijk,https://example.com").validationError());
+        assertNotNull(ImportFormat.CSV.parse("abc123,ftp://example.com").validationError());
+        assertNotNull(ImportFormat.CSV.parse("abc123,").validationError());
+    }
+
+    @Test
+    void isHeader_andFromFileName() {
+        assertTrue(ImportFormat.CSV.isHeader("short_code,long_url"));
+        assertFalse(ImportFormat.CSV.isHeader("abc123,https://example.com"));
+        assertEquals(ImportFormat.CSV, ImportFormat.fromFileName("legacy.CSV"));
+        assertEquals(ImportFormat.NDJSON, ImportFormat.fromFileName("legacy.jsonl"));
+        assertThrows(IllegalArgumentException.class, () -> ImportFormat.fromFileName("legacy.txt"));
+    }
+}
@@ -1,5 +1,7 @@
 package com.urlshortener.url.integration;
 
+import com.urlshortener.common.dto.BatchShortenUrlRequest;
+import com.urlshortener.common.dto.BatchShortenUrlResponse;
 import com.urlshortener.common.dto.ShortenUrlRequest;
 import com.urlshortener.common.dto.ShortenUrlResponse;
 import com.urlshortener.common.dto.UrlDetailsResponse;
@@ -10,6 +12,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.annotation.DirtiesContext;
@@ -23,6 +26,8 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest(
@@ -126,7 +131,7 @@ class UrlServiceIntegrationTest {
 
         ResponseEntity<UrlDetailsResponse> getResponse = restTemplate.exchange(
                 "/api/urls/" + shortCode,
-                org.springframework.http.HttpMethod.GET,
+                HttpMethod.GET,
                 getEntity,
                 UrlDetailsResponse.class
         );
@@ -179,11 +184,84 @@ class UrlServiceIntegrationTest {
 
         ResponseEntity<UrlDetailsResponse> response = restTemplate.exchange(
                 "/api/urls/nonexistent",
-                org.springframework.http.HttpMethod.GET,
+                HttpMethod.GET,
                 entity,
                 UrlDetailsResponse.class
         );
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
+
+    @Test
+    void shortenBatch_reportsPerItemResults() {
+        ShortenUrlRequest valid = new ShortenUrlRequest();
+        valid.setLongUrl("https://www.example.com/batch");
+        ShortenUrlRequest invalid = new ShortenUrlRequest();
+        invalid.setLongUrl("not-a-url");
+        ShortenUrlRequest aliased = new ShortenUrlRequest();
+        aliased.setLongUrl("https://www.example.com/alias");
+        aliased.setCustomAlias("batchal");
+        ShortenUrlRequest repeatedAlias = new ShortenUrlRequest();
+        repeatedAlias.setLongUrl("https://www.example.com/alias2");
+        repeatedAlias.setCustomAlias("batchal");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-User-Id", "1");
+        HttpEntity<BatchShortenUrlRequest> entity = new HttpEntity<>(
+                new BatchShortenUrlRequest(List.of(valid, invalid, aliased, repeatedAlias)), headers);
+
+        ResponseEntity<BatchShortenUrlResponse> response = restTemplate.postForEntity(
+                "/api/urls/shorten/batch",
+                entity,
+                BatchShortenUrlResponse.class
+        );
+
+        assertEquals(HttpStatus.MULTI_STATUS, response.getStatusCode());
+        BatchShortenUrlResponse body = response.getBody();
+        assertNotNull(body);
+        assertEquals(2, body.getCreated());
+        assertEquals(2, body.getFailed());
+        assertEquals(201, body.getResults().get(0).getStatus());
+        assertEquals("https://www.example.com/batch", body.getResults().get(0).getUrl().getLongUrl());
+        assertEquals(400, body.getResults().get(1).getStatus());
+        assertEquals("batchal", body.getResults().get(2).getUrl().getShortCode());
+        assertEquals(409, body.getResults().get(3).getStatus());
+    }
+
+    @Test
+    void getUserUrls_withLimit_pagesNewestFirstWithCursor() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-User-Id", "1");
+        String[] shortCodes = new String[3];
+        for (int i = 0; i < shortCodes.length; i++) {
+            ShortenUrlRequest request = new ShortenUrlRequest();
+            request.setLongUrl("https://www.example.com/page/" + i);
+            shortCodes[i] = restTemplate.postForEntity("/api/urls/shorten",
+                    new HttpEntity<>(request, headers), ShortenUrlResponse.class).getBody().getShortCode();
+        }
+
+        ResponseEntity<UrlDetailsResponse[]> firstPage = restTemplate.exchange(
+                "/api/urls/user/1?limit=2",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                UrlDetailsResponse[].class
+        );
+
+        assertEquals(HttpStatus.OK, firstPage.getStatusCode());
+        assertEquals(2, firstPage.getBody().length);
+        assertEquals(shortCodes[2], firstPage.getBody()[0].getShortCode());
+        assertEquals(shortCodes[1], firstPage.getBody()[1].getShortCode());
+        String cursor = firstPage.getHeaders().getFirst("X-Next-Cursor");
+        assertNotNull(cursor);
+
+        ResponseEntity<UrlDetailsResponse[]> secondPage = restTemplate.exchange(
+                "/api/urls/user/1?limit=2&cursor=" + cursor,
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                UrlDetailsResponse[].class
+        );
+
+        assertEquals(HttpStatus.OK, secondPage.getStatusCode());
+        assertEquals(shortCodes[0], secondPage.getBody()[0].getShortCode());
+    }
 }
@@ -0,0 +1,104 @@
+package com.urlshortener.url.replica;
+
+import com.urlshortener.common.util.ShortCodeGenerator;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Memory per entry and lookup latency of OffHeapUrlMap at a given size. Not a unit test; run with
+ *
+ *   mvn -pl common,url-service -am test-compile
+ *   java -Xmx1g -XX:MaxDirectMemorySize=16g \
+ *        -cp url-service/target/test-classes:url-service/target/classes:common/target/classes \
+ *        com.urlshortener.url.replica.OffHeapUrlMapBenchmark 10000000
+ *
+ * The packed keys are kept in a heap array (8 bytes per entry) so lookups do not allocate
+ * key strings; each hit still allocates the returned URL String.
+ */
+public class OffHeapUrlMapBenchmark {
+
+    private static final int SAMPLES = 1_000_000;
+
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int segments = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        long lookups = args.length > 2 ? Long.parseLong(args[2]) : 20_000_000L;
+
+        System.out.printf("Entries: %,d  segments: %d  lookups: %,d%n", entries, segments, lookups);
+        long[] keys = new long[entries];
+        for (int i = 0; i < entries; i++) {
+            keys[i] = ShortCodeKey.pack(ShortCodeGenerator.generateFromId(i + 1L));
+        }
+        long heapBefore = usedHeap();
+
+        OffHeapUrlMap map = new OffHeapUrlMap(entries, segments);
+        long start = System.nanoTime();
+        for (int i = 0; i < entries; i++) {
+            map.put(keys[i], url(i + 1L), 0);
+        }
+        long loadNanos = System.nanoTime() - start;
+        System.out.printf("Load: %.1fs (%,.0f puts/s)%n", loadNanos / 1e9, entries / (loadNanos / 1e9));
+        System.out.printf("Off-heap: %,d MB, %.1f bytes/entry%n",
+                map.offHeapBytes() / (1024 * 1024), map.offHeapBytes() / (double) entries);
+        System.out.printf("Heap growth: %,d KB%n", Math.max(0, usedHeap() - heapBefore) / 1024);
+
+        // Warm up, then time a sample of lookups individually and the rest in bulk
+        lookup(map, keys, Math.min(lookups, 5_000_000));
+        long[] latencies = new long[SAMPLES];
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTime();
+
+        start = System.nanoTime();
+        long checksum = lookup(map, keys, lookups);
+        long lookupNanos = System.nanoTime() - start;
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < SAMPLES; i++) {
+            long key = keys[random.nextInt(entries)];
+            long t0 = System.nanoTime();
+            String url = map.get(key, 0);
+            latencies[i] = System.nanoTime() - t0;
+            checksum += url.length();
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("Lookups: %,.0f/s on one thread (checksum %d)%n", lookups / (lookupNanos / 1e9), checksum);
+        System.out.printf("Latency ns: p50=%d p99=%d p99.9=%d max=%d%n",
+                latencies[SAMPLES / 2], latencies[SAMPLES * 99 / 100], latencies[SAMPLES * 999 / 1000],
+                latencies[SAMPLES - 1]);
+        System.out.printf("GC during lookups: %d collections, %dms%n",
+                gcCount() - gcCountBefore, gcTime() - gcTimeBefore);
+    }
+
+    private static long lookup(OffHeapUrlMap map, long[] keys, long lookups) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long checksum = 0;
+        for (long i = 0; i < lookups; i++) {
+            checksum += map.get(keys[random.nextInt(keys.length)], 0).length();
+        }
+        return checksum;
+    }
+
+    private static String url(long id) {
+        return "https://www.example.com/articles/" + id + "/a-typical-article-slug?utm_source=newsletter";
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+}
@@ -0,0 +1,111 @@
+package com.urlshortener.url.replica;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapUrlMapTest {
+
+    private static final long NOW = 1_700_000_000L;
+
+    @Test
+    void shortCodeKey_isUniqueAndRejectsInvalidCodes() {
+        Set<Long> keys = new HashSet<>();
+        for (String code : new String[]{"a", "aa", "aaaaaaa", "abc1234", "abc1235", "my-link_1", "ZZZZZZZZZZ", "0"}) {
+            long key = ShortCodeKey.pack(code);
+            assertNotEquals(ShortCodeKey.NONE, key);
+            assertNotEquals(-1L, key);
+            assertTrue(keys.add(key), code);
+        }
+
+        assertEquals(ShortCodeKey.NONE, ShortCodeKey.pack(""));
+        assertEquals(ShortCodeKey.NONE, ShortCodeKey.pack("abcdefghijk"));
+        assertEquals(ShortCodeKey.NONE, ShortCodeKey.pack("abc.def"));
+        assertEquals(ShortCodeKey.NONE, ShortCodeKey.pack("abcé"));
+    }
+
+    @Test
+    void get_returnsPutValuesUntilRemoved() {
+        OffHeapUrlMap map = new OffHeapUrlMap(16, 4);
+        long key = ShortCodeKey.pack("abc1234");
+
+        map.put(key, "https://example.com/first", 0);
+        assertEquals("https://example.com/first", map.get(key, NOW));
+
+        map.put(key, "https://example.com/ünïcode", 0);
+        assertEquals("https://example.com/ünïcode", map.get(key, NOW));
+        assertEquals(1, map.size());
+
+        assertTrue(map.remove(key));
+        assertNull(map.get(key, NOW));
+        assertFalse(map.remove(key));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void get_treatsExpiredEntriesAsMissing() {
+        OffHeapUrlMap map = new OffHeapUrlMap(16, 1);
+        long key = ShortCodeKey.pack("expires");
+
+        map.put(key, "https://example.com", NOW + 60);
+
+        assertEquals("https://example.com", map.get(key, NOW));
+        assertNull(map.get(key, NOW + 60));
+    }
+
+    @Test
+    void map_growsAndCompactsWithoutLosingEntries() {
+        OffHeapUrlMap map = new OffHeapUrlMap(16, 2);
+        Map<Long, String> expected = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            long key = ShortCodeKey.pack(Integer.toString(i, 36));
+            String url = "https://example.com/" + i;
+            map.put(key, url, 0);
+            expected.put(key, url);
+        }
+        // Overwrite and remove enough to trigger compaction
+        for (int i = 0; i < 20_000; i++) {
+            long key = ShortCodeKey.pack(Integer.toString(i, 36));
+            if (i % 2 == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                String url = "https://example.com/updated/" + i;
+                map.put(key, url, 0);
+                expected.put(key, url);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        assertTrue(map.garbageBytes() < map.offHeapBytes());
+        expected.forEach((key, url) -> assertEquals(url, map.get(key, NOW)));
+    }
+
+    @Test
+    void snapshot_roundTripsEntriesAndOffsets() throws IOException {
+        Path file = Files.createTempDirectory("replica").resolve("replica.snapshot");
+        OffHeapUrlMap map = new OffHeapUrlMap(16, 4);
+        map.put(ShortCodeKey.pack("abc1234"), "https://example.com/a", 0);
+        map.put(ShortCodeKey.pack("custom-1"), "https://example.com/b", NOW + 3600);
+
+        UrlReplicaSnapshot snapshot = new UrlReplicaSnapshot(file);
+        snapshot.write(map, Map.of(0, 42L, 1, 7L));
+        OffHeapUrlMap loaded = new OffHeapUrlMap(16, 4);
+        Map<Integer, Long> offsets = snapshot.read(loaded, Duration.ofHours(1));
+
+        assertEquals(Map.of(0, 42L, 1, 7L), offsets);
+        assertEquals(2, loaded.size());
+        assertEquals("https://example.com/a", loaded.get(ShortCodeKey.pack("abc1234"), NOW));
+        assertEquals("https://example.com/b", loaded.get(ShortCodeKey.pack("custom-1"), NOW));
+        assertNull(loaded.get(ShortCodeKey.pack("custom-1"), NOW + 3600));
+    }
+}
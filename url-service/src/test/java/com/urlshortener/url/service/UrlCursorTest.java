@@ -0,0 +1,27 @@
+package com.urlshortener.url.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UrlCursorTest {
+
+    @Test
+    void encode_roundTripsWithMicrosecondPrecision() {
+        UrlCursor cursor = new UrlCursor(LocalDateTime.of(2024, 1, 15, 10, 30, 0, 123_456_000), 42);
+
+        String token = cursor.encode();
+
+        assertEquals(cursor, UrlCursor.decode(token));
+        assertTrue(token.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void decode_withMalformedToken_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> UrlCursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> UrlCursor.decode("MjAyNC0wMS0xNVQxMDozMHx4"));
+        assertThrows(IllegalArgumentException.class, () -> UrlCursor.decode("MjAyNA"));
+    }
+}